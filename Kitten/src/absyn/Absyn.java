@@ -3,7 +3,9 @@ package absyn;
 import java.io.FileWriter;
 import java.io.IOException;
 
+import errorMsg.ErrorMsg;
 import semantical.TypeChecker;
+import types.CodeSignature;
 
 /**
  * A node of abstract syntax.
@@ -69,6 +71,19 @@ public abstract class Absyn {
 		return pos;
 	}
 
+	/**
+	 * Yields the line in the source file of the beginning of
+	 * the concrete syntax represented by this abstract syntax.
+	 *
+	 * @param where the method or constructor where this abstract syntax occurs
+	 * @return the line, counting from 1, or 0 if it is not known
+	 */
+
+	protected final int getLine(CodeSignature where) {
+		ErrorMsg errorMsg = where.getDefiningClass().getErrorMsg();
+		return errorMsg != null ? errorMsg.getLine(pos) : 0;
+	}
+
 	/**
 	 * Yields a the string for labeling the class of abstract syntax represented by
 	 * this node. By default, this is the name of the class of abstract
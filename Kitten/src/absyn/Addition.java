@@ -31,13 +31,14 @@ public class Addition extends ArithmeticBinOp {
 	 * computation on the left and right sides of this binary operation.
 	 * Namely, an {@code add} bytecode.
 	 *
+	 * @param line the line of the source code of this binary expression
 	 * @param type the type of the values of the left and right sides of this
 	 *             binary expression
 	 * @return an {@code add} bytecode
 	 */
 
 	@Override
-	protected BinOpBytecode operator(Type type) {
-		return new ADD((NumericalType) type);
+	protected BinOpBytecode operator(int line, Type type) {
+		return new ADD(line, (NumericalType) type);
 	}
 }
\ No newline at end of file
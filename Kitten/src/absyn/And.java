@@ -29,13 +29,14 @@ public class And extends BooleanBinOp {
 	 * A binary operation-specific bytecode that performs a binary
 	 * computation on the left and right sides of this binary operation.
 	 *
+	 * @param line the line of the source code of this binary expression
 	 * @param type the type of the values of the left and right sides of this
 	 *             binary expression
 	 * @return an {@code and} bytecode
 	 */
 
 	@Override
-	protected BinOpBytecode operator(Type type) {
-		return new AND();
+	protected BinOpBytecode operator(int line, Type type) {
+		return new AND(line);
 	}
 }
\ No newline at end of file
@@ -114,10 +114,11 @@ public class Assert extends Command {
         ClassType s = ClassType.mk("String");
         MethodSignature output = s.methodLookup("output", TypeList.EMPTY);
         
-        NEWSTRING ns = new NEWSTRING(failureMessage);
-        VIRTUALCALL vc = new VIRTUALCALL(s, output);
-        CONST c = new CONST(0);
-        RETURN r = new RETURN(IntType.INSTANCE);
+        int line = getLine(where);
+        NEWSTRING ns = new NEWSTRING(line, failureMessage);
+        VIRTUALCALL vc = new VIRTUALCALL(line, s, output);
+        CONST c = new CONST(line, 0);
+        RETURN r = new RETURN(line, IntType.INSTANCE);
         
         // Creazione del blocco da eseguire nel caso in cui l'assert fallisce
         Block error = new Block(r);
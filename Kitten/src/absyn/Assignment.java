@@ -104,6 +104,14 @@ public class Assignment extends Command {
     	if (!right.canBeAssignedTo(left))
     		error(right + " cannot be assigned to " + left);
 
+    	// the iterations of a parallel loop run concurrently, hence they
+    	// can only modify their own local variables and the elements of arrays
+    	if (checker.isInParallelLoop())
+    		if (lvalue instanceof Variable && checker.isDeclaredOutsideParallelLoop(((Variable) lvalue).getName()))
+    			error("a parallel loop cannot modify variable \"" + ((Variable) lvalue).getName() + "\" declared outside its body");
+    		else if (lvalue instanceof FieldAccess)
+    			error("a parallel loop cannot modify fields");
+
     	// the type-checker is not modified
     	return checker;
     }
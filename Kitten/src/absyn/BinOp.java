@@ -83,7 +83,7 @@ public abstract class BinOp extends Expression {
 	 * The result is a piece of code which pushes onto the stack
 	 * the value of the expression (namely, the translation of the
 	 * left and right sides of the binary expression, followed by
-	 * the binary bytecode returned by {@link #operator(Type)}
+	 * the binary bytecode returned by {@link #operator(int, Type)}
 	 * and that performs a binary operation-specific
 	 * computation on the values of the left and right-hand sides)
 	 * followed by the given {@code continuation}.
@@ -101,18 +101,19 @@ public abstract class BinOp extends Expression {
 
 		return getLeft().translateAs
 			(where, type,getRight().translateAs
-				(where, type, operator(type).followedBy(continuation)));
+				(where, type, operator(getLine(where), type).followedBy(continuation)));
 	}
 
 	/**
 	 * A binary operation-specific bytecode that performs a binary
 	 * computation on the left and right-hand sides of this binary operator.
 	 *
+	 * @param line the line of the source code of this binary expression
 	 * @param type the type of the values computed by the left and right-hand
 	 *             sides of this binary expression
 	 * @return a binary bytecode that performs a binary operation-specific
 	 *         computation on the values of the left and right-hand sides
 	 */
 
-	protected abstract BinOpBytecode operator(Type type);
+	protected abstract BinOpBytecode operator(int line, Type type);
 }
\ No newline at end of file
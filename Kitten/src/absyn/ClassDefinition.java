@@ -6,11 +6,14 @@ import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
 
+import semantical.TypeChecker;
 import translation.Program;
 import types.ClassMemberSignature;
 import types.ClassType;
+import types.Intrinsics;
 import types.MethodSignature;
 import types.TypeList;
+import types.VoidType;
 
 /**
  * The abstract syntax of the definition of a Kitten class.
@@ -174,7 +177,8 @@ public class ClassDefinition extends Absyn {
 
     /**
      * Type-checks this class definition. Namely, it type-checks its members
-     * and checks that the empty constructor exists.
+     * and checks that the empty constructor exists. A class with the name of
+     * an intrinsic class must extend {@code Object}, as its Java class does.
      *
      * @param currentClass the semantical type of this class. This will be bound to the implicit
      *                     {@code this} parameter of all its constructors and methods
@@ -182,7 +186,12 @@ public class ClassDefinition extends Absyn {
 
     public void typeCheck(ClassType currentClass) {
     	staticType = currentClass;
-    	
+
+    	if (Intrinsics.isIntrinsic(currentClass) && currentClass.getSuperclass() != null
+    			&& !currentClass.getSuperclass().getName().equals("Object"))
+    		error(new TypeChecker(VoidType.INSTANCE, currentClass.getErrorMsg()),
+    			"class \"" + name + "\" has the name of an intrinsic class, hence it must extend Object");
+
     	if (declarations != null)
     		declarations.typeCheck(currentClass);
     }
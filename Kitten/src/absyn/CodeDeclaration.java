@@ -3,11 +3,14 @@ package absyn;
 import java.util.HashSet;
 import java.util.Set;
 
+import semantical.TypeChecker;
 import translation.Block;
 import types.ClassMemberSignature;
+import types.ClassType;
 import types.CodeSignature;
 import types.FieldSignature;
 import types.IntType;
+import types.Intrinsics;
 import types.TestSignature;
 import types.VoidType;
 import bytecode.Bytecode;
@@ -106,6 +109,22 @@ public abstract class CodeDeclaration extends ClassMemberDeclaration {
     	return sig;
     }
 
+    /**
+     * Checks that, if this constructor or method belongs to an intrinsic class,
+     * it is implemented by the Java class of the latter. Otherwise, the class
+     * is not the stub of the intrinsic class but a class of the program
+     * that has its name, and it would be silently replaced by the Java class.
+     *
+     * @param checker the type-checker used to report the error
+     * @param clazz the class where this constructor or method occurs
+     */
+
+    protected final void checkIntrinsic(TypeChecker checker, ClassType clazz) {
+    	if (Intrinsics.isIntrinsic(clazz) && !Intrinsics.isImplemented(sig))
+    		error(checker, "class \"" + clazz + "\" has the name of an intrinsic class, but "
+    			+ Intrinsics.getImplementation(clazz.getName()) + " does not implement " + sig);
+    }
+
     /**
      * Translates this constructor or method into intermediate Kitten code.
      * This amounts to translating its body with a continuation containing
@@ -130,15 +149,16 @@ public abstract class CodeDeclaration extends ClassMemberDeclaration {
     	    // void, mentre nella traduzione viene inserito il return 1.
     	    if (sig instanceof TestSignature) {
     	        
-    	        CONST c = new CONST(1);
-    	        RETURN r = new RETURN(IntType.INSTANCE);
+    	        // the implicit return has no line of its own
+    	        CONST c = new CONST(0, 1);
+    	        RETURN r = new RETURN(0, IntType.INSTANCE);
     	        
     	        Block continuation = new Block(r);
     	        continuation = c.followedBy(continuation);
     	        sig.setCode(getBody().translate(sig, continuation));
     	    }
     	    else
-    	        sig.setCode(getBody().translate(sig, new Block(new RETURN(VoidType.INSTANCE))));
+    	        sig.setCode(getBody().translate(sig, new Block(new RETURN(0, VoidType.INSTANCE))));
     		
     		// we translate all methods and constructors that are referenced
     		// from the code we have generated
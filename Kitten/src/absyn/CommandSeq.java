@@ -43,6 +43,26 @@ public class CommandSeq extends Command {
 		this.second = second;
 	}
 
+	/**
+	 * Yields the abstract syntax of the first command in the sequence.
+	 *
+	 * @return the abstract syntax of the first command
+	 */
+
+	public Command getFirst() {
+		return first;
+	}
+
+	/**
+	 * Yields the abstract syntax of the second command in the sequence.
+	 *
+	 * @return the abstract syntax of the second command
+	 */
+
+	public Command getSecond() {
+		return second;
+	}
+
 	/**
 	 * Adds abstract syntax class-specific information in the dot file
 	 * representing the abstract syntax of a sequence of two commands.
@@ -97,6 +97,8 @@ public class ConstructorDeclaration extends CodeDeclaration {
 		if (formals != null)
 			checker = formals.typeCheck(checker);
 
+		checkIntrinsic(checker, clazz);
+
 		// we type-check the body of the constructor in the resulting type-checker
 		getBody().typeCheck(checker);
 
@@ -58,12 +58,13 @@ public class Equal extends ComparisonBinOp {
 	 * computation on the left and right sides of this binary operation.
 	 * Namely, an {@code eq} bytecode.
 	 *
+	 * @param line the line of the source code of this binary expression
 	 * @param type the type of the values of the left and right sides of this binary expression
 	 * @return an {@code eq} bytecode
 	 */
 
 	@Override
-	protected BinOpBytecode operator(Type type) {
-		return new EQ((ComparableType)type);
+	protected BinOpBytecode operator(int line, Type type) {
+		return new EQ(line, (ComparableType)type);
 	}
 }
\ No newline at end of file
@@ -55,6 +55,6 @@ public class False extends Literal {
 
 	@Override
 	public final Block translate(CodeSignature where, Block continuation) {
-		return new CONST(false).followedBy(continuation);
+		return new CONST(getLine(where), false).followedBy(continuation);
 	}
 }
\ No newline at end of file
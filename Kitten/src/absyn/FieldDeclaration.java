@@ -2,8 +2,11 @@ package absyn;
 
 import java.io.FileWriter;
 
+import semantical.TypeChecker;
 import types.FieldSignature;
 import types.ClassType;
+import types.Intrinsics;
+import types.VoidType;
 
 /**
  * A node of abstract syntax representing the declaration of a field of a Kitten class.
@@ -97,6 +100,7 @@ public class FieldDeclaration extends ClassMemberDeclaration {
 
 	/**
 	 * Type-checks this field declaration. This amounts to type-check its declared type.
+	 * An intrinsic class cannot declare fields, since they would not exist in its Java class.
 	 *
 	 * @param currentClass the semantical type of the class where this member occurs.
 	 */
@@ -104,6 +108,10 @@ public class FieldDeclaration extends ClassMemberDeclaration {
 	@Override
 	protected void typeCheckAux(ClassType currentClass) {
 		type.typeCheck();
+
+		if (Intrinsics.isIntrinsic(currentClass))
+			error(new TypeChecker(VoidType.INSTANCE, currentClass.getErrorMsg()),
+				"class \"" + currentClass + "\" has the name of an intrinsic class, that has no fields");
 	}
 
 	/**
@@ -87,6 +87,6 @@ public class FloatLiteral extends Literal {
 
 	@Override
 	public Block translate(CodeSignature where, Block continuation) {
-		return new CONST(value).followedBy(continuation);
+		return new CONST(getLine(where), value).followedBy(continuation);
 	}
 }
\ No newline at end of file
@@ -1,13 +1,27 @@
 package absyn;
 
 import java.io.FileWriter;
+import java.util.List;
 
+import types.ClassType;
 import types.CodeSignature;
+import types.ConstructorSignature;
+import types.IntType;
+import types.MethodSignature;
 import semantical.TypeChecker;
 import translation.Block;
+import translation.Options;
+import bytecode.CONST;
+import bytecode.LOAD;
+import bytecode.PARALLELFOR;
 
 /**
  * A node of abstract syntax representing a {@code for} command.
+ * A {@code parallel for} command counts from a start to an end value, excluded,
+ * and its iterations are executed in parallel. Hence they cannot
+ * modify the local variables declared outside the body of the loop nor
+ * the fields of the objects, cannot return and can only call methods without
+ * side-effects. They can modify distinct elements of arrays, instead.
  *
  * @author <A HREF="mailto:fausto.spoto@univr.it">Fausto Spoto</A>
  */
@@ -38,6 +52,33 @@ public class For extends Command {
 
     private final Command body;
 
+    /**
+     * True if and only if the iterations of the loop are executed in parallel.
+     */
+
+    private final boolean parallel;
+
+    /**
+     * The type-checker used for the body of the loop.
+     * This is {@code null} if type-checking has not been performed yet.
+     */
+
+    private TypeChecker bodyChecker;
+
+    /**
+     * The method that executes the body of this parallel loop over a range of
+     * iterations. This is {@code null} if it has not been generated yet.
+     */
+
+    private MethodSignature parallelBody;
+
+    /**
+     * The number of methods generated so far for the bodies of the parallel loops.
+     * It is used to give a distinct name to each of them.
+     */
+
+    private static int parallelBodies;
+
     /**
      * Constructs the abstract syntax of a {@code for} command.
      *
@@ -50,12 +91,29 @@ public class For extends Command {
      */
 
     public For(int pos, Command initialisation, Expression condition, Command update, Command body) {
+    	this(pos, initialisation, condition, update, body, false);
+    }
+
+    /**
+     * Constructs the abstract syntax of a {@code for} command, possibly parallel.
+     *
+     * @param pos the position in the source file where it starts
+     *            the concrete syntax represented by this abstract syntax
+     * @param initialisation the code to be executed before the loop starts
+     * @param condition the guard or condition of the loop
+     * @param update the code to be executed after each iteration
+     * @param body the body of the loop
+     * @param parallel true if and only if the iterations of the loop must be executed in parallel
+     */
+
+    public For(int pos, Command initialisation, Expression condition, Command update, Command body, boolean parallel) {
     	super(pos);
 
     	this.initialisation = initialisation;
     	this.condition = condition;
     	this.update = update;
     	this.body = body;
+    	this.parallel = parallel;
     }
 
     /**
@@ -86,7 +144,10 @@ public class For extends Command {
      * {@link #update} and {@link #body}. Returns the original type-checker
      * passed as a parameter, so that local declarations in
      * {@link #initialisation}, {@link #update} and {@link #body}
-     * are not visible after the {@code for} command.
+     * are not visible after the {@code for} command. A parallel loop must
+     * moreover have the form {@code parallel for (int i := start; i < end; i := i + 1) body}
+     * and its body is type-checked with a type-checker that forbids the
+     * modification of the local variables declared outside the body.
      *
      * @param checker the type-checker to be used for type-checking
      * @return the type-checker {@code checker}
@@ -109,15 +170,39 @@ public class For extends Command {
     	// in the update field are not visible outside that field
     	update.typeCheck(initChecker);
 
+    	if (parallel) {
+    		checkParallelLoop(initChecker);
+    		initChecker = initChecker.enterParallelLoop();
+    	}
+
     	// we type-check the body of this command.
     	// Note that the resulting type-checker is not used
-    	body.typeCheck(initChecker);
+    	body.typeCheck(bodyChecker = initChecker);
 
     	// we return the original type-checker, so that local declarations in
     	// the initialisation, update and body components are not visible after the loop
     	return checker;
     }
 
+    /**
+     * Checks that this parallel loop has the form
+     * {@code parallel for (int i := start; i < end; i := i + 1) body}.
+     *
+     * @param checker the type-checker resulting from the type-checking of the initialisation
+     */
+
+    private void checkParallelLoop(TypeChecker checker) {
+    	if (!(initialisation instanceof LocalDeclaration)
+    			|| checker.getVar(((LocalDeclaration) initialisation).getName()) != IntType.INSTANCE)
+    		error(checker, "a parallel loop must declare an int counter");
+    	else if (!(condition instanceof LessThan) || !(((LessThan) condition).getLeft() instanceof Variable)
+    			|| !((Variable) ((LessThan) condition).getLeft()).getName().equals(((LocalDeclaration) initialisation).getName())
+    			|| ((LessThan) condition).getRight().getStaticType() != IntType.INSTANCE)
+    		error(checker, "the condition of a parallel loop must compare its counter with an int bound");
+    	else if (!LoopIdiom.isIncrement(LoopIdiom.unscoped(update), (Variable) ((LessThan) condition).getLeft()))
+    		error(checker, "the update of a parallel loop must increment its counter by one");
+    }
+
     /**
      * Checks that this {@code for} does not contain <i>dead-code</i>, that is,
      * commands that can never be executed. It calls itself recursively
@@ -150,7 +235,8 @@ public class For extends Command {
      * code that evaluates {@link #initialisation}, then {@link #condition} and then
      * continues with the compilation of {@link #body} and {@link #update} or with
      * the given {@code continuation}. After the compilation of {@link #update}, the
-     * the {@link #condition} of the loop is checked again.
+     * the {@link #condition} of the loop is checked again. A loop that only
+     * copies or fills an array is translated as a {@link LoopIdiom}.
      *
      * @param where the method or constructor where this expression occurs
      * @param continuation the continuation to be executed after this command
@@ -158,6 +244,16 @@ public class For extends Command {
      */
 
     public Block translate(CodeSignature where, Block continuation) {
+    	// tests and fixtures execute their parallel loops sequentially
+    	if (parallel && (where instanceof MethodSignature || where instanceof ConstructorSignature))
+    		return translateAsParallel(where, continuation);
+
+    	// a loop that only copies or fills an array is executed in bulk
+    	if (Options.get().getOptimisationLevel() >= 1) {
+    		LoopIdiom idiom = LoopIdiom.of(condition, body, update);
+    		if (idiom != null)
+    			return initialisation.translate(where, idiom.translate(where, getLine(where), continuation));
+    	}
 
     	/* The idea is to translate a for command into the code
 
@@ -184,4 +280,105 @@ public class For extends Command {
 
     	return initialisation.translate(where,test);
     }
-}
\ No newline at end of file
+
+    /**
+     * Translates this parallel loop into intermediate Kitten code.
+     * Namely, it returns a code which starts with
+     * <br>
+     * {@code load 0} or {@code const nil}, if {@code where} is static<br>
+     * <i>translation of start</i><br>
+     * <i>translation of end</i><br>
+     * {@code load} of each local variable in scope in the body of the loop<br>
+     * {@code parallelfor body}<br>
+     * <br>
+     * and continues with the given {@code continuation}. The body method is generated
+     * by {@link #getParallelBody(CodeSignature)}. Note that {@code end} is evaluated only once.
+     *
+     * @param where the method or constructor where this loop occurs
+     * @param continuation the continuation to be executed after this loop
+     * @return the code executing this loop and then {@code continuation}
+     */
+
+    private Block translateAsParallel(CodeSignature where, Block continuation) {
+    	MethodSignature method = getParallelBody(where);
+    	int line = getLine(where);
+
+    	continuation = new PARALLELFOR(line, method).followedBy(continuation);
+
+    	List<String> captured = getCaptured();
+    	for (int pos = captured.size() - 1; pos >= 0; pos--) {
+    		String var = captured.get(pos);
+    		continuation = new LOAD(line, bodyChecker.getVarNum(var), bodyChecker.getVar(var)).followedBy(continuation);
+    	}
+
+    	continuation = ((LessThan) condition).getRight().translate(where, continuation);
+    	continuation = ((LocalDeclaration) initialisation).getInitialiser().translateAs(where, IntType.INSTANCE, continuation);
+
+    	if (method.isStatic())
+    		return new CONST(line).followedBy(continuation);
+    	else
+    		return new LOAD(line, 0, where.getDefiningClass()).followedBy(continuation);
+    }
+
+    /**
+     * Yields the local variables in scope in the body of this parallel loop,
+     * other than {@code this} and the counter of the loop. They are passed to
+     * the method that executes the body.
+     *
+     * @return the local variables, in order of declaration
+     */
+
+    private List<String> getCaptured() {
+    	List<String> captured = bodyChecker.getVars();
+    	captured.remove("this");
+    	captured.remove(((LocalDeclaration) initialisation).getName());
+
+    	return captured;
+    }
+
+    /**
+     * Yields the method that executes the body of this parallel loop, generating it
+     * the first time. It is a method of the class of {@code where}
+     * <br><br>
+     * {@code method void $parallel<n>(int $from, int $to, T_1 v_1, ..., T_k v_k)}<br>
+     * {@code   for (int i := $from; i < $to; i := i + 1) body}
+     * <br><br>
+     * where {@code v_1, ..., v_k} are the local variables in scope in the body.
+     * It is static if {@code where} is static. The body is type-checked again,
+     * inside the new method, so that its local variables get the numbers of that method.
+     *
+     * @param where the method or constructor where this loop occurs
+     * @return the method
+     */
+
+    private MethodSignature getParallelBody(CodeSignature where) {
+    	if (parallelBody != null)
+    		return parallelBody;
+
+    	int pos = getPos();
+    	String counter = ((LocalDeclaration) initialisation).getName();
+
+    	FormalParameters formals = null;
+    	List<String> captured = getCaptured();
+    	for (int i = captured.size() - 1; i >= 0; i--)
+    		formals = new FormalParameters(pos, TypeExpression.of(pos, bodyChecker.getVar(captured.get(i))), captured.get(i), formals);
+
+    	// Kitten identifiers never contain $, hence these names cannot clash with those of the program
+    	formals = new FormalParameters(pos, new IntTypeExpression(pos), "$to", formals);
+    	formals = new FormalParameters(pos, new IntTypeExpression(pos), "$from", formals);
+
+    	Command loop = new For(pos,
+    		new LocalDeclaration(pos, new IntTypeExpression(pos), counter, new Variable(pos, "$from")),
+    		new LessThan(pos, new Variable(pos, counter), new Variable(pos, "$to")),
+    		new Assignment(pos, new Variable(pos, counter), new Addition(pos, new Variable(pos, counter), new IntLiteral(pos, 1))),
+    		body);
+
+    	boolean isStatic = where instanceof MethodSignature && ((MethodSignature) where).isStatic();
+    	MethodDeclaration declaration = new MethodDeclaration(pos, "$parallel" + parallelBodies++, formals, loop, isStatic);
+    	ClassType clazz = where.getDefiningClass();
+    	declaration.addTo(clazz);
+    	declaration.typeCheck(clazz);
+
+    	return parallelBody = declaration.getSignature();
+    }
+}
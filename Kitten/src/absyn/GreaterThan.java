@@ -33,13 +33,14 @@ public class GreaterThan extends NumericalComparisonBinOp {
 	 * computation on the left and right sides of this binary operation.
 	 * Namely, a {@code gt} bytecode.
 	 *
+	 * @param line the line of the source code of this binary expression
 	 * @param type the type of the values of the left and right sides of this
 	 *             binary expression
 	 * @return a {@code gt} bytecode
 	 */
 
 	@Override
-	protected BinOpBytecode operator(Type type) {
-		return new GT((NumericalType) type);
+	protected BinOpBytecode operator(int line, Type type) {
+		return new GT(line, (NumericalType) type);
 	}
 }
\ No newline at end of file
@@ -33,12 +33,13 @@ public class GreaterThanOrEqual extends NumericalComparisonBinOp {
 	 * computation on the left and right sides of this binary operation.
 	 * Namely, a {@code ge} bytecode.
 	 *
+	 * @param line the line of the source code of this binary expression
 	 * @param type the type of the values of the left and right sides of this binary expression
 	 * @return a {@code ge} bytecode
 	 */
 
 	@Override
-	protected BinOpBytecode operator(Type type) {
-		return new GE((NumericalType) type);
+	protected BinOpBytecode operator(int line, Type type) {
+		return new GE(line, (NumericalType) type);
 	}
 }
\ No newline at end of file
@@ -1,10 +1,15 @@
 package absyn;
 
 import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.List;
 
 import types.CodeSignature;
+import types.IntType;
 import semantical.TypeChecker;
 import translation.Block;
+import translation.Options;
+import bytecode.SWITCH;
 
 /**
  * A node of abstract syntax representing a conditional command.
@@ -14,6 +19,13 @@ import translation.Block;
 
 public class IfThenElse extends Command {
 
+	/**
+	 * The minimal number of comparisons of a cascade of conditionals
+	 * that gets translated into a {@code switch}.
+	 */
+
+	private final static int MIN_CASES = 3;
+
 	/**
 	 * The guard or condition of the conditional.
 	 */
@@ -169,10 +181,162 @@ public class IfThenElse extends Command {
 		// Try removing this line: everything will work, but the code will be larger
 		continuation.doNotMerge();
 
+		List<IfThenElse> cascade = cascade();
+		if (cascade != null)
+			return translateAsSwitch(where, cascade, continuation);
+
 		// we compile the condition by using as <tt>yes</tt> and <tt>no</tt>
 		// continuations the translations of the <tt>then</tt> and
 		// <tt>_else</tt> components
 		return condition.translateAsTest
 			(where, then.translate(where, continuation), _else.translate(where, continuation));
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Yields the cascade of conditionals starting at this conditional, if it
+	 * can be translated into a {@code switch}. This is the case if the conditions
+	 * of the cascade compare the same integer variable or field with distinct
+	 * integer constants, and there are at least {@link #MIN_CASES} of them.
+	 * The cascade stops before a comparison with a repeated constant, that is
+	 * then executed when no constant matches. Cascades are only translated
+	 * into a {@code switch} when optimisations are enabled.
+	 *
+	 * @return the conditionals of the cascade, or {@code null} if it cannot
+	 *         be translated into a {@code switch}
+	 */
+
+	private List<IfThenElse> cascade() {
+		if (Options.get().getOptimisationLevel() < 1)
+			return null;
+
+		Expression selector = selector(condition);
+		if (selector == null)
+			return null;
+
+		List<IfThenElse> cascade = new ArrayList<>();
+		List<Integer> keys = new ArrayList<>();
+
+		for (Command command = this; command instanceof IfThenElse; command = ((IfThenElse) command)._else) {
+			Expression condition = ((IfThenElse) command).condition;
+			Expression other = selector(condition);
+			if (other == null || !sameValue(selector, other) || keys.contains(key(condition)))
+				break;
+
+			cascade.add((IfThenElse) command);
+			keys.add(key(condition));
+		}
+
+		return cascade.size() >= MIN_CASES ? cascade : null;
+	}
+
+	/**
+	 * Translates a cascade of conditionals into the evaluation of their
+	 * selector followed by a {@code switch}.
+	 *
+	 * @param where the method or constructor where the cascade occurs
+	 * @param cascade the conditionals of the cascade, as computed by {@link #cascade()}
+	 * @param continuation the continuation to be executed after the cascade
+	 * @return the code executing the cascade and then the {@code continuation}
+	 */
+
+	private Block translateAsSwitch(CodeSignature where, List<IfThenElse> cascade, Block continuation) {
+		int[] keys = new int[cascade.size()];
+		List<Block> cases = new ArrayList<>();
+
+		for (int pos = 0; pos < keys.length; pos++) {
+			keys[pos] = key(cascade.get(pos).condition);
+			cases.add(cascade.get(pos).then.translate(where, continuation));
+		}
+
+		// the else branch of the last conditional is executed when no key matches
+		Block otherwise = cascade.get(keys.length - 1)._else.translate(where, continuation);
+
+		return selector(condition).translate(where, new Block(new SWITCH(getLine(where), keys), cases, otherwise));
+	}
+
+	/**
+	 * Yields the integer variable or field compared with a constant by a condition.
+	 *
+	 * @param condition the condition
+	 * @return the variable or field, or {@code null} if {@code condition}
+	 *         is not the comparison of an integer variable or field with a constant
+	 */
+
+	private static Expression selector(Expression condition) {
+		if (!(condition instanceof Equal))
+			return null;
+
+		Expression left = ((Equal) condition).getLeft(), right = ((Equal) condition).getRight();
+		if (constant(right) != null && left.getStaticType() == IntType.INSTANCE && isStable(left))
+			return left;
+		else if (constant(left) != null && right.getStaticType() == IntType.INSTANCE && isStable(right))
+			return right;
+		else
+			return null;
+	}
+
+	/**
+	 * Yields the constant compared by a condition accepted by {@link #selector(Expression)}.
+	 *
+	 * @param condition the condition
+	 * @return the constant
+	 */
+
+	private static int key(Expression condition) {
+		Integer key = constant(((Equal) condition).getRight());
+
+		return key != null ? key : constant(((Equal) condition).getLeft());
+	}
+
+	/**
+	 * Yields the value of an integer constant, possibly negated.
+	 *
+	 * @param expression the expression
+	 * @return the value of {@code expression}, or {@code null} if it is not an integer constant
+	 */
+
+	private static Integer constant(Expression expression) {
+		if (expression instanceof IntLiteral)
+			return (int) ((IntLiteral) expression).getValue();
+		else if (expression instanceof Minus && ((Minus) expression).getExpression() instanceof IntLiteral)
+			return -(int) ((IntLiteral) ((Minus) expression).getExpression()).getValue();
+		else
+			return null;
+	}
+
+	/**
+	 * Determines if an expression is a variable or a chain of field accesses
+	 * starting at a variable. Its evaluation has no side-effects and yields
+	 * the same value along a cascade of conditionals, since their conditions
+	 * modify nothing.
+	 *
+	 * @param expression the expression
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isStable(Expression expression) {
+		if (expression instanceof Variable)
+			return true;
+		else
+			return expression instanceof FieldAccess && isStable(((FieldAccess) expression).getReceiver());
+	}
+
+	/**
+	 * Determines if two expressions accepted by {@link #isStable(Expression)}
+	 * denote the same variable or field.
+	 *
+	 * @param e1 the first expression
+	 * @param e2 the second expression
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean sameValue(Expression e1, Expression e2) {
+		if (e1 instanceof Variable && e2 instanceof Variable)
+			return ((Variable) e1).getVarNum() == ((Variable) e2).getVarNum();
+		else if (e1 instanceof FieldAccess && e2 instanceof FieldAccess)
+			return ((FieldAccess) e1).getName().equals(((FieldAccess) e2).getName())
+				&& sameValue(((FieldAccess) e1).getReceiver(), ((FieldAccess) e2).getReceiver());
+		else
+			return false;
+	}
+}
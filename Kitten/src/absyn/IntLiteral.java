@@ -86,6 +86,6 @@ public class IntLiteral extends Literal {
 
 	@Override
 	public Block translate(CodeSignature where, Block continuation) {
-		return new CONST(value).followedBy(continuation);
+		return new CONST(getLine(where), value).followedBy(continuation);
 	}
 }
\ No newline at end of file
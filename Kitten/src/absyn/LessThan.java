@@ -33,12 +33,13 @@ public class LessThan extends NumericalComparisonBinOp {
 	 * computation on the left and right sides of this binary operation.
 	 * Namely, an {@code lt} bytecode.
 	 *
+	 * @param line the line of the source code of this binary expression
 	 * @param type the type of the values of the left and right sides of this binary expression
 	 * @return an {@code lt} bytecode
 	 */
 
 	@Override
-	protected BinOpBytecode operator(Type type) {
-		return new LT((NumericalType) type);
+	protected BinOpBytecode operator(int line, Type type) {
+		return new LT(line, (NumericalType) type);
 	}
 }
\ No newline at end of file
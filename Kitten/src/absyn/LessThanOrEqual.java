@@ -33,12 +33,13 @@ public class LessThanOrEqual extends NumericalComparisonBinOp {
 	 * computation on the left and right sides of this binary operation.
 	 * Namely, an {@code le} bytecode.
 	 *
+	 * @param line the line of the source code of this binary expression
 	 * @param type the type of the values of the left and right sides of this binary expression
 	 * @return an {@code le} bytecode
 	 */
 
 	@Override
-	protected BinOpBytecode operator(Type type) {
-		return new LE((NumericalType) type);
+	protected BinOpBytecode operator(int line, Type type) {
+		return new LE(line, (NumericalType) type);
 	}
 }
\ No newline at end of file
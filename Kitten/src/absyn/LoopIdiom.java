@@ -0,0 +1,338 @@
+package absyn;
+
+import translation.Block;
+import types.CodeSignature;
+import types.FloatType;
+import types.IntType;
+import types.Type;
+import bytecode.ARRAYCOPY;
+import bytecode.ARRAYFILL;
+import bytecode.CONST;
+import bytecode.LOAD;
+import bytecode.NEG;
+import bytecode.STORE;
+
+/**
+ * A counted loop that only copies the elements of an array into another
+ * array, or only writes the same value into the elements of an array, such as
+ * <br><br>
+ * {@code for (i := start; i < end; i := i + 1) to[i + toOffset] := from[i + fromOffset]}<br>
+ * {@code while (i < end) { to[i - toOffset] := value; i := i + 1 }}
+ * <br><br>
+ * where the array elements are {@code int} or {@code float}, and the arrays,
+ * {@code end}, the offsets and {@code value} do not change during the loop and
+ * can be evaluated without side-effects and without exceptions. Such a loop is
+ * translated into a single {@code arraycopy} or {@code arrayfill}, that executes
+ * all its iterations in bulk and still fails at the same iteration as the loop.
+ *
+ * @author Federico Bianchi
+ */
+
+final class LoopIdiom {
+
+	/**
+	 * The variable that counts the iterations of the loop.
+	 */
+
+	private final Variable counter;
+
+	/**
+	 * The upper bound of {@link #counter}, excluded.
+	 */
+
+	private final Expression end;
+
+	/**
+	 * The array element written by the loop.
+	 */
+
+	private final ArrayAccess target;
+
+	/**
+	 * The array element read by the loop, if it is a copy, or {@code null}.
+	 */
+
+	private final ArrayAccess source;
+
+	/**
+	 * The value written by the loop, if it is a filling, or {@code null}.
+	 */
+
+	private final Expression value;
+
+	private LoopIdiom(Variable counter, Expression end, ArrayAccess target, ArrayAccess source, Expression value) {
+		this.counter = counter;
+		this.end = end;
+		this.target = target;
+		this.source = source;
+		this.value = value;
+	}
+
+	/**
+	 * Recognises a {@code while} loop whose body ends with the update of its counter.
+	 *
+	 * @param condition the condition of the loop
+	 * @param body the body of the loop
+	 * @return the idiom implemented by the loop, or {@code null} if the loop is not a copy nor a filling
+	 */
+
+	static LoopIdiom of(Expression condition, Command body) {
+		body = unscoped(body);
+
+		if (body instanceof CommandSeq && !(((CommandSeq) body).getSecond() instanceof CommandSeq))
+			return of(condition, ((CommandSeq) body).getFirst(), ((CommandSeq) body).getSecond());
+		else
+			return null;
+	}
+
+	/**
+	 * Recognises a {@code for} loop.
+	 *
+	 * @param condition the condition of the loop
+	 * @param body the body of the loop
+	 * @param update the update of the loop, executed after its body
+	 * @return the idiom implemented by the loop, or {@code null} if the loop is not a copy nor a filling
+	 */
+
+	static LoopIdiom of(Expression condition, Command body, Command update) {
+		// the condition must be counter < end
+		if (!(condition instanceof LessThan))
+			return null;
+
+		Expression left = ((LessThan) condition).getLeft(), right = ((LessThan) condition).getRight();
+		if (!(left instanceof Variable) || left.getStaticType() != IntType.INSTANCE
+				|| right.getStaticType() != IntType.INSTANCE)
+			return null;
+
+		Variable counter = (Variable) left;
+		if (!isInvariant(right, counter) || !isIncrement(unscoped(update), counter))
+			return null;
+
+		// the body must be a single assignment to an element of an array of int or float
+		body = unscoped(body);
+		if (!(body instanceof Assignment) || !(((Assignment) body).getLvalue() instanceof ArrayAccess))
+			return null;
+
+		ArrayAccess target = (ArrayAccess) ((Assignment) body).getLvalue();
+		Type type = target.getStaticType();
+		if ((type != IntType.INSTANCE && type != FloatType.INSTANCE) || !isAffine(target, counter))
+			return null;
+
+		Expression rvalue = ((Assignment) body).getRvalue();
+		if (rvalue instanceof ArrayAccess && rvalue.getStaticType() == type && isAffine((ArrayAccess) rvalue, counter))
+			return new LoopIdiom(counter, right, target, (ArrayAccess) rvalue, null);
+		else if (isInvariant(rvalue, counter))
+			return new LoopIdiom(counter, right, target, null, rvalue);
+		else
+			return null;
+	}
+
+	/**
+	 * Translates this loop into a single bytecode that executes all its
+	 * iterations and then assigns the final value to the counter. Namely,
+	 * it returns a code which starts with
+	 * <br>
+	 * <i>translation of from</i><br>
+	 * <i>translation of fromOffset</i><br>
+	 * <i>translation of to</i><br>
+	 * <i>translation of toOffset</i><br>
+	 * {@code load counter}<br>
+	 * <i>translation of end</i><br>
+	 * {@code arraycopy}<br>
+	 * {@code store counter}<br>
+	 * <br>
+	 * for a copy, or that evaluates {@code to}, {@code toOffset}, {@code value},
+	 * the counter and {@code end} and then executes {@code arrayfill}
+	 * for a filling. It continues with the given {@code continuation}.
+	 *
+	 * @param where the method or constructor where the loop occurs
+	 * @param line the line of the source code of the loop
+	 * @param continuation the continuation to be executed after the loop
+	 * @return the code executing the loop and then {@code continuation}
+	 */
+
+	Block translate(CodeSignature where, int line, Block continuation) {
+		Type type = target.getStaticType();
+
+		continuation = new STORE(line, counter.getVarNum(), IntType.INSTANCE, counter.getName()).followedBy(continuation);
+		continuation = (source != null ? new ARRAYCOPY(line, type) : new ARRAYFILL(line, type)).followedBy(continuation);
+		continuation = end.translate(where, continuation);
+		continuation = new LOAD(line, counter.getVarNum(), IntType.INSTANCE).followedBy(continuation);
+
+		if (source == null)
+			continuation = value.translateAs(where, type, continuation);
+
+		continuation = translateOffset(where, line, target.getIndex(), continuation);
+		continuation = target.getArray().translate(where, continuation);
+
+		if (source != null) {
+			continuation = translateOffset(where, line, source.getIndex(), continuation);
+			continuation = source.getArray().translate(where, continuation);
+		}
+
+		return continuation;
+	}
+
+	/**
+	 * Translates the offset of an index accepted by {@link #isAffineIndex(Expression, Variable)}
+	 * with respect to the counter of the loop.
+	 *
+	 * @param where the method or constructor where the loop occurs
+	 * @param line the line of the source code of the loop
+	 * @param index the index
+	 * @param continuation the continuation to be executed after the evaluation of the offset
+	 * @return the code evaluating the offset and then {@code continuation}
+	 */
+
+	private Block translateOffset(CodeSignature where, int line, Expression index, Block continuation) {
+		if (index instanceof Variable)
+			return new CONST(line, 0).followedBy(continuation);
+
+		Expression left = ((BinOp) index).getLeft(), right = ((BinOp) index).getRight();
+		if (index instanceof Subtraction)
+			return right.translate(where, new NEG(line, IntType.INSTANCE).followedBy(continuation));
+		else
+			return (isCounter(left, counter) ? right : left).translate(where, continuation);
+	}
+
+	/**
+	 * Removes the local scopes around a command.
+	 *
+	 * @param command the command
+	 * @return the command inside the scopes
+	 */
+
+	static Command unscoped(Command command) {
+		while (command instanceof LocalScope)
+			command = ((LocalScope) command).getBody();
+
+		return command;
+	}
+
+	/**
+	 * Determines if a command is {@code counter := counter + 1} or {@code counter := 1 + counter}.
+	 *
+	 * @param command the command
+	 * @param counter the counter of the loop
+	 * @return true if and only if that is the case
+	 */
+
+	static boolean isIncrement(Command command, Variable counter) {
+		if (!(command instanceof Assignment) || !isCounter(((Assignment) command).getLvalue(), counter)
+				|| !(((Assignment) command).getRvalue() instanceof Addition))
+			return false;
+
+		Addition addition = (Addition) ((Assignment) command).getRvalue();
+
+		return isCounter(addition.getLeft(), counter) && isOne(addition.getRight())
+			|| isOne(addition.getLeft()) && isCounter(addition.getRight(), counter);
+	}
+
+	/**
+	 * Determines if an expression is the integer literal 1.
+	 *
+	 * @param expression the expression
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isOne(Expression expression) {
+		return expression instanceof IntLiteral && ((IntLiteral) expression).getValue() == 1;
+	}
+
+	/**
+	 * Determines if an expression is the counter of the loop.
+	 *
+	 * @param expression the expression
+	 * @param counter the counter of the loop
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isCounter(Expression expression, Variable counter) {
+		return expression instanceof Variable && ((Variable) expression).getVarNum() == counter.getVarNum();
+	}
+
+	/**
+	 * Determines if an array access is {@code array[counter]}, {@code array[counter + offset]},
+	 * {@code array[offset + counter]} or {@code array[counter - offset]}, where
+	 * the array is a local variable or a field of {@code this} and the offset
+	 * is invariant in the loop.
+	 *
+	 * @param access the array access
+	 * @param counter the counter of the loop
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isAffine(ArrayAccess access, Variable counter) {
+		Expression array = access.getArray();
+		if (!(array instanceof Variable && !isCounter(array, counter) || isFieldOfThis(array)))
+			return false;
+
+		return isAffineIndex(access.getIndex(), counter);
+	}
+
+	/**
+	 * Determines if an index is {@code counter}, {@code counter + offset},
+	 * {@code offset + counter} or {@code counter - offset}, where the offset
+	 * is invariant in the loop.
+	 *
+	 * @param index the index
+	 * @param counter the counter of the loop
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isAffineIndex(Expression index, Variable counter) {
+		if (isCounter(index, counter))
+			return true;
+		else if (index instanceof Addition) {
+			Expression left = ((Addition) index).getLeft(), right = ((Addition) index).getRight();
+			return isCounter(left, counter) && isInvariant(right, counter)
+				|| isInvariant(left, counter) && isCounter(right, counter);
+		}
+		else if (index instanceof Subtraction)
+			return isCounter(((Subtraction) index).getLeft(), counter) && isInvariant(((Subtraction) index).getRight(), counter);
+		else
+			return false;
+	}
+
+	/**
+	 * Determines if an expression yields the same value at each iteration
+	 * of the loop and can be evaluated without side-effects and without
+	 * exceptions. This is the case of numerical literals, local variables
+	 * other than the counter, fields of {@code this} and their additions,
+	 * subtractions, multiplications and negations. Note that the loop
+	 * only modifies the elements of an array.
+	 *
+	 * @param expression the expression
+	 * @param counter the counter of the loop
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isInvariant(Expression expression, Variable counter) {
+		if (expression instanceof IntLiteral || expression instanceof FloatLiteral)
+			return true;
+		else if (expression instanceof Variable)
+			return !isCounter(expression, counter);
+		else if (expression instanceof Minus)
+			return isInvariant(((Minus) expression).getExpression(), counter);
+		else if (expression instanceof Addition || expression instanceof Subtraction || expression instanceof Multiplication)
+			return isInvariant(((BinOp) expression).getLeft(), counter) && isInvariant(((BinOp) expression).getRight(), counter);
+		else
+			return isFieldOfThis(expression);
+	}
+
+	/**
+	 * Determines if an expression reads a field of {@code this}.
+	 *
+	 * @param expression the expression
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isFieldOfThis(Expression expression) {
+		if (!(expression instanceof FieldAccess))
+			return false;
+
+		Expression receiver = ((FieldAccess) expression).getReceiver();
+
+		return receiver instanceof Variable && ((Variable) receiver).getName().equals("this");
+	}
+}
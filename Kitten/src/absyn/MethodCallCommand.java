@@ -5,6 +5,7 @@ import java.util.Set;
 
 import semantical.TypeChecker;
 import translation.Block;
+import translation.Options;
 import types.ClassType;
 import types.CodeSignature;
 import types.MethodSignature;
@@ -209,7 +210,9 @@ public class MethodCallCommand extends Command {
 	 * {@code virtualcall method}<br>
 	 * {@code pop} (if the method does not return {@code void})<br>
 	 * <br>
-	 * and continues with the given {@code continuation}.
+	 * and continues with the given {@code continuation}. The printing of a chain
+	 * of concatenations of strings is translated into the printing of its values,
+	 * without building the concatenated string.
 	 *
 	 * @param where the method or constructor where this expression occurs
 	 * @param continuation the continuation to be executed after this command
@@ -218,12 +221,15 @@ public class MethodCallCommand extends Command {
 
 	@Override
 	public Block translate(CodeSignature where, Block continuation) {
+		if (Options.get().getOptimisationLevel() >= 1 && isOutputOfConcatenations())
+			return ((MethodCallExpression) receiver).translateAsOutput(where, continuation);
+
 		if (method.getReturnType() != VoidType.INSTANCE)
 			// if the method does return a value, we must throw it away
-			continuation = new POP(method.getReturnType()).followedBy(continuation);
+			continuation = new POP(getLine(where), method.getReturnType()).followedBy(continuation);
 
 		// we put an instruction which calls the method
-		continuation = new VIRTUALCALL((ClassType) receiver.getStaticType(), method)
+		continuation = new VIRTUALCALL(getLine(where), (ClassType) receiver.getStaticType(), method)
 			.followedBy(continuation);
 
 		// we translate the actual parameters
@@ -233,4 +239,16 @@ public class MethodCallCommand extends Command {
 		// we translate the receiver of the call
 		return receiver.translate(where, continuation);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Determines if this is a call to the {@code output} method of class
+	 * {@code String} on a chain of concatenations of strings.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	private boolean isOutputOfConcatenations() {
+		return name.equals("output") && method.getDefiningClass().getName().equals("String")
+			&& receiver instanceof MethodCallExpression && !((MethodCallExpression) receiver).concatenations().isEmpty();
+	}
+}
@@ -1,15 +1,25 @@
 package absyn;
 
 import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import semantical.TypeChecker;
 import translation.Block;
+import translation.Options;
 import types.ClassType;
 import types.CodeSignature;
 import types.MethodSignature;
+import types.PrimitiveType;
 import types.Type;
 import types.TypeList;
+import bytecode.APPEND;
+import bytecode.BUILDSTRING;
+import bytecode.NEWBUILDER;
+import bytecode.OUTPUT;
+import bytecode.OUTPUTBUILDER;
+import bytecode.SequentialBytecode;
 import bytecode.VIRTUALCALL;
 
 /**
@@ -104,6 +114,16 @@ public class MethodCallExpression extends Expression {
 		return actuals;
 	}
 
+	/**
+	 * Yields the signature of the static target method of the call.
+	 *
+	 * @return the signature, or {@code null} if type-checking has not been performed yet
+	 */
+
+	MethodSignature getMethod() {
+		return method;
+	}
+
 	/**
 	 * Yields a the string labeling the class of abstract syntax represented by
 	 * this node. We redefine this method in order to add the method referenced
@@ -202,8 +222,12 @@ public class MethodCallExpression extends Expression {
 
 	@Override
 	public Block translate(CodeSignature where, Block continuation) {
+		List<MethodCallExpression> chain = concatenations();
+		if (chain.size() >= 2 && Options.get().getOptimisationLevel() >= 1)
+			return translateAsBuilder(where, chain, new BUILDSTRING(getLine(where)), continuation);
+
 		// we put an instruction which calls the method
-		continuation = new VIRTUALCALL((ClassType) receiver.getStaticType(), method)
+		continuation = new VIRTUALCALL(getLine(where), (ClassType) receiver.getStaticType(), method)
 			.followedBy(continuation);
 
 		// we translate the actual parameters
@@ -213,4 +237,145 @@ public class MethodCallExpression extends Expression {
 		// we translate the receiver of the call
 		return receiver.translate(where, continuation);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Yields the chain of concatenations of strings that ends with this call.
+	 * For instance, for {@code s.concat(a).concat(b)} this is the list of the calls
+	 * {@code s.concat(a).concat(b)} and {@code s.concat(a)}.
+	 *
+	 * @return the chain, from the outermost call. It is empty if this is not a
+	 *         call to a {@code concat} method of class {@code String}
+	 */
+
+	List<MethodCallExpression> concatenations() {
+		List<MethodCallExpression> chain = new ArrayList<>();
+
+		for (Expression cursor = this; cursor instanceof MethodCallExpression && ((MethodCallExpression) cursor).isConcatenation();
+				cursor = ((MethodCallExpression) cursor).receiver)
+			chain.add((MethodCallExpression) cursor);
+
+		return chain;
+	}
+
+	/**
+	 * Determines if this is a call to a {@code concat} method of class {@code String}.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	private boolean isConcatenation() {
+		return name.equals("concat") && method.getDefiningClass().getName().equals("String");
+	}
+
+	/**
+	 * Translates a chain of concatenations of strings into a single builder of strings,
+	 * that gets all the values of the chain and yields their concatenation.
+	 * Namely, it returns a code which starts with
+	 * <br>
+	 * <i>translation of the innermost receiver</i><br>
+	 * {@code newbuilder}<br>
+	 * <i>translation of the first actual parameter</i><br>
+	 * {@code append}<br>
+	 * ...<br>
+	 * <i>translation of the last actual parameter</i><br>
+	 * {@code append}<br>
+	 * {@code last}<br>
+	 * <br>
+	 * and continues with the given {@code continuation}. This avoids the creation
+	 * of an intermediate string for each link of the chain.
+	 *
+	 * @param where the method or constructor where this expression occurs
+	 * @param chain the chain, as computed by {@link #concatenations()}
+	 * @param last the bytecode that consumes the builder: {@code buildstring} or {@code outputbuilder}
+	 * @param continuation the continuation to be executed after this command
+	 * @return the code executing this command and then {@code continuation}
+	 */
+
+	private static Block translateAsBuilder(CodeSignature where, List<MethodCallExpression> chain, SequentialBytecode last, Block continuation) {
+		// the builder is created and filled at the line where it is consumed
+		int line = last.getLine();
+		continuation = last.followedBy(continuation);
+
+		// the outermost call appends the last value
+		for (MethodCallExpression call: chain) {
+			continuation = new APPEND(line, call.method.getParameters().getHead()).followedBy(continuation);
+			continuation = call.actuals.translateAs(where, call.method.getParameters(), continuation);
+		}
+
+		continuation = new NEWBUILDER(line, chain.size()).followedBy(continuation);
+
+		return chain.get(chain.size() - 1).receiver.translate(where, continuation);
+	}
+
+	/**
+	 * Translates the printing of this chain of concatenations of strings,
+	 * that is, {@code s.concat(a)...concat(b).output()}. If the values of the
+	 * chain after its innermost receiver can be computed without side-effects
+	 * and without exceptions, they are printed one after the other,
+	 * without any concatenation. Namely, it returns a code which starts with
+	 * <br>
+	 * <i>translation of the innermost receiver</i><br>
+	 * {@code output String}<br>
+	 * <i>translation of the first actual parameter</i><br>
+	 * {@code output}<br>
+	 * ...<br>
+	 * <i>translation of the last actual parameter</i><br>
+	 * {@code output}<br>
+	 * <br>
+	 * and continues with the given {@code continuation}. Otherwise the values are
+	 * appended to a single builder of strings, that prints them at the end.
+	 *
+	 * @param where the method or constructor where this expression occurs
+	 * @param continuation the continuation to be executed after the printing
+	 * @return the code printing this chain and then {@code continuation}
+	 */
+
+	Block translateAsOutput(CodeSignature where, Block continuation) {
+		List<MethodCallExpression> chain = concatenations();
+
+		for (MethodCallExpression call: chain)
+			if (!isQuiet(call.actuals.getHead()))
+				return translateAsBuilder(where, chain, new OUTPUTBUILDER(getLine(where)), continuation);
+
+		// the outermost call prints the last value
+		for (MethodCallExpression call: chain) {
+			Type type = call.method.getParameters().getHead();
+			continuation = new OUTPUT(getLine(where), type).followedBy(continuation);
+			continuation = call.actuals.translateAs(where, call.method.getParameters(), continuation);
+		}
+
+		Expression first = chain.get(chain.size() - 1).receiver;
+		if (first instanceof StringLiteral && ((StringLiteral) first).getValue().isEmpty())
+			// there is nothing to print for the empty string
+			return continuation;
+		else
+			return first.translate(where, new OUTPUT(getLine(where), first.getStaticType()).followedBy(continuation));
+	}
+
+	/**
+	 * Determines if an expression can be evaluated without side-effects and
+	 * without exceptions, so that its evaluation can be delayed after the
+	 * printing of the values that precede it in a chain of concatenations.
+	 * This is the case of literals and of primitive local variables
+	 * and fields of {@code this}.
+	 *
+	 * @param expression the expression
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isQuiet(Expression expression) {
+		if (expression instanceof Literal)
+			return !(expression instanceof Nil);
+		else if (expression instanceof Minus)
+			return ((Minus) expression).getExpression() instanceof Literal;
+		else if (expression instanceof Variable)
+			return expression.getStaticType() instanceof PrimitiveType;
+		else if (expression instanceof FieldAccess) {
+			Expression receiver = ((FieldAccess) expression).getReceiver();
+			return expression.getStaticType() instanceof PrimitiveType
+				&& receiver instanceof Variable && ((Variable) receiver).getName().equals("this");
+		}
+		else
+			return false;
+	}
+}
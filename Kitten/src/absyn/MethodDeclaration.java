@@ -5,6 +5,7 @@ import java.io.FileWriter;
 import semantical.TypeChecker;
 import types.ClassType;
 import types.MethodSignature;
+import types.PrimitiveType;
 import types.Type;
 import types.TypeList;
 import types.VoidType;
@@ -29,6 +30,32 @@ public class MethodDeclaration extends CodeDeclaration {
 
 	private final String name;
 
+	/**
+	 * True if and only if the results of the method must be memoized.
+	 */
+
+	private final boolean memo;
+
+	/**
+	 * True if and only if the method has been generated by the compiler
+	 * for the body of a parallel loop.
+	 */
+
+	private final boolean parallelBody;
+
+	/**
+	 * True if and only if the method has no receiver.
+	 */
+
+	private final boolean isStatic;
+
+	/**
+	 * True if and only if the method has been generated by the back-end of the
+	 * compiler for some code outlined from a method or constructor that is too large.
+	 */
+
+	private final boolean outlined;
+
 	/**
 	 * Constructs the abstract syntax of a method declaration.
 	 *
@@ -44,12 +71,101 @@ public class MethodDeclaration extends CodeDeclaration {
 
 	public MethodDeclaration(int pos, TypeExpression returnType, String name,
 			FormalParameters formals, Command body, ClassMemberDeclaration next) {
+		this(pos, false, returnType, name, formals, body, next);
+	}
+
+	/**
+	 * Constructs the abstract syntax of a method declaration, possibly memoized.
+	 *
+	 * @param pos the starting position in the source file of
+	 *            the concrete syntax represented by this abstract syntax
+	 * @param memo true if and only if the results of the method must be memoized
+	 * @param returnType the abstract syntax of the return type of the method
+	 * @param name the name of the method
+	 * @param formals the abstract syntax of the formal parameters of the method
+	 * @param body the abstract syntax of the body of the method
+	 * @param next the abstract syntax of the declaration of the
+	 *             subsequent class member, if any
+	 */
+
+	public MethodDeclaration(int pos, boolean memo, TypeExpression returnType, String name,
+			FormalParameters formals, Command body, ClassMemberDeclaration next) {
 		super(pos, formals, body, next);
 
+		this.memo = memo;
+		this.parallelBody = false;
+		this.isStatic = name.equals("main");
+		this.outlined = false;
 		this.name = name;
 		this.returnType = returnType;
 	}
 
+	/**
+	 * Constructs the abstract syntax of the method that executes the body
+	 * of a parallel loop over a range of iterations. It is generated by the
+	 * compiler and it is only called by the tasks that execute the loop.
+	 *
+	 * @param pos the starting position in the source file of the loop
+	 * @param name the name of the method
+	 * @param formals the abstract syntax of the formal parameters of the method
+	 * @param body the abstract syntax of the body of the method
+	 * @param isStatic true if and only if the loop occurs in a method without receiver
+	 */
+
+	MethodDeclaration(int pos, String name, FormalParameters formals, Command body, boolean isStatic) {
+		super(pos, formals, body, null);
+
+		this.memo = false;
+		this.parallelBody = true;
+		this.isStatic = isStatic;
+		this.outlined = false;
+		this.name = name;
+		this.returnType = new VoidTypeExpression(pos);
+	}
+
+	/**
+	 * Constructs the abstract syntax of a method whose Kitten code has been
+	 * loaded from a file rather than translated from its source. It only
+	 * records the properties of the method: it has neither formal parameters nor body.
+	 *
+	 * @param name the name of the method
+	 * @param memo true if and only if the results of the method must be memoized
+	 * @param parallelBody true if and only if the method executes the body of a parallel loop
+	 * @param isStatic true if and only if the method has no receiver
+	 */
+
+	public MethodDeclaration(String name, boolean memo, boolean parallelBody, boolean isStatic) {
+		super(0, null, null, null);
+
+		this.memo = memo;
+		this.parallelBody = parallelBody;
+		this.isStatic = isStatic;
+		this.outlined = false;
+		this.name = name;
+		this.returnType = null;
+	}
+
+	/**
+	 * Constructs the abstract syntax of a method that holds some code outlined
+	 * from a method or constructor whose Java bytecode is too large. It is
+	 * generated by the back-end of the compiler and it is only called by the
+	 * code it has been outlined from. It has no receiver: the receiver of the
+	 * original code, if used, is passed as a parameter.
+	 *
+	 * @param name the name of the method
+	 */
+
+	public MethodDeclaration(String name) {
+		super(0, null, null, null);
+
+		this.memo = false;
+		this.parallelBody = false;
+		this.isStatic = true;
+		this.outlined = true;
+		this.name = name;
+		this.returnType = null;
+	}
+
 	/**
 	 * Yields the abstract syntax of the return type of the method.
 	 *
@@ -70,6 +186,50 @@ public class MethodDeclaration extends CodeDeclaration {
 		return name;
 	}
 
+	/**
+	 * Determines if the results of this method must be memoized, that is,
+	 * if it has been declared as {@code memo method}.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	public boolean isMemo() {
+		return memo;
+	}
+
+	/**
+	 * Determines if this method has been generated by the compiler for the
+	 * body of a parallel loop.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	public boolean isParallelBody() {
+		return parallelBody;
+	}
+
+	/**
+	 * Determines if this method has no receiver. This is the case of
+	 * {@code main} and of the bodies of the parallel loops inside {@code main}.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	public boolean isStatic() {
+		return isStatic;
+	}
+
+	/**
+	 * Determines if this method has been generated by the back-end of the
+	 * compiler for some code outlined from a method or constructor that is too large.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	public boolean isOutlined() {
+		return outlined;
+	}
+
 	/**
 	 * Yields the signature of this method declaration.
 	 *
@@ -128,7 +288,10 @@ public class MethodDeclaration extends CodeDeclaration {
 	 * and where return instructions of type {@code returnType} are allowed.
 	 * It then type-checks the body of the method in that type-checker.
 	 * It finally checks that if this method does not return {@code void},
-	 * then every execution path ends with a {@code return} command.
+	 * then every execution path ends with a {@code return} command and that,
+	 * if this method is memoized, then its parameters and return type are primitive.
+	 * The purity of a memoized method is checked later, on its Kitten code,
+	 * by {@link translation.Purity}.
 	 *
 	 * @param clazz the semantical type of the class where this method occurs
 	 */
@@ -147,8 +310,8 @@ public class MethodDeclaration extends CodeDeclaration {
 		// where return instructions of type returnType are allowed
 		checker = new TypeChecker(rt,clazz.getErrorMsg());
 
-		// the main method is the only <i>static</i> method, where there is no this variable
-		if (!getSignature().getName().equals("main"))
+		// the main method and the parallel loops inside it are <i>static</i>, hence there is no this variable
+		if (!isStatic)
 			checker = checker.putVar("this", clazz);
 
 		// we enrich the type-checker with the formal parameters
@@ -156,6 +319,8 @@ public class MethodDeclaration extends CodeDeclaration {
 
 		TypeList pars = getFormals() != null ? getFormals().typeCheck() : null;
 
+		checkIntrinsic(checker, clazz);
+
 		// we check if this method overrides a method of some superclass
 		superclass = clazz.getSuperclass();
 		if (superclass != null) {
@@ -169,6 +334,9 @@ public class MethodDeclaration extends CodeDeclaration {
 				if (!rt.canBeAssignedToSpecial(overridden.getReturnType()))
 					error(checker, "illegal return type for overriding method \"" +
 							name + "\". Was " + overridden.getReturnType());
+				// a call to a memoized method might reach this method, that must hence be pure as well
+				else if (overridden.isMemo() && !memo)
+					error(checker, "method \"" + name + "\" must be memoized, as the method it overrides");
 		}
 
 		// we type-check the body of the method in the resulting type-checker
@@ -182,5 +350,19 @@ public class MethodDeclaration extends CodeDeclaration {
 		// a return command (continue and break are forbidden in this position)
 		if (rt != VoidType.INSTANCE && !stopping)
 			error(checker, "missing return statement");
+
+		// the results of a memoized method are cached by the values of its
+		// receiver and parameters, hence these must be comparable by value
+		if (memo)
+			if (name.equals("main"))
+				error(checker, "the main method cannot be memoized");
+			else if (!(rt instanceof PrimitiveType))
+				error(checker, "memoized method \"" + name + "\" must return a primitive value");
+			else if (pars != null)
+				for (TypeList cursor = pars; cursor != TypeList.EMPTY; cursor = cursor.getTail())
+					if (!(cursor.getHead() instanceof PrimitiveType)) {
+						error(checker, "memoized method \"" + name + "\" can only have primitive parameters");
+						break;
+					}
 	}
 }
\ No newline at end of file
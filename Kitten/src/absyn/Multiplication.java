@@ -31,12 +31,13 @@ public class Multiplication extends ArithmeticBinOp {
 	 * computation on the left and right sides of this binary operation.
 	 * Namely, a {@code mul} bytecode.
 	 *
+	 * @param line the line of the source code of this binary expression
 	 * @param type the type of the values of the left and right sides of this binary expression
 	 * @return a {@code mul} bytecode
 	 */
 
 	@Override
-	protected BinOpBytecode operator(Type type) {
-		return new MUL((NumericalType) type);
+	protected BinOpBytecode operator(int line, Type type) {
+		return new MUL(line, (NumericalType) type);
 	}
 }
\ No newline at end of file
@@ -175,11 +175,12 @@ public class NewObject extends Expression {
 
 	@Override
 	public Block translate(CodeSignature where, Block continuation) {
-		continuation = new CONSTRUCTORCALL(constructor).followedBy(continuation);
+		int line = getLine(where);
+		continuation = new CONSTRUCTORCALL(line, constructor).followedBy(continuation);
 		if (actuals != null)
 			continuation = actuals.translateAs(where, constructor.getParameters(), continuation);
 
-		return new NEW(constructor.getDefiningClass()).followedBy
-			(new DUP(constructor.getDefiningClass()).followedBy(continuation));
+		return new NEW(line, constructor.getDefiningClass()).followedBy
+			(new DUP(line, constructor.getDefiningClass()).followedBy(continuation));
 	}
 }
\ No newline at end of file
@@ -57,12 +57,13 @@ public class NotEqual extends ComparisonBinOp {
 	 * computation on the left and right sides of this binary operation.
 	 * Namely, an {@code ne} bytecode.
 	 *
+	 * @param line the line of the source code of this binary expression
 	 * @param type the type of the values of the left and right sides of this binary expression
 	 * @return an {@code ne} bytecode
 	 */
 
 	@Override
-	protected BinOpBytecode operator(Type type) {
-		return new NE((ComparableType) type);
+	protected BinOpBytecode operator(int line, Type type) {
+		return new NE(line, (ComparableType) type);
 	}
 }
\ No newline at end of file
@@ -29,12 +29,13 @@ public class Or extends BooleanBinOp {
 	 * A binary operation-specific bytecode which performs a binary
 	 * computation on the left and right sides of this binary operation.
 	 *
+	 * @param line the line of the source code of this binary expression
 	 * @param type the type of the values of the left and right sides of this binary expression
 	 * @return an {@code or} bytecode
 	 */
 
 	@Override
-	protected BinOpBytecode operator(Type type) {
-		return new OR();
+	protected BinOpBytecode operator(int line, Type type) {
+		return new OR(line);
 	}
 }
\ No newline at end of file
@@ -80,6 +80,10 @@ public class Return extends Command {
 
 	@Override
 	protected TypeChecker typeCheckAux(TypeChecker checker) {
+		// the body of a parallel loop is executed by a distinct method
+		if (checker.isInParallelLoop())
+			error("a parallel loop cannot return");
+
 		// we get from the type-checker the expected type for the return instructions
 		Type expectedReturnType = checker.getReturnType();
 
@@ -126,7 +130,7 @@ public class Return extends Command {
 		Type returnType = getTypeChecker().getReturnType();
 
 		// we get a code which is made of a block containing the bytecode return
-		continuation = new Block(new RETURN(returnType));
+		continuation = new Block(new RETURN(getLine(where), returnType));
 
 		// if there is an initialising expression, we translate it
 		if (returned != null)
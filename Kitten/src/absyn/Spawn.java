@@ -0,0 +1,174 @@
+package absyn;
+
+import java.io.FileWriter;
+
+import semantical.TypeChecker;
+import translation.Block;
+import types.ClassType;
+import types.CodeSignature;
+import types.MethodSignature;
+import types.Type;
+import bytecode.SPAWN;
+
+/**
+ * A node of abstract syntax representing a {@code spawn} command, that is,
+ * a method call that can run in parallel with the commands that follow it,
+ * up to the next {@code sync}. Its result can be assigned to a local variable,
+ * that receives it at the next {@code sync}. A method or constructor waits
+ * for the calls that it has spawned before returning.
+ *
+ * @author Federico Bianchi
+ */
+
+public class Spawn extends Command {
+
+	/**
+	 * The abstract syntax of the local variable that receives the result
+	 * of the call. It might be {@code null}.
+	 */
+
+	private final Lvalue target;
+
+	/**
+	 * The abstract syntax of the spawned call.
+	 */
+
+	private final MethodCallExpression call;
+
+	/**
+	 * The slot where the result of the call is kept until the next {@code sync},
+	 * or -1 if the result is discarded.
+	 */
+
+	private int slot = -1;
+
+	/**
+	 * Constructs the abstract syntax of a {@code spawn} command.
+	 *
+	 * @param pos the position in the source file where it starts
+	 *            the concrete syntax represented by this abstract syntax
+	 * @param target the abstract syntax of the variable that receives the result
+	 *               of the call. It might be {@code null}
+	 * @param call the abstract syntax of the spawned call
+	 */
+
+	public Spawn(int pos, Lvalue target, MethodCallExpression call) {
+		super(pos);
+
+		this.target = target;
+		this.call = call;
+	}
+
+	/**
+	 * Yields the abstract syntax of the variable that receives the result of the call, if any.
+	 *
+	 * @return the abstract syntax of the variable, or {@code null} if the result is discarded
+	 */
+
+	public Lvalue getTarget() {
+		return target;
+	}
+
+	/**
+	 * Yields the abstract syntax of the spawned call.
+	 *
+	 * @return the abstract syntax of the spawned call
+	 */
+
+	public MethodCallExpression getCall() {
+		return call;
+	}
+
+	/**
+	 * Adds abstract syntax class-specific information in the dot file
+	 * representing the abstract syntax of the {@code spawn} command.
+	 * This amounts to adding arcs from the node for the {@code spawn}
+	 * command to the abstract syntax for {@link #target}, if any, and {@link #call}.
+	 *
+	 * @param where the file where the dot representation must be written
+	 */
+
+	@Override
+	protected void toDotAux(FileWriter where) throws java.io.IOException {
+		if (target != null)
+			linkToNode("target", target.toDot(where), where);
+
+		linkToNode("call", call.toDot(where), where);
+	}
+
+	/**
+	 * Performs the type-checking of the {@code spawn} command
+	 * by using a given type-checker. It type-checks the call and, if its
+	 * result is assigned, checks that it is assigned to a local variable and
+	 * that the return type of the call can be assigned to that variable.
+	 * It returns the type-checker passed as a parameter.
+	 *
+	 * @param checker the type-checker to be used for type-checking
+	 * @return the type-checker {@code checker} itself
+	 */
+
+	@Override
+	protected TypeChecker typeCheckAux(TypeChecker checker) {
+		Type result = call.typeCheck(checker);
+
+		if (target != null) {
+			Type left = target.typeCheck(checker);
+
+			// the result is kept by the run-time until the next sync, that
+			// moves it into a local variable of the current activation
+			if (!(target instanceof Variable))
+				error("the result of a spawned call can only be assigned to a local variable");
+			else if (!result.canBeAssignedTo(left))
+				error(result + " cannot be assigned to " + left);
+			else if (checker.isDeclaredOutsideParallelLoop(((Variable) target).getName()))
+				error("a parallel loop cannot modify variable \"" + ((Variable) target).getName() + "\" declared outside its body");
+			else
+				slot = checker.addSpawnTarget(((Variable) target).getName());
+		}
+
+		// the type-checker is not modified
+		return checker;
+	}
+
+	/**
+	 * Checks that this {@code spawn} command does not contain <i>dead-code</i>, that is,
+	 * commands that can never be executed. This is always true for {@code spawn} commands.
+	 *
+	 * @return false, since this command never terminates with a {@code return}
+	 */
+
+	@Override
+	public boolean checkForDeadcode() {
+		return false;
+	}
+
+	/**
+	 * Translates this command into intermediate Kitten bytecode. Namely,
+	 * it returns a code which starts with
+	 * <br>
+	 * <i>translation of the receiver of the call</i><br>
+	 * <i>translation of the first actual parameter</i><br>
+	 * ...<br>
+	 * <i>translation of the last actual parameter</i><br>
+	 * {@code spawn method}<br>
+	 * <br>
+	 * and continues with the given {@code continuation}.
+	 *
+	 * @param where the method or constructor where this command occurs
+	 * @param continuation the continuation to be executed after this command
+	 * @return the code executing this command and then {@code continuation}
+	 */
+
+	@Override
+	public Block translate(CodeSignature where, Block continuation) {
+		MethodSignature method = call.getMethod();
+		Expression receiver = call.getReceiver();
+
+		continuation = new SPAWN(getLine(where), (ClassType) receiver.getStaticType(), method, slot).followedBy(continuation);
+
+		if (call.getActuals() != null)
+			continuation = call.getActuals().translateAs(where, method.getParameters(), continuation);
+
+		return receiver.translate(where, continuation);
+	}
+}
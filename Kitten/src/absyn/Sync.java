@@ -0,0 +1,104 @@
+package absyn;
+
+import semantical.TypeChecker;
+import translation.Block;
+import types.CodeSignature;
+import types.Type;
+import bytecode.LOAD;
+import bytecode.RESULT;
+import bytecode.STORE;
+import bytecode.SYNC;
+
+/**
+ * A node of abstract syntax representing a {@code sync} command, that waits
+ * for the calls spawned since the previous {@code sync} by the same activation
+ * of the method or constructor where it occurs. The local variables that
+ * receive the results of those calls are updated.
+ *
+ * @author Federico Bianchi
+ */
+
+public class Sync extends Command {
+
+	/**
+	 * Constructs the abstract syntax of a {@code sync} command.
+	 *
+	 * @param pos the position in the source file where it starts
+	 *            the concrete syntax represented by this abstract syntax
+	 */
+
+	public Sync(int pos) {
+		super(pos);
+	}
+
+	/**
+	 * Performs the type-checking of the {@code sync} command
+	 * by using a given type-checker. A {@code sync} command is always type-checked.
+	 *
+	 * @param checker the type-checker to be used for type-checking
+	 * @return the type-checker {@code checker} itself
+	 */
+
+	@Override
+	protected TypeChecker typeCheckAux(TypeChecker checker) {
+		// there is nothing to do, it is always type-checked
+
+		// the type-checker is not modified
+		return checker;
+	}
+
+	/**
+	 * Checks that this {@code sync} command does not contain <i>dead-code</i>, that is,
+	 * commands that can never be executed. This is always true for {@code sync} commands.
+	 *
+	 * @return false, since this command never terminates with a {@code return}
+	 */
+
+	@Override
+	public boolean checkForDeadcode() {
+		return false;
+	}
+
+	/**
+	 * Translates this command into intermediate Kitten bytecode. Namely,
+	 * it returns a code which starts with
+	 * <br>
+	 * {@code sync}<br>
+	 * {@code load v_1}<br>
+	 * {@code result slot_1}<br>
+	 * {@code store v_1}<br>
+	 * ...<br>
+	 * {@code load v_n}<br>
+	 * {@code result slot_n}<br>
+	 * {@code store v_n}<br>
+	 * <br>
+	 * and continues with the given {@code continuation}, where {@code v_1, ..., v_n}
+	 * are the variables in scope that receive the result of some spawned call.
+	 * Each variable keeps its value if no call has been spawned into it since the previous {@code sync}.
+	 *
+	 * @param where the method or constructor where this command occurs
+	 * @param continuation the continuation to be executed after this command
+	 * @return the code executing this command and then {@code continuation}
+	 */
+
+	@Override
+	public Block translate(CodeSignature where, Block continuation) {
+		TypeChecker checker = getTypeChecker();
+		int line = getLine(where);
+
+		for (String var: checker.getVars()) {
+			int slot = checker.getSpawnSlot(var);
+
+			if (slot >= 0) {
+				int num = checker.getVarNum(var);
+				Type type = checker.getVar(var);
+
+				continuation = new STORE(line, num, type, var).followedBy(continuation);
+				continuation = new RESULT(line, slot, type).followedBy(continuation);
+				continuation = new LOAD(line, num, type).followedBy(continuation);
+			}
+		}
+
+		return new SYNC(line).followedBy(continuation);
+	}
+}
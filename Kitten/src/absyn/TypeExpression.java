@@ -3,6 +3,11 @@ package absyn;
 import java.io.FileWriter;
 import java.io.IOException;
 
+import types.ArrayType;
+import types.BooleanType;
+import types.ClassType;
+import types.FloatType;
+import types.IntType;
 import types.Type;
 
 /**
@@ -32,6 +37,28 @@ public abstract class TypeExpression extends Absyn {
 		super(pos);
 	}
 
+	/**
+	 * Yields the abstract syntax of a semantical type, for the code
+	 * that is generated by the compiler.
+	 *
+	 * @param pos the position in the source file that the abstract syntax refers to
+	 * @param type the semantical type: a primitive, class or array type
+	 * @return the abstract syntax of {@code type}
+	 */
+
+	static TypeExpression of(int pos, Type type) {
+		if (type == IntType.INSTANCE)
+			return new IntTypeExpression(pos);
+		else if (type == FloatType.INSTANCE)
+			return new FloatTypeExpression(pos);
+		else if (type == BooleanType.INSTANCE)
+			return new BooleanTypeExpression(pos);
+		else if (type instanceof ClassType)
+			return new ClassTypeExpression(pos, ((ClassType) type).getName());
+		else
+			return new ArrayTypeExpression(pos, of(pos, ((ArrayType) type).getElementsType()));
+	}
+
 	/**
 	 * Yields a the string labeling the class of abstract syntax represented by
 	 * this node. We redefine this method in order to add the static type
@@ -5,6 +5,7 @@ import java.io.FileWriter;
 import types.CodeSignature;
 import semantical.TypeChecker;
 import translation.Block;
+import translation.Options;
 
 /**
  * A node of abstract syntax representing a <tt>while</tt> command.
@@ -128,6 +129,13 @@ public class While extends Command {
 	 */
 
 	public Block translate(CodeSignature where, Block continuation) {
+		// a loop that only copies or fills an array is executed in bulk
+		if (Options.get().getOptimisationLevel() >= 1) {
+			LoopIdiom idiom = LoopIdiom.of(condition, body);
+			if (idiom != null)
+				return idiom.translate(where, getLine(where), continuation);
+		}
+
 		/* The idea is to translate a while command into the code
 
 	    condition -> (no) continuation
@@ -1,7 +1,10 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionList;
 
 import types.NumericalType;
@@ -19,11 +22,12 @@ public class ADD extends ArithmeticBinOpBytecode {
 	/**
 	 * Constructs a bytecode that adds the top two elements of the stack.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param type the semantical type of the values which are added
 	 */
 
-	public ADD(NumericalType type) {
-		super(type);
+	public ADD(int line, NumericalType type) {
+		super(line, type);
 	}
 
 	@Override
@@ -34,4 +38,21 @@ public class ADD extends ArithmeticBinOpBytecode {
 
 		return il;
 	}
+
+	/**
+	 * Writes the Java {@code iadd} or {@code fadd} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		DirectClassGenerator.arithmetic(getType(), Constants.IADD, Constants.FADD, code);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new ADD(line, getType());
+	}
 }
\ No newline at end of file
@@ -1,7 +1,11 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+import javaBytecodeGenerator.VerificationType;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionList;
 
 /**
@@ -18,12 +22,33 @@ public class AND extends BinOpBytecode {
 	/**
 	 * Constructs a bytecode that performs a logical <i>and</i> operation
 	 * on the top two elements of the stack.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 */
 
-	public AND() {}
+	public AND(int line) {
+		super(line);
+	}
 
 	@Override
 	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
 		return new InstructionList(new org.apache.bcel.generic.IAND());
 	}
+
+	/**
+	 * Writes the Java {@code iand} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		code.op(Constants.IAND, 2, VerificationType.INTEGER);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new AND(line);
+	}
 }
\ No newline at end of file
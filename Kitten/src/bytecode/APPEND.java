@@ -0,0 +1,107 @@
+package bytecode;
+
+import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+
+import org.apache.bcel.Constants;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.ObjectType;
+
+import types.Type;
+
+/**
+ * A bytecode that appends the value on top of the stack to the builder of
+ * strings under it. See {@link NEWBUILDER}.
+ * <br><br>
+ * ..., builder, value -&gt; ..., builder
+ *
+ * @author Federico Bianchi
+ */
+
+public class APPEND extends NonCallingSequentialBytecode {
+
+	/**
+	 * The type of the value that is appended.
+	 */
+
+	private final Type type;
+
+	/**
+	 * Constructs a bytecode that appends a value of the given type to a builder of strings.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 * @param type the type of the value: {@code String}, {@code int}, {@code float} or {@code boolean}
+	 */
+
+	public APPEND(int line, Type type) {
+		super(line);
+		this.type = type;
+	}
+
+	/**
+	 * Yields the type of the value that is appended.
+	 *
+	 * @return the type
+	 */
+
+	public Type getType() {
+		return type;
+	}
+
+	@Override
+	public String toString() {
+		return "append " + type;
+	}
+
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 2
+	 */
+
+	@Override
+	public int getPops() {
+		return 2;
+	}
+
+	/**
+	 * Generates the Java bytecode corresponding to this Kitten bytecode, that is,
+	 * a call to the {@code append} method of {@code runTime.StringBuilder}
+	 * for the type of the value.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @return the Java bytecode
+	 */
+
+	@Override
+	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
+		ObjectType builder = new ObjectType(runTime.StringBuilder.class.getName());
+
+		return new InstructionList(classGen.getFactory().createInvoke
+			(builder.getClassName(), // class name of the method
+			"append", // name of the method
+			builder, // return type
+			new org.apache.bcel.generic.Type[] { type.toBCEL() }, // parameters types
+			Constants.INVOKEVIRTUAL)); // invokevirtual
+	}
+
+	/**
+	 * Writes the call to {@code runTime.StringBuilder.append} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		String builder = DirectClassGenerator.BUILDER;
+		code.op2(Constants.INVOKEVIRTUAL, classGen.getConstantPool().methodRef(builder, "append",
+			"(" + classGen.descriptorOf(type) + ")L" + builder + ";"), 2, DirectClassGenerator.BUILDER_TYPE);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new APPEND(line, getType());
+	}
+}
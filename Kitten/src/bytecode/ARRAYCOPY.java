@@ -0,0 +1,111 @@
+package bytecode;
+
+import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+import javaBytecodeGenerator.VerificationType;
+
+import org.apache.bcel.Constants;
+import org.apache.bcel.generic.ArrayType;
+import org.apache.bcel.generic.InstructionList;
+
+import types.Type;
+
+/**
+ * A bytecode that executes a loop that copies the elements of an array
+ * into another array: for each {@code i} from {@code start} to {@code end},
+ * excluded, {@code to[i + toOffset] := from[i + fromOffset]}. It yields the
+ * final value of {@code i}. If an iteration fails, the computation stops
+ * after the elements copied by the previous iterations.
+ * <br><br>
+ * ..., from, fromOffset, to, toOffset, start, end -&gt; ..., final value of i
+ *
+ * @author Federico Bianchi
+ */
+
+public class ARRAYCOPY extends NonCallingSequentialBytecode {
+
+	/**
+	 * The type of the elements of the arrays.
+	 */
+
+	private final Type type;
+
+	/**
+	 * Constructs a bytecode that copies the elements of an array into another.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 * @param type the type of the elements of the arrays: {@code int} or {@code float}
+	 */
+
+	public ARRAYCOPY(int line, Type type) {
+		super(line);
+		this.type = type;
+	}
+
+	/**
+	 * Yields the type of the elements of the arrays.
+	 *
+	 * @return the type
+	 */
+
+	public Type getType() {
+		return type;
+	}
+
+	@Override
+	public String toString() {
+		return "copy array of " + type;
+	}
+
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 6: the parameters of {@code runTime.Loops.copy}
+	 */
+
+	@Override
+	public int getPops() {
+		return 6;
+	}
+
+	/**
+	 * Generates the Java bytecode corresponding to this Kitten bytecode, that is,
+	 * a call to the {@code copy} method of {@code runTime.Loops} for the type of the elements.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @return the Java bytecode
+	 */
+
+	@Override
+	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
+		org.apache.bcel.generic.Type array = new ArrayType(type.toBCEL(), 1);
+		org.apache.bcel.generic.Type INT = org.apache.bcel.generic.Type.INT;
+
+		return new InstructionList(classGen.getFactory().createInvoke
+			(runTime.Loops.class.getName(), // class name of the method
+			"copy", // name of the method
+			INT, // return type
+			new org.apache.bcel.generic.Type[] { array, INT, array, INT, INT, INT }, // parameters types
+			Constants.INVOKESTATIC)); // invokestatic
+	}
+
+	/**
+	 * Writes the call to {@code runTime.Loops.copy} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		String array = "[" + classGen.descriptorOf(type);
+		code.op2(Constants.INVOKESTATIC, classGen.getConstantPool().methodRef("runTime/Loops", "copy",
+			"(" + array + "I" + array + "III)I"), 6, VerificationType.INTEGER);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new ARRAYCOPY(line, getType());
+	}
+}
@@ -1,7 +1,11 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+import javaBytecodeGenerator.VerificationType;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionFactory;
 import org.apache.bcel.generic.InstructionList;
 
@@ -29,10 +33,12 @@ public class ARRAYLOAD extends NonCallingSequentialBytecode {
 	 * its value on the stack. The index, where the array
 	 * is read, is provided at runtime through the stack.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param type the type of the elements of the array that is read by this bytecode
 	 */
 
-	public ARRAYLOAD(Type type) {
+	public ARRAYLOAD(int line, Type type) {
+		super(line);
 		this.type = type;
 	}
 
@@ -51,6 +57,17 @@ public class ARRAYLOAD extends NonCallingSequentialBytecode {
 		return type;
 	}
 
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 2
+	 */
+
+	@Override
+	public int getPops() {
+		return 2;
+	}
+
 	/**
 	 * Generates the Java bytecode corresponding to this Kitten bytecode. Namely,
 	 * it generates an {@code iaload} if {@link #type} is {@code int}, an {@code faload} if
@@ -65,4 +82,22 @@ public class ARRAYLOAD extends NonCallingSequentialBytecode {
 		// we use the instruction factory to simplify the choice among more possible Java bytecodes
 		return new InstructionList(InstructionFactory.createArrayLoad(type.toBCEL()));
 	}
+
+	/**
+	 * Writes the Java {@code iaload}, {@code faload}, {@code baload} or {@code aaload}
+	 * corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		code.op(DirectClassGenerator.arrayAccess(type, Constants.IALOAD), 2, VerificationType.of(type));
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new ARRAYLOAD(line, getType());
+	}
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionFactory;
 import org.apache.bcel.generic.InstructionList;
 
@@ -28,10 +31,12 @@ public class ARRAYSTORE extends NonCallingSequentialBytecode {
 	 * Constructs a bytecode that writes a value into an element of an array. The index, where
 	 * the array is modified, is provided at runtime through the stack.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param type the type of the elements of the array that is created by this bytecode
 	 */
 
-	public ARRAYSTORE(Type type) {
+	public ARRAYSTORE(int line, Type type) {
+		super(line);
 		this.type = type;
 	}
 
@@ -50,6 +55,28 @@ public class ARRAYSTORE extends NonCallingSequentialBytecode {
 		return "store into array of " + type;
 	}
 
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 3: the array, the index and the value
+	 */
+
+	@Override
+	public int getPops() {
+		return 3;
+	}
+
+	/**
+	 * Yields the number of stack elements produced by this bytecode.
+	 *
+	 * @return 0
+	 */
+
+	@Override
+	public int getPushes() {
+		return 0;
+	}
+
 	/**
 	 * Generates the Java bytecode corresponding to this Kitten bytecode. Namely,
 	 * it generates an {@code iastore} if {@link #type} is {@code nil}, an {@code fastore} if
@@ -65,4 +92,22 @@ public class ARRAYSTORE extends NonCallingSequentialBytecode {
 		// we use the instruction factory to simplify the choice among the possible Java bytecodes
 		return new InstructionList(InstructionFactory.createArrayStore(type.toBCEL()));
 	}
+
+	/**
+	 * Writes the Java {@code iastore}, {@code fastore}, {@code bastore} or {@code aastore}
+	 * corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		code.op(DirectClassGenerator.arrayAccess(type, Constants.IASTORE), 3, null);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new ARRAYSTORE(line, getType());
+	}
 }
\ No newline at end of file
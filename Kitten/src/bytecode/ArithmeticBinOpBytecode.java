@@ -23,11 +23,13 @@ public abstract class ArithmeticBinOpBytecode extends BinOpBytecode {
 	 * Constructs a list of instructions made up of a single bytecode that
 	 * computes a binary arithmetic operation on the top two elements of the stack.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param where the method or constructor where this bytecode occurs
 	 * @param type the semantical type of the top two values of the stack
 	 */
 
-	protected ArithmeticBinOpBytecode(NumericalType type) {
+	protected ArithmeticBinOpBytecode(int line, NumericalType type) {
+		super(line);
 		this.type = type;
 	}
 
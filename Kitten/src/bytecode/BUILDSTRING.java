@@ -0,0 +1,78 @@
+package bytecode;
+
+import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+
+import org.apache.bcel.Constants;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.ObjectType;
+
+/**
+ * A bytecode that replaces the builder of strings on top of the stack
+ * with the concatenation of the values appended to it. See {@link NEWBUILDER}.
+ * <br><br>
+ * ..., builder -&gt; ..., string
+ *
+ * @author Federico Bianchi
+ */
+
+public class BUILDSTRING extends NonCallingSequentialBytecode {
+
+	/**
+	 * Constructs a bytecode that yields the string built by a builder of strings.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 */
+
+	public BUILDSTRING(int line) {
+		super(line);
+	}
+
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 1
+	 */
+
+	@Override
+	public int getPops() {
+		return 1;
+	}
+
+	/**
+	 * Generates the Java bytecode corresponding to this Kitten bytecode, that is,
+	 * a call to the {@code build} method of {@code runTime.StringBuilder}.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @return the Java bytecode
+	 */
+
+	@Override
+	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
+		return new InstructionList(classGen.getFactory().createInvoke
+			(runTime.StringBuilder.class.getName(), // class name of the method
+			"build", // name of the method
+			new ObjectType(runTime.String.class.getName()), // return type
+			org.apache.bcel.generic.Type.NO_ARGS, // no parameters
+			Constants.INVOKEVIRTUAL)); // invokevirtual
+	}
+
+	/**
+	 * Writes the call to {@code runTime.StringBuilder.build} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		code.op2(Constants.INVOKEVIRTUAL, classGen.getConstantPool().methodRef(DirectClassGenerator.BUILDER, "build",
+			"()L" + DirectClassGenerator.STRING + ";"), 1, DirectClassGenerator.STRING_TYPE);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new BUILDSTRING(line);
+	}
+}
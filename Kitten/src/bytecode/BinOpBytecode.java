@@ -13,7 +13,22 @@ public abstract class BinOpBytecode extends NonCallingSequentialBytecode {
 	/**
 	 * Constructs a list of instructions made up of a single bytecode that
 	 * performs a binary operation on the top two elements of the stack.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 */
 
-	protected BinOpBytecode() {}
+	protected BinOpBytecode(int line) {
+		super(line);
+	}
+
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 2
+	 */
+
+	@Override
+	public int getPops() {
+		return 2;
+	}
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
 import org.apache.bcel.generic.InstructionHandle;
 import org.apache.bcel.generic.InstructionList;
@@ -16,9 +18,13 @@ public abstract class BranchingBytecode extends Bytecode implements NonCallingBy
 
 	/**
 	 * Constructs a branching bytecode.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 */
 
-	protected BranchingBytecode() {}
+	protected BranchingBytecode(int line) {
+		super(line);
+	}
 
 	/**
 	 * Yields a branching bytecode that expresses the opposite condition of this.
@@ -65,4 +71,18 @@ public abstract class BranchingBytecode extends Bytecode implements NonCallingBy
 	 */
 
 	protected abstract void generateJavaBytecodeAux(InstructionList il, AbstractClassGenerator classGen, InstructionHandle yes);
+
+	/**
+	 * Writes into the code of a method or constructor built by a {@link DirectClassGenerator}
+	 * the Java bytecode that goes to {@code yes} if the outcome of the test expressed by
+	 * this branching bytecode is true. It is the same Java bytecode generated by
+	 * {@link #generateJavaBytecodeAux(InstructionList, AbstractClassGenerator, InstructionHandle)}.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param yes the target where one must go if the outcome of the test
+	 *            expressed by this branching bytecode is true
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	public abstract void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer.Label yes, CodeBuffer code);
 }
\ No newline at end of file
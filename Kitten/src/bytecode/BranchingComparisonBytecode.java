@@ -23,10 +23,12 @@ public abstract class BranchingComparisonBytecode extends BranchingBytecode {
 	 * Constructs a bytecode that compares the top two elements of the
 	 * stack to decide where to branch.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param type the semantical type of the values that are compared
 	 */
 
-	protected BranchingComparisonBytecode(ComparableType type) {
+	protected BranchingComparisonBytecode(int line, ComparableType type) {
+		super(line);
 		this.type = type;
 	}
 
@@ -24,11 +24,13 @@ public abstract class BranchingConstantComparisonBytecode extends BranchingBytec
 	 * Constructs a bytecode that compares the top element of the
 	 * stack with a constant.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param type the semantical type of the value and of the constant
 	 *             that are compared
 	 */
 
-	protected BranchingConstantComparisonBytecode(ComparableType type) {
+	protected BranchingConstantComparisonBytecode(int line, ComparableType type) {
+		super(line);
 		this.type = type;
 	}
 
@@ -17,12 +17,13 @@ public abstract class BranchingNumericalComparisonBytecode extends BranchingComp
 	 * Constructs a bytecode that compares the top two elements of the
 	 * stack to decide where to branch.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param where the method or constructor where this bytecode occurs
 	 * @param type the semantical type of the values that are compared
 	 */
 
-	protected BranchingNumericalComparisonBytecode(NumericalType type) {
-		super(type);
+	protected BranchingNumericalComparisonBytecode(int line, NumericalType type) {
+		super(line, type);
 	}
 
 	/**
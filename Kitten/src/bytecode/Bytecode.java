@@ -2,22 +2,55 @@ package bytecode;
 
 /**
  * A bytecode of the intermediate Kitten language. It is a more typed,
- * simplified version of the Java bytecode.
+ * simplified version of the Java bytecode. Each bytecode remembers the
+ * line of the source code it comes from, if known, so that the generated
+ * Java bytecode can carry debugging information.
  *
  * @author <A HREF="mailto:fausto.spoto@univr.it">Fausto Spoto</A>
  */
 
 public abstract class Bytecode {
 
+    /**
+     * The line of the source code this bytecode comes from, or 0 if it is not known.
+     */
+
+    private final int line;
+
     /**
      * Constructs a bytecode.
+     *
+     * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+     */
+
+    protected Bytecode(int line) {
+    	this.line = line;
+    }
+
+    /**
+     * Yields the line of the source code this bytecode comes from.
+     *
+     * @return the line, or 0 if it is not known
+     */
+
+    public final int getLine() {
+    	return line;
+    }
+
+    /**
+     * Yields a copy of this bytecode, that comes from the given line of the source code.
+     * Bytecodes are shared among blocks, hence their line is never modified:
+     * this is used when some code is copied into another place, as by inlining.
+     *
+     * @param line the line, or 0 if it is not known
+     * @return the copy
      */
 
-    protected Bytecode() {}
+    public abstract Bytecode copyAt(int line);
 
     @Override
     public String toString() {
     	// the name of the class. Subclasses may redefine
     	return getClass().getSimpleName().toLowerCase();
     }
-}
\ No newline at end of file
+}
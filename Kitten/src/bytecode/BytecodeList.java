@@ -108,7 +108,8 @@ public class BytecodeList {
     /**
      * Generates the Java bytecode corresponding to this list of bytecodes.
      * This just calls {@code bytecode.NonBranchingBytecode.generateJavaBytecode(JavaClassGenerator)} on each
-     * non-branching bytecode in the list and appends the results.
+     * non-branching bytecode in the list and appends the results, recording
+     * the line of the source code where each bytecode comes from.
      *
      * @param classGen the Java class generator to be used for this generation
      * @return the Java bytecode corresponding to this list of bytecodes
@@ -120,7 +121,7 @@ public class BytecodeList {
     	if (head instanceof NonBranchingBytecode)
     		// we generate the Java bytecode for the first bytecode
     		// if it is not a condition of a branch
-    		result = ((NonBranchingBytecode) head).generateJavaBytecode(classGen);
+    		result = classGen.setLine(classGen.generateJavaBytecode((NonBranchingBytecode) head), head.getLine());
     	else
     		result = new InstructionList();
 
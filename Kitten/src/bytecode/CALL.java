@@ -2,8 +2,18 @@ package bytecode;
 
 import java.util.Set;
 
+import org.apache.bcel.Constants;
+import org.apache.bcel.generic.InstructionFactory;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.ObjectType;
+
+import types.BooleanType;
 import types.CodeSignature;
+import types.FloatType;
+import types.IntType;
 import types.Type;
+import types.TypeList;
+import types.VoidType;
 
 /**
  * A bytecode that calls a method of a <i>receiver</i>.
@@ -42,12 +52,14 @@ public abstract class CALL extends SequentialBytecode {
 	/**
 	 * Constructs a bytecode that calls a method.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param receiverType the static type of the receiver of this call
 	 * @param staticTarget the signature of the static target of the call
 	 * @param dynamicTargets the set of dynamic targets for the call
 	 */
 
-	protected CALL(Type receiverType, CodeSignature staticTarget, Set<CodeSignature> dynamicTargets) {
+	protected CALL(int line, Type receiverType, CodeSignature staticTarget, Set<CodeSignature> dynamicTargets) {
+		super(line);
 		this.receiverType = receiverType;
 		this.staticTarget = staticTarget;
 		this.dynamicTargets = dynamicTargets;
@@ -87,4 +99,88 @@ public abstract class CALL extends SequentialBytecode {
 	public String toString() {
 		return "call " + staticTarget + " " + dynamicTargets;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Appends the Java bytecode that moves the receiver and the parameters of this
+	 * call into a new array of objects, from the last to the first, so that the receiver
+	 * ends up at index 0. Primitive values get wrapped into objects. This is used by
+	 * the calls that are executed by the run-time support of Kitten.
+	 * <br><br>
+	 * ..., receiver, par_1, ..., par_n -&gt; ..., array
+	 *
+	 * @param factory the factory used to generate the Java bytecode
+	 * @param il the Java bytecode where the code must be appended
+	 */
+
+	public final void appendFrame(InstructionFactory factory, InstructionList il) {
+		// the types of the values on the stack, from the receiver
+		TypeList parameters = staticTarget.getParameters();
+		Type[] types = new Type[parameters.getSize() + 1];
+		types[0] = receiverType;
+		int pos = 1;
+		for (TypeList cursor = parameters; cursor != TypeList.EMPTY; cursor = cursor.getTail())
+			types[pos++] = cursor.getHead();
+
+		// ..., value -> ..., value, array
+		il.append(factory.createConstant(types.length));
+		il.append(factory.createNewArray(org.apache.bcel.generic.Type.OBJECT, (short) 1));
+
+		for (pos = types.length - 1; pos >= 0; pos--) {
+			// ..., value, array -> ..., array, array, value
+			il.append(InstructionFactory.DUP_X1);
+			il.append(InstructionFactory.SWAP);
+			box(types[pos], factory, il);
+
+			// ..., array, array, value -> ..., array, array, pos, value -> ..., array
+			il.append(factory.createConstant(pos));
+			il.append(InstructionFactory.SWAP);
+			il.append(InstructionFactory.AASTORE);
+		}
+	}
+
+	/**
+	 * Appends the Java bytecode that wraps a primitive value into an object.
+	 * Other values are left unchanged.
+	 *
+	 * @param type the type of the value
+	 * @param factory the factory used to generate the Java bytecode
+	 * @param il the Java bytecode where the wrapping must be appended
+	 */
+
+	protected static void box(Type type, InstructionFactory factory, InstructionList il) {
+		String wrapper;
+		if (type == IntType.INSTANCE)
+			wrapper = "java.lang.Integer";
+		else if (type == FloatType.INSTANCE)
+			wrapper = "java.lang.Float";
+		else if (type == BooleanType.INSTANCE)
+			wrapper = "java.lang.Boolean";
+		else
+			return;
+
+		il.append(factory.createInvoke(wrapper, "valueOf", new ObjectType(wrapper),
+			new org.apache.bcel.generic.Type[] { type.toBCEL() }, Constants.INVOKESTATIC));
+	}
+
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return the number of parameters of the static target, plus one for the receiver
+	 */
+
+	@Override
+	public int getPops() {
+		return staticTarget.getParameters().getSize() + 1;
+	}
+
+	/**
+	 * Yields the number of stack elements produced by this bytecode.
+	 *
+	 * @return 1, or 0 if the static target returns {@code void}
+	 */
+
+	@Override
+	public int getPushes() {
+		return staticTarget.getReturnType() == VoidType.INSTANCE ? 0 : 1;
+	}
+}
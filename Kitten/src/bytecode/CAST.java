@@ -1,7 +1,11 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+import javaBytecodeGenerator.VerificationType;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.F2I;
 import org.apache.bcel.generic.I2F;
 import org.apache.bcel.generic.InstructionList;
@@ -43,11 +47,13 @@ public class CAST extends NonCallingSequentialBytecode {
 	/**
 	 * Constructs a bytecode that casts the top of the stack into the given type.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param fromType the declared semantical type of the top of the stack
 	 * @param intoType the semantical type the top of the stack is cast into
 	 */
 
-	public CAST(Type fromType, ReferenceType intoType) {
+	public CAST(int line, Type fromType, ReferenceType intoType) {
+		super(line);
 		this.fromType = fromType;
 		this.intoType = intoType;
 	}
@@ -56,11 +62,13 @@ public class CAST extends NonCallingSequentialBytecode {
 	 * Constructs a bytecode that casts the top of the stack into the given type.
 	 * They are both numericla types.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param fromType the declared semantical type of the top of the stack
 	 * @param intoType the semantical type the top of the stack is cast into
 	 */
 
-	public CAST(NumericalType fromType, NumericalType intoType) {
+	public CAST(int line, NumericalType fromType, NumericalType intoType) {
+		super(line);
 		this.fromType = fromType;
 		this.intoType = intoType;
 	}
@@ -90,6 +98,17 @@ public class CAST extends NonCallingSequentialBytecode {
 		return "cast " + fromType + " into " + intoType;
 	}
 
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 1
+	 */
+
+	@Override
+	public int getPops() {
+		return 1;
+	}
+
 	/**
 	 * Generates the Java bytecode corresponding to this Kitten bytecode.
 	 *
@@ -111,4 +130,29 @@ public class CAST extends NonCallingSequentialBytecode {
 		else // it must be float into int
 			return new InstructionList(new F2I());
 	}
+
+	/**
+	 * Writes the Java {@code checkcast}, {@code i2f} or {@code f2i} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		if (intoType instanceof ReferenceType)
+			code.op2(Constants.CHECKCAST, classGen.getConstantPool().classRef(classGen.referenceName(intoType)),
+				1, VerificationType.of(intoType));
+		else if (intoType == FloatType.INSTANCE)
+			code.op(Constants.I2F, 1, VerificationType.FLOAT);
+		else
+			code.op(Constants.F2I, 1, VerificationType.INTEGER);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return intoType instanceof NumericalType ?
+			new CAST(line, (NumericalType) fromType, (NumericalType) intoType) :
+			new CAST(line, fromType, (ReferenceType) intoType);
+	}
 }
\ No newline at end of file
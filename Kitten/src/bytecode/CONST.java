@@ -1,7 +1,11 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+import javaBytecodeGenerator.VerificationType;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionList;
 
 import types.BooleanType;
@@ -30,49 +34,56 @@ public class CONST extends NonCallingSequentialBytecode {
 	/**
 	 * Constructs a bytecode that loads the given constant on top of the stack.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param constant the constant to be loaded on top of the stack
 	 */
 
-	private CONST(Object constant) {
+	private CONST(int line, Object constant) {
+		super(line);
 		this.constant = constant;
 	}
 
 	/**
 	 * Constructs a bytecode that loads a {@code nil} constant on top of the stack.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 */
 
-	public CONST() {
-		this(null);
+	public CONST(int line) {
+		this(line, null);
 	}
 
 	/**
 	 * Constructs a bytecode that loads a Boolean constant on top of the stack.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param constant the Boolean constant that is loaded on top of the stack
 	 */
 
-	public CONST(boolean constant) {
-		this(new Boolean(constant));
+	public CONST(int line, boolean constant) {
+		this(line, new Boolean(constant));
 	}
 
 	/**
 	 * Constructs a bytecode that loads an integer constant on top of the stack.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param constant the integer constant that is loaded on top of the stack
 	 */
 
-	public CONST(int constant) {
-		this(new Integer(constant));
+	public CONST(int line, int constant) {
+		this(line, new Integer(constant));
 	}
 
 	/**
 	 * Constructs a bytecode that loads a {@code float} constant on top of the stack.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param constant the {@code float} constant that is loaded on top of the stack
 	 */
 
-	public CONST(float constant) {
-		this(new Float(constant));
+	public CONST(int line, float constant) {
+		this(line, new Float(constant));
 	}
 
 	/**
@@ -81,10 +92,22 @@ public class CONST extends NonCallingSequentialBytecode {
 	 * @return the constant that is loaded on top of the stack
 	 */
 
-	protected Object getConstant() {
+	public Object getConstant() {
 		return constant;
 	}
 
+	/**
+	 * Determines if the constant loaded on top of the stack is {@code 0},
+	 * {@code false} or {@code nil}, that is, a value represented as zero
+	 * in Java bytecode. The {@code float} constant {@code 0.0} is not considered.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	public boolean isZero() {
+		return constant == null || constant.equals(0) || constant.equals(false);
+	}
+
 	/**
 	 * Yields the type of the constant that is loaded on top of the stack.
 	 *
@@ -107,6 +130,17 @@ public class CONST extends NonCallingSequentialBytecode {
 		return "const " + constant;
 	}
 
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 0
+	 */
+
+	@Override
+	public int getPops() {
+		return 0;
+	}
+
 	/**
 	 * Generates the Java bytecode corresponding to this Kitten bytecode.
 	 *
@@ -124,4 +158,34 @@ public class CONST extends NonCallingSequentialBytecode {
 			// the instruction factory will create the appropriate instruction
 			return new InstructionList(classGen.getFactory().createConstant(constant));
 	}
+
+	/**
+	 * Writes the Java bytecode corresponding to this Kitten bytecode, in the shortest
+	 * form for the type and size of {@link #constant}.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		if (constant == null)
+			code.op(Constants.ACONST_NULL, 0, VerificationType.NULL);
+		else if (constant instanceof Integer)
+			code.iconst((Integer) constant, classGen.getConstantPool());
+		else if (constant instanceof Boolean)
+			code.op((Boolean) constant ? Constants.ICONST_1 : Constants.ICONST_0, 0, VerificationType.INTEGER);
+		else {
+			float value = (Float) constant;
+			if (Float.floatToRawIntBits(value) == 0 || value == 1.0f || value == 2.0f)
+				code.op(Constants.FCONST_0 + (int) value, 0, VerificationType.FLOAT);
+			else
+				code.ldc(classGen.getConstantPool().floating(value), VerificationType.FLOAT);
+		}
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new CONST(line, constant);
+	}
 }
\ No newline at end of file
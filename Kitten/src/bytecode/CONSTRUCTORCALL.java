@@ -3,6 +3,8 @@ package bytecode;
 import java.util.Collections;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
 import org.apache.bcel.generic.InstructionList;
 
@@ -23,12 +25,13 @@ public class CONSTRUCTORCALL extends CALL {
 	/**
 	 * Constructs a bytecode that calls a constructor of an object.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param constructor the signature of the constructor which is called
 	 */
 
-	public CONSTRUCTORCALL(ConstructorSignature constructor) {
+	public CONSTRUCTORCALL(int line, ConstructorSignature constructor) {
 		// there is only only dynamic target: the constructor itself
-		super(constructor.getDefiningClass(), constructor, Collections.<CodeSignature> singleton(constructor));
+		super(line, constructor.getDefiningClass(), constructor, Collections.<CodeSignature> singleton(constructor));
 	}
 
 	/**
@@ -44,4 +47,24 @@ public class CONSTRUCTORCALL extends CALL {
 	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
 		return new InstructionList(((ConstructorSignature) getStaticTarget()).createINVOKESPECIAL(classGen));
 	}
+
+	/**
+	 * Writes the Java {@code invokespecial} corresponding to this Kitten bytecode.
+	 * The receiver of the call becomes initialised.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		CodeSignature target = getStaticTarget();
+		code.invokeConstructor(classGen.getConstantPool().methodRef(DirectClassGenerator.internalName(target.getDefiningClass()),
+			target.getName(), classGen.descriptorOf(target)), target.getParameters().getSize());
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new CONSTRUCTORCALL(line, (ConstructorSignature) getStaticTarget());
+	}
 }
\ No newline at end of file
@@ -0,0 +1,182 @@
+package bytecode;
+
+import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.ConstantPool;
+import javaBytecodeGenerator.DirectClassGenerator;
+
+import org.apache.bcel.Constants;
+import org.apache.bcel.generic.InstructionFactory;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.ObjectType;
+import org.apache.bcel.generic.Type;
+
+/**
+ * A bytecode that increments a counter of the profile of the program.
+ * It is only added by the instrumentation of the code. The counter at the
+ * beginning of the program also starts profiling, telling the run-time
+ * the file of the profile and the number of counters of the program.
+ * <br><br>
+ * ... -&gt; ...
+ *
+ * @author Federico Bianchi
+ */
+
+public class COUNT extends NonCallingSequentialBytecode {
+
+	/**
+	 * The counter incremented by this bytecode.
+	 */
+
+	private final int counter;
+
+	/**
+	 * The file of the profile, if this bytecode starts profiling, or {@code null}.
+	 */
+
+	private final String profile;
+
+	/**
+	 * The number of counters of the program, if this bytecode starts profiling.
+	 */
+
+	private final int counters;
+
+	/**
+	 * Constructs a bytecode that increments a counter of the profile.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 * @param counter the counter
+	 */
+
+	public COUNT(int line, int counter) {
+		this(line, counter, null, 0);
+	}
+
+	/**
+	 * Constructs a bytecode that starts profiling and increments a counter of the profile.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 * @param counter the counter
+	 * @param profile the file of the profile, or {@code null} if this bytecode does not start profiling
+	 * @param counters the number of counters of the program
+	 */
+
+	public COUNT(int line, int counter, String profile, int counters) {
+		super(line);
+		this.counter = counter;
+		this.profile = profile;
+		this.counters = counters;
+	}
+
+	/**
+	 * Yields the counter incremented by this bytecode.
+	 *
+	 * @return the counter
+	 */
+
+	public int getCounter() {
+		return counter;
+	}
+
+	/**
+	 * Yields the file of the profile, if this bytecode starts profiling.
+	 *
+	 * @return the file, or {@code null} if this bytecode does not start profiling
+	 */
+
+	public String getProfile() {
+		return profile;
+	}
+
+	/**
+	 * Yields the number of counters of the program, if this bytecode starts profiling.
+	 *
+	 * @return the number of counters
+	 */
+
+	public int getCounters() {
+		return counters;
+	}
+
+	@Override
+	public String toString() {
+		return "count " + counter;
+	}
+
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 0
+	 */
+
+	@Override
+	public int getPops() {
+		return 0;
+	}
+
+	/**
+	 * Yields the number of stack elements produced by this bytecode.
+	 *
+	 * @return 0
+	 */
+
+	@Override
+	public int getPushes() {
+		return 0;
+	}
+
+	/**
+	 * Generates the Java bytecode corresponding to this Kitten bytecode, that is,
+	 * a call to the {@code count} method of {@code runTime.Counters}, preceded
+	 * by a call to its {@code start} method if this bytecode starts profiling.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @return the Java bytecode
+	 */
+
+	@Override
+	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
+		InstructionFactory factory = classGen.getFactory();
+		String counters = runTime.Counters.class.getName();
+		InstructionList il = new InstructionList();
+
+		if (profile != null) {
+			il.append(factory.createConstant(profile));
+			il.append(factory.createConstant(this.counters));
+			il.append(factory.createInvoke(counters, "start", Type.VOID,
+				new Type[] { ObjectType.STRING, Type.INT }, Constants.INVOKESTATIC));
+		}
+
+		il.append(factory.createConstant(counter));
+		il.append(factory.createInvoke(counters, "count", Type.VOID, new Type[] { Type.INT }, Constants.INVOKESTATIC));
+
+		return il;
+	}
+
+	/**
+	 * Writes the calls to {@code runTime.Counters} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		ConstantPool pool = classGen.getConstantPool();
+
+		if (profile != null) {
+			code.ldc(pool.string(profile), DirectClassGenerator.JAVA_STRING);
+			code.iconst(counters, pool);
+			code.op2(Constants.INVOKESTATIC, pool.methodRef("runTime/Counters", "start", "(Ljava/lang/String;I)V"), 2, null);
+		}
+
+		code.iconst(counter, pool);
+		code.op2(Constants.INVOKESTATIC, pool.methodRef("runTime/Counters", "count", "(I)V"), 1, null);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new COUNT(line, counter, profile, counters);
+	}
+}
@@ -23,10 +23,12 @@ public abstract class ComparisonBinOpBytecode extends BinOpBytecode {
 	 * Constructs a list of instructions made up of a single bytecode that
 	 * computes a binary comparison operation on the top two elements of the stack.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param type the semantical type of the top two values of the stack
 	 */
 
-	protected ComparisonBinOpBytecode(ComparableType type) {
+	protected ComparisonBinOpBytecode(int line, ComparableType type) {
+		super(line);
 		this.type = type;
 	}
 
@@ -17,11 +17,12 @@ public abstract class ComparisonNumericalBinOpBytecode extends ComparisonBinOpBy
 	 * Constructs a list of instructions made up of a single bytecode that computes
 	 * a numerical binary comparison operation on the top two elements of the stack.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param type the semantical type of the top two values of the stack
 	 */
 
-	protected ComparisonNumericalBinOpBytecode(NumericalType type) {
-		super(type);
+	protected ComparisonNumericalBinOpBytecode(int line, NumericalType type) {
+		super(line, type);
 	}
 
 	/**
@@ -1,7 +1,10 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionList;
 
 import types.NumericalType;
@@ -19,11 +22,12 @@ public class DIV extends ArithmeticBinOpBytecode {
 	/**
 	 * Constructs a bytecode that divides the top element of the stack by the underlying element.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param type the semantical type of the values that are divided
 	 */
 
-	public DIV(NumericalType type) {
-		super(type);
+	public DIV(int line, NumericalType type) {
+		super(line, type);
 	}
 
 	/**
@@ -42,4 +46,21 @@ public class DIV extends ArithmeticBinOpBytecode {
 
 		return il;
 	}
+
+	/**
+	 * Writes the Java {@code idiv} or {@code fdiv} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		DirectClassGenerator.arithmetic(getType(), Constants.IDIV, Constants.FDIV, code);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new DIV(line, getType());
+	}
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
 import org.apache.bcel.generic.InstructionList;
 
@@ -25,18 +27,52 @@ public class DUP extends NonCallingSequentialBytecode {
 	/**
 	 * Constructs a bytecode that duplicates the top element of the stack.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param type the type of the element that is duplicated
 	 */
 
-	public DUP(Type type) {
+	public DUP(int line, Type type) {
+		super(line);
 		this.type = type;
 	}
 
+	/**
+	 * Yields the type of the element which is duplicated.
+	 *
+	 * @return the type
+	 */
+
+	public Type getType() {
+		return type;
+	}
+
 	@Override
 	public String toString() {
 		return "dup " + type;
 	}
 
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 1
+	 */
+
+	@Override
+	public int getPops() {
+		return 1;
+	}
+
+	/**
+	 * Yields the number of stack elements produced by this bytecode.
+	 *
+	 * @return 2: the top of the stack and its copy
+	 */
+
+	@Override
+	public int getPushes() {
+		return 2;
+	}
+
 	/**
 	 * Generates the Java bytecode corresponding to this Kitten bytecode.
 	 *
@@ -48,4 +84,21 @@ public class DUP extends NonCallingSequentialBytecode {
 	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
 		return new InstructionList(new org.apache.bcel.generic.DUP());
 	}
+
+	/**
+	 * Writes the Java {@code dup} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		code.dup();
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new DUP(line, getType());
+	}
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionFactory;
 import org.apache.bcel.generic.InstructionHandle;
 import org.apache.bcel.generic.InstructionList;
@@ -25,11 +28,12 @@ public class EQ extends ComparisonBinOpBytecode {
 	/**
 	 * Constructs a bytecode that checks if the top two elements of the stack are the same.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param type the semantical type of the values which are added
 	 */
 
-	public EQ(ComparableType type) {
-		super(type);
+	public EQ(int line, ComparableType type) {
+		super(line, type);
 	}
 
 	/**
@@ -40,7 +44,7 @@ public class EQ extends ComparisonBinOpBytecode {
 
 	@Override
 	public BranchingComparisonBytecode toBranching() {
-		return new IF_CMPEQ(getType());
+		return new IF_CMPEQ(getLine(), getType());
 	}
 
 	/**
@@ -103,4 +107,22 @@ public class EQ extends ComparisonBinOpBytecode {
 
 		return il;
 	}
+
+	/**
+	 * Writes the Java bytecode that pushes 1 if the two values on top of the stack
+	 * are equal and 0 otherwise.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		DirectClassGenerator.comparison(getType(), Constants.IF_ICMPEQ, code);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new EQ(line, getType());
+	}
 }
\ No newline at end of file
@@ -12,9 +12,13 @@ public abstract class FieldAccessBytecode extends NonCallingSequentialBytecode {
 
 	/**
 	 * Builds a bytecode that accesses a field.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 */
 
-	protected FieldAccessBytecode() {}
+	protected FieldAccessBytecode(int line) {
+		super(line);
+	}
 
 	/**
 	 * Yields the field signature of this field access bytecode.
@@ -11,7 +11,11 @@ public abstract class FinalBytecode extends NonBranchingBytecode implements NonC
 
 	/**
 	 * Constructs a final bytecode.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 */
 
-	protected FinalBytecode() {}
+	protected FinalBytecode(int line) {
+		super(line);
+	}
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionFactory;
 import org.apache.bcel.generic.InstructionHandle;
 import org.apache.bcel.generic.InstructionList;
@@ -25,11 +28,12 @@ public class GE extends ComparisonNumericalBinOpBytecode {
      * Constructs a bytecode that checks if the element under the top of the stack
      * is greater than or equal to the element on top of the stack.
      *
+     * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
      * @param type the semantical type of the values that are compared
      */
 
-    public GE(NumericalType type) {
-    	super(type);
+    public GE(int line, NumericalType type) {
+    	super(line, type);
     }
 
     /**
@@ -40,7 +44,7 @@ public class GE extends ComparisonNumericalBinOpBytecode {
 
     @Override
     public BranchingComparisonBytecode toBranching() {
-    	return new IF_CMPGE(getType());
+    	return new IF_CMPGE(getLine(), getType());
     }
 
     /**
@@ -92,4 +96,22 @@ public class GE extends ComparisonNumericalBinOpBytecode {
 
     	return il;
     }
+
+	/**
+	 * Writes the Java bytecode that pushes 1 if the two values on top of the stack
+	 * are such that the first is greater than or equal to the second and 0 otherwise.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		DirectClassGenerator.comparison(getType(), Constants.IF_ICMPGE, code);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new GE(line, getType());
+	}
 }
\ No newline at end of file
@@ -1,7 +1,11 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+import javaBytecodeGenerator.VerificationType;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionList;
 
 import types.FieldSignature;
@@ -26,10 +30,12 @@ public class GETFIELD extends FieldAccessBytecode {
 	/**
 	 * Constructs a bytecode that reads a field of an object.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param field the signature of the field that is read
 	 */
 
-	public GETFIELD(FieldSignature field) {
+	public GETFIELD(int line, FieldSignature field) {
+		super(line);
 		this.field = field;
 	}
 
@@ -49,6 +55,17 @@ public class GETFIELD extends FieldAccessBytecode {
 		return "getfield " + field;
 	}
 
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 1
+	 */
+
+	@Override
+	public int getPops() {
+		return 1;
+	}
+
 	/**
 	 * Generates the Java bytecode corresponding to this Kitten bytecode.
 	 *
@@ -60,4 +77,21 @@ public class GETFIELD extends FieldAccessBytecode {
 	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
 		return new InstructionList(field.createGETFIELD(classGen));
 	}
+
+	/**
+	 * Writes the Java {@code getfield} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		code.op2(Constants.GETFIELD, classGen.fieldRef(field), 1, VerificationType.of(field.getType()));
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new GETFIELD(line, getField());
+	}
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionHandle;
 import org.apache.bcel.generic.InstructionList;
 
@@ -24,11 +27,12 @@ public class IF_CMPGT extends BranchingNumericalComparisonBytecode {
 	 * Constructs a bytecode that compares the top two elements of the
 	 * stack to check if the one but last is greater than the top one.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param type the semantical type of the values that are compared
 	 */
 
-	public IF_CMPGT(NumericalType type) {
-		super(type);
+	public IF_CMPGT(int line, NumericalType type) {
+		super(line, type);
 	}
 
 	/**
@@ -39,7 +43,7 @@ public class IF_CMPGT extends BranchingNumericalComparisonBytecode {
 
 	@Override
 	public BranchingBytecode negate() {
-		return new IF_CMPLE(getType());
+		return new IF_CMPLE(getLine(), getType());
 	}
 
 	/**
@@ -72,4 +76,23 @@ public class IF_CMPGT extends BranchingNumericalComparisonBytecode {
 	protected void generateJavaBytecodeAux(InstructionList il, AbstractClassGenerator classGen, InstructionHandle yes) {
 		getType().JB_if_cmpgt(il,yes);
 	}
+
+	/**
+	 * Writes the Java bytecode that compares the two values on top of the stack
+	 * and goes to {@code yes} if the outcome of the comparison is true.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param yes the target of the jump
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer.Label yes, CodeBuffer code) {
+		DirectClassGenerator.branch(getType(), Constants.IF_ICMPGT, yes, code);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new IF_CMPGT(line, getType());
+	}
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionHandle;
 import org.apache.bcel.generic.InstructionList;
 
@@ -23,11 +26,12 @@ public class IF_CMPNE extends BranchingComparisonBytecode {
 	 * Constructs a bytecode that compares the top two elements of the
 	 * stack to check if they are the same.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param type the semantical type of the values that are compared
 	 */
 
-	public IF_CMPNE(ComparableType type) {
-		super(type);
+	public IF_CMPNE(int line, ComparableType type) {
+		super(line, type);
 	}
 
 	/**
@@ -38,7 +42,7 @@ public class IF_CMPNE extends BranchingComparisonBytecode {
 
 	@Override
 	public BranchingBytecode negate() {
-		return new IF_CMPEQ(getType());
+		return new IF_CMPEQ(getLine(), getType());
 	}
 
 	/**
@@ -75,4 +79,23 @@ public class IF_CMPNE extends BranchingComparisonBytecode {
 	protected void generateJavaBytecodeAux(InstructionList il, AbstractClassGenerator classGen, InstructionHandle yes) {
 		getType().JB_if_cmpne(il,yes);
 	}
+
+	/**
+	 * Writes the Java bytecode that compares the two values on top of the stack
+	 * and goes to {@code yes} if the outcome of the comparison is true.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param yes the target of the jump
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer.Label yes, CodeBuffer code) {
+		DirectClassGenerator.branch(getType(), Constants.IF_ICMPNE, yes, code);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new IF_CMPNE(line, getType());
+	}
 }
\ No newline at end of file
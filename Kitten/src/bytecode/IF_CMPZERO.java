@@ -0,0 +1,147 @@
+package bytecode;
+
+import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+
+import org.apache.bcel.Constants;
+import org.apache.bcel.generic.InstructionHandle;
+import org.apache.bcel.generic.InstructionList;
+
+import types.ReferenceType;
+
+/**
+ * A branching bytecode that compares the top of the stack with {@code 0},
+ * {@code false} or {@code nil}, depending on its type. It behaves as a
+ * branching comparison bytecode whose second operand is that constant,
+ * but it needs no constant on the stack, since the Java bytecode has
+ * specialised instructions for this case. It is used to route
+ * the computation at the end of a branching block of code.
+ * <br><br>
+ * ..., value -&gt; ...<br>
+ * (checks value against 0, false or nil)
+ *
+ * @author Federico Bianchi
+ */
+
+public class IF_CMPZERO extends BranchingConstantComparisonBytecode {
+
+	/**
+	 * The comparison that is performed between the top of the stack and the constant.
+	 */
+
+	private final BranchingComparisonBytecode comparison;
+
+	/**
+	 * Constructs a bytecode that compares the top of the stack with {@code 0},
+	 * {@code false} or {@code nil}.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 * @param comparison the comparison that is performed. Its type must be
+	 *                   {@code int}, {@code boolean} or a reference type and,
+	 *                   in the latter case, the comparison can only be
+	 *                   {@code if_cmpeq} or {@code if_cmpne}
+	 */
+
+	public IF_CMPZERO(int line, BranchingComparisonBytecode comparison) {
+		super(line, comparison.getType());
+
+		this.comparison = comparison;
+	}
+
+	/**
+	 * Yields the comparison that is performed between the top of the stack and the constant.
+	 *
+	 * @return the comparison
+	 */
+
+	public BranchingComparisonBytecode getComparison() {
+		return comparison;
+	}
+
+	@Override
+	public String toString() {
+		return comparison + " zero";
+	}
+
+	/**
+	 * Yields a branching bytecode that expresses the opposite condition of this.
+	 *
+	 * @return the same comparison with zero, but with the opposite condition
+	 */
+
+	@Override
+	public BranchingBytecode negate() {
+		return new IF_CMPZERO(getLine(), (BranchingComparisonBytecode) comparison.negate());
+	}
+
+	/**
+	 * Auxiliary method that adds to the given list of instructions the code that goes
+	 * to {@code yes} if the outcome of the test expressed by this branching bytecode is true.
+	 * Namely, it generates the Java bytecode {@code ifnull} or {@code ifnonnull}
+	 * for reference types and {@code ifeq}, {@code ifne}, {@code iflt}, {@code ifle},
+	 * {@code ifgt} or {@code ifge} otherwise.
+	 *
+	 * @param il the list of instructions which must be expanded
+	 * @param classGen the class generator to be used to generate the code
+	 * @param yes the target where one must go if the outcome of the test
+	 *            expressed by this branching bytecode is true
+	 */
+
+	@Override
+	protected void generateJavaBytecodeAux(InstructionList il, AbstractClassGenerator classGen, InstructionHandle yes) {
+		if (getType() instanceof ReferenceType)
+			if (comparison instanceof IF_CMPEQ)
+				il.append(new org.apache.bcel.generic.IFNULL(yes));
+			else
+				il.append(new org.apache.bcel.generic.IFNONNULL(yes));
+		else if (comparison instanceof IF_CMPEQ)
+			il.append(new org.apache.bcel.generic.IFEQ(yes));
+		else if (comparison instanceof IF_CMPNE)
+			il.append(new org.apache.bcel.generic.IFNE(yes));
+		else if (comparison instanceof IF_CMPLT)
+			il.append(new org.apache.bcel.generic.IFLT(yes));
+		else if (comparison instanceof IF_CMPLE)
+			il.append(new org.apache.bcel.generic.IFLE(yes));
+		else if (comparison instanceof IF_CMPGT)
+			il.append(new org.apache.bcel.generic.IFGT(yes));
+		else
+			il.append(new org.apache.bcel.generic.IFGE(yes));
+	}
+
+	/**
+	 * Writes the Java bytecode that compares the top of the stack with zero,
+	 * or with {@code nil}, and goes to {@code yes} if the outcome of the comparison is true.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param yes the target of the jump
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer.Label yes, CodeBuffer code) {
+		int opcode;
+
+		if (!DirectClassGenerator.isPrimitive(getType()))
+			opcode = comparison instanceof IF_CMPEQ ? Constants.IFNULL : Constants.IFNONNULL;
+		else if (comparison instanceof IF_CMPEQ)
+			opcode = Constants.IFEQ;
+		else if (comparison instanceof IF_CMPNE)
+			opcode = Constants.IFNE;
+		else if (comparison instanceof IF_CMPLT)
+			opcode = Constants.IFLT;
+		else if (comparison instanceof IF_CMPLE)
+			opcode = Constants.IFLE;
+		else if (comparison instanceof IF_CMPGT)
+			opcode = Constants.IFGT;
+		else
+			opcode = Constants.IFGE;
+
+		code.jump(opcode, yes, 1);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new IF_CMPZERO(line, comparison);
+	}
+}
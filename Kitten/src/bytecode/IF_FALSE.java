@@ -1,7 +1,10 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionHandle;
 import org.apache.bcel.generic.InstructionList;
 
@@ -23,10 +26,12 @@ public class IF_FALSE extends BranchingConstantComparisonBytecode {
 	 * Constructs a branching bytecode that checks if the top of the stack is the
 	 * Boolean value <i>false</i>. It routes accordingly the computation
 	 * at the end of a conditional block of code.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 */
 
-	public IF_FALSE() {
-		super(BooleanType.INSTANCE);
+	public IF_FALSE(int line) {
+		super(line, BooleanType.INSTANCE);
 	}
 
 	@Override
@@ -42,7 +47,7 @@ public class IF_FALSE extends BranchingConstantComparisonBytecode {
 
 	@Override
 	public BranchingBytecode negate() {
-		return new IF_TRUE();
+		return new IF_TRUE(getLine());
 	}
 
 	/**
@@ -66,4 +71,22 @@ public class IF_FALSE extends BranchingConstantComparisonBytecode {
 	protected void generateJavaBytecodeAux(InstructionList il, AbstractClassGenerator classGen, InstructionHandle yes) {
 		il.append(new org.apache.bcel.generic.IFEQ(yes));
 	}
+
+	/**
+	 * Writes the Java {@code ifeq} that goes to {@code yes} if the top of the stack is {@code false}.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param yes the target of the jump
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer.Label yes, CodeBuffer code) {
+		code.jump(Constants.IFEQ, yes, 1);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new IF_FALSE(line);
+	}
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionHandle;
 import org.apache.bcel.generic.InstructionList;
 
@@ -24,10 +27,12 @@ public class IF_TRUE extends BranchingConstantComparisonBytecode {
 	 * Constructs a branching bytecode that checks if the top of the stack is the
 	 * Boolean value <i>true</i>. It routes accordingly the computation
 	 * at the end of a conditional block of code.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 */
 
-	public IF_TRUE() {
-		super(BooleanType.INSTANCE);
+	public IF_TRUE(int line) {
+		super(line, BooleanType.INSTANCE);
 	}
 
 	@Override
@@ -43,7 +48,7 @@ public class IF_TRUE extends BranchingConstantComparisonBytecode {
 
 	@Override
 	public BranchingBytecode negate() {
-		return new IF_FALSE();
+		return new IF_FALSE(getLine());
 	}
 
 	/**
@@ -67,4 +72,22 @@ public class IF_TRUE extends BranchingConstantComparisonBytecode {
 	protected void generateJavaBytecodeAux(InstructionList il, AbstractClassGenerator classGen, InstructionHandle yes) {
 		il.append(new org.apache.bcel.generic.IFNE(yes));
 	}
+
+	/**
+	 * Writes the Java {@code ifne} that goes to {@code yes} if the top of the stack is {@code true}.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param yes the target of the jump
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer.Label yes, CodeBuffer code) {
+		code.jump(Constants.IFNE, yes, 1);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new IF_TRUE(line);
+	}
 }
\ No newline at end of file
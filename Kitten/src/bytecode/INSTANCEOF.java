@@ -0,0 +1,97 @@
+package bytecode;
+
+import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+import javaBytecodeGenerator.VerificationType;
+
+import org.apache.bcel.Constants;
+import org.apache.bcel.generic.InstructionList;
+
+import types.ClassType;
+
+/**
+ * A bytecode that checks if the top of the stack is an instance of a given
+ * class or of one of its subclasses, and replaces it with the Boolean outcome
+ * of the check. The value {@code nil} is not an instance of any class.
+ * <br><br>
+ * ..., value -&gt; ..., true or false
+ *
+ * @author Federico Bianchi
+ */
+
+public class INSTANCEOF extends NonCallingSequentialBytecode {
+
+	/**
+	 * The class type against which the top of the stack is checked.
+	 */
+
+	private final ClassType clazz;
+
+	/**
+	 * Constructs a bytecode that checks if the top of the stack is an instance of a given class.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 * @param clazz the class type against which the top of the stack is checked
+	 */
+
+	public INSTANCEOF(int line, ClassType clazz) {
+		super(line);
+		this.clazz = clazz;
+	}
+
+	/**
+	 * Yields the class type against which the top of the stack is checked.
+	 *
+	 * @return the class type
+	 */
+
+	public ClassType getType() {
+		return clazz;
+	}
+
+	@Override
+	public String toString() {
+		return "instanceof " + clazz;
+	}
+
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 1
+	 */
+
+	@Override
+	public int getPops() {
+		return 1;
+	}
+
+	/**
+	 * Generates the Java bytecode corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @return the Java {@code instanceof clazz} bytecode
+	 */
+
+	@Override
+	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
+		return new InstructionList(classGen.getFactory().createInstanceOf((org.apache.bcel.generic.ObjectType) clazz.toBCEL()));
+	}
+
+	/**
+	 * Writes the Java {@code instanceof} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		code.op2(Constants.INSTANCEOF, classGen.getConstantPool().classRef(classGen.referenceName(clazz)), 1, VerificationType.INTEGER);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new INSTANCEOF(line, getType());
+	}
+}
@@ -1,6 +1,9 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+import javaBytecodeGenerator.VerificationType;
 
 import org.apache.bcel.generic.InstructionFactory;
 import org.apache.bcel.generic.InstructionList;
@@ -33,11 +36,13 @@ public class LOAD extends NonCallingSequentialBytecode {
 	 * Constructs a bytecode that loads the value of a local variable on top of the stack,
 	 * followed by the given list of instructions.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param varNum the number of the local variable which is read
 	 * @param type the type of the value loaded on top of the stack
 	 */
 
-	public LOAD(int varNum, Type type) {
+	public LOAD(int line, int varNum, Type type) {
+		super(line);
 		this.varNum = varNum;
 		this.type = type;
 	}
@@ -67,6 +72,17 @@ public class LOAD extends NonCallingSequentialBytecode {
 		return "load " + varNum + " of type " + type;
 	}
 
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 0
+	 */
+
+	@Override
+	public int getPops() {
+		return 0;
+	}
+
 	/**
 	 * Generates the Java bytecode corresponding to this Kitten bytecode.
 	 *
@@ -80,4 +96,22 @@ public class LOAD extends NonCallingSequentialBytecode {
 		// we use the instruction factory to simplify the choice between the three Java bytecode
 		return new InstructionList(InstructionFactory.createLoad(type.toBCEL(), varNum));
 	}
+
+	/**
+	 * Writes the Java {@code iload}, {@code fload} or {@code aload} corresponding
+	 * to this Kitten bytecode, in its shortest form.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		code.load(DirectClassGenerator.loadOf(type), varNum, VerificationType.of(type));
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new LOAD(line, varNum, type);
+	}
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionFactory;
 import org.apache.bcel.generic.InstructionHandle;
 import org.apache.bcel.generic.InstructionList;
@@ -24,11 +27,12 @@ public class LT extends ComparisonNumericalBinOpBytecode {
 	 * Constructs a bytecode that checks if the element under the top of the stack
 	 * is less than the element on top of the stack.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param type the semantical type of the values that are compared
 	 */
 
-	public LT(NumericalType type) {
-		super(type);
+	public LT(int line, NumericalType type) {
+		super(line, type);
 	}
 
 	/**
@@ -39,7 +43,7 @@ public class LT extends ComparisonNumericalBinOpBytecode {
 
 	@Override
 	public BranchingComparisonBytecode toBranching() {
-		return new IF_CMPLT(getType());
+		return new IF_CMPLT(getLine(), getType());
 	}
 
 	/**
@@ -91,4 +95,22 @@ public class LT extends ComparisonNumericalBinOpBytecode {
 
 		return il;
 	}
+
+	/**
+	 * Writes the Java bytecode that pushes 1 if the two values on top of the stack
+	 * are such that the first is less than the second and 0 otherwise.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		DirectClassGenerator.comparison(getType(), Constants.IF_ICMPLT, code);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new LT(line, getType());
+	}
 }
\ No newline at end of file
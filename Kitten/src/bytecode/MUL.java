@@ -1,7 +1,10 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionList;
 
 import types.NumericalType;
@@ -19,11 +22,12 @@ public class MUL extends ArithmeticBinOpBytecode {
 	/**
 	 * Constructs a bytecode that multiplies the top two elements of the stack.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param type the semantical type of the values which are multiplied
 	 */
 
-	public MUL(NumericalType type) {
-		super(type);
+	public MUL(int line, NumericalType type) {
+		super(line, type);
 	}
 
 	/**
@@ -42,4 +46,21 @@ public class MUL extends ArithmeticBinOpBytecode {
 
 		return il;
 	}
+
+	/**
+	 * Writes the Java {@code imul} or {@code fmul} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		DirectClassGenerator.arithmetic(getType(), Constants.IMUL, Constants.FMUL, code);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new MUL(line, getType());
+	}
 }
\ No newline at end of file
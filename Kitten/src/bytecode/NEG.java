@@ -1,12 +1,17 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+import javaBytecodeGenerator.VerificationType;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionFactory;
 import org.apache.bcel.generic.InstructionHandle;
 import org.apache.bcel.generic.InstructionList;
 
 import types.BooleanType;
+import types.FloatType;
 import types.NumericalType;
 import types.Type;
 
@@ -30,20 +35,24 @@ public class NEG extends NonCallingSequentialBytecode {
 	/**
 	 * Constructs a bytecode that negates the Boolean top element of the stack
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param type the Boolean type
 	 */
 
-	public NEG(BooleanType type) {
+	public NEG(int line, BooleanType type) {
+		super(line);
 		this.type = type;
 	}
 
 	/**
 	 * Constructs a bytecode that negates the numerical top element of the stack.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param type the type of the numerical constant that is negated
 	 */
 
-	public NEG(NumericalType type) {
+	public NEG(int line, NumericalType type) {
+		super(line);
 		this.type = type;
 	}
 
@@ -63,6 +72,17 @@ public class NEG extends NonCallingSequentialBytecode {
 		return "neg " + type;
 	}
 
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 1
+	 */
+
+	@Override
+	public int getPops() {
+		return 1;
+	}
+
 	/**
 	 * Generates the Java bytecode corresponding to this Kitten bytecode. Namely,
 	 * it generates an {@code ineg} Java bytecode if {@link #type} is {@code int},
@@ -100,4 +120,29 @@ public class NEG extends NonCallingSequentialBytecode {
 
 		return il;
 	}
+
+	/**
+	 * Writes the Java bytecode corresponding to this Kitten bytecode.
+	 * A Boolean value, that is 0 or 1, is negated without jumps.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		if (type == BooleanType.INSTANCE) {
+			code.op(Constants.ICONST_1, 0, VerificationType.INTEGER);
+			code.op(Constants.IXOR, 2, VerificationType.INTEGER);
+		}
+		else if (type == FloatType.INSTANCE)
+			code.op(Constants.FNEG, 1, VerificationType.FLOAT);
+		else
+			code.op(Constants.INEG, 1, VerificationType.INTEGER);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return type instanceof BooleanType ? new NEG(line, (BooleanType) type) : new NEG(line, (NumericalType) type);
+	}
 }
\ No newline at end of file
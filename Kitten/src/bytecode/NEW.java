@@ -1,6 +1,9 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+import javaBytecodeGenerator.VerificationType;
 
 import org.apache.bcel.generic.InstructionList;
 
@@ -26,10 +29,12 @@ public class NEW extends NonCallingSequentialBytecode {
 	/**
 	 * Constructs a bytecode that creates an object of a given class.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param clazz the class type that is instantiated by this bytecode
 	 */
 
-	public NEW(ClassType clazz) {
+	public NEW(int line, ClassType clazz) {
+		super(line);
 		this.clazz = clazz;
 	}
 
@@ -48,6 +53,17 @@ public class NEW extends NonCallingSequentialBytecode {
 		return "new " + clazz;
 	}
 
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 0
+	 */
+
+	@Override
+	public int getPops() {
+		return 0;
+	}
+
 	/**
 	 * Generates the Java bytecode corresponding to this Kitten bytecode.
 	 *
@@ -59,4 +75,21 @@ public class NEW extends NonCallingSequentialBytecode {
 	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
 		return new InstructionList(classGen.getFactory().createNew(clazz.toBCEL().toString()));
 	}
+
+	/**
+	 * Writes the Java {@code new} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		code.newObject(classGen.getConstantPool().classRef(DirectClassGenerator.internalName(clazz)), VerificationType.of(clazz));
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new NEW(line, getType());
+	}
 }
\ No newline at end of file
@@ -1,10 +1,17 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+import javaBytecodeGenerator.VerificationType;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionList;
 
 import types.ArrayType;
+import types.BooleanType;
+import types.FloatType;
+import types.IntType;
 import types.Type;
 
 /**
@@ -34,11 +41,13 @@ public class NEWARRAY extends NonCallingSequentialBytecode {
 	 * Constructs a bytecode that creates an array of the given type and dimensions.
 	 * Note that the size of the array is provided at runtime through the stack.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param elementsType the type of the elements of the array that is created by this bytecode
 	 * @param dimensions the number of dimensions of the array
 	 */
 
-	public NEWARRAY(Type elementsType, int dimensions) {
+	public NEWARRAY(int line, Type elementsType, int dimensions) {
+		super(line);
 		this.elementsType = elementsType;
 		this.dimensions = dimensions;
 	}
@@ -48,11 +57,22 @@ public class NEWARRAY extends NonCallingSequentialBytecode {
 	 * one dimension. Note that the size of the array
 	 * is provided at runtime through the stack.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param elementsType the type of the elements of the array that is created by this bytecode
 	 */
 
-	public NEWARRAY(Type elementsType) {
-		this(elementsType, 1);
+	public NEWARRAY(int line, Type elementsType) {
+		this(line, elementsType, 1);
+	}
+
+	/**
+	 * Yields the type of the elements of the array that is created by this bytecode.
+	 *
+	 * @return the type of the elements
+	 */
+
+	public Type getElementsType() {
+		return elementsType;
 	}
 
 	/**
@@ -73,6 +93,17 @@ public class NEWARRAY extends NonCallingSequentialBytecode {
 			return "newarray of " + elementsType + " of " + dimensions + " dimensions";
 	}
 
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return the number of dimensions of the array, whose lengths are consumed
+	 */
+
+	@Override
+	public int getPops() {
+		return dimensions;
+	}
+
 	/**
 	 * Generates the Java bytecode corresponding to this Kitten bytecode.
 	 *
@@ -96,4 +127,39 @@ public class NEWARRAY extends NonCallingSequentialBytecode {
 
 		return new InstructionList(classGen.getFactory().createNewArray(t.toBCEL(), (short) dimensions));
 	}
+
+	/**
+	 * Writes the Java {@code newarray}, {@code anewarray} or {@code multianewarray}
+	 * corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		VerificationType array = VerificationType.of(ArrayType.mk(elementsType, dimensions));
+
+		if (dimensions > 1) {
+			// the type of the array, with the given number of dimensions
+			StringBuilder name = new StringBuilder();
+			for (int dimension = 0; dimension < dimensions; dimension++)
+				name.append('[');
+
+			code.multianewarray(classGen.getConstantPool().classRef(name.append(classGen.descriptorOf(elementsType)).toString()), dimensions, array);
+		}
+		else if (elementsType == IntType.INSTANCE)
+			code.op1(Constants.NEWARRAY, Constants.T_INT, 1, array);
+		else if (elementsType == FloatType.INSTANCE)
+			code.op1(Constants.NEWARRAY, Constants.T_FLOAT, 1, array);
+		else if (elementsType == BooleanType.INSTANCE)
+			code.op1(Constants.NEWARRAY, Constants.T_BOOLEAN, 1, array);
+		else
+			code.op2(Constants.ANEWARRAY, classGen.getConstantPool().classRef(classGen.referenceName(elementsType)), 1, array);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new NEWARRAY(line, elementsType, dimensions);
+	}
 }
\ No newline at end of file
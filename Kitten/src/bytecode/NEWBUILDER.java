@@ -0,0 +1,129 @@
+package bytecode;
+
+import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+
+import org.apache.bcel.Constants;
+import org.apache.bcel.generic.InstructionFactory;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.ObjectType;
+
+/**
+ * A bytecode that starts a chain of concatenations of strings with the
+ * string on top of the stack, by replacing it with a builder of strings.
+ * The builder gets modified by {@code append} and yields the concatenation
+ * through {@code buildstring}.
+ * <br><br>
+ * ..., string -&gt; ..., builder
+ *
+ * @author Federico Bianchi
+ */
+
+public class NEWBUILDER extends NonCallingSequentialBytecode {
+
+	/**
+	 * The number of values that will be appended to the builder.
+	 */
+
+	private final int parts;
+
+	/**
+	 * Constructs a bytecode that starts a chain of concatenations.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 * @param parts the number of values that will be appended to the builder
+	 */
+
+	public NEWBUILDER(int line, int parts) {
+		super(line);
+		this.parts = parts;
+	}
+
+	/**
+	 * Yields the number of values that will be appended to the builder.
+	 *
+	 * @return the number of values
+	 */
+
+	public int getParts() {
+		return parts;
+	}
+
+	@Override
+	public String toString() {
+		return "newbuilder for " + parts + " values";
+	}
+
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 1
+	 */
+
+	@Override
+	public int getPops() {
+		return 1;
+	}
+
+	/**
+	 * Generates the Java bytecode corresponding to this Kitten bytecode, that is,<br>
+	 * <br>
+	 * {@code new runTime.StringBuilder}<br>
+	 * {@code dup_x1}<br>
+	 * {@code swap}<br>
+	 * {@code ldc parts}<br>
+	 * {@code invokespecial runTime.StringBuilder.&lt;init&gt;}<br>
+	 * <br>
+	 * that creates a {@code runTime.StringBuilder} initialised with the string on top of the stack.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @return the Java bytecode
+	 */
+
+	@Override
+	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
+		InstructionFactory factory = classGen.getFactory();
+		String builderName = runTime.StringBuilder.class.getName();
+		InstructionList il = new InstructionList();
+
+		il.append(factory.createNew(builderName));
+		il.append(InstructionFactory.DUP_X1);
+		il.append(InstructionFactory.SWAP);
+		il.append(factory.createConstant(parts));
+		il.append(factory.createInvoke
+			(builderName, // class name of the method
+			Constants.CONSTRUCTOR_NAME, // name of the method
+			org.apache.bcel.generic.Type.VOID, // return type
+			new org.apache.bcel.generic.Type[] // parameters types
+				{ new ObjectType(runTime.String.class.getName()), org.apache.bcel.generic.Type.INT },
+			Constants.INVOKESPECIAL)); // invokespecial
+
+		return il;
+	}
+
+	/**
+	 * Writes the Java bytecode corresponding to this Kitten bytecode: the creation of
+	 * a {@code runTime.StringBuilder} that starts with the string on top of the stack.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		String builder = DirectClassGenerator.BUILDER;
+
+		code.newObject(classGen.getConstantPool().classRef(builder), DirectClassGenerator.BUILDER_TYPE);
+		code.dupX1();
+		code.swap();
+		code.iconst(parts, classGen.getConstantPool());
+		code.invokeConstructor(classGen.getConstantPool().methodRef(builder, Constants.CONSTRUCTOR_NAME,
+			"(L" + DirectClassGenerator.STRING + ";I)V"), 2);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new NEWBUILDER(line, getParts());
+	}
+}
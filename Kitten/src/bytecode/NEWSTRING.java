@@ -1,6 +1,8 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
 import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionFactory;
@@ -22,19 +24,84 @@ public class NEWSTRING extends NonCallingSequentialBytecode {
 
 	private final String value;
 
+	/**
+	 * True if the string is never modified nor compared by reference, so that
+	 * the same string can be used for every evaluation of this bytecode.
+	 */
+
+	private final boolean shared;
+
 	/**
 	 * Constructs a bytecode that creates a string and pushes a reference to it un the stack.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 * @param value the lexical value of string
+	 */
+
+	public NEWSTRING(int line, String value) {
+		this(line, value, false);
+	}
+
+	/**
+	 * Constructs a bytecode that pushes a reference to a string on the stack.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param value the lexical value of string
+	 * @param shared true if the same string can be used for every evaluation of the bytecode
 	 */
 
-	public NEWSTRING(String value) {
+	private NEWSTRING(int line, String value, boolean shared) {
+		super(line);
 		this.value = value;
+		this.shared = shared;
+	}
+
+	/**
+	 * Yields a bytecode identical to this, but that uses the same string
+	 * for every evaluation. This is only correct if the string is never
+	 * modified, as by {@code input()}, and never compared by reference.
+	 *
+	 * @return the bytecode
+	 */
+
+	public NEWSTRING share() {
+		return new NEWSTRING(getLine(), value, true);
+	}
+
+	/**
+	 * Yields the lexical value of the string.
+	 *
+	 * @return the lexical value
+	 */
+
+	public String getValue() {
+		return value;
+	}
+
+	/**
+	 * Determines if this bytecode uses the same string for every evaluation.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	public boolean isShared() {
+		return shared;
 	}
 
 	@Override
 	public String toString() {
-		return "newstring " + value.replaceAll("\n","\\\\\\\\n");
+		return (shared ? "sharedstring " : "newstring ") + value.replaceAll("\n","\\\\\\\\n");
+	}
+
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 0
+	 */
+
+	@Override
+	public int getPops() {
+		return 0;
 	}
 
 	/**
@@ -50,6 +117,8 @@ public class NEWSTRING extends NonCallingSequentialBytecode {
 	 * <br>
 	 * that creates a {@code runTime.String} objects and initialises it with
 	 * the lexical value {@link #value} of the Kitten string we want to create.
+	 * If the string is shared, this method generates instead the Java bytecode
+	 * that reads it from a static field of the class, initialised once.
 	 *
 	 * @param classGen the Java class generator to be used for this generation
 	 * @return a Java bytecode that creates a {@code runTime.String}
@@ -59,6 +128,9 @@ public class NEWSTRING extends NonCallingSequentialBytecode {
 
 	@Override
 	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
+		if (shared)
+			return classGen.getStringConstant(value);
+
 		InstructionFactory factory = classGen.getFactory();
 		InstructionList il = new InstructionList();
 		String kittenStringName = runTime.String.class.getName();
@@ -79,4 +151,25 @@ public class NEWSTRING extends NonCallingSequentialBytecode {
 
 		return il;
 	}
+
+	/**
+	 * Writes the Java bytecode corresponding to this Kitten bytecode. A shared
+	 * string is read from its static field, as in {@link #generateJavaBytecode(AbstractClassGenerator)}.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		if (shared)
+			classGen.getStringConstant(value, code);
+		else
+			classGen.newString(value, code);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new NEWSTRING(line, value, shared);
+	}
 }
\ No newline at end of file
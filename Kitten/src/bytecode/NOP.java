@@ -1,6 +1,8 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
 import org.apache.bcel.generic.InstructionFactory;
 import org.apache.bcel.generic.InstructionList;
@@ -17,9 +19,35 @@ public class NOP extends NonCallingSequentialBytecode {
 
 	/**
 	 * Constructs a bytecode that does not do anything.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 */
+
+	public NOP(int line) {
+		super(line);
+	}
+
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 0
+	 */
+
+	@Override
+	public int getPops() {
+		return 0;
+	}
+
+	/**
+	 * Yields the number of stack elements produced by this bytecode.
+	 *
+	 * @return 0
 	 */
 
-	public NOP() {}
+	@Override
+	public int getPushes() {
+		return 0;
+	}
 
 	/**
 	 * Generates the Java bytecode corresponding to this Kitten bytecode.
@@ -31,4 +59,19 @@ public class NOP extends NonCallingSequentialBytecode {
 	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
 		return new InstructionList(InstructionFactory.NOP);
 	}
+
+	/**
+	 * Writes nothing, since this Kitten bytecode has no effect.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new NOP(line);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package bytecode;
+
+import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+
+import org.apache.bcel.Constants;
+import org.apache.bcel.generic.InstructionFactory;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.ObjectType;
+import org.apache.bcel.generic.Type;
+
+/**
+ * A bytecode that checks that the top of the stack is not {@code nil}.
+ * If it is {@code nil}, the program stops as it would do for a call
+ * on a {@code nil} receiver. This is used when a call is replaced
+ * by the code of its target.
+ * <br><br>
+ * ..., value -&gt; ..., value
+ *
+ * @author Federico Bianchi
+ */
+
+public class NULLCHECK extends NonCallingSequentialBytecode {
+
+	/**
+	 * Constructs a bytecode that checks that the top of the stack is not {@code nil}.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 */
+
+	public NULLCHECK(int line) {
+		super(line);
+	}
+
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 1
+	 */
+
+	@Override
+	public int getPops() {
+		return 1;
+	}
+
+	/**
+	 * Generates the Java bytecode corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @return the Java bytecode<br>
+	 *         <br>
+	 *         {@code dup}<br>
+	 *         {@code invokevirtual java.lang.Object.getClass}<br>
+	 *         {@code pop}<br>
+	 *         <br>
+	 *         that throws a {@code NullPointerException} on {@code null}
+	 */
+
+	@Override
+	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
+		InstructionList il = new InstructionList();
+		il.append(InstructionFactory.DUP);
+		il.append(classGen.getFactory().createInvoke
+			("java.lang.Object", "getClass", new ObjectType("java.lang.Class"), Type.NO_ARGS, Constants.INVOKEVIRTUAL));
+		il.append(InstructionFactory.POP);
+
+		return il;
+	}
+
+	/**
+	 * Writes the Java bytecode corresponding to this Kitten bytecode: a call
+	 * to {@code getClass} on a copy of the top of the stack, whose result is discarded.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		code.dup();
+		code.op2(Constants.INVOKEVIRTUAL, classGen.getConstantPool().methodRef("java/lang/Object", "getClass", "()Ljava/lang/Class;"),
+			1, DirectClassGenerator.JAVA_CLASS);
+		code.op(Constants.POP, 1, null);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new NULLCHECK(line);
+	}
+}
@@ -1,6 +1,8 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
 import org.apache.bcel.generic.InstructionList;
 
@@ -14,10 +16,31 @@ public abstract class NonBranchingBytecode extends Bytecode {
 
 	/**
 	 * Constructs a non-branching bytecode.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 */
+
+	protected NonBranchingBytecode(int line) {
+		super(line);
+	}
+
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return the number of stack elements
+	 */
+
+	public abstract int getPops();
+
+	/**
+	 * Yields the number of stack elements produced by this bytecode.
+	 * Most bytecodes produce a single value.
+	 *
+	 * @return the number of stack elements
 	 */
 
-	protected NonBranchingBytecode() {
-		super();
+	public int getPushes() {
+		return 1;
 	}
 
 	/**
@@ -31,4 +54,15 @@ public abstract class NonBranchingBytecode extends Bytecode {
 	 */
 
 	public abstract InstructionList generateJavaBytecode(AbstractClassGenerator classGen);
+
+	/**
+	 * Writes the Java bytecode corresponding to this Kitten bytecode into the
+	 * code of a method or constructor built by a {@link DirectClassGenerator}.
+	 * It is the same Java bytecode generated by {@link #generateJavaBytecode(AbstractClassGenerator)}.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	public abstract void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code);
 }
\ No newline at end of file
@@ -12,8 +12,11 @@ public abstract class NonCallingSequentialBytecode extends SequentialBytecode im
 
 	/**
 	 * Constructs a bytecode that does not call any piece of code.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 */
 
-	protected NonCallingSequentialBytecode() {
+	protected NonCallingSequentialBytecode(int line) {
+	super(line);
 	}
 }
\ No newline at end of file
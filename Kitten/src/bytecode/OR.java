@@ -1,7 +1,11 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+import javaBytecodeGenerator.VerificationType;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionFactory;
 import org.apache.bcel.generic.InstructionList;
 
@@ -19,9 +23,13 @@ public class OR extends BinOpBytecode {
 	/**
 	 * Constructs a bytecode that performs a logical <i>or</i> operation
 	 * on the top two elements of the stack.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 */
 
-	public OR() {}
+	public OR(int line) {
+		super(line);
+	}
 
 	/**
 	 * Generates the Java bytecode corresponding to this Kitten bytecode.
@@ -34,4 +42,21 @@ public class OR extends BinOpBytecode {
 	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
 		return new InstructionList(InstructionFactory.IOR);
 	}
+
+	/**
+	 * Writes the Java {@code ior} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		code.op(Constants.IOR, 2, VerificationType.INTEGER);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new OR(line);
+	}
 }
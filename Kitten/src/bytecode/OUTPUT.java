@@ -0,0 +1,114 @@
+package bytecode;
+
+import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+
+import org.apache.bcel.Constants;
+import org.apache.bcel.generic.InstructionList;
+
+import types.Type;
+
+/**
+ * A bytecode that prints the value on top of the stack, through the
+ * buffered output of the current thread.
+ * <br><br>
+ * ..., value -&gt; ...
+ *
+ * @author Federico Bianchi
+ */
+
+public class OUTPUT extends NonCallingSequentialBytecode {
+
+	/**
+	 * The type of the value that is printed.
+	 */
+
+	private final Type type;
+
+	/**
+	 * Constructs a bytecode that prints a value of the given type.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 * @param type the type of the value: {@code String}, {@code int}, {@code float} or {@code boolean}
+	 */
+
+	public OUTPUT(int line, Type type) {
+		super(line);
+		this.type = type;
+	}
+
+	/**
+	 * Yields the type of the value that is printed.
+	 *
+	 * @return the type
+	 */
+
+	public Type getType() {
+		return type;
+	}
+
+	@Override
+	public String toString() {
+		return "output " + type;
+	}
+
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 1
+	 */
+
+	@Override
+	public int getPops() {
+		return 1;
+	}
+
+	/**
+	 * Yields the number of stack elements produced by this bytecode.
+	 *
+	 * @return 0
+	 */
+
+	@Override
+	public int getPushes() {
+		return 0;
+	}
+
+	/**
+	 * Generates the Java bytecode corresponding to this Kitten bytecode, that is,
+	 * a call to the {@code print} method of {@code runTime.Output}
+	 * for the type of the value.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @return the Java bytecode
+	 */
+
+	@Override
+	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
+		return new InstructionList(classGen.getFactory().createInvoke
+			(runTime.Output.class.getName(), // class name of the method
+			"print", // name of the method
+			org.apache.bcel.generic.Type.VOID, // return type
+			new org.apache.bcel.generic.Type[] { type.toBCEL() }, // parameters types
+			Constants.INVOKESTATIC)); // invokestatic
+	}
+
+	/**
+	 * Writes the call to {@code runTime.Output.print} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		code.op2(Constants.INVOKESTATIC, classGen.getConstantPool().methodRef("runTime/Output", "print",
+			"(" + classGen.descriptorOf(type) + ")V"), 1, null);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new OUTPUT(line, getType());
+	}
+}
@@ -0,0 +1,88 @@
+package bytecode;
+
+import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+
+import org.apache.bcel.Constants;
+import org.apache.bcel.generic.InstructionList;
+
+/**
+ * A bytecode that prints the concatenation of the values appended to
+ * the builder of strings on top of the stack, without building a string.
+ * See {@link NEWBUILDER}.
+ * <br><br>
+ * ..., builder -&gt; ...
+ *
+ * @author Federico Bianchi
+ */
+
+public class OUTPUTBUILDER extends NonCallingSequentialBytecode {
+
+	/**
+	 * Constructs a bytecode that prints what has been appended to a builder of strings.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 */
+
+	public OUTPUTBUILDER(int line) {
+		super(line);
+	}
+
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 1
+	 */
+
+	@Override
+	public int getPops() {
+		return 1;
+	}
+
+	/**
+	 * Yields the number of stack elements produced by this bytecode.
+	 *
+	 * @return 0
+	 */
+
+	@Override
+	public int getPushes() {
+		return 0;
+	}
+
+	/**
+	 * Generates the Java bytecode corresponding to this Kitten bytecode, that is,
+	 * a call to the {@code output} method of {@code runTime.StringBuilder}.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @return the Java bytecode
+	 */
+
+	@Override
+	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
+		return new InstructionList(classGen.getFactory().createInvoke
+			(runTime.StringBuilder.class.getName(), // class name of the method
+			"output", // name of the method
+			org.apache.bcel.generic.Type.VOID, // return type
+			org.apache.bcel.generic.Type.NO_ARGS, // no parameters
+			Constants.INVOKEVIRTUAL)); // invokevirtual
+	}
+
+	/**
+	 * Writes the call to {@code runTime.StringBuilder.output} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		code.op2(Constants.INVOKEVIRTUAL, classGen.getConstantPool().methodRef(DirectClassGenerator.BUILDER, "output", "()V"), 1, null);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new OUTPUTBUILDER(line);
+	}
+}
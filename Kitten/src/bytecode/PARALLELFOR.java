@@ -0,0 +1,102 @@
+package bytecode;
+
+import java.util.Collections;
+
+import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+
+import org.apache.bcel.Constants;
+import org.apache.bcel.generic.InstructionFactory;
+import org.apache.bcel.generic.InstructionList;
+
+import translation.Options;
+import types.CodeSignature;
+import types.MethodSignature;
+
+/**
+ * A bytecode that executes a parallel loop. The body of the loop has been
+ * compiled into a method that executes the iterations from {@code from},
+ * included, to {@code to}, excluded, and receives the values of the local
+ * variables that the body reads. The iterations are split into ranges,
+ * that are executed in parallel by distinct tasks of the common fork-join pool
+ * of the Java virtual machine, through that method. The receiver is {@code nil}
+ * if the body method is static.
+ * <br><br>
+ * ..., receiver, from, to, par_1, ..., par_n -&gt; ...
+ *
+ * @author Federico Bianchi
+ */
+
+public class PARALLELFOR extends CALL {
+
+	/**
+	 * Constructs a bytecode that executes a parallel loop.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 * @param body the method that executes the body of the loop over a range of iterations
+	 */
+
+	public PARALLELFOR(int line, MethodSignature body) {
+		// there is only one dynamic target: the body itself
+		super(line, body.getDefiningClass(), body, Collections.<CodeSignature> singleton(body));
+	}
+
+	@Override
+	public String toString() {
+		return "parallelfor " + getStaticTarget();
+	}
+
+	/**
+	 * Generates the Java bytecode corresponding to this Kitten bytecode, that is,
+	 * a code that moves the receiver and the parameters into an array of objects,
+	 * from the last to the first, and then a call to the {@code run} method of
+	 * {@code runTime.Parallel}, with the body method, resolved once per class (see
+	 * {@link AbstractClassGenerator#getTarget(MethodSignature)}), and the grain size
+	 * of the current run of the compiler.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @return the Java bytecode
+	 */
+
+	@Override
+	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
+		InstructionFactory factory = classGen.getFactory();
+		InstructionList il = new InstructionList();
+
+		appendFrame(factory, il);
+		il.append(classGen.getTarget((MethodSignature) getStaticTarget()));
+		il.append(factory.createConstant(Options.get().getGrain()));
+		il.append(factory.createInvoke
+			(runTime.Parallel.class.getName(), // class name of the method
+			"run", // name of the method
+			org.apache.bcel.generic.Type.VOID, // return type
+			new org.apache.bcel.generic.Type[] { // parameters types
+				new org.apache.bcel.generic.ArrayType(org.apache.bcel.generic.Type.OBJECT, 1),
+				new org.apache.bcel.generic.ObjectType(runTime.Target.class.getName()), org.apache.bcel.generic.Type.INT },
+			Constants.INVOKESTATIC)); // invokestatic
+
+		return il;
+	}
+
+	/**
+	 * Writes the call to {@code runTime.Parallel.run} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		classGen.appendFrame(this, code);
+		classGen.getTarget((MethodSignature) getStaticTarget(), code);
+		code.iconst(Options.get().getGrain(), classGen.getConstantPool());
+		code.op2(Constants.INVOKESTATIC, classGen.getConstantPool().methodRef("runTime/Parallel", "run",
+			"([Ljava/lang/Object;L" + DirectClassGenerator.TARGET + ";I)V"), 3, null);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new PARALLELFOR(line, (MethodSignature) getStaticTarget());
+	}
+}
@@ -1,7 +1,10 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionFactory;
 import org.apache.bcel.generic.InstructionList;
 
@@ -26,10 +29,12 @@ public class POP extends NonCallingSequentialBytecode {
 	/**
 	 * Constructs a bytecode that pops the top value of the stack.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param type the type of the value that is popped from the stack
 	 */
 
-	public POP(Type type) {
+	public POP(int line, Type type) {
+		super(line);
 		this.type = type;
 	}
 
@@ -48,6 +53,28 @@ public class POP extends NonCallingSequentialBytecode {
 		return "pop " + type;
 	}
 
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 1
+	 */
+
+	@Override
+	public int getPops() {
+		return 1;
+	}
+
+	/**
+	 * Yields the number of stack elements produced by this bytecode.
+	 *
+	 * @return 0
+	 */
+
+	@Override
+	public int getPushes() {
+		return 0;
+	}
+
 	/**
 	 * Generates the Java bytecode corresponding to this Kitten bytecode.
 	 *
@@ -59,4 +86,21 @@ public class POP extends NonCallingSequentialBytecode {
 	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
 		return new InstructionList(InstructionFactory.POP);
 	}
+
+	/**
+	 * Writes the Java {@code pop} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		code.op(Constants.POP, 1, null);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new POP(line, getType());
+	}
 }
\ No newline at end of file
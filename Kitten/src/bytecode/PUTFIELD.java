@@ -1,7 +1,10 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionList;
 
 import types.FieldSignature;
@@ -26,10 +29,12 @@ public class PUTFIELD extends FieldAccessBytecode {
 	/**
 	 * Constructs a bytecode that writes into a field of an object.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param field the signature of the field that is written
 	 */
 
-	public PUTFIELD(FieldSignature field) {
+	public PUTFIELD(int line, FieldSignature field) {
+		super(line);
 		this.field = field;
 	}
 
@@ -49,6 +54,28 @@ public class PUTFIELD extends FieldAccessBytecode {
 		return "putfield " + field;
 	}
 
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 2
+	 */
+
+	@Override
+	public int getPops() {
+		return 2;
+	}
+
+	/**
+	 * Yields the number of stack elements produced by this bytecode.
+	 *
+	 * @return 0
+	 */
+
+	@Override
+	public int getPushes() {
+		return 0;
+	}
+
 	/**
 	 * Generates the Java bytecode corresponding to this Kitten bytecode.
 	 *
@@ -60,4 +87,21 @@ public class PUTFIELD extends FieldAccessBytecode {
 	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
 		return new InstructionList(field.createPUTFIELD(classGen));
 	}
+
+	/**
+	 * Writes the Java {@code putfield} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		code.op2(Constants.PUTFIELD, classGen.fieldRef(field), 2, null);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new PUTFIELD(line, getField());
+	}
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+package bytecode;
+
+import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.ConstantPool;
+import javaBytecodeGenerator.DirectClassGenerator;
+import javaBytecodeGenerator.VerificationType;
+
+import org.apache.bcel.Constants;
+import org.apache.bcel.generic.InstructionFactory;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.ReferenceType;
+
+import types.PrimitiveType;
+import types.Type;
+
+/**
+ * A bytecode that replaces the value on top of the stack with the result of
+ * the last call spawned into a given slot, if it has been collected by the
+ * last {@code sync}. Otherwise, the value is left unchanged.
+ * <br><br>
+ * ..., value -&gt; ..., result
+ *
+ * @author Federico Bianchi
+ */
+
+public class RESULT extends NonCallingSequentialBytecode {
+
+	/**
+	 * The slot of the result.
+	 */
+
+	private final int slot;
+
+	/**
+	 * The type of the value and of the result.
+	 */
+
+	private final Type type;
+
+	/**
+	 * Constructs a bytecode that yields the result of the call spawned into a slot.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 * @param slot the slot
+	 * @param type the type of the value on top of the stack and of the result
+	 */
+
+	public RESULT(int line, int slot, Type type) {
+		super(line);
+		this.slot = slot;
+		this.type = type;
+	}
+
+	/**
+	 * Yields the slot of the result.
+	 *
+	 * @return the slot
+	 */
+
+	public int getSlot() {
+		return slot;
+	}
+
+	/**
+	 * Yields the type of the result.
+	 *
+	 * @return the type
+	 */
+
+	public Type getType() {
+		return type;
+	}
+
+	@Override
+	public String toString() {
+		return "result " + slot + " " + type;
+	}
+
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 1
+	 */
+
+	@Override
+	public int getPops() {
+		return 1;
+	}
+
+	/**
+	 * Generates the Java bytecode corresponding to this Kitten bytecode, that is,
+	 * a call to the {@code result} method of {@code runTime.Spawn} for the type of
+	 * the result, followed by a {@code checkcast} if the result is not primitive.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @return the Java bytecode
+	 */
+
+	@Override
+	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
+		InstructionFactory factory = classGen.getFactory();
+		org.apache.bcel.generic.Type javaType = type instanceof PrimitiveType ? type.toBCEL() : org.apache.bcel.generic.Type.OBJECT;
+
+		InstructionList il = new InstructionList(factory.createConstant(slot));
+		il.append(factory.createInvoke
+			(runTime.Spawn.class.getName(), // class name of the method
+			"result", // name of the method
+			javaType, // return type
+			new org.apache.bcel.generic.Type[] { javaType, org.apache.bcel.generic.Type.INT }, // parameters types
+			Constants.INVOKESTATIC)); // invokestatic
+
+		if (!(type instanceof PrimitiveType))
+			il.append(factory.createCheckCast((ReferenceType) type.toBCEL()));
+
+		return il;
+	}
+
+	/**
+	 * Writes the call to {@code runTime.Spawn.result} corresponding to this Kitten bytecode,
+	 * followed by a {@code checkcast} for references.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		ConstantPool pool = classGen.getConstantPool();
+		boolean primitive = type instanceof PrimitiveType;
+		String javaType = primitive ? classGen.descriptorOf(type) : "Ljava/lang/Object;";
+
+		code.iconst(slot, pool);
+		code.op2(Constants.INVOKESTATIC, pool.methodRef(DirectClassGenerator.SPAWN_CLASS, "result", "(" + javaType + "I)" + javaType), 2,
+			primitive ? VerificationType.of(type) : VerificationType.JAVA_OBJECT);
+		if (!primitive)
+			code.op2(Constants.CHECKCAST, pool.classRef(classGen.referenceName(type)), 1, VerificationType.of(type));
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new RESULT(line, slot, type);
+	}
+}
@@ -1,11 +1,14 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
 import org.apache.bcel.generic.InstructionFactory;
 import org.apache.bcel.generic.InstructionList;
 
 import types.Type;
+import types.VoidType;
 
 /**
  * A bytecode that terminates the execution of a method or constructor,
@@ -34,10 +37,12 @@ public class RETURN extends FinalBytecode {
 	/**
 	 * Constructs a {@code return} bytecode that returns a value of the given type.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param type the type of the value returned by the {@code return} bytecode
 	 */
 
-	public RETURN(Type type) {
+	public RETURN(int line, Type type) {
+		super(line);
 		this.type = type;
 	}
 
@@ -56,6 +61,28 @@ public class RETURN extends FinalBytecode {
 		return "return " + type;
 	}
 
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 1, or 0 if the return type is {@code void}
+	 */
+
+	@Override
+	public int getPops() {
+		return type == VoidType.INSTANCE ? 0 : 1;
+	}
+
+	/**
+	 * Yields the number of stack elements produced by this bytecode.
+	 *
+	 * @return 0
+	 */
+
+	@Override
+	public int getPushes() {
+		return 0;
+	}
+
 	/**
 	 * Generates the Java bytecode corresponding to this Kitten bytecode.
 	 *
@@ -74,4 +101,22 @@ public class RETURN extends FinalBytecode {
 		// right return bytecode, depending on type
 		return new InstructionList(InstructionFactory.createReturn(type.toBCEL()));
 	}
+
+	/**
+	 * Writes the Java {@code return} corresponding to this Kitten bytecode.
+	 * The frame of the spawned calls, if any, is exited by the class generator.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		code.op(DirectClassGenerator.returnOf(type), type == VoidType.INSTANCE ? 0 : 1, null);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new RETURN(line, getType());
+	}
 }
\ No newline at end of file
@@ -0,0 +1,194 @@
+package bytecode;
+
+import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.ConstantPool;
+import javaBytecodeGenerator.DirectClassGenerator;
+import javaBytecodeGenerator.VerificationType;
+
+import org.apache.bcel.Constants;
+import org.apache.bcel.generic.GOTO;
+import org.apache.bcel.generic.IFEQ;
+import org.apache.bcel.generic.InstructionFactory;
+import org.apache.bcel.generic.InstructionHandle;
+import org.apache.bcel.generic.InstructionList;
+
+import translation.Options;
+import types.ClassType;
+import types.MethodSignature;
+import types.VoidType;
+
+/**
+ * A bytecode that spawns a call to a method of an object with dynamic lookup,
+ * that is, lets the call run in parallel with the code that follows, until the
+ * next {@code sync}. The call is executed by a task of the common fork-join pool
+ * of the Java virtual machine, unless the current thread has already enough tasks
+ * waiting to be executed: in that case, it is executed at once. Its result, if any,
+ * is kept in a slot of the current activation until the next {@code sync}.
+ * <br><br>
+ * ..., receiver, par_1, ..., par_n -&gt; ...
+ *
+ * @author Federico Bianchi
+ */
+
+public class SPAWN extends CALL {
+
+	/**
+	 * The slot where the result of the call is kept, or -1 if the result is discarded.
+	 */
+
+	private final int slot;
+
+	/**
+	 * Constructs a bytecode that spawns a call to a method with dynamic lookup.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 * @param receiverType the static type of the receiver of the call
+	 * @param staticTarget the signature of the static target of the call
+	 * @param slot the slot where the result of the call is kept until the next
+	 *             {@code sync}, or -1 if the result must be discarded
+	 */
+
+	public SPAWN(int line, ClassType receiverType, MethodSignature staticTarget, int slot) {
+		// the dynamic targets are those of a virtual call
+		super(line, receiverType, staticTarget, VIRTUALCALL.dynamicTargets(receiverType.getInstances(), staticTarget));
+
+		this.slot = slot;
+	}
+
+	/**
+	 * Yields the slot where the result of the call is kept.
+	 *
+	 * @return the slot, or -1 if the result is discarded
+	 */
+
+	public int getSlot() {
+		return slot;
+	}
+
+	@Override
+	public String toString() {
+		return "spawn " + getStaticTarget() + (slot >= 0 ? " into " + slot : "");
+	}
+
+	/**
+	 * Yields the number of stack elements produced by this bytecode.
+	 *
+	 * @return 0, since the result of the call, if any, is stored in its slot
+	 */
+
+	@Override
+	public int getPushes() {
+		return 0;
+	}
+
+	/**
+	 * Generates the Java bytecode corresponding to this Kitten bytecode, that is,
+	 * <br><br>
+	 * {@code if (runTime.Spawn.fork(cutoff))}<br>
+	 * {@code   runTime.Spawn.spawn(frame, target, slot)}<br>
+	 * {@code else}<br>
+	 * {@code   runTime.Spawn.done(receiver.name(par_1, ..., par_n), slot)}
+	 * <br><br>
+	 * where {@code frame} holds the receiver and the parameters of the call,
+	 * {@code target} is the called method, resolved once per class (see
+	 * {@link AbstractClassGenerator#getTarget(MethodSignature)}), and
+	 * {@code cutoff} is the sequential cutoff of the current run of the compiler.
+	 * When the result of the call is discarded, the call executed at once is
+	 * just an {@code invokevirtual}.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @return the Java bytecode
+	 */
+
+	@Override
+	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
+		InstructionFactory factory = classGen.getFactory();
+		InstructionList il = new InstructionList();
+		MethodSignature target = (MethodSignature) getStaticTarget();
+
+		il.append(factory.createConstant(Options.get().getCutoff()));
+		il.append(factory.createInvoke(runTime.Spawn.class.getName(), "fork", org.apache.bcel.generic.Type.BOOLEAN,
+			new org.apache.bcel.generic.Type[] { org.apache.bcel.generic.Type.INT }, Constants.INVOKESTATIC));
+		IFEQ ifAtOnce = new IFEQ(null);
+		il.append(ifAtOnce);
+
+		// the call is executed by a new task
+		appendFrame(factory, il);
+		il.append(classGen.getTarget(target));
+		il.append(factory.createConstant(slot));
+		il.append(factory.createInvoke(runTime.Spawn.class.getName(), "spawn", org.apache.bcel.generic.Type.VOID,
+			new org.apache.bcel.generic.Type[] {
+				new org.apache.bcel.generic.ArrayType(org.apache.bcel.generic.Type.OBJECT, 1),
+				new org.apache.bcel.generic.ObjectType(runTime.Target.class.getName()), org.apache.bcel.generic.Type.INT },
+			Constants.INVOKESTATIC));
+		GOTO toEnd = new GOTO(null);
+		il.append(toEnd);
+
+		// the call is executed at once
+		ifAtOnce.setTarget(il.append(target.createINVOKEVIRTUAL(classGen)));
+		if (target.getReturnType() != VoidType.INSTANCE)
+			if (slot >= 0) {
+				box(target.getReturnType(), factory, il);
+				il.append(factory.createConstant(slot));
+				il.append(factory.createInvoke(runTime.Spawn.class.getName(), "done", org.apache.bcel.generic.Type.VOID,
+					new org.apache.bcel.generic.Type[] { org.apache.bcel.generic.Type.OBJECT, org.apache.bcel.generic.Type.INT },
+					Constants.INVOKESTATIC));
+			}
+			else
+				il.append(InstructionFactory.POP);
+
+		// the nop gets removed when the code of the method is simplified
+		InstructionHandle end = il.append(InstructionFactory.NOP);
+		toEnd.setTarget(end);
+
+		return il;
+	}
+
+	/**
+	 * Writes the Java bytecode corresponding to this Kitten bytecode, with
+	 * the same structure of {@link #generateJavaBytecode(AbstractClassGenerator)}.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		MethodSignature target = (MethodSignature) getStaticTarget();
+		ConstantPool pool = classGen.getConstantPool();
+		String spawn = DirectClassGenerator.SPAWN_CLASS;
+		CodeBuffer.Label atOnce = new CodeBuffer.Label(), end = new CodeBuffer.Label();
+
+		code.iconst(Options.get().getCutoff(), pool);
+		code.op2(Constants.INVOKESTATIC, pool.methodRef(spawn, "fork", "(I)Z"), 1, VerificationType.INTEGER);
+		code.jump(Constants.IFEQ, atOnce, 1);
+
+		// the call is executed by a new task
+		classGen.appendFrame(this, code);
+		classGen.getTarget(target, code);
+		code.iconst(slot, pool);
+		code.op2(Constants.INVOKESTATIC, pool.methodRef(spawn, "spawn",
+			"([Ljava/lang/Object;L" + DirectClassGenerator.TARGET + ";I)V"), 3, null);
+		code.jump(Constants.GOTO, end, 0);
+
+		// the call is executed at once
+		code.place(atOnce);
+		classGen.invoke(Constants.INVOKEVIRTUAL, target, code);
+		if (target.getReturnType() != VoidType.INSTANCE)
+			if (slot >= 0) {
+				classGen.box(target.getReturnType(), code);
+				code.iconst(slot, pool);
+				code.op2(Constants.INVOKESTATIC, pool.methodRef(spawn, "done", "(Ljava/lang/Object;I)V"), 2, null);
+			}
+			else
+				code.op(Constants.POP, 1, null);
+
+		code.place(end);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new SPAWN(line, (ClassType) getReceiverType(), (MethodSignature) getStaticTarget(), slot);
+	}
+}
@@ -0,0 +1,85 @@
+package bytecode;
+
+import java.util.Collections;
+
+import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+import javaBytecodeGenerator.VerificationType;
+
+import org.apache.bcel.Constants;
+import org.apache.bcel.generic.InstructionList;
+
+import types.CodeSignature;
+import types.MethodSignature;
+
+/**
+ * A bytecode that calls a method without receiver. Such methods are only
+ * generated by the compiler, for the code outlined from the methods and
+ * constructors whose Java bytecode is too large.
+ * <br><br>
+ * ..., par_1, ..., par_n -&gt; ..., returned value<br>
+ * if the method return type is non-{@code void}<br><br>
+ * ..., par_1, ..., par_n -&gt; ...<br>
+ * if the method's return type is {@code void}
+ *
+ * @author Federico Bianchi
+ */
+
+public class STATICCALL extends CALL {
+
+	/**
+	 * Constructs a bytecode that calls a method without receiver.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 * @param target the signature of the method which is called
+	 */
+
+	public STATICCALL(int line, MethodSignature target) {
+		// there is only one dynamic target: the method itself
+		super(line, target.getDefiningClass(), target, Collections.<CodeSignature> singleton(target));
+	}
+
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return the number of parameters of the static target, since there is no receiver
+	 */
+
+	@Override
+	public int getPops() {
+		return getStaticTarget().getParameters().getSize();
+	}
+
+	/**
+	 * Generates the Java bytecode corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @return the Java {@code invokestatic method} bytecode, that calls
+	 *         a method without looking at any receiver
+	 */
+
+	@Override
+	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
+		return new InstructionList(((MethodSignature) getStaticTarget()).createINVOKESTATIC(classGen));
+	}
+
+	/**
+	 * Writes the Java {@code invokestatic} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		CodeSignature target = getStaticTarget();
+		code.op2(Constants.INVOKESTATIC, classGen.getConstantPool().methodRef(DirectClassGenerator.internalName(target.getDefiningClass()),
+			target.getName(), classGen.descriptorOf(target)), target.getParameters().getSize(), VerificationType.of(target.getReturnType()));
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new STATICCALL(line, (MethodSignature) getStaticTarget());
+	}
+}
@@ -1,7 +1,10 @@
 package bytecode;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionFactory;
 import org.apache.bcel.generic.InstructionList;
 
@@ -29,16 +32,52 @@ public class STORE extends NonCallingSequentialBytecode {
 
 	private final Type type;
 
+	/**
+	 * The name of the variable of the source code whose value is stored,
+	 * or {@code null} if the value does not belong to a variable of the source code.
+	 */
+
+	private final String name;
+
 	/**
 	 * Constructs a bytecode that stores the value on top of the stack inside a local variable
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param varNum the number of the local variable that is assigned
 	 * @param type the type of the value stored inside the local variable
 	 */
 
-	public STORE(int varNum, Type type) {
+	public STORE(int line, int varNum, Type type) {
+		this(line, varNum, type, null);
+	}
+
+	/**
+	 * Constructs a bytecode that stores the value of a variable of the source code
+	 * inside a local variable. The name of the variable ends up in the
+	 * {@code LocalVariableTable} of the Java bytecode.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 * @param varNum the number of the local variable that is assigned
+	 * @param type the type of the value stored inside the local variable
+	 * @param name the name of the variable, or {@code null} if the value
+	 *             does not belong to a variable of the source code
+	 */
+
+	public STORE(int line, int varNum, Type type, String name) {
+		super(line);
 		this.varNum = varNum;
 		this.type = type;
+		this.name = name;
+	}
+
+	/**
+	 * Yields the number of the local variable that is assigned by this bytecode.
+	 *
+	 * @return the number of the local variable that is assigned
+	 */
+
+	public int getVarNum() {
+		return varNum;
 	}
 
 	/**
@@ -51,11 +90,45 @@ public class STORE extends NonCallingSequentialBytecode {
 		return type;
 	}
 
+	/**
+	 * Yields the name of the variable of the source code whose value is stored.
+	 * Names are not kept in {@code .kbc} files.
+	 *
+	 * @return the name of the variable, or {@code null} if the value
+	 *         does not belong to a variable of the source code
+	 */
+
+	public String getName() {
+		return name;
+	}
+
 	@Override
 	public String toString() {
 		return "store " + varNum + " of type " + type;
 	}
 
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 1
+	 */
+
+	@Override
+	public int getPops() {
+		return 1;
+	}
+
+	/**
+	 * Yields the number of stack elements produced by this bytecode.
+	 *
+	 * @return 0
+	 */
+
+	@Override
+	public int getPushes() {
+		return 0;
+	}
+
 	/**
 	 * Generates the Java bytecode corresponding to this Kitten bytecode.
 	 *
@@ -68,6 +141,26 @@ public class STORE extends NonCallingSequentialBytecode {
 	@Override
 	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
 		// we use the instruction factory to simplify the choice between the three Java bytecodes
-		return new InstructionList(InstructionFactory.createStore(type.toBCEL(), varNum));
+		return classGen.setVariable(new InstructionList(InstructionFactory.createStore(type.toBCEL(), varNum)), this);
+	}
+
+	/**
+	 * Writes the Java {@code istore}, {@code fstore} or {@code astore} corresponding
+	 * to this Kitten bytecode, in its shortest form, and records the variable
+	 * whose value is stored, if any.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		code.store(DirectClassGenerator.loadOf(type) + (Constants.ISTORE - Constants.ILOAD), varNum);
+		code.variable(varNum, name, type);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new STORE(line, varNum, type, name);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package bytecode;
+
+import java.util.Arrays;
+
+import javaBytecodeGenerator.AbstractClassGenerator;
+
+import org.apache.bcel.generic.InstructionHandle;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.LOOKUPSWITCH;
+import org.apache.bcel.generic.TABLESWITCH;
+
+/**
+ * A bytecode that routes the computation at the end of a block of code
+ * on the basis of the integer value on top of the stack. The block has
+ * a successor for each key of this bytecode, in the same order,
+ * followed by the successor used when the value is not among the keys.
+ * <br><br>
+ * ..., value -&gt; ...<br>
+ * (goes to the successor for value)
+ *
+ * @author Federico Bianchi
+ */
+
+public class SWITCH extends Bytecode implements NonCallingBytecode {
+
+	/**
+	 * The keys of this bytecode, without repetitions.
+	 */
+
+	private final int[] keys;
+
+	/**
+	 * Constructs a bytecode that routes the computation on the basis of the given keys.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 * @param keys the keys, without repetitions
+	 */
+
+	public SWITCH(int line, int[] keys) {
+		super(line);
+		this.keys = keys.clone();
+	}
+
+	/**
+	 * Yields the keys of this bytecode.
+	 *
+	 * @return the keys
+	 */
+
+	public int[] getKeys() {
+		return keys.clone();
+	}
+
+	@Override
+	public String toString() {
+		return "switch " + Arrays.toString(keys);
+	}
+
+	/**
+	 * Generates the Java bytecode that goes to the target of the value on top
+	 * of the stack. This is a {@code tableswitch} if the keys are dense
+	 * enough and a {@code lookupswitch} otherwise, with the same cost
+	 * model used by {@code javac}.
+	 *
+	 * @param classGen the Java class generator to be used for this code generation
+	 * @param targets the targets for each key, in the same order as the keys
+	 * @param otherwise the target if the value is not among the keys
+	 * @return the Java bytecode
+	 */
+
+	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen, InstructionHandle[] targets, InstructionHandle otherwise) {
+		// a lookupswitch requires its keys to be sorted
+		int[] sorted = keys.clone();
+		Arrays.sort(sorted);
+
+		InstructionHandle[] sortedTargets = new InstructionHandle[sorted.length];
+		for (int pos = 0; pos < keys.length; pos++)
+			sortedTargets[Arrays.binarySearch(sorted, keys[pos])] = targets[pos];
+
+		long low = sorted[0], high = sorted[sorted.length - 1];
+		long tableCost = 4 + (high - low + 1) + 3 * 3;
+		long lookupCost = 3 + 2 * sorted.length + 3 * sorted.length;
+
+		if (tableCost <= lookupCost) {
+			// the missing keys go to the default target
+			int[] match = new int[(int) (high - low + 1)];
+			InstructionHandle[] tableTargets = new InstructionHandle[match.length];
+			for (int pos = 0; pos < match.length; pos++) {
+				match[pos] = (int) (low + pos);
+				int index = Arrays.binarySearch(sorted, match[pos]);
+				tableTargets[pos] = index >= 0 ? sortedTargets[index] : otherwise;
+			}
+
+			return new InstructionList(new TABLESWITCH(match, tableTargets, otherwise));
+		}
+		else
+			return new InstructionList(new LOOKUPSWITCH(sorted, sortedTargets, otherwise));
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new SWITCH(line, keys);
+	}
+}
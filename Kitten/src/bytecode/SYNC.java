@@ -0,0 +1,88 @@
+package bytecode;
+
+import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
+
+import org.apache.bcel.Constants;
+import org.apache.bcel.generic.InstructionList;
+
+/**
+ * A bytecode that waits for the termination of the calls spawned by the
+ * current activation since the last {@code sync}. Their results become
+ * available through {@link RESULT}.
+ * <br><br>
+ * ... -&gt; ...
+ *
+ * @author Federico Bianchi
+ */
+
+public class SYNC extends NonCallingSequentialBytecode {
+
+	/**
+	 * Constructs a bytecode that waits for the termination of the spawned calls.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 */
+
+	public SYNC(int line) {
+		super(line);
+	}
+
+	/**
+	 * Yields the number of stack elements consumed by this bytecode.
+	 *
+	 * @return 0
+	 */
+
+	@Override
+	public int getPops() {
+		return 0;
+	}
+
+	/**
+	 * Yields the number of stack elements produced by this bytecode.
+	 *
+	 * @return 0
+	 */
+
+	@Override
+	public int getPushes() {
+		return 0;
+	}
+
+	/**
+	 * Generates the Java bytecode corresponding to this Kitten bytecode, that is,
+	 * a call to the {@code sync} method of {@code runTime.Spawn}.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @return the Java bytecode
+	 */
+
+	@Override
+	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
+		return new InstructionList(classGen.getFactory().createInvoke
+			(runTime.Spawn.class.getName(), // class name of the method
+			"sync", // name of the method
+			org.apache.bcel.generic.Type.VOID, // return type
+			org.apache.bcel.generic.Type.NO_ARGS, // parameters types
+			Constants.INVOKESTATIC)); // invokestatic
+	}
+
+	/**
+	 * Writes the call to {@code runTime.Spawn.sync} corresponding to this Kitten bytecode.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		code.op2(Constants.INVOKESTATIC, classGen.getConstantPool().methodRef(DirectClassGenerator.SPAWN_CLASS, "sync", "()V"), 0, null);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new SYNC(line);
+	}
+}
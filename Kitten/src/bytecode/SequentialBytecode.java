@@ -14,9 +14,13 @@ public abstract class SequentialBytecode extends NonBranchingBytecode {
 
 	/**
 	 * Builds a sequential bytecode.
+	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 */
 
-	protected SequentialBytecode() {}
+	protected SequentialBytecode(int line) {
+		super(line);
+	}
 
 	/**
 	 * Builds a block of code that contains this bytecode and is
@@ -5,7 +5,10 @@ import java.util.Set;
 import java.util.List;
 
 import javaBytecodeGenerator.AbstractClassGenerator;
+import javaBytecodeGenerator.CodeBuffer;
+import javaBytecodeGenerator.DirectClassGenerator;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.InstructionList;
 
 import types.ClassType;
@@ -32,14 +35,15 @@ public class VIRTUALCALL extends CALL {
 	 * lookup. The set of runtime targets is assumed to be that obtained
 	 * from every subclass of the static type of the receiver.
 	 *
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
 	 * @param receiverType the static type of the receiver of this call
 	 * @param staticTarget the signature of the static target of the call
 	 */
 
-	public VIRTUALCALL(ClassType receiverType, MethodSignature staticTarget) {
+	public VIRTUALCALL(int line, ClassType receiverType, MethodSignature staticTarget) {
 		// we compute the dynamic targets by assuming that the runtime
 		// type of the receiver is any subclass of its static type
-		super(receiverType, staticTarget, dynamicTargets(receiverType.getInstances(), staticTarget));
+		super(line, receiverType, staticTarget, dynamicTargets(receiverType.getInstances(), staticTarget));
 	}
 
 	/**
@@ -53,7 +57,7 @@ public class VIRTUALCALL extends CALL {
 	 *         with the given set of classes as receiver
 	 */
 
-	private static Set<CodeSignature> dynamicTargets(List<ClassType> possibleRunTimeClasses, CodeSignature staticTarget) {
+	static Set<CodeSignature> dynamicTargets(List<ClassType> possibleRunTimeClasses, CodeSignature staticTarget) {
 		Set<CodeSignature> dynamicTargets = new HashSet<CodeSignature>();
 
 		for (ClassType rec: possibleRunTimeClasses) {
@@ -68,10 +72,24 @@ public class VIRTUALCALL extends CALL {
 		return dynamicTargets;
 	}
 
+	/**
+	 * Determines if this call is devirtualized, that is, if it has a single
+	 * dynamic target that is compiled as a final Java method. In that case,
+	 * the target is the static target and the Java virtual machine can bind
+	 * the call without looking at the run-time class of the receiver.
+	 *
+	 * @return true if and only if this call is devirtualized
+	 */
+
+	public boolean isDevirtualized() {
+		return getDynamicTargets().size() == 1 && ((MethodSignature) getStaticTarget()).isFinal();
+	}
+
 	/**
 	 * Generates the Java bytecode corresponding to this Kitten bytecode. Namely, it generates an
 	 * {@code invokevirtual staticTarget} Java bytecode. The Java {@code invokevirtual} bytecode
-	 * calls a method by using the runtime class of the receiver to look up for the method's implementation.
+	 * calls a method by using the runtime class of the receiver to look up for the method's implementation,
+	 * unless the method is final. Devirtualized calls are counted by the class generator.
 	 *
 	 * @param classGen the Java class generator to be used for this generation
 	 * @return the Java {@code invokevirtual staticTarget} bytecode
@@ -79,6 +97,30 @@ public class VIRTUALCALL extends CALL {
 
 	@Override
 	public InstructionList generateJavaBytecode(AbstractClassGenerator classGen) {
+		if (isDevirtualized())
+			classGen.countDevirtualizedCall();
+
 		return new InstructionList(((MethodSignature) getStaticTarget()).createINVOKEVIRTUAL(classGen));
 	}
+
+	/**
+	 * Writes the Java {@code invokevirtual} corresponding to this Kitten bytecode.
+	 * Devirtualized calls are counted by the class generator.
+	 *
+	 * @param classGen the Java class generator to be used for this generation
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	@Override
+	public void generateJavaBytecode(DirectClassGenerator classGen, CodeBuffer code) {
+		if (isDevirtualized())
+			classGen.countDevirtualizedCall();
+
+		classGen.invoke(Constants.INVOKEVIRTUAL, getStaticTarget(), code);
+	}
+
+	@Override
+	public Bytecode copyAt(int line) {
+		return new VIRTUALCALL(line, (ClassType) getReceiverType(), (MethodSignature) getStaticTarget());
+	}
 }
\ No newline at end of file
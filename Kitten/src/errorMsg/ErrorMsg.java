@@ -1,11 +1,12 @@
 package errorMsg;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * An error reporting utility. It allows one to print error messages
  * referring to a given position inside a source Kitten program.
+ * It also converts positions into line numbers, for the debugging
+ * information of the generated code.
  *
  * @author <A HREF="mailto:fausto.spoto@univr.it">Fausto Spoto</A>
  */
@@ -13,11 +14,17 @@ import java.util.List;
 public class ErrorMsg {
 
 	/**
-	 * The sequence of newline positions in the source {@link #fileName}.
-	 * This is useful to know where source lines stop.
+	 * The positions of the newlines in the source {@link #fileName}, in increasing order.
+	 * Only the first {@link #lines} are meaningful. This is useful to know where source lines stop.
 	 */
 
-	private final List<Integer> linePos = new ArrayList<>();
+	private int[] linePos = new int[256];
+
+	/**
+	 * The number of newlines found so far.
+	 */
+
+	private int lines;
 
 	/**
 	 * The name of the file to which this error reporting utility is associated.
@@ -63,13 +70,28 @@ public class ErrorMsg {
 
 	/**
 	 * Records that a new line character has been found at the given position.
+	 * Positions are found in increasing order, while the source file is scanned.
 	 *
 	 * @param pos the position of the new line character in the source file
 	 *            (number of characters from the beginning of the file)
 	 */
 
 	public void newline(int pos) {
-		linePos.add(pos);
+		if (lines == linePos.length)
+			linePos = Arrays.copyOf(linePos, lines * 2);
+
+		linePos[lines++] = pos;
+	}
+
+	/**
+	 * Yields the line of the source file where the given position occurs.
+	 *
+	 * @param pos the position (number of characters from the beginning of the file)
+	 * @return the line, counting from 1, or 0 if {@code pos} is negative
+	 */
+
+	public int getLine(int pos) {
+		return pos < 0 ? 0 : newlinesBefore(pos) + 1;
 	}
 
 	/**
@@ -86,45 +108,48 @@ public class ErrorMsg {
 	public void error(int pos, String msg) {
 		anyErrors = true; // an error has been reported at least
 
-		String where;
-		if (pos >= 0) {
-			int last = 0, n = 1;
-
-			// we look for the last new line before position pos
-			for (int line: linePos) {
-				if (line >= pos) break;
-
-				last = line;
-				n++;
-			}
-
-			where = n + "." + (pos - last);
-		}
-		else
-			where = "";
-
-		System.out.println(fileName + "::" + where + ": " + msg);
+		System.out.println(fileName + "::" + where(pos) + ": " + msg);
 	}
 	
 	public String buildFailureMsg(int pos, String msg) {
+        return msg + " @" + fileName + "::" + where(pos);
+    }
 
-        String where;
-        if (pos >= 0) {
-            int last = 0, n = 1;
+	/**
+	 * Yields the line and column of a position, as {@code line.column}.
+	 *
+	 * @param pos the position (number of characters from the beginning of the file)
+	 * @return the line and column, or the empty string if {@code pos} is negative
+	 */
 
-            // we look for the last new line before position pos
-            for (int line: linePos) {
-                if (line >= pos) break;
+	private String where(int pos) {
+		if (pos < 0)
+			return "";
 
-                last = line;
-                n++;
-            }
+		// we look for the last new line before position pos
+		int n = newlinesBefore(pos);
+		int last = n > 0 ? linePos[n - 1] : 0;
 
-            where = n + "." + (pos - last);
-        }
-        else
-            where = "";
+		return (n + 1) + "." + (pos - last);
+	}
 
-        return msg + " @" + fileName + "::" + where;
-    }
-}
\ No newline at end of file
+	/**
+	 * Counts the newlines before a position, by binary search.
+	 *
+	 * @param pos the position (number of characters from the beginning of the file)
+	 * @return the number of newlines found before {@code pos}
+	 */
+
+	private int newlinesBefore(int pos) {
+		int low = 0, high = lines;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (linePos[middle] < pos)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+
+		return low;
+	}
+}
@@ -0,0 +1,229 @@
+package interpreter;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+import types.CodeSignature;
+import types.Intrinsics;
+import types.MethodSignature;
+import types.Type;
+import types.VoidType;
+import bytecode.CALL;
+import bytecode.CONSTRUCTORCALL;
+
+/**
+ * A call inside the code executed by the interpreter. It binds the call to the
+ * code of its target. Calls to methods of Kitten classes are bound by dynamic
+ * lookup, through a cache of the last class of the receiver and of the
+ * code found for it. Calls to the constructors of Kitten classes and to
+ * the bodies of parallel loops have a single target. Calls to intrinsic classes
+ * are bound to the Java methods and constructors that implement them.
+ *
+ * @author Federico Bianchi
+ */
+
+public final class CallSite {
+
+	/**
+	 * The kind of a call to a method of a Kitten class, with dynamic lookup.
+	 */
+
+	static final int VIRTUAL = 0;
+
+	/**
+	 * The kind of a call with a single target in a Kitten class.
+	 */
+
+	static final int SPECIAL = 1;
+
+	/**
+	 * The kind of a call to a method of an intrinsic class.
+	 */
+
+	static final int INTRINSIC = 2;
+
+	/**
+	 * The kind of a call to a constructor of an intrinsic class.
+	 */
+
+	static final int INTRINSIC_CONSTRUCTOR = 3;
+
+	/**
+	 * The kind of this call.
+	 */
+
+	final int kind;
+
+	/**
+	 * The static target of this call.
+	 */
+
+	final CodeSignature staticTarget;
+
+	/**
+	 * The types of the parameters of this call, without the receiver.
+	 */
+
+	final Type[] parameters;
+
+	/**
+	 * The type of the result of this call. This is {@code void} for constructors.
+	 */
+
+	final Type returnType;
+
+	/**
+	 * The number of values consumed from the stack, that is, the receiver and the parameters.
+	 */
+
+	final int arity;
+
+	/**
+	 * The number of values pushed on the stack by this call, that is, 1 if it
+	 * returns a value and 0 otherwise.
+	 */
+
+	final int results;
+
+	/**
+	 * The engine that executes the call.
+	 */
+
+	final Engine engine;
+
+	/**
+	 * The Java method that implements the target of a call to an intrinsic class.
+	 */
+
+	private Method method;
+
+	/**
+	 * The Java constructor that implements the target of a call to an intrinsic class.
+	 */
+
+	private Constructor<?> constructor;
+
+	/**
+	 * The code of the target of a call with a single target, once decoded.
+	 */
+
+	private Code target;
+
+	/**
+	 * The layout of the receiver of the last call with dynamic lookup.
+	 */
+
+	private Layout lastLayout;
+
+	/**
+	 * The code found for {@link #lastLayout}.
+	 */
+
+	private Code lastTarget;
+
+	/**
+	 * Builds the call site of a call.
+	 *
+	 * @param engine the engine that executes the call
+	 * @param call the call
+	 */
+
+	CallSite(Engine engine, CALL call) {
+		this.engine = engine;
+		this.staticTarget = call.getStaticTarget();
+		this.parameters = Code.types(staticTarget.getParameters());
+		this.returnType = staticTarget.getReturnType();
+		this.arity = parameters.length + 1;
+		this.results = returnType == VoidType.INSTANCE ? 0 : 1;
+
+		boolean intrinsic = Intrinsics.isIntrinsic(staticTarget.getDefiningClass());
+		if (call instanceof CONSTRUCTORCALL)
+			this.kind = intrinsic ? INTRINSIC_CONSTRUCTOR : SPECIAL;
+		else if (intrinsic)
+			this.kind = INTRINSIC;
+		else if (((MethodSignature) staticTarget).isParallelBody())
+			this.kind = SPECIAL;
+		else
+			this.kind = VIRTUAL;
+	}
+
+	/**
+	 * Yields the code executed by this call, for a given receiver.
+	 * The call must be to a Kitten class.
+	 *
+	 * @param receiver the receiver of the call. It is not {@code nil} for calls with dynamic lookup
+	 * @return the code
+	 */
+
+	Code targetFor(Object receiver) {
+		if (kind == SPECIAL) {
+			if (target == null)
+				target = engine.codeOf(staticTarget);
+
+			return target;
+		}
+
+		Layout layout = ((Instance) receiver).layout;
+		if (layout != lastLayout) {
+			lastTarget = layout.lookup(engine, (MethodSignature) staticTarget);
+			lastLayout = layout;
+		}
+
+		return lastTarget;
+	}
+
+	/**
+	 * Yields the Java method that implements the target of this call,
+	 * that must be a method of an intrinsic class.
+	 *
+	 * @return the Java method
+	 */
+
+	Method getMethod() {
+		if (method == null)
+			try {
+				method = implementation().getMethod(staticTarget.getName(), javaClassesOf(parameters));
+			}
+			catch (NoSuchMethodException e) {
+				throw new NoSuchMethodError(e.getMessage());
+			}
+
+		return method;
+	}
+
+	/**
+	 * Yields the Java constructor that implements the target of this call,
+	 * that must be a constructor of an intrinsic class.
+	 *
+	 * @return the Java constructor
+	 */
+
+	Constructor<?> getConstructor() {
+		if (constructor == null)
+			try {
+				constructor = implementation().getConstructor(javaClassesOf(parameters));
+			}
+			catch (NoSuchMethodException e) {
+				throw new NoSuchMethodError(e.getMessage());
+			}
+
+		return constructor;
+	}
+
+	private Class<?> implementation() {
+		return Code.javaClassOf(staticTarget.getDefiningClass());
+	}
+
+	private static Class<?>[] javaClassesOf(Type[] types) {
+		Class<?>[] result = new Class<?>[types.length];
+		for (int pos = 0; pos < types.length; pos++)
+			result[pos] = Code.javaClassOf(types[pos]);
+
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return staticTarget.toString();
+	}
+}
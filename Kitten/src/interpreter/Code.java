@@ -0,0 +1,845 @@
+package interpreter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import translation.Block;
+import types.ArrayType;
+import types.BooleanType;
+import types.ClassType;
+import types.CodeSignature;
+import types.FloatType;
+import types.IntType;
+import types.Intrinsics;
+import types.MethodSignature;
+import types.NilType;
+import types.PrimitiveType;
+import types.Type;
+import types.TypeList;
+import types.VoidType;
+import bytecode.ADD;
+import bytecode.APPEND;
+import bytecode.ARRAYCOPY;
+import bytecode.ARRAYFILL;
+import bytecode.ARRAYLOAD;
+import bytecode.ARRAYSTORE;
+import bytecode.BranchingBytecode;
+import bytecode.BranchingComparisonBytecode;
+import bytecode.Bytecode;
+import bytecode.BytecodeList;
+import bytecode.CALL;
+import bytecode.CAST;
+import bytecode.CONSTRUCTORCALL;
+import bytecode.DIV;
+import bytecode.EQ;
+import bytecode.GE;
+import bytecode.GT;
+import bytecode.IF_CMPEQ;
+import bytecode.IF_CMPGE;
+import bytecode.IF_CMPGT;
+import bytecode.IF_CMPLE;
+import bytecode.IF_CMPLT;
+import bytecode.IF_CMPNE;
+import bytecode.IF_CMPZERO;
+import bytecode.IF_FALSE;
+import bytecode.IF_TRUE;
+import bytecode.LE;
+import bytecode.LT;
+import bytecode.MUL;
+import bytecode.NE;
+import bytecode.NEG;
+import bytecode.NOP;
+import bytecode.OUTPUT;
+import bytecode.PARALLELFOR;
+import bytecode.SUB;
+import bytecode.VIRTUALCALL;
+
+/**
+ * The code of a method or constructor, decoded for the interpreter. The blocks
+ * of the Kitten bytecode are laid out one after the other, in the same order
+ * used by the Java bytecode generator, into an array of integers holding
+ * the operation codes of the interpreter followed by their operands.
+ * Jumps are decoded into absolute positions inside that array, fields
+ * into their position inside the objects and types, strings and calls into
+ * indexes of a table of constants. The operations are typed, so that the
+ * interpreter never needs to look at the Kitten bytecode at run-time.
+ * <br><br>
+ * The interpreter keeps primitive and reference values in two parallel
+ * stacks. Hence each value has a position, that is used in the stack of
+ * its kind only. Floats are kept through the bits of their representation
+ * and Booleans as {@code 0} or {@code 1}, as in the Java virtual machine.
+ *
+ * @author Federico Bianchi
+ */
+
+final class Code {
+
+	// the operation codes of the interpreter. The comments report their operands
+
+	static final int CONST = 0; // value
+	static final int ACONST = 1; // constant
+	static final int NEWSTRING = 2; // constant
+	static final int LOAD = 3; // local
+	static final int ALOAD = 4; // local
+	static final int STORE = 5; // local
+	static final int ASTORE = 6; // local
+	static final int DUP = 7;
+	static final int ADUP = 8;
+	static final int POP = 9;
+	static final int IADD = 10;
+	static final int ISUB = 11;
+	static final int IMUL = 12;
+	static final int IDIV = 13;
+	static final int FADD = 14;
+	static final int FSUB = 15;
+	static final int FMUL = 16;
+	static final int FDIV = 17;
+	static final int INEG = 18;
+	static final int FNEG = 19;
+	static final int NOT = 20;
+	static final int AND = 21;
+	static final int OR = 22;
+	static final int I2F = 23;
+	static final int F2I = 24;
+	static final int CHECKCAST = 25; // constant
+	static final int INSTANCEOF = 26; // constant
+	static final int IEQ = 27;
+	static final int INE = 28;
+	static final int ILT = 29;
+	static final int ILE = 30;
+	static final int IGT = 31;
+	static final int IGE = 32;
+	static final int FEQ = 33;
+	static final int FNE = 34;
+	static final int FLT = 35;
+	static final int FLE = 36;
+	static final int FGT = 37;
+	static final int FGE = 38;
+	static final int AEQ = 39;
+	static final int ANE = 40;
+	static final int IF_ICMPEQ = 41; // target
+	static final int IF_ICMPNE = 42; // target
+	static final int IF_ICMPLT = 43; // target
+	static final int IF_ICMPLE = 44; // target
+	static final int IF_ICMPGT = 45; // target
+	static final int IF_ICMPGE = 46; // target
+	static final int IF_FCMPEQ = 47; // target
+	static final int IF_FCMPNE = 48; // target
+	static final int IF_FCMPLT = 49; // target
+	static final int IF_FCMPLE = 50; // target
+	static final int IF_FCMPGT = 51; // target
+	static final int IF_FCMPGE = 52; // target
+	static final int IF_ACMPEQ = 53; // target
+	static final int IF_ACMPNE = 54; // target
+	static final int IFEQ = 55; // target
+	static final int IFNE = 56; // target
+	static final int IFLT = 57; // target
+	static final int IFLE = 58; // target
+	static final int IFGT = 59; // target
+	static final int IFGE = 60; // target
+	static final int IFNULL = 61; // target
+	static final int IFNONNULL = 62; // target
+	static final int GOTO = 63; // target
+	static final int SWITCH = 64; // number of keys, sorted keys and targets, default target
+	static final int TICK = 65;
+	static final int RETURN = 66;
+	static final int IRETURN = 67;
+	static final int ARETURN = 68;
+	static final int GETFIELD = 69; // slot
+	static final int AGETFIELD = 70; // slot
+	static final int PUTFIELD = 71; // slot
+	static final int APUTFIELD = 72; // slot
+	static final int NEW = 73; // constant
+	static final int NEWINTRINSIC = 74;
+	static final int NEWARRAY = 75; // constant, dimensions
+	static final int IALOAD = 76;
+	static final int FALOAD = 77;
+	static final int BALOAD = 78;
+	static final int AALOAD = 79;
+	static final int IASTORE = 80;
+	static final int FASTORE = 81;
+	static final int BASTORE = 82;
+	static final int AASTORE = 83;
+	static final int ICOPY = 84;
+	static final int FCOPY = 85;
+	static final int IFILL = 86;
+	static final int FFILL = 87;
+	static final int NULLCHECK = 88;
+	static final int IOUTPUT = 89;
+	static final int FOUTPUT = 90;
+	static final int BOUTPUT = 91;
+	static final int SOUTPUT = 92;
+	static final int NEWBUILDER = 93; // parts
+	static final int IAPPEND = 94;
+	static final int FAPPEND = 95;
+	static final int BAPPEND = 96;
+	static final int SAPPEND = 97;
+	static final int BUILDSTRING = 98;
+	static final int OUTPUTBUILDER = 99;
+	static final int INVOKE = 100; // constant
+	static final int SPAWN = 101; // constant, slot
+	static final int RESULT = 102; // slot
+	static final int FRESULT = 103; // slot
+	static final int ARESULT = 104; // slot
+	static final int COUNT = 105; // counter
+	static final int PROFILE = 106; // constant, counters
+
+	/**
+	 * The method or constructor whose code this is.
+	 */
+
+	final CodeSignature sig;
+
+	/**
+	 * The decoded code.
+	 */
+
+	final int[] code;
+
+	/**
+	 * The constants referenced by the decoded code.
+	 */
+
+	final Object[] constants;
+
+	/**
+	 * True if and only if local variable 0 holds the receiver. Otherwise, the
+	 * receiver is still passed, as {@code nil}, but the local variables start after it.
+	 */
+
+	final boolean hasReceiver;
+
+	/**
+	 * The number of values consumed from the stack of the caller,
+	 * that is, the receiver and the parameters.
+	 */
+
+	final int arity;
+
+	/**
+	 * The types of the parameters, without the receiver.
+	 */
+
+	final Type[] parameters;
+
+	/**
+	 * The type of the returned value. This is {@code void} for constructors.
+	 */
+
+	final Type returnType;
+
+	/**
+	 * The number of local variables, including the receiver and the parameters.
+	 */
+
+	final int locals;
+
+	/**
+	 * The number of positions used by an activation of this code, in each
+	 * of the two stacks, for its local variables and its temporary values.
+	 */
+
+	final int frameSize;
+
+	/**
+	 * The number of slots for the results of the spawned calls.
+	 */
+
+	final int slots;
+
+	/**
+	 * The cache of the results of this code, if it is a memoized method.
+	 * It is {@code null} otherwise.
+	 */
+
+	final runTime.Memo memo;
+
+	/**
+	 * True if and only if this code can be translated into Java bytecode,
+	 * that is, it does not spawn calls nor executes parallel loops,
+	 * and no translation has been attempted yet.
+	 */
+
+	boolean tierable;
+
+	/**
+	 * The number of calls to this code and of jumps backwards inside it,
+	 * counted until it gets translated into Java bytecode.
+	 */
+
+	int hotness;
+
+	/**
+	 * The translation of this code into Java bytecode, if any.
+	 */
+
+	Compiled compiled;
+
+	/**
+	 * Decodes the code of a method or constructor.
+	 *
+	 * @param engine the engine that executes the code
+	 * @param sig the method or constructor
+	 */
+
+	Code(Engine engine, CodeSignature sig) {
+		this.sig = sig;
+		this.hasReceiver = !(sig instanceof MethodSignature && ((MethodSignature) sig).isStatic());
+		this.parameters = types(sig.getParameters());
+		this.arity = parameters.length + 1;
+		this.returnType = sig.getReturnType();
+		this.memo = sig instanceof MethodSignature && ((MethodSignature) sig).isMemo() ? new runTime.Memo() : null;
+
+		Decoder decoder = new Decoder(engine, sig.getCode());
+		this.code = Arrays.copyOf(decoder.code, decoder.size);
+		this.constants = decoder.constants.toArray();
+		this.slots = decoder.slots;
+		this.tierable = decoder.tierable;
+
+		// each bytecode pushes at most one value, hence their number bounds the height of the stack
+		this.locals = Math.max(decoder.locals, arity - (hasReceiver ? 0 : 1));
+		this.frameSize = locals + decoder.bytecodes + 1;
+	}
+
+	@Override
+	public String toString() {
+		return sig.toString();
+	}
+
+	/**
+	 * Determines if values of a given type are kept in the stack of primitive values.
+	 *
+	 * @param type the type
+	 * @return true if and only if {@code type} is primitive. This is false
+	 *         for the type of {@code nil}, that is a reference
+	 */
+
+	static boolean isPrimitive(Type type) {
+		return type instanceof PrimitiveType && type != NilType.INSTANCE;
+	}
+
+	/**
+	 * Yields the types in a list of types.
+	 *
+	 * @param types the list
+	 * @return the types, in order
+	 */
+
+	static Type[] types(TypeList types) {
+		Type[] result = new Type[types.getSize()];
+		int pos = 0;
+		for (TypeList cursor = types; cursor != TypeList.EMPTY; cursor = cursor.getTail())
+			result[pos++] = cursor.getHead();
+
+		return result;
+	}
+
+	/**
+	 * Yields the Java class of the values of a Kitten type, as represented by the
+	 * interpreter and by the code it translates into Java bytecode. Objects
+	 * of intrinsic classes are represented by the Java classes that implement them
+	 * and all other objects by {@link Instance}.
+	 *
+	 * @param type the Kitten type
+	 * @return the Java class
+	 */
+
+	static Class<?> javaClassOf(Type type) {
+		if (type == IntType.INSTANCE)
+			return int.class;
+		else if (type == FloatType.INSTANCE)
+			return float.class;
+		else if (type == BooleanType.INSTANCE)
+			return boolean.class;
+		else if (type == VoidType.INSTANCE)
+			return void.class;
+		else if (type instanceof ArrayType)
+			return java.lang.reflect.Array.newInstance(javaClassOf(((ArrayType) type).getElementsType()), 0).getClass();
+		else if (type instanceof ClassType && Intrinsics.isIntrinsic((ClassType) type))
+			try {
+				return Class.forName(Intrinsics.getImplementation(((ClassType) type).getName()));
+			}
+			catch (ClassNotFoundException e) {
+				throw new NoClassDefFoundError(e.getMessage());
+			}
+		else
+			return Instance.class;
+	}
+
+	/**
+	 * The translation of a graph of blocks into the code of the interpreter.
+	 */
+
+	private static class Decoder {
+
+		/**
+		 * The engine that executes the code.
+		 */
+
+		private final Engine engine;
+
+		/**
+		 * The code decoded so far.
+		 */
+
+		private int[] code = new int[64];
+
+		/**
+		 * The length of the code decoded so far.
+		 */
+
+		private int size;
+
+		/**
+		 * The constants referenced by the decoded code.
+		 */
+
+		private final List<Object> constants = new ArrayList<>();
+
+		/**
+		 * The index of the constants that are shared, such as types and strings.
+		 */
+
+		private final Map<Object, Integer> shared = new HashMap<>();
+
+		/**
+		 * The position where the decoded code of each block starts.
+		 */
+
+		private final Map<Block, Integer> starts = new HashMap<>();
+
+		/**
+		 * The positions of the jumps whose target is not known yet, with their target.
+		 */
+
+		private final Map<Integer, Block> fixups = new HashMap<>();
+
+		/**
+		 * The number of local variables used by the code.
+		 */
+
+		private int locals;
+
+		/**
+		 * The number of bytecodes in the code.
+		 */
+
+		private int bytecodes;
+
+		/**
+		 * The number of slots for the results of spawned calls.
+		 */
+
+		private int slots;
+
+		/**
+		 * True if and only if the code does not spawn calls nor executes parallel loops.
+		 */
+
+		private boolean tierable = true;
+
+		private Decoder(Engine engine, Block entry) {
+			this.engine = engine;
+
+			// the blocks are laid out in the order used by the Java bytecode generator
+			List<Block> order = new ArrayList<>();
+			layout(entry, order, new HashSet<Block>());
+
+			Map<Block, Integer> positions = new HashMap<>();
+			for (Block block: order)
+				positions.put(block, positions.size());
+
+			// the blocks that are reached by jumping backwards are the heads of loops
+			Set<Block> heads = new HashSet<>();
+			for (Block block: order)
+				for (Block follow: block.getFollows())
+					if (positions.get(follow) <= positions.get(block))
+						heads.add(follow);
+
+			for (int pos = 0; pos < order.size(); pos++)
+				decode(order.get(pos), pos + 1 < order.size() ? order.get(pos + 1) : null, heads);
+
+			for (Map.Entry<Integer, Block> fixup: fixups.entrySet())
+				code[fixup.getKey()] = starts.get(fixup.getValue());
+		}
+
+		/**
+		 * Lays out a block and those reachable from it, in depth-first order.
+		 * The negative branch of a condition comes right after the block, so that
+		 * it can be reached without a jump, as in the Java bytecode generator.
+		 *
+		 * @param block the block
+		 * @param order the blocks laid out so far
+		 * @param done the blocks laid out so far, as a set
+		 */
+
+		private void layout(Block block, List<Block> order, Set<Block> done) {
+			if (!done.add(block))
+				return;
+
+			order.add(block);
+			List<Block> follows = block.getFollows();
+
+			if (block.getSwitch() == null && follows.size() == 2) {
+				layout(follows.get(1), order, done);
+				layout(follows.get(0), order, done);
+			}
+			else
+				for (Block follow: follows)
+					layout(follow, order, done);
+		}
+
+		/**
+		 * Decodes a block and the glue that jumps to its followers.
+		 *
+		 * @param block the block
+		 * @param next the block laid out after {@code block}, if any
+		 * @param heads the heads of the loops
+		 */
+
+		private void decode(Block block, Block next, Set<Block> heads) {
+			starts.put(block, size);
+
+			if (heads.contains(block))
+				emit(TICK);
+
+			for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail()) {
+				Bytecode instruction = cursor.getHead();
+				// the condition of a branch is decoded as part of the glue of the predecessor
+				if (!(instruction instanceof BranchingBytecode) && !(instruction instanceof NOP) && !(instruction instanceof bytecode.SWITCH)) {
+					decode(instruction);
+					bytecodes++;
+				}
+			}
+
+			List<Block> follows = block.getFollows();
+			bytecode.SWITCH selector = block.getSwitch();
+
+			if (selector != null) {
+				// the last follower is used when no key matches
+				int[] keys = selector.getKeys();
+				Integer[] sorted = new Integer[keys.length];
+				for (int pos = 0; pos < keys.length; pos++)
+					sorted[pos] = pos;
+
+				Arrays.sort(sorted, new java.util.Comparator<Integer>() {
+
+					@Override
+					public int compare(Integer pos1, Integer pos2) {
+						return Integer.compare(keys[pos1], keys[pos2]);
+					}
+				});
+
+				emit(SWITCH, keys.length);
+				for (int pos: sorted) {
+					emit(keys[pos]);
+					jumpTo(follows.get(pos));
+				}
+
+				jumpTo(follows.get(keys.length));
+			}
+			else if (!follows.isEmpty()) {
+				Bytecode head = follows.get(0).getBytecode().getHead();
+				if (head instanceof BranchingBytecode) {
+					// we jump to the first follower if the condition at its beginning holds
+					emit(branch((BranchingBytecode) head));
+					jumpTo(follows.get(0));
+
+					if (follows.get(1) != next) {
+						emit(GOTO);
+						jumpTo(follows.get(1));
+					}
+				}
+				else if (follows.get(0) != next) {
+					emit(GOTO);
+					jumpTo(follows.get(0));
+				}
+			}
+		}
+
+		/**
+		 * Decodes a non-branching bytecode.
+		 *
+		 * @param bytecode the bytecode
+		 */
+
+		private void decode(Bytecode instruction) {
+			if (instruction instanceof bytecode.CONST) {
+				bytecode.CONST c = (bytecode.CONST) instruction;
+				Object constant = c.getConstant();
+				if (constant instanceof Integer)
+					emit(CONST, (Integer) constant);
+				else if (constant instanceof Float)
+					emit(CONST, Float.floatToRawIntBits((Float) constant));
+				else if (constant instanceof Boolean)
+					emit(CONST, (Boolean) constant ? 1 : 0);
+				else
+					emit(ACONST, constant(null));
+			}
+			else if (instruction instanceof bytecode.NEWSTRING) {
+				bytecode.NEWSTRING s = (bytecode.NEWSTRING) instruction;
+				if (s.isShared())
+					emit(ACONST, shared(engine.stringOf(s.getValue())));
+				else
+					emit(NEWSTRING, shared(s.getValue()));
+			}
+			else if (instruction instanceof bytecode.LOAD) {
+				bytecode.LOAD l = (bytecode.LOAD) instruction;
+				emit(isPrimitive(l.getType()) ? LOAD : ALOAD, local(l.getVarNum()));
+			}
+			else if (instruction instanceof bytecode.STORE) {
+				bytecode.STORE s = (bytecode.STORE) instruction;
+				emit(isPrimitive(s.getType()) ? STORE : ASTORE, local(s.getVarNum()));
+			}
+			else if (instruction instanceof bytecode.DUP)
+				emit(isPrimitive(((bytecode.DUP) instruction).getType()) ? DUP : ADUP);
+			else if (instruction instanceof bytecode.POP)
+				emit(POP);
+			else if (instruction instanceof ADD)
+				emit(((ADD) instruction).getType() == FloatType.INSTANCE ? FADD : IADD);
+			else if (instruction instanceof SUB)
+				emit(((SUB) instruction).getType() == FloatType.INSTANCE ? FSUB : ISUB);
+			else if (instruction instanceof MUL)
+				emit(((MUL) instruction).getType() == FloatType.INSTANCE ? FMUL : IMUL);
+			else if (instruction instanceof DIV)
+				emit(((DIV) instruction).getType() == FloatType.INSTANCE ? FDIV : IDIV);
+			else if (instruction instanceof NEG) {
+				Type type = ((NEG) instruction).getType();
+				emit(type == BooleanType.INSTANCE ? NOT : type == FloatType.INSTANCE ? FNEG : INEG);
+			}
+			else if (instruction instanceof bytecode.AND)
+				emit(AND);
+			else if (instruction instanceof bytecode.OR)
+				emit(OR);
+			else if (instruction instanceof CAST) {
+				CAST c = (CAST) instruction;
+				if (c.getIntoType() instanceof types.ReferenceType)
+					emit(CHECKCAST, shared(typeOf(c.getIntoType())));
+				else if (c.getIntoType() == FloatType.INSTANCE)
+					emit(I2F);
+				else
+					emit(F2I);
+			}
+			else if (instruction instanceof bytecode.INSTANCEOF)
+				emit(INSTANCEOF, shared(typeOf(((bytecode.INSTANCEOF) instruction).getType())));
+			else if (instruction instanceof EQ)
+				emit(comparison(((EQ) instruction).getType(), IEQ, FEQ, AEQ));
+			else if (instruction instanceof NE)
+				emit(comparison(((NE) instruction).getType(), INE, FNE, ANE));
+			else if (instruction instanceof LT)
+				emit(comparison(((LT) instruction).getType(), ILT, FLT, -1));
+			else if (instruction instanceof LE)
+				emit(comparison(((LE) instruction).getType(), ILE, FLE, -1));
+			else if (instruction instanceof GT)
+				emit(comparison(((GT) instruction).getType(), IGT, FGT, -1));
+			else if (instruction instanceof GE)
+				emit(comparison(((GE) instruction).getType(), IGE, FGE, -1));
+			else if (instruction instanceof bytecode.RETURN) {
+				Type type = ((bytecode.RETURN) instruction).getType();
+				emit(type == VoidType.INSTANCE ? RETURN : isPrimitive(type) ? IRETURN : ARETURN);
+			}
+			else if (instruction instanceof bytecode.GETFIELD) {
+				types.FieldSignature field = ((bytecode.GETFIELD) instruction).getField();
+				emit(isPrimitive(field.getType()) ? GETFIELD : AGETFIELD, engine.layoutOf(field.getDefiningClass()).slotOf(field));
+			}
+			else if (instruction instanceof bytecode.PUTFIELD) {
+				types.FieldSignature field = ((bytecode.PUTFIELD) instruction).getField();
+				emit(isPrimitive(field.getType()) ? PUTFIELD : APUTFIELD, engine.layoutOf(field.getDefiningClass()).slotOf(field));
+			}
+			else if (instruction instanceof bytecode.NEW) {
+				ClassType clazz = ((bytecode.NEW) instruction).getType();
+				if (Intrinsics.isIntrinsic(clazz))
+					emit(NEWINTRINSIC);
+				else
+					emit(NEW, shared(engine.layoutOf(clazz)));
+			}
+			else if (instruction instanceof bytecode.NEWARRAY) {
+				bytecode.NEWARRAY n = (bytecode.NEWARRAY) instruction;
+				emit(NEWARRAY, shared(javaClassOf(n.getElementsType())), n.getDimensions());
+			}
+			else if (instruction instanceof ARRAYLOAD)
+				emit(arrayAccess(((ARRAYLOAD) instruction).getType(), IALOAD, FALOAD, BALOAD, AALOAD));
+			else if (instruction instanceof ARRAYSTORE)
+				emit(arrayAccess(((ARRAYSTORE) instruction).getType(), IASTORE, FASTORE, BASTORE, AASTORE));
+			else if (instruction instanceof ARRAYCOPY)
+				emit(((ARRAYCOPY) instruction).getType() == FloatType.INSTANCE ? FCOPY : ICOPY);
+			else if (instruction instanceof ARRAYFILL)
+				emit(((ARRAYFILL) instruction).getType() == FloatType.INSTANCE ? FFILL : IFILL);
+			else if (instruction instanceof bytecode.NULLCHECK)
+				emit(NULLCHECK);
+			else if (instruction instanceof OUTPUT)
+				emit(stringOperation(((OUTPUT) instruction).getType(), IOUTPUT, FOUTPUT, BOUTPUT, SOUTPUT));
+			else if (instruction instanceof bytecode.NEWBUILDER)
+				emit(NEWBUILDER, ((bytecode.NEWBUILDER) instruction).getParts());
+			else if (instruction instanceof APPEND)
+				emit(stringOperation(((APPEND) instruction).getType(), IAPPEND, FAPPEND, BAPPEND, SAPPEND));
+			else if (instruction instanceof bytecode.BUILDSTRING)
+				emit(BUILDSTRING);
+			else if (instruction instanceof bytecode.COUNT) {
+				bytecode.COUNT c = (bytecode.COUNT) instruction;
+				if (c.getProfile() != null)
+					emit(PROFILE, shared(c.getProfile()), c.getCounters());
+
+				emit(COUNT, c.getCounter());
+			}
+			else if (instruction instanceof bytecode.OUTPUTBUILDER)
+				emit(OUTPUTBUILDER);
+			else if (instruction instanceof bytecode.SPAWN) {
+				tierable = false;
+				int slot = ((bytecode.SPAWN) instruction).getSlot();
+				slots = Math.max(slots, slot + 1);
+				emit(SPAWN, constant(new CallSite(engine, (CALL) instruction)), slot);
+			}
+			else if (instruction instanceof bytecode.SYNC)
+				// spawned calls are executed at once, hence there is nothing to wait for
+				tierable = false;
+			else if (instruction instanceof bytecode.RESULT) {
+				tierable = false;
+				bytecode.RESULT r = (bytecode.RESULT) instruction;
+				Type type = r.getType();
+				emit(type == FloatType.INSTANCE ? FRESULT : isPrimitive(type) ? RESULT : ARESULT, r.getSlot());
+			}
+			else if (instruction instanceof VIRTUALCALL || instruction instanceof CONSTRUCTORCALL || instruction instanceof PARALLELFOR) {
+				if (instruction instanceof PARALLELFOR)
+					tierable = false;
+
+				emit(INVOKE, constant(new CallSite(engine, (CALL) instruction)));
+			}
+			else
+				throw new IllegalArgumentException("Unexpected bytecode " + instruction);
+		}
+
+		/**
+		 * Yields the operation code of the jump performed when a branching bytecode holds.
+		 *
+		 * @param branch the branching bytecode
+		 * @return the operation code
+		 */
+
+		private static int branch(BranchingBytecode branch) {
+			if (branch instanceof IF_TRUE)
+				return IFNE;
+			else if (branch instanceof IF_FALSE)
+				return IFEQ;
+			else if (branch instanceof IF_CMPZERO) {
+				BranchingComparisonBytecode comparison = ((IF_CMPZERO) branch).getComparison();
+				if (!isPrimitive(comparison.getType()))
+					return comparison instanceof IF_CMPEQ ? IFNULL : IFNONNULL;
+				else
+					return condition(comparison, IFEQ);
+			}
+			else {
+				BranchingComparisonBytecode comparison = (BranchingComparisonBytecode) branch;
+				Type type = comparison.getType();
+				if (type == FloatType.INSTANCE)
+					return condition(comparison, IF_FCMPEQ);
+				else if (isPrimitive(type))
+					return condition(comparison, IF_ICMPEQ);
+				else
+					return comparison instanceof IF_CMPEQ ? IF_ACMPEQ : IF_ACMPNE;
+			}
+		}
+
+		/**
+		 * Yields the operation code for a condition, among six consecutive
+		 * operation codes for equal, not equal, less than, less than or equal,
+		 * greater than and greater than or equal.
+		 *
+		 * @param comparison the comparison
+		 * @param eq the operation code for equal
+		 * @return the operation code
+		 */
+
+		private static int condition(BranchingComparisonBytecode comparison, int eq) {
+			if (comparison instanceof IF_CMPEQ)
+				return eq;
+			else if (comparison instanceof IF_CMPNE)
+				return eq + 1;
+			else if (comparison instanceof IF_CMPLT)
+				return eq + 2;
+			else if (comparison instanceof IF_CMPLE)
+				return eq + 3;
+			else if (comparison instanceof IF_CMPGT)
+				return eq + 4;
+			else if (comparison instanceof IF_CMPGE)
+				return eq + 5;
+			else
+				throw new IllegalArgumentException("Unexpected comparison " + comparison);
+		}
+
+		private static int comparison(Type type, int ints, int floats, int refs) {
+			if (type == FloatType.INSTANCE)
+				return floats;
+			else if (isPrimitive(type))
+				return ints;
+			else
+				return refs;
+		}
+
+		private static int arrayAccess(Type type, int ints, int floats, int booleans, int refs) {
+			if (type == IntType.INSTANCE)
+				return ints;
+			else if (type == FloatType.INSTANCE)
+				return floats;
+			else if (type == BooleanType.INSTANCE)
+				return booleans;
+			else
+				return refs;
+		}
+
+		private static int stringOperation(Type type, int ints, int floats, int booleans, int strings) {
+			return arrayAccess(type, ints, floats, booleans, strings);
+		}
+
+		/**
+		 * Yields the representation of a reference type for casts and instance checks:
+		 * the layout of a Kitten class or the Java class of the values of the type.
+		 *
+		 * @param type the type
+		 * @return the representation
+		 */
+
+		private Object typeOf(Type type) {
+			if (type instanceof ClassType && !Intrinsics.isIntrinsic((ClassType) type))
+				return engine.layoutOf((ClassType) type);
+			else
+				return javaClassOf(type);
+		}
+
+		private int local(int varNum) {
+			locals = Math.max(locals, varNum + 1);
+			return varNum;
+		}
+
+		private int constant(Object constant) {
+			constants.add(constant);
+			return constants.size() - 1;
+		}
+
+		private int shared(Object constant) {
+			Integer index = shared.get(constant);
+			if (index == null)
+				shared.put(constant, index = constant(constant));
+
+			return index;
+		}
+
+		private void jumpTo(Block target) {
+			fixups.put(size, target);
+			emit(-1);
+		}
+
+		private void emit(int... words) {
+			if (size + words.length > code.length)
+				code = Arrays.copyOf(code, Math.max(code.length * 2, size + words.length));
+
+			for (int word: words)
+				code[size++] = word;
+		}
+	}
+}
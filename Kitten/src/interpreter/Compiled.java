@@ -0,0 +1,23 @@
+package interpreter;
+
+/**
+ * The code of a method or constructor, translated into Java bytecode by the
+ * interpreter since it has been executed often. It is called with the same
+ * conventions used for the code that is interpreted.
+ *
+ * @author Federico Bianchi
+ */
+
+public interface Compiled {
+
+	/**
+	 * Runs the code.
+	 *
+	 * @param prims the stack of the primitive values of the interpreter
+	 * @param refs the stack of the reference values of the interpreter
+	 * @param base the position, in both stacks, of the receiver of the call. The
+	 *             parameters follow it and the result, if any, replaces it
+	 */
+
+	void run(int[] prims, Object[] refs, int base);
+}
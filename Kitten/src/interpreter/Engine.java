@@ -0,0 +1,1067 @@
+package interpreter;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import translation.Options;
+import translation.Program;
+import types.BooleanType;
+import types.ClassType;
+import types.CodeSignature;
+import types.FloatType;
+import types.IntType;
+import types.Type;
+
+/**
+ * An interpreter for the Kitten bytecode of a program. The code of each method
+ * and constructor is decoded the first time it is called (see {@link Code})
+ * and then executed by a loop that dispatches on its operation codes.
+ * <br><br>
+ * Values live in two parallel stacks, one for the primitive values and one
+ * for the references. The activation of a method or constructor starts where
+ * its receiver and its parameters have been pushed by the caller, so that they
+ * are not copied, and its result replaces the receiver. Objects of Kitten
+ * classes are represented as {@link Instance}s and those of intrinsic classes
+ * by the Java classes that implement them. Parallel loops and spawned calls
+ * are executed sequentially, which is allowed since their bodies are pure.
+ * <br><br>
+ * If a tiering threshold has been specified through {@link Options#getTier()},
+ * the code that gets called or loops that many times is translated into
+ * Java bytecode (see {@link TierClassGenerator}), and the later calls run that
+ * translation. The activations that are running keep being interpreted.
+ *
+ * @author Federico Bianchi
+ */
+
+public final class Engine {
+
+	/**
+	 * The number of positions in each of the two stacks.
+	 */
+
+	private final static int STACK_SIZE = 1 << 20;
+
+	/**
+	 * Marks an empty slot for the result of a spawned call.
+	 */
+
+	private final static Object EMPTY = new Object();
+
+	/**
+	 * The program that is executed.
+	 */
+
+	private final Program program;
+
+	/**
+	 * The stack of the primitive values.
+	 */
+
+	private final int[] prims = new int[STACK_SIZE];
+
+	/**
+	 * The stack of the reference values.
+	 */
+
+	private final Object[] refs = new Object[STACK_SIZE];
+
+	/**
+	 * The first free position of the stacks when the code translated into
+	 * Java bytecode calls back into the engine.
+	 */
+
+	private int top;
+
+	/**
+	 * The decoded code of the methods and constructors, decoded at their first call.
+	 */
+
+	private final Map<CodeSignature, Code> codes = new HashMap<>();
+
+	/**
+	 * The layouts of the Kitten classes.
+	 */
+
+	private final Map<ClassType, Layout> layouts = new HashMap<>();
+
+	/**
+	 * The shared strings, from their lexical value.
+	 */
+
+	private final Map<String, runTime.String> strings = new HashMap<>();
+
+	/**
+	 * The number of calls and backward jumps after which the code of a method
+	 * or constructor is translated into Java bytecode. At 0, the code is always interpreted.
+	 */
+
+	private final int tier;
+
+	/**
+	 * The class loader of the classes generated by the tiering.
+	 */
+
+	private final TierClassLoader loader = new TierClassLoader();
+
+	/**
+	 * The number of methods and constructors translated into Java bytecode so far.
+	 */
+
+	private int tiered;
+
+	/**
+	 * Builds an engine that executes the given program.
+	 *
+	 * @param program the program, already cleaned-up and possibly optimised
+	 */
+
+	public Engine(Program program) {
+		this.program = program;
+		this.tier = Options.get().getTier();
+	}
+
+	/**
+	 * Executes the program, from its {@code main} method.
+	 */
+
+	public void run() {
+		// the receiver of main is nil
+		refs[0] = null;
+		invoke(codeOf(program.getStart()), 0);
+	}
+
+	/**
+	 * Yields the number of methods and constructors translated into Java bytecode.
+	 *
+	 * @return the number
+	 */
+
+	public int getTiered() {
+		return tiered;
+	}
+
+	/**
+	 * Yields the decoded code of a method or constructor, decoding it if needed.
+	 *
+	 * @param sig the method or constructor
+	 * @return the decoded code
+	 */
+
+	Code codeOf(CodeSignature sig) {
+		Code code = codes.get(sig);
+		if (code == null)
+			codes.put(sig, code = new Code(this, sig));
+
+		return code;
+	}
+
+	/**
+	 * Yields the layout of a Kitten class.
+	 *
+	 * @param clazz the class
+	 * @return the layout of the objects of {@code clazz}
+	 */
+
+	Layout layoutOf(ClassType clazz) {
+		Layout layout = layouts.get(clazz);
+		if (layout == null) {
+			ClassType superclass = clazz.getSuperclass();
+			layouts.put(clazz, layout = new Layout(clazz, superclass == null ? null : layoutOf(superclass)));
+		}
+
+		return layout;
+	}
+
+	/**
+	 * Yields the shared string with the given lexical value.
+	 *
+	 * @param value the lexical value
+	 * @return the string, that is the same for all occurrences of {@code value}
+	 */
+
+	runTime.String stringOf(String value) {
+		runTime.String result = strings.get(value);
+		if (result == null)
+			strings.put(value, result = new runTime.String(value));
+
+		return result;
+	}
+
+	/**
+	 * Calls a method or constructor of a Kitten class from the code translated
+	 * into Java bytecode. The receiver and the parameters, wrapped into objects if
+	 * primitive, are passed as in the frames built by
+	 * {@link bytecode.CALL#appendFrame(org.apache.bcel.generic.InstructionFactory, org.apache.bcel.generic.InstructionList)}.
+	 *
+	 * @param frame the receiver and the parameters of the call
+	 * @param site the call
+	 * @return the result of the call, wrapped into an object if primitive,
+	 *         or {@code null} if the call returns nothing
+	 */
+
+	public static Object call(Object[] frame, CallSite site) {
+		return site.engine.callFromCompiled(frame, site);
+	}
+
+	private Object callFromCompiled(Object[] frame, CallSite site) {
+		int base = top;
+		if (base + frame.length > STACK_SIZE)
+			throw new StackOverflowError();
+
+		refs[base] = frame[0];
+		for (int pos = 1; pos < frame.length; pos++)
+			unbox(frame[pos], site.parameters[pos - 1], base + pos);
+
+		try {
+			call(site, base, base);
+			return box(site.returnType, base);
+		}
+		finally {
+			top = base;
+		}
+	}
+
+	/**
+	 * Executes a call, whose receiver and parameters are on the stack.
+	 *
+	 * @param site the call
+	 * @param callee the position of the receiver of the call
+	 * @param from the position of the first local variable of the caller
+	 */
+
+	private void call(CallSite site, int callee, int from) {
+		switch (site.kind) {
+
+		case CallSite.VIRTUAL:
+			if (refs[callee] == null)
+				throw new NullPointerException();
+
+			invoke(site.targetFor(refs[callee]), callee);
+			return;
+
+		case CallSite.SPECIAL:
+			invoke(site.targetFor(refs[callee]), callee);
+			return;
+
+		case CallSite.INTRINSIC: {
+			Object receiver = refs[callee];
+			if (receiver == null)
+				throw new NullPointerException();
+
+			unbox(reflect(site.getMethod(), receiver, arguments(site, callee)), site.returnType, callee);
+			return;
+		}
+
+		default: {
+			// the object is created now. The marker pushed by new gets replaced by the object
+			Object marker = refs[callee];
+			Object created = construct(site.getConstructor(), arguments(site, callee));
+			for (int pos = from; pos < callee; pos++)
+				if (refs[pos] == marker)
+					refs[pos] = created;
+		}
+		}
+	}
+
+	/**
+	 * Executes the code of a method or constructor, whose receiver and parameters
+	 * are on the stack. The code is translated into Java bytecode if it has
+	 * become hot and the result of memoized methods is looked up in their cache.
+	 *
+	 * @param target the code
+	 * @param base the position of the receiver
+	 */
+
+	private void invoke(Code target, int base) {
+		if (tier > 0 && target.tierable && ++target.hotness >= tier)
+			tierUp(target);
+
+		if (target.memo == null)
+			run(target, base);
+		else {
+			runTime.Memo.Key key = target.memo.key(refs[base], target.parameters.length);
+			for (int pos = 0; pos < target.parameters.length; pos++)
+				if (target.parameters[pos] == FloatType.INSTANCE)
+					key.add(Float.intBitsToFloat(prims[base + 1 + pos]));
+				else
+					key.add(prims[base + 1 + pos]);
+
+			if (key.find())
+				prims[base] = key.getInt();
+			else {
+				run(target, base);
+
+				if (target.returnType == FloatType.INSTANCE)
+					key.put(Float.intBitsToFloat(prims[base]));
+				else
+					key.put(prims[base]);
+			}
+		}
+	}
+
+	private void run(Code target, int base) {
+		Compiled compiled = target.compiled;
+		if (compiled != null) {
+			top = base;
+			compiled.run(prims, refs, base);
+		}
+		else
+			execute(target, base);
+	}
+
+	/**
+	 * Translates the code of a method or constructor into Java bytecode.
+	 * If the translation fails, the code keeps being interpreted.
+	 *
+	 * @param target the code
+	 */
+
+	private void tierUp(Code target) {
+		target.tierable = false;
+
+		try {
+			target.compiled = new TierClassGenerator(this, target, tiered).load(loader);
+			tiered++;
+		}
+		catch (RuntimeException | LinkageError e) {
+			if (Options.get().reportStatistics())
+				System.err.println("Cannot translate " + target + " into Java bytecode: " + e);
+		}
+	}
+
+	/**
+	 * Interprets the code of a method or constructor.
+	 *
+	 * @param c the code
+	 * @param base the position of the receiver, followed by the parameters
+	 */
+
+	private void execute(Code c, int base) {
+		final int[] prims = this.prims;
+		final Object[] refs = this.refs;
+		final int[] code = c.code;
+		final Object[] constants = c.constants;
+
+		// the local variables start after the receiver, if the code has none
+		final int lb = c.hasReceiver ? base : base + 1;
+		if (lb + c.frameSize > STACK_SIZE)
+			throw new StackOverflowError();
+
+		Object[] slots = null;
+		int sp = lb + c.locals;
+		int pc = 0;
+
+		while (true) {
+			switch (code[pc++]) {
+
+			case Code.CONST:
+				prims[sp++] = code[pc++];
+				break;
+
+			case Code.ACONST:
+				refs[sp++] = constants[code[pc++]];
+				break;
+
+			case Code.NEWSTRING:
+				refs[sp++] = new runTime.String((String) constants[code[pc++]]);
+				break;
+
+			case Code.LOAD:
+				prims[sp++] = prims[lb + code[pc++]];
+				break;
+
+			case Code.ALOAD:
+				refs[sp++] = refs[lb + code[pc++]];
+				break;
+
+			case Code.STORE:
+				prims[lb + code[pc++]] = prims[--sp];
+				break;
+
+			case Code.ASTORE:
+				refs[lb + code[pc++]] = refs[--sp];
+				break;
+
+			case Code.DUP:
+				prims[sp] = prims[sp - 1];
+				sp++;
+				break;
+
+			case Code.ADUP:
+				refs[sp] = refs[sp - 1];
+				sp++;
+				break;
+
+			case Code.POP:
+				sp--;
+				break;
+
+			case Code.IADD:
+				sp--;
+				prims[sp - 1] += prims[sp];
+				break;
+
+			case Code.ISUB:
+				sp--;
+				prims[sp - 1] -= prims[sp];
+				break;
+
+			case Code.IMUL:
+				sp--;
+				prims[sp - 1] *= prims[sp];
+				break;
+
+			case Code.IDIV:
+				sp--;
+				prims[sp - 1] /= prims[sp];
+				break;
+
+			case Code.FADD:
+				sp--;
+				prims[sp - 1] = Float.floatToRawIntBits(Float.intBitsToFloat(prims[sp - 1]) + Float.intBitsToFloat(prims[sp]));
+				break;
+
+			case Code.FSUB:
+				sp--;
+				prims[sp - 1] = Float.floatToRawIntBits(Float.intBitsToFloat(prims[sp - 1]) - Float.intBitsToFloat(prims[sp]));
+				break;
+
+			case Code.FMUL:
+				sp--;
+				prims[sp - 1] = Float.floatToRawIntBits(Float.intBitsToFloat(prims[sp - 1]) * Float.intBitsToFloat(prims[sp]));
+				break;
+
+			case Code.FDIV:
+				sp--;
+				prims[sp - 1] = Float.floatToRawIntBits(Float.intBitsToFloat(prims[sp - 1]) / Float.intBitsToFloat(prims[sp]));
+				break;
+
+			case Code.INEG:
+				prims[sp - 1] = -prims[sp - 1];
+				break;
+
+			case Code.FNEG:
+				prims[sp - 1] = Float.floatToRawIntBits(-Float.intBitsToFloat(prims[sp - 1]));
+				break;
+
+			case Code.NOT:
+				prims[sp - 1] = prims[sp - 1] == 0 ? 1 : 0;
+				break;
+
+			case Code.AND:
+				sp--;
+				prims[sp - 1] &= prims[sp];
+				break;
+
+			case Code.OR:
+				sp--;
+				prims[sp - 1] |= prims[sp];
+				break;
+
+			case Code.I2F:
+				prims[sp - 1] = Float.floatToRawIntBits(prims[sp - 1]);
+				break;
+
+			case Code.F2I:
+				prims[sp - 1] = (int) Float.intBitsToFloat(prims[sp - 1]);
+				break;
+
+			case Code.CHECKCAST: {
+				Object type = constants[code[pc++]];
+				if (type instanceof Layout)
+					((Layout) type).cast(refs[sp - 1]);
+				else
+					((Class<?>) type).cast(refs[sp - 1]);
+
+				break;
+			}
+
+			case Code.INSTANCEOF: {
+				Object type = constants[code[pc++]];
+				if (type instanceof Layout)
+					prims[sp - 1] = ((Layout) type).isInstance(refs[sp - 1]) ? 1 : 0;
+				else
+					prims[sp - 1] = ((Class<?>) type).isInstance(refs[sp - 1]) ? 1 : 0;
+
+				break;
+			}
+
+			case Code.IEQ:
+				sp--;
+				prims[sp - 1] = prims[sp - 1] == prims[sp] ? 1 : 0;
+				break;
+
+			case Code.INE:
+				sp--;
+				prims[sp - 1] = prims[sp - 1] != prims[sp] ? 1 : 0;
+				break;
+
+			case Code.ILT:
+				sp--;
+				prims[sp - 1] = prims[sp - 1] < prims[sp] ? 1 : 0;
+				break;
+
+			case Code.ILE:
+				sp--;
+				prims[sp - 1] = prims[sp - 1] <= prims[sp] ? 1 : 0;
+				break;
+
+			case Code.IGT:
+				sp--;
+				prims[sp - 1] = prims[sp - 1] > prims[sp] ? 1 : 0;
+				break;
+
+			case Code.IGE:
+				sp--;
+				prims[sp - 1] = prims[sp - 1] >= prims[sp] ? 1 : 0;
+				break;
+
+			case Code.FEQ:
+				sp--;
+				prims[sp - 1] = fcmpl(prims[sp - 1], prims[sp]) == 0 ? 1 : 0;
+				break;
+
+			case Code.FNE:
+				sp--;
+				prims[sp - 1] = fcmpl(prims[sp - 1], prims[sp]) != 0 ? 1 : 0;
+				break;
+
+			case Code.FLT:
+				sp--;
+				prims[sp - 1] = fcmpl(prims[sp - 1], prims[sp]) < 0 ? 1 : 0;
+				break;
+
+			case Code.FLE:
+				sp--;
+				prims[sp - 1] = fcmpl(prims[sp - 1], prims[sp]) <= 0 ? 1 : 0;
+				break;
+
+			case Code.FGT:
+				sp--;
+				prims[sp - 1] = fcmpl(prims[sp - 1], prims[sp]) > 0 ? 1 : 0;
+				break;
+
+			case Code.FGE:
+				sp--;
+				prims[sp - 1] = fcmpl(prims[sp - 1], prims[sp]) >= 0 ? 1 : 0;
+				break;
+
+			case Code.AEQ:
+				sp--;
+				prims[sp - 1] = refs[sp - 1] == refs[sp] ? 1 : 0;
+				break;
+
+			case Code.ANE:
+				sp--;
+				prims[sp - 1] = refs[sp - 1] != refs[sp] ? 1 : 0;
+				break;
+
+			case Code.IF_ICMPEQ:
+				sp -= 2;
+				pc = prims[sp] == prims[sp + 1] ? code[pc] : pc + 1;
+				break;
+
+			case Code.IF_ICMPNE:
+				sp -= 2;
+				pc = prims[sp] != prims[sp + 1] ? code[pc] : pc + 1;
+				break;
+
+			case Code.IF_ICMPLT:
+				sp -= 2;
+				pc = prims[sp] < prims[sp + 1] ? code[pc] : pc + 1;
+				break;
+
+			case Code.IF_ICMPLE:
+				sp -= 2;
+				pc = prims[sp] <= prims[sp + 1] ? code[pc] : pc + 1;
+				break;
+
+			case Code.IF_ICMPGT:
+				sp -= 2;
+				pc = prims[sp] > prims[sp + 1] ? code[pc] : pc + 1;
+				break;
+
+			case Code.IF_ICMPGE:
+				sp -= 2;
+				pc = prims[sp] >= prims[sp + 1] ? code[pc] : pc + 1;
+				break;
+
+			case Code.IF_FCMPEQ:
+				sp -= 2;
+				pc = fcmpl(prims[sp], prims[sp + 1]) == 0 ? code[pc] : pc + 1;
+				break;
+
+			case Code.IF_FCMPNE:
+				sp -= 2;
+				pc = fcmpl(prims[sp], prims[sp + 1]) != 0 ? code[pc] : pc + 1;
+				break;
+
+			case Code.IF_FCMPLT:
+				sp -= 2;
+				pc = fcmpl(prims[sp], prims[sp + 1]) < 0 ? code[pc] : pc + 1;
+				break;
+
+			case Code.IF_FCMPLE:
+				sp -= 2;
+				pc = fcmpl(prims[sp], prims[sp + 1]) <= 0 ? code[pc] : pc + 1;
+				break;
+
+			case Code.IF_FCMPGT:
+				sp -= 2;
+				pc = fcmpl(prims[sp], prims[sp + 1]) > 0 ? code[pc] : pc + 1;
+				break;
+
+			case Code.IF_FCMPGE:
+				sp -= 2;
+				pc = fcmpl(prims[sp], prims[sp + 1]) >= 0 ? code[pc] : pc + 1;
+				break;
+
+			case Code.IF_ACMPEQ:
+				sp -= 2;
+				pc = refs[sp] == refs[sp + 1] ? code[pc] : pc + 1;
+				break;
+
+			case Code.IF_ACMPNE:
+				sp -= 2;
+				pc = refs[sp] != refs[sp + 1] ? code[pc] : pc + 1;
+				break;
+
+			case Code.IFEQ:
+				pc = prims[--sp] == 0 ? code[pc] : pc + 1;
+				break;
+
+			case Code.IFNE:
+				pc = prims[--sp] != 0 ? code[pc] : pc + 1;
+				break;
+
+			case Code.IFLT:
+				pc = prims[--sp] < 0 ? code[pc] : pc + 1;
+				break;
+
+			case Code.IFLE:
+				pc = prims[--sp] <= 0 ? code[pc] : pc + 1;
+				break;
+
+			case Code.IFGT:
+				pc = prims[--sp] > 0 ? code[pc] : pc + 1;
+				break;
+
+			case Code.IFGE:
+				pc = prims[--sp] >= 0 ? code[pc] : pc + 1;
+				break;
+
+			case Code.IFNULL:
+				pc = refs[--sp] == null ? code[pc] : pc + 1;
+				break;
+
+			case Code.IFNONNULL:
+				pc = refs[--sp] != null ? code[pc] : pc + 1;
+				break;
+
+			case Code.GOTO:
+				pc = code[pc];
+				break;
+
+			case Code.SWITCH: {
+				// the keys are sorted, hence we look for the selector by binary search
+				int selector = prims[--sp];
+				int keys = code[pc];
+				int low = 0, high = keys - 1;
+				int target = code[pc + 1 + 2 * keys];
+
+				while (low <= high) {
+					int middle = (low + high) >>> 1;
+					int key = code[pc + 1 + 2 * middle];
+					if (key < selector)
+						low = middle + 1;
+					else if (key > selector)
+						high = middle - 1;
+					else {
+						target = code[pc + 2 + 2 * middle];
+						break;
+					}
+				}
+
+				pc = target;
+				break;
+			}
+
+			case Code.TICK:
+				if (tier > 0 && c.tierable && ++c.hotness >= tier)
+					tierUp(c);
+
+				break;
+
+			case Code.RETURN:
+				return;
+
+			case Code.IRETURN:
+				prims[base] = prims[sp - 1];
+				return;
+
+			case Code.ARETURN:
+				refs[base] = refs[sp - 1];
+				return;
+
+			case Code.GETFIELD:
+				prims[sp - 1] = ((Instance) refs[sp - 1]).prims[code[pc++]];
+				break;
+
+			case Code.AGETFIELD:
+				refs[sp - 1] = ((Instance) refs[sp - 1]).refs[code[pc++]];
+				break;
+
+			case Code.PUTFIELD:
+				sp -= 2;
+				((Instance) refs[sp]).prims[code[pc++]] = prims[sp + 1];
+				break;
+
+			case Code.APUTFIELD:
+				sp -= 2;
+				((Instance) refs[sp]).refs[code[pc++]] = refs[sp + 1];
+				break;
+
+			case Code.NEW:
+				refs[sp++] = ((Layout) constants[code[pc++]]).instantiate();
+				break;
+
+			case Code.NEWINTRINSIC:
+				// a marker that is replaced by the object when its constructor is called
+				refs[sp++] = new Object();
+				break;
+
+			case Code.NEWARRAY: {
+				Class<?> elements = (Class<?>) constants[code[pc++]];
+				int dimensions = code[pc++];
+
+				if (dimensions == 1)
+					refs[sp - 1] = Array.newInstance(elements, prims[sp - 1]);
+				else {
+					int[] sizes = new int[dimensions];
+					sp -= dimensions;
+					System.arraycopy(prims, sp, sizes, 0, dimensions);
+					refs[sp++] = Array.newInstance(elements, sizes);
+				}
+
+				break;
+			}
+
+			case Code.IALOAD:
+				sp--;
+				prims[sp - 1] = ((int[]) refs[sp - 1])[prims[sp]];
+				break;
+
+			case Code.FALOAD:
+				sp--;
+				prims[sp - 1] = Float.floatToRawIntBits(((float[]) refs[sp - 1])[prims[sp]]);
+				break;
+
+			case Code.BALOAD:
+				sp--;
+				prims[sp - 1] = ((boolean[]) refs[sp - 1])[prims[sp]] ? 1 : 0;
+				break;
+
+			case Code.AALOAD:
+				sp--;
+				refs[sp - 1] = ((Object[]) refs[sp - 1])[prims[sp]];
+				break;
+
+			case Code.IASTORE:
+				sp -= 3;
+				((int[]) refs[sp])[prims[sp + 1]] = prims[sp + 2];
+				break;
+
+			case Code.FASTORE:
+				sp -= 3;
+				((float[]) refs[sp])[prims[sp + 1]] = Float.intBitsToFloat(prims[sp + 2]);
+				break;
+
+			case Code.BASTORE:
+				sp -= 3;
+				((boolean[]) refs[sp])[prims[sp + 1]] = prims[sp + 2] != 0;
+				break;
+
+			case Code.AASTORE:
+				sp -= 3;
+				((Object[]) refs[sp])[prims[sp + 1]] = refs[sp + 2];
+				break;
+
+			case Code.ICOPY:
+				sp -= 6;
+				prims[sp] = runTime.Loops.copy((int[]) refs[sp], prims[sp + 1], (int[]) refs[sp + 2], prims[sp + 3], prims[sp + 4], prims[sp + 5]);
+				sp++;
+				break;
+
+			case Code.FCOPY:
+				sp -= 6;
+				prims[sp] = runTime.Loops.copy((float[]) refs[sp], prims[sp + 1], (float[]) refs[sp + 2], prims[sp + 3], prims[sp + 4], prims[sp + 5]);
+				sp++;
+				break;
+
+			case Code.IFILL:
+				sp -= 5;
+				prims[sp] = runTime.Loops.fill((int[]) refs[sp], prims[sp + 1], prims[sp + 2], prims[sp + 3], prims[sp + 4]);
+				sp++;
+				break;
+
+			case Code.FFILL:
+				sp -= 5;
+				prims[sp] = runTime.Loops.fill((float[]) refs[sp], prims[sp + 1], Float.intBitsToFloat(prims[sp + 2]), prims[sp + 3], prims[sp + 4]);
+				sp++;
+				break;
+
+			case Code.NULLCHECK:
+				if (refs[sp - 1] == null)
+					throw new NullPointerException();
+
+				break;
+
+			case Code.IOUTPUT:
+				runTime.Output.print(prims[--sp]);
+				break;
+
+			case Code.FOUTPUT:
+				runTime.Output.print(Float.intBitsToFloat(prims[--sp]));
+				break;
+
+			case Code.BOUTPUT:
+				runTime.Output.print(prims[--sp] != 0);
+				break;
+
+			case Code.SOUTPUT:
+				runTime.Output.print((runTime.String) refs[--sp]);
+				break;
+
+			case Code.NEWBUILDER:
+				refs[sp - 1] = new runTime.StringBuilder((runTime.String) refs[sp - 1], code[pc++]);
+				break;
+
+			case Code.IAPPEND:
+				((runTime.StringBuilder) refs[sp - 2]).append(prims[--sp]);
+				break;
+
+			case Code.FAPPEND:
+				((runTime.StringBuilder) refs[sp - 2]).append(Float.intBitsToFloat(prims[--sp]));
+				break;
+
+			case Code.BAPPEND:
+				((runTime.StringBuilder) refs[sp - 2]).append(prims[--sp] != 0);
+				break;
+
+			case Code.SAPPEND:
+				((runTime.StringBuilder) refs[sp - 2]).append((runTime.String) refs[--sp]);
+				break;
+
+			case Code.BUILDSTRING:
+				refs[sp - 1] = ((runTime.StringBuilder) refs[sp - 1]).build();
+				break;
+
+			case Code.COUNT:
+				runTime.Counters.count(code[pc++]);
+				break;
+
+			case Code.PROFILE:
+				runTime.Counters.start((String) constants[code[pc++]], code[pc++]);
+				break;
+
+			case Code.OUTPUTBUILDER:
+				((runTime.StringBuilder) refs[--sp]).output();
+				break;
+
+			case Code.INVOKE: {
+				CallSite site = (CallSite) constants[code[pc++]];
+				int callee = sp - site.arity;
+				call(site, callee, lb);
+				sp = callee + site.results;
+				break;
+			}
+
+			case Code.SPAWN: {
+				// the call is executed at once and its result kept in its slot
+				CallSite site = (CallSite) constants[code[pc++]];
+				int slot = code[pc++];
+				int callee = sp - site.arity;
+				call(site, callee, lb);
+
+				if (slot >= 0) {
+					if (slots == null) {
+						slots = new Object[c.slots];
+						java.util.Arrays.fill(slots, EMPTY);
+					}
+
+					slots[slot] = box(site.returnType, callee);
+				}
+
+				sp = callee;
+				break;
+			}
+
+			case Code.RESULT:
+			case Code.FRESULT:
+			case Code.ARESULT: {
+				int slot = code[pc++];
+				Object result = slots == null ? EMPTY : slots[slot];
+				if (result != EMPTY) {
+					slots[slot] = EMPTY;
+					unbox(result, code[pc - 2] == Code.FRESULT ? FloatType.INSTANCE : code[pc - 2] == Code.ARESULT ? null : IntType.INSTANCE, sp - 1);
+				}
+
+				break;
+			}
+
+			default:
+				throw new IllegalStateException("Unknown operation code " + code[pc - 1] + " in " + c);
+			}
+		}
+	}
+
+	/**
+	 * Compares two floats, given through the bits of their representation,
+	 * as the {@code fcmpl} Java bytecode does.
+	 *
+	 * @param bits1 the first float
+	 * @param bits2 the second float
+	 * @return 1 if the first float is greater, 0 if they are equal and -1
+	 *         if the first float is smaller or if any of them is not a number
+	 */
+
+	private static int fcmpl(int bits1, int bits2) {
+		float f1 = Float.intBitsToFloat(bits1), f2 = Float.intBitsToFloat(bits2);
+		return f1 > f2 ? 1 : f1 == f2 ? 0 : -1;
+	}
+
+	/**
+	 * Yields the value at a position of the stack, wrapped into an object if primitive.
+	 *
+	 * @param type the type of the value. If {@code void}, there is no value
+	 * @param pos the position
+	 * @return the value, or {@code null} if {@code type} is {@code void}
+	 */
+
+	private Object box(Type type, int pos) {
+		if (type == IntType.INSTANCE)
+			return prims[pos];
+		else if (type == FloatType.INSTANCE)
+			return Float.intBitsToFloat(prims[pos]);
+		else if (type == BooleanType.INSTANCE)
+			return prims[pos] != 0;
+		else if (type == types.VoidType.INSTANCE)
+			return null;
+		else
+			return refs[pos];
+	}
+
+	/**
+	 * Puts a value at a position of the stack, unwrapping it if primitive.
+	 *
+	 * @param value the value. Integers are widened into floats if needed
+	 * @param type the type of the position. Integers and Booleans are accepted for
+	 *             {@code int}. If {@code null}, the type is that of the value
+	 * @param pos the position
+	 */
+
+	private void unbox(Object value, Type type, int pos) {
+		if (type == FloatType.INSTANCE)
+			prims[pos] = Float.floatToRawIntBits(((Number) value).floatValue());
+		else if (value instanceof Integer && type != null && Code.isPrimitive(type))
+			prims[pos] = (Integer) value;
+		else if (value instanceof Boolean && type != null && Code.isPrimitive(type))
+			prims[pos] = (Boolean) value ? 1 : 0;
+		else if (type != types.VoidType.INSTANCE)
+			refs[pos] = value;
+	}
+
+	/**
+	 * Yields the parameters of a call, wrapped into objects if primitive.
+	 *
+	 * @param site the call
+	 * @param callee the position of the receiver of the call, followed by the parameters
+	 * @return the parameters
+	 */
+
+	private Object[] arguments(CallSite site, int callee) {
+		Object[] result = new Object[site.parameters.length];
+		for (int pos = 0; pos < result.length; pos++)
+			result[pos] = box(site.parameters[pos], callee + 1 + pos);
+
+		return result;
+	}
+
+	/**
+	 * Calls a Java method. The exceptions thrown by the method are thrown again as they are.
+	 *
+	 * @param method the method
+	 * @param receiver the receiver of the call
+	 * @param parameters the parameters of the call
+	 * @return the result of the call
+	 */
+
+	private static Object reflect(Method method, Object receiver, Object[] parameters) {
+		try {
+			return method.invoke(receiver, parameters);
+		}
+		catch (InvocationTargetException e) {
+			throw rethrow(e.getCause());
+		}
+		catch (IllegalAccessException e) {
+			throw new IllegalAccessError(e.getMessage());
+		}
+	}
+
+	/**
+	 * Calls a Java constructor. The exceptions thrown by the constructor are thrown again as they are.
+	 *
+	 * @param constructor the constructor
+	 * @param parameters the parameters of the call
+	 * @return the object created by the constructor
+	 */
+
+	private static Object construct(Constructor<?> constructor, Object[] parameters) {
+		try {
+			return constructor.newInstance(parameters);
+		}
+		catch (InvocationTargetException e) {
+			throw rethrow(e.getCause());
+		}
+		catch (InstantiationException | IllegalAccessException e) {
+			throw new InstantiationError(e.getMessage());
+		}
+	}
+
+	private static RuntimeException rethrow(Throwable cause) {
+		if (cause instanceof RuntimeException)
+			return (RuntimeException) cause;
+		else if (cause instanceof Error)
+			throw (Error) cause;
+		else
+			return new RuntimeException(cause);
+	}
+
+	/**
+	 * The class loader of the classes generated by the tiering. It sees the
+	 * classes of the interpreter and of the run-time support of Kitten.
+	 */
+
+	static final class TierClassLoader extends ClassLoader {
+
+		private TierClassLoader() {
+			super(Engine.class.getClassLoader());
+		}
+
+		/**
+		 * Defines a generated class.
+		 *
+		 * @param name the name of the class
+		 * @param bytes the class file
+		 * @return the class
+		 */
+
+		Class<?> define(String name, byte[] bytes) {
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+}
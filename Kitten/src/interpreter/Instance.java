@@ -0,0 +1,50 @@
+package interpreter;
+
+/**
+ * An object of a Kitten class, as represented by the interpreter. Its fields
+ * live in two arrays: one for the fields of primitive type and one for those
+ * of reference type. Integers and Booleans are kept as they are in the Java
+ * virtual machine, floats through the bits of their representation. The fields
+ * of a subclass follow those of its superclass, so that a field has the same
+ * position in all objects whose class inherits it.
+ *
+ * @author Federico Bianchi
+ */
+
+public final class Instance {
+
+	/**
+	 * The layout of the run-time class of this object.
+	 */
+
+	public final Layout layout;
+
+	/**
+	 * The values of the fields of primitive type.
+	 */
+
+	public final int[] prims;
+
+	/**
+	 * The values of the fields of reference type.
+	 */
+
+	public final Object[] refs;
+
+	/**
+	 * Builds an object whose fields hold their default values.
+	 *
+	 * @param layout the layout of the run-time class of the object
+	 */
+
+	Instance(Layout layout) {
+		this.layout = layout;
+		this.prims = new int[layout.getPrims()];
+		this.refs = new Object[layout.getRefs()];
+	}
+
+	@Override
+	public String toString() {
+		return layout + "@" + Integer.toHexString(hashCode());
+	}
+}
@@ -0,0 +1,214 @@
+package interpreter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import types.ClassType;
+import types.FieldSignature;
+import types.MethodSignature;
+import types.PrimitiveType;
+
+/**
+ * The layout of the objects of a Kitten class, as represented by the
+ * interpreter. It binds each field of the class, including the inherited
+ * ones, to its position inside the primitive or reference values of the
+ * objects, and each method called on the objects of the class to the code
+ * that is executed for it, as found by dynamic lookup.
+ *
+ * @author Federico Bianchi
+ */
+
+public final class Layout {
+
+	/**
+	 * The class whose objects have this layout.
+	 */
+
+	private final ClassType clazz;
+
+	/**
+	 * The layout of the superclass, if any.
+	 */
+
+	private final Layout superclass;
+
+	/**
+	 * The position of the fields defined in {@link #clazz}, inside the
+	 * primitive or the reference values of the objects.
+	 */
+
+	private final Map<FieldSignature, Integer> slots = new HashMap<>();
+
+	/**
+	 * The number of fields of primitive type, including the inherited ones.
+	 */
+
+	private final int prims;
+
+	/**
+	 * The number of fields of reference type, including the inherited ones.
+	 */
+
+	private final int refs;
+
+	/**
+	 * The methods that are executed when calling a given static target
+	 * on an object with this layout, as computed so far.
+	 */
+
+	private final Map<MethodSignature, Code> methods = new HashMap<>();
+
+	/**
+	 * Builds the layout of a class.
+	 *
+	 * @param clazz the class
+	 * @param superclass the layout of the superclass of {@code clazz}, if any
+	 */
+
+	Layout(ClassType clazz, Layout superclass) {
+		this.clazz = clazz;
+		this.superclass = superclass;
+
+		int prims = superclass == null ? 0 : superclass.prims;
+		int refs = superclass == null ? 0 : superclass.refs;
+
+		// the fields are sorted by name, so that the layout does not
+		// depend on the order of iteration over the fields of the class
+		List<FieldSignature> fields = new ArrayList<>(clazz.getFields().values());
+		Collections.sort(fields, new Comparator<FieldSignature>() {
+
+			@Override
+			public int compare(FieldSignature field1, FieldSignature field2) {
+				return field1.getName().compareTo(field2.getName());
+			}
+		});
+
+		for (FieldSignature field: fields)
+			slots.put(field, field.getType() instanceof PrimitiveType ? prims++ : refs++);
+
+		this.prims = prims;
+		this.refs = refs;
+	}
+
+	/**
+	 * Yields the class whose objects have this layout.
+	 *
+	 * @return the class
+	 */
+
+	public ClassType getClazz() {
+		return clazz;
+	}
+
+	/**
+	 * Yields the number of fields of primitive type of the objects with this layout.
+	 *
+	 * @return the number of fields of primitive type
+	 */
+
+	public int getPrims() {
+		return prims;
+	}
+
+	/**
+	 * Yields the number of fields of reference type of the objects with this layout.
+	 *
+	 * @return the number of fields of reference type
+	 */
+
+	public int getRefs() {
+		return refs;
+	}
+
+	/**
+	 * Yields the position of a field inside the primitive or the reference
+	 * values of the objects with this layout, according to the type of the field.
+	 *
+	 * @param field the field, defined in the class of this layout or in a superclass
+	 * @return the position of {@code field}
+	 */
+
+	int slotOf(FieldSignature field) {
+		for (Layout cursor = this; cursor != null; cursor = cursor.superclass) {
+			Integer slot = cursor.slots.get(field);
+			if (slot != null)
+				return slot;
+		}
+
+		throw new IllegalArgumentException("Unknown field " + field + " in class " + clazz);
+	}
+
+	/**
+	 * Yields the code executed when a method is called on an object
+	 * with this layout, as found by dynamic lookup.
+	 *
+	 * @param engine the engine that executes the code
+	 * @param staticTarget the static target of the call
+	 * @return the code of the dynamic target of the call
+	 */
+
+	Code lookup(Engine engine, MethodSignature staticTarget) {
+		Code result = methods.get(staticTarget);
+		if (result == null) {
+			MethodSignature target = clazz.methodLookup(staticTarget.getName(), staticTarget.getParameters());
+			if (target == null)
+				throw new AbstractMethodError(clazz + "." + staticTarget.getName());
+
+			methods.put(staticTarget, result = engine.codeOf(target));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Builds a new object with this layout, whose fields hold their default values.
+	 *
+	 * @return the object
+	 */
+
+	public Instance instantiate() {
+		return new Instance(this);
+	}
+
+	/**
+	 * Determines if a value is an object of the class of this layout or of a subclass.
+	 *
+	 * @param value the value
+	 * @return true if and only if that is the case. This is false for {@code null}
+	 */
+
+	public boolean isInstance(Object value) {
+		if (value instanceof Instance)
+			for (Layout cursor = ((Instance) value).layout; cursor != null; cursor = cursor.superclass)
+				if (cursor == this)
+					return true;
+
+		return false;
+	}
+
+	/**
+	 * Checks that a value can be cast into the class of this layout.
+	 *
+	 * @param value the value
+	 * @return {@code value} itself
+	 * @throws ClassCastException if {@code value} is neither {@code null}
+	 *                            nor an object of the class of this layout or of a subclass
+	 */
+
+	public Object cast(Object value) {
+		if (value != null && !isInstance(value))
+			throw new ClassCastException("class " + (value instanceof Instance ? ((Instance) value).layout : value.getClass().getName())
+				+ " cannot be cast to class " + this);
+
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		return clazz.toString();
+	}
+}
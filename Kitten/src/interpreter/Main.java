@@ -0,0 +1,127 @@
+package interpreter;
+
+import java.io.IOException;
+
+import errorMsg.ErrorMsg;
+import types.ClassType;
+import translation.Options;
+import translation.Program;
+import translation.Purity;
+
+/**
+ * Runs a Kitten program by interpreting its Kitten bytecode, without generating
+ * class files. It accepts the same options as the compiler. With {@code -stats},
+ * it also reports the time spent in each phase.
+ *
+ * @author Federico Bianchi
+ */
+
+public class Main {
+
+	/**
+	 * The size of the Java stack of the thread that runs the interpreter,
+	 * that recurs at each call of the interpreted program.
+	 */
+
+	private final static long THREAD_STACK_SIZE = 1L << 30;
+
+	public static void main(String[] args) throws InterruptedException {
+		Options options;
+		try {
+			options = Options.parse(args);
+		}
+		catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+			return;
+		}
+
+		if (options.getFileName() == null) {
+			System.out.println("You must specify a Kitten class name to run");
+			return;
+		}
+
+		final boolean stats = options.reportStatistics();
+		long totalTime = System.currentTimeMillis();
+
+		long time = System.currentTimeMillis();
+		Program program;
+
+		if (options.getFileName().endsWith(".kbc")) {
+			// the program has been already type-checked, translated and checked for purity
+			try {
+				program = Program.load(options.getFileName());
+			}
+			catch (IOException e) {
+				System.out.println("Could not load the Kitten bytecode: " + e.getMessage());
+				System.exit(1);
+				return;
+			}
+
+			if (stats)
+				System.out.println("Loading of Kitten bytecode completed     \t[" + (System.currentTimeMillis() - time) + "ms]");
+		}
+		else {
+			// we build the class type for the file name passed as a parameter.
+			// This triggers type-checking of that class and of all classes referenced from it
+			ClassType clazz = ClassType.mkFromFileName(options.getFileName());
+			ErrorMsg errorMsg = clazz.getErrorMsg();
+			if (stats)
+				System.out.println("Parsing and type-checking completed     \t[" + (System.currentTimeMillis() - time) + "ms]");
+
+			if (errorMsg == null || errorMsg.anyErrors())
+				System.exit(1);
+
+			time = System.currentTimeMillis();
+			program = clazz.translate();
+			if (stats)
+				System.out.println("Translation into Kitten bytecode completed \t[" + (System.currentTimeMillis() - time) + "ms]");
+
+			// the purity of the memoized methods and of the parallel loops can only be
+			// checked on their Kitten code. The interpreter relies on it as well
+			if (!new Purity(program).check())
+				System.exit(1);
+		}
+
+		if (program.getStart() == null) {
+			System.out.println("Class " + options.getFileName().replaceFirst("\\.(kit|kbc)$", "") + " has no main method");
+			System.exit(1);
+		}
+
+		time = System.currentTimeMillis();
+		program.optimise();
+		if (stats)
+			System.out.println("Kitten bytecode optimisation completed \t[" + (System.currentTimeMillis() - time) + "ms]");
+
+		final Engine engine = new Engine(program);
+		final boolean[] completed = new boolean[1];
+
+		// the program runs in a thread with a large stack, since the interpreter recurs at each call
+		Thread thread = new Thread(null, new Runnable() {
+
+			@Override
+			public void run() {
+				engine.run();
+
+				// the output of the program must appear before the statistics
+				runTime.Output.flush();
+				completed[0] = true;
+			}
+		}, "main", THREAD_STACK_SIZE);
+
+		time = System.currentTimeMillis();
+		thread.start();
+		thread.join();
+
+		if (!completed[0])
+			// the stack trace of the exception has been already printed
+			System.exit(1);
+
+		if (stats) {
+			System.out.println("Interpretation completed               \t[" + (System.currentTimeMillis() - time) + "ms]");
+			if (options.getTier() > 0)
+				System.out.println("Tiering: " + engine.getTiered() + " methods and constructors translated into Java bytecode");
+
+			System.out.println("Total time was " + (System.currentTimeMillis() - totalTime) + "ms");
+		}
+	}
+}
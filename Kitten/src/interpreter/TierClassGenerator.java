@@ -0,0 +1,426 @@
+package interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.bcel.Constants;
+import org.apache.bcel.generic.ArrayType;
+import org.apache.bcel.generic.ConstantPoolGen;
+import org.apache.bcel.generic.FieldGen;
+import org.apache.bcel.generic.InstructionFactory;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.MethodGen;
+import org.apache.bcel.generic.ObjectType;
+
+import javaBytecodeGenerator.AbstractClassGenerator;
+import types.BooleanType;
+import types.ClassType;
+import types.FieldSignature;
+import types.FloatType;
+import types.Intrinsics;
+import types.Type;
+import types.VoidType;
+import bytecode.CALL;
+import bytecode.CAST;
+import bytecode.CONSTRUCTORCALL;
+import bytecode.GETFIELD;
+import bytecode.INSTANCEOF;
+import bytecode.NEW;
+import bytecode.NEWARRAY;
+import bytecode.NonBranchingBytecode;
+import bytecode.PUTFIELD;
+import bytecode.VIRTUALCALL;
+
+/**
+ * A generator of the Java bytecode for the code of a method or constructor that
+ * has become hot inside the interpreter. The Kitten bytecode is translated as
+ * done by the Java bytecode generator, but for the bytecodes that refer to Kitten
+ * classes, since these do not exist as Java classes when the program is interpreted.
+ * Their objects are the {@link Instance}s of the interpreter, whose fields are
+ * accessed by position, and calls to their methods and constructors go back to the
+ * interpreter, through {@link Engine#call(Object[], CallSite)}.
+ * <br><br>
+ * The generated class implements {@link Compiled}. Its {@code body} static method
+ * holds the translation of the code, with the receiver, if any, as first parameter.
+ * Its {@code run} method reads the receiver and the parameters from the stacks of
+ * the interpreter, calls {@code body} and puts the result back on the stacks.
+ * The objects used by the translation, such as the layouts of the classes and
+ * the call sites, are kept in a static array of constants of the class.
+ *
+ * @author Federico Bianchi
+ */
+
+@SuppressWarnings("serial")
+public class TierClassGenerator extends AbstractClassGenerator {
+
+	/**
+	 * The name of the static field that holds the constants of the generated class.
+	 */
+
+	private final static String CONSTANTS = "constants";
+
+	/**
+	 * The name of the static method that holds the translation of the code.
+	 */
+
+	private final static String BODY = "body";
+
+	private final static ObjectType INSTANCE = new ObjectType(Instance.class.getName());
+	private final static ObjectType LAYOUT = new ObjectType(Layout.class.getName());
+	private final static ObjectType CALL_SITE = new ObjectType(CallSite.class.getName());
+	private final static ArrayType OBJECTS = new ArrayType(org.apache.bcel.generic.Type.OBJECT, 1);
+	private final static ArrayType INTS = new ArrayType(org.apache.bcel.generic.Type.INT, 1);
+
+	/**
+	 * The engine that executes the code.
+	 */
+
+	private final Engine engine;
+
+	/**
+	 * The constants used by the generated code.
+	 */
+
+	private final List<Object> constants = new ArrayList<>();
+
+	/**
+	 * Builds the generator of the class for a given code.
+	 *
+	 * @param engine the engine that executes the code
+	 * @param code the code
+	 * @param number a progressive number, that makes the name of the class unique
+	 */
+
+	TierClassGenerator(Engine engine, Code code, int number) {
+		// Kitten identifiers never contain $, hence these names cannot clash with Kitten classes
+		super(code.sig.getDefiningClass().getName() + "$tier" + number,
+			"java.lang.Object",
+			code.sig.getDefiningClass().getName() + ".kit",
+			(short) (Constants.ACC_PUBLIC | Constants.ACC_FINAL | Constants.ACC_SUPER),
+			new String[] { Compiled.class.getName() },
+			new ConstantPoolGen());
+
+		this.engine = engine;
+
+		addEmptyConstructor(Constants.ACC_PUBLIC);
+		addField(new FieldGen(Constants.ACC_PUBLIC | Constants.ACC_STATIC, OBJECTS, CONSTANTS, getConstantPool()).getField());
+
+		org.apache.bcel.generic.Type returnType = javaTypeOf(code.returnType);
+		org.apache.bcel.generic.Type[] parameters = new org.apache.bcel.generic.Type[code.parameters.length + (code.hasReceiver ? 1 : 0)];
+		int pos = 0;
+		if (code.hasReceiver)
+			parameters[pos++] = javaTypeOf(code.sig.getDefiningClass());
+		for (Type parameter: code.parameters)
+			parameters[pos++] = javaTypeOf(parameter);
+
+		addMethod(BODY, Constants.ACC_PUBLIC | Constants.ACC_STATIC, returnType, parameters, generateJavaBytecode(code.sig.getCode()));
+		addMethod("run", Constants.ACC_PUBLIC, org.apache.bcel.generic.Type.VOID,
+			new org.apache.bcel.generic.Type[] { INTS, OBJECTS, org.apache.bcel.generic.Type.INT }, run(code, returnType, parameters));
+
+		addStaticFields();
+	}
+
+	private void addMethod(String name, int flags, org.apache.bcel.generic.Type returnType, org.apache.bcel.generic.Type[] parameters, InstructionList il) {
+		MethodGen methodGen = new MethodGen(flags, returnType, parameters, null, name, getClassName(), il, getConstantPool());
+		methodGen.setMaxStack();
+		methodGen.setMaxLocals();
+		addMethod(methodGen.getMethod());
+	}
+
+	/**
+	 * Generates the code of the {@code run} method, that is,
+	 * <br><br>
+	 * {@code result = body(receiver, par_1, ..., par_n)}
+	 * <br><br>
+	 * where the receiver, if any, is at position {@code base} of the stacks, the
+	 * parameters follow it and the result, if any, is put at position {@code base}.
+	 *
+	 * @param code the code
+	 * @param returnType the Java return type of {@code body}
+	 * @param parameters the Java parameters of {@code body}
+	 * @return the code
+	 */
+
+	private InstructionList run(Code code, org.apache.bcel.generic.Type returnType, org.apache.bcel.generic.Type[] parameters) {
+		InstructionList il = new InstructionList();
+
+		if (code.hasReceiver)
+			loadFromStack(code.sig.getDefiningClass(), 0, il);
+		for (int pos = 0; pos < code.parameters.length; pos++)
+			loadFromStack(code.parameters[pos], pos + 1, il);
+
+		il.append(factory.createInvoke(getClassName(), BODY, returnType, parameters, Constants.INVOKESTATIC));
+
+		if (code.returnType != VoidType.INSTANCE) {
+			boolean primitive = Code.isPrimitive(code.returnType);
+			if (code.returnType == FloatType.INSTANCE)
+				il.append(factory.createInvoke("java.lang.Float", "floatToRawIntBits", org.apache.bcel.generic.Type.INT,
+					new org.apache.bcel.generic.Type[] { org.apache.bcel.generic.Type.FLOAT }, Constants.INVOKESTATIC));
+
+			// ..., result -> ..., stack, base, result
+			il.append(InstructionFactory.createLoad(primitive ? INTS : OBJECTS, primitive ? 1 : 2));
+			il.append(InstructionFactory.SWAP);
+			il.append(InstructionFactory.createLoad(org.apache.bcel.generic.Type.INT, 3));
+			il.append(InstructionFactory.SWAP);
+			il.append(primitive ? InstructionFactory.IASTORE : InstructionFactory.AASTORE);
+		}
+
+		il.append(InstructionFactory.createReturn(org.apache.bcel.generic.Type.VOID));
+
+		return il;
+	}
+
+	/**
+	 * Appends the code that pushes the value at position {@code base + offset} of the stacks.
+	 *
+	 * @param type the Kitten type of the value
+	 * @param offset the offset from {@code base}
+	 * @param il the code where the instructions are appended
+	 */
+
+	private void loadFromStack(Type type, int offset, InstructionList il) {
+		boolean primitive = Code.isPrimitive(type);
+		il.append(InstructionFactory.createLoad(primitive ? INTS : OBJECTS, primitive ? 1 : 2));
+		il.append(InstructionFactory.createLoad(org.apache.bcel.generic.Type.INT, 3));
+		if (offset > 0) {
+			il.append(factory.createConstant(offset));
+			il.append(InstructionFactory.IADD);
+		}
+
+		if (primitive) {
+			il.append(InstructionFactory.IALOAD);
+			if (type == FloatType.INSTANCE)
+				il.append(factory.createInvoke("java.lang.Float", "intBitsToFloat", org.apache.bcel.generic.Type.FLOAT,
+					new org.apache.bcel.generic.Type[] { org.apache.bcel.generic.Type.INT }, Constants.INVOKESTATIC));
+		}
+		else {
+			il.append(InstructionFactory.AALOAD);
+			il.append(factory.createCheckCast((org.apache.bcel.generic.ReferenceType) javaTypeOf(type)));
+		}
+	}
+
+	/**
+	 * Yields the Java type of the values of a Kitten type, as represented by the interpreter.
+	 *
+	 * @param type the Kitten type
+	 * @return the Java type
+	 */
+
+	private static org.apache.bcel.generic.Type javaTypeOf(Type type) {
+		if (type instanceof ClassType && !Intrinsics.isIntrinsic((ClassType) type))
+			return INSTANCE;
+		else if (type instanceof types.ArrayType)
+			return new ArrayType(javaTypeOf(((types.ArrayType) type).getElementsType()), 1);
+		else
+			return type.toBCEL();
+	}
+
+	/**
+	 * Determines if a type is a Kitten class that is not intrinsic.
+	 *
+	 * @param type the type
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isKittenClass(Type type) {
+		return type instanceof ClassType && !Intrinsics.isIntrinsic((ClassType) type);
+	}
+
+	/**
+	 * Translates the bytecodes that refer to Kitten classes, that are not intrinsic,
+	 * in terms of the objects of the interpreter. The other bytecodes are translated
+	 * as by the Java bytecode generator.
+	 *
+	 * @param bytecode the Kitten bytecode
+	 * @return the Java bytecode corresponding to {@code bytecode}
+	 */
+
+	@Override
+	public InstructionList generateJavaBytecode(NonBranchingBytecode bytecode) {
+		if (bytecode instanceof GETFIELD)
+			return getField(((GETFIELD) bytecode).getField());
+		else if (bytecode instanceof PUTFIELD)
+			return putField(((PUTFIELD) bytecode).getField());
+		else if (bytecode instanceof NEW && isKittenClass(((NEW) bytecode).getType())) {
+			InstructionList il = constant(engine.layoutOf(((NEW) bytecode).getType()), LAYOUT);
+			il.append(factory.createInvoke(LAYOUT.getClassName(), "instantiate", INSTANCE,
+				org.apache.bcel.generic.Type.NO_ARGS, Constants.INVOKEVIRTUAL));
+			return il;
+		}
+		else if ((bytecode instanceof VIRTUALCALL || bytecode instanceof CONSTRUCTORCALL)
+				&& isKittenClass(((CALL) bytecode).getStaticTarget().getDefiningClass()))
+			return call((CALL) bytecode);
+		else if (bytecode instanceof CAST && isKittenClass(((CAST) bytecode).getIntoType())) {
+			// ..., value -> ..., layout, value -> ..., value
+			InstructionList il = constant(engine.layoutOf((ClassType) ((CAST) bytecode).getIntoType()), LAYOUT);
+			il.append(InstructionFactory.SWAP);
+			il.append(factory.createInvoke(LAYOUT.getClassName(), "cast", org.apache.bcel.generic.Type.OBJECT,
+				new org.apache.bcel.generic.Type[] { org.apache.bcel.generic.Type.OBJECT }, Constants.INVOKEVIRTUAL));
+			il.append(factory.createCheckCast(INSTANCE));
+			return il;
+		}
+		else if (bytecode instanceof CAST && ((CAST) bytecode).getIntoType() instanceof types.ArrayType)
+			return new InstructionList(factory.createCheckCast((org.apache.bcel.generic.ReferenceType) javaTypeOf(((CAST) bytecode).getIntoType())));
+		else if (bytecode instanceof INSTANCEOF && isKittenClass(((INSTANCEOF) bytecode).getType())) {
+			InstructionList il = constant(engine.layoutOf(((INSTANCEOF) bytecode).getType()), LAYOUT);
+			il.append(InstructionFactory.SWAP);
+			il.append(factory.createInvoke(LAYOUT.getClassName(), "isInstance", org.apache.bcel.generic.Type.BOOLEAN,
+				new org.apache.bcel.generic.Type[] { org.apache.bcel.generic.Type.OBJECT }, Constants.INVOKEVIRTUAL));
+			return il;
+		}
+		else if (bytecode instanceof NEWARRAY) {
+			NEWARRAY newArray = (NEWARRAY) bytecode;
+			org.apache.bcel.generic.Type elements = javaTypeOf(newArray.getElementsType());
+
+			// this is to cope with a bug in BCEL, as in NEWARRAY
+			if (newArray.getDimensions() > 1)
+				elements = new ArrayType(elements, 1);
+
+			return new InstructionList(factory.createNewArray(elements, (short) newArray.getDimensions()));
+		}
+		else
+			return super.generateJavaBytecode(bytecode);
+	}
+
+	/**
+	 * Generates the code that reads a field of an object of the interpreter:
+	 * <br><br>
+	 * ..., object -&gt; ..., ((Instance) object).prims[slot]
+	 * <br><br>
+	 * or {@code refs[slot]} for the fields of reference type.
+	 *
+	 * @param field the field
+	 * @return the code
+	 */
+
+	private InstructionList getField(FieldSignature field) {
+		boolean primitive = Code.isPrimitive(field.getType());
+		InstructionList il = new InstructionList(factory.createCheckCast(INSTANCE));
+		il.append(factory.createGetField(INSTANCE.getClassName(), primitive ? "prims" : "refs", primitive ? INTS : OBJECTS));
+		il.append(factory.createConstant(engine.layoutOf(field.getDefiningClass()).slotOf(field)));
+
+		if (!primitive) {
+			il.append(InstructionFactory.AALOAD);
+			org.apache.bcel.generic.Type type = javaTypeOf(field.getType());
+			if (!type.equals(org.apache.bcel.generic.Type.OBJECT))
+				il.append(factory.createCheckCast((org.apache.bcel.generic.ReferenceType) type));
+		}
+		else {
+			il.append(InstructionFactory.IALOAD);
+			if (field.getType() == FloatType.INSTANCE)
+				il.append(factory.createInvoke("java.lang.Float", "intBitsToFloat", org.apache.bcel.generic.Type.FLOAT,
+					new org.apache.bcel.generic.Type[] { org.apache.bcel.generic.Type.INT }, Constants.INVOKESTATIC));
+		}
+
+		return il;
+	}
+
+	/**
+	 * Generates the code that writes a field of an object of the interpreter:
+	 * <br><br>
+	 * ..., object, value -&gt; ...
+	 * <br><br>
+	 * through {@code ((Instance) object).prims[slot] = value}
+	 * or {@code refs[slot]} for the fields of reference type.
+	 *
+	 * @param field the field
+	 * @return the code
+	 */
+
+	private InstructionList putField(FieldSignature field) {
+		boolean primitive = Code.isPrimitive(field.getType());
+		InstructionList il = new InstructionList();
+
+		if (field.getType() == FloatType.INSTANCE)
+			il.append(factory.createInvoke("java.lang.Float", "floatToRawIntBits", org.apache.bcel.generic.Type.INT,
+				new org.apache.bcel.generic.Type[] { org.apache.bcel.generic.Type.FLOAT }, Constants.INVOKESTATIC));
+
+		// ..., object, value -> ..., array, slot, value
+		il.append(InstructionFactory.SWAP);
+		il.append(factory.createCheckCast(INSTANCE));
+		il.append(factory.createGetField(INSTANCE.getClassName(), primitive ? "prims" : "refs", primitive ? INTS : OBJECTS));
+		il.append(InstructionFactory.SWAP);
+		il.append(factory.createConstant(engine.layoutOf(field.getDefiningClass()).slotOf(field)));
+		il.append(InstructionFactory.SWAP);
+		il.append(primitive ? InstructionFactory.IASTORE : InstructionFactory.AASTORE);
+
+		return il;
+	}
+
+	/**
+	 * Generates the code that calls a method or constructor of a Kitten class
+	 * through the interpreter, that is,
+	 * <br><br>
+	 * {@code Engine.call(frame, site)}
+	 * <br><br>
+	 * where {@code frame} holds the receiver and the parameters of the call
+	 * and {@code site} is its call site. The result is unwrapped.
+	 *
+	 * @param call the call
+	 * @return the code
+	 */
+
+	private InstructionList call(CALL call) {
+		InstructionList il = new InstructionList();
+		call.appendFrame(factory, il);
+		il.append(constant(new CallSite(engine, call), CALL_SITE));
+		il.append(factory.createInvoke(Engine.class.getName(), "call", org.apache.bcel.generic.Type.OBJECT,
+			new org.apache.bcel.generic.Type[] { OBJECTS, CALL_SITE }, Constants.INVOKESTATIC));
+
+		Type returnType = call.getStaticTarget().getReturnType();
+		if (returnType == VoidType.INSTANCE)
+			il.append(InstructionFactory.POP);
+		else if (Code.isPrimitive(returnType)) {
+			String wrapper = returnType == FloatType.INSTANCE ? "java.lang.Float"
+				: returnType == BooleanType.INSTANCE ? "java.lang.Boolean" : "java.lang.Integer";
+			String unwrap = returnType == FloatType.INSTANCE ? "floatValue"
+				: returnType == BooleanType.INSTANCE ? "booleanValue" : "intValue";
+
+			il.append(factory.createCheckCast(new ObjectType(wrapper)));
+			il.append(factory.createInvoke(wrapper, unwrap, returnType.toBCEL(),
+				org.apache.bcel.generic.Type.NO_ARGS, Constants.INVOKEVIRTUAL));
+		}
+		else
+			il.append(factory.createCheckCast((org.apache.bcel.generic.ReferenceType) javaTypeOf(returnType)));
+
+		return il;
+	}
+
+	/**
+	 * Generates the code that pushes a constant of the generated class.
+	 *
+	 * @param constant the constant
+	 * @param type the Java type of the constant
+	 * @return the code
+	 */
+
+	private InstructionList constant(Object constant, ObjectType type) {
+		constants.add(constant);
+
+		InstructionList il = new InstructionList(factory.createGetStatic(getClassName(), CONSTANTS, OBJECTS));
+		il.append(factory.createConstant(constants.size() - 1));
+		il.append(InstructionFactory.AALOAD);
+		il.append(factory.createCheckCast(type));
+
+		return il;
+	}
+
+	/**
+	 * Loads the generated class and yields an instance of it.
+	 *
+	 * @param loader the class loader used to load the class
+	 * @return the instance
+	 */
+
+	Compiled load(Engine.TierClassLoader loader) {
+		Class<?> clazz = loader.define(getClassName(), getJavaClass().getBytes());
+
+		try {
+			clazz.getField(CONSTANTS).set(null, constants.toArray());
+			return (Compiled) clazz.getDeclaredConstructor().newInstance();
+		}
+		catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
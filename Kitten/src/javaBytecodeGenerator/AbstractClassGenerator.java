@@ -2,20 +2,40 @@ package javaBytecodeGenerator;
 
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.ClassGen;
 import org.apache.bcel.generic.ConstantPoolGen;
+import org.apache.bcel.generic.FieldGen;
 import org.apache.bcel.generic.GOTO;
+import org.apache.bcel.generic.IINC;
 import org.apache.bcel.generic.Instruction;
 import org.apache.bcel.generic.InstructionFactory;
 import org.apache.bcel.generic.InstructionHandle;
 import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.LocalVariableInstruction;
+import org.apache.bcel.generic.MethodGen;
+import org.apache.bcel.generic.ObjectType;
+import org.apache.bcel.generic.ReturnInstruction;
+import org.apache.bcel.generic.StoreInstruction;
 import org.apache.bcel.generic.TargetLostException;
 
 import translation.Block;
+import translation.Options;
+import types.CodeSignature;
+import types.MethodSignature;
+import types.TypeList;
 import bytecode.BranchingBytecode;
+import bytecode.BytecodeList;
+import bytecode.NonBranchingBytecode;
+import bytecode.SPAWN;
+import bytecode.STORE;
+import bytecode.SWITCH;
+import bytecode.SYNC;
 
 /**
  * Classe astratta per i generatori di bytecode.
@@ -41,6 +61,60 @@ public abstract class AbstractClassGenerator extends ClassGen {
 
 	protected final static String[] noInterfaces = new String[] {};
 
+	/**
+	 * The number of devirtualized calls generated so far by this class generator.
+	 */
+
+	private int devirtualizedCalls;
+
+	/**
+	 * The peephole optimiser used for the Java bytecode generated by this class generator.
+	 */
+
+	private final PeepholeOptimizer peephole;
+
+	/**
+	 * The static fields holding the shared strings used by the code of this
+	 * class generator, from the lexical value of each string to the name of its field.
+	 */
+
+	private final Map<String, String> stringConstants = new LinkedHashMap<>();
+
+	/**
+	 * The static fields holding the caches of the memoized methods generated
+	 * by this class generator, from each method to the name of its field.
+	 */
+
+	private final Map<MethodSignature, String> memoCaches = new LinkedHashMap<>();
+
+	/**
+	 * The static fields holding the methods called by the run-time on behalf of
+	 * the code of this class generator, from each method to the name of its field.
+	 */
+
+	private final Map<MethodSignature, String> targets = new LinkedHashMap<>();
+
+	/**
+	 * The size of the Java bytecode generated by this class generator
+	 * for each method or constructor, in bytes.
+	 */
+
+	private final Map<CodeSignature, Integer> codeSizes = new HashMap<>();
+
+	/**
+	 * The key of the attribute of the instruction handles that holds the line
+	 * of the source code of their instruction.
+	 */
+
+	private final static String LINE = "line";
+
+	/**
+	 * The key of the attribute of the instruction handles that holds the Kitten
+	 * {@code store} of a variable of the source code that they implement.
+	 */
+
+	final static String VARIABLE = "variable";
+
 	/**
 	 * Builds a class generator for the given class type.
 	 *
@@ -61,6 +135,7 @@ public abstract class AbstractClassGenerator extends ClassGen {
 	            interfaces, cpg);
 	    
 	    factory = new InstructionFactory(getConstantPool());
+	    peephole = new PeepholeOptimizer(getConstantPool());
 	}
 
 	/**
@@ -74,10 +149,290 @@ public abstract class AbstractClassGenerator extends ClassGen {
 		return factory;
 	}
 
+	/**
+	 * Takes note that a devirtualized call has been generated.
+	 */
+
+	public final void countDevirtualizedCall() {
+		devirtualizedCalls++;
+	}
+
+	/**
+	 * Yields the number of devirtualized calls generated so far by this class generator.
+	 *
+	 * @return the number of devirtualized calls
+	 */
+
+	public final int getDevirtualizedCalls() {
+		return devirtualizedCalls;
+	}
+
+	/**
+	 * Takes note of the size of the Java bytecode generated for a method or constructor.
+	 *
+	 * @param sig the method or constructor
+	 * @param size the size of its Java bytecode, in bytes
+	 */
+
+	public final void setCodeSize(CodeSignature sig, int size) {
+		codeSizes.put(sig, size);
+	}
+
+	/**
+	 * Yields the size of the Java bytecode generated so far by this class generator
+	 * for each method or constructor, in bytes. For a memoized method, this is the
+	 * size of the private method that holds its code.
+	 *
+	 * @return the sizes
+	 */
+
+	public final Map<CodeSignature, Integer> getCodeSizes() {
+		return codeSizes;
+	}
+
+	/**
+	 * Records that some Java bytecode comes from a given line of the source code.
+	 * The line is attached to the first instruction of the Java bytecode and
+	 * ends up in the {@code LineNumberTable} built by {@link #addDebugInformation(MethodGen, CodeSignature, boolean)}.
+	 *
+	 * @param instructions the Java bytecode
+	 * @param line the line, or 0 if it is not known
+	 * @return {@code instructions}
+	 */
+
+	public final InstructionList setLine(InstructionList instructions, int line) {
+		if (line > 0 && !instructions.isEmpty())
+			instructions.getStart().addAttribute(LINE, line);
+
+		return instructions;
+	}
+
+	/**
+	 * Records that some Java bytecode stores the value of a variable of the source code.
+	 * The store is attached to the instruction of the Java bytecode and ends up
+	 * in the {@code LocalVariableTable} built by {@link #addDebugInformation(MethodGen, CodeSignature, boolean)}.
+	 *
+	 * @param instructions the Java bytecode, that consists of the store instruction
+	 * @param store the Kitten bytecode that stores the value
+	 * @return {@code instructions} itself
+	 */
+
+	public final InstructionList setVariable(InstructionList instructions, STORE store) {
+		if (store.getName() != null)
+			instructions.getStart().addAttribute(VARIABLE, store);
+
+		return instructions;
+	}
+
+	/**
+	 * Adds the debugging information to a method or constructor whose Java bytecode
+	 * has been generated by this class generator, as required by the options of
+	 * the compiler. The {@code LineNumberTable} holds the lines recorded by
+	 * {@link #setLine(InstructionList, int)} that survived the optimisations of the
+	 * Java bytecode. The {@code LocalVariableTable} names the receiver, the
+	 * parameters and the variables recorded by
+	 * {@link #setVariable(InstructionList, STORE)}, over the ranges computed by
+	 * {@link LocalVariableRanges}. The table that the BCEL library builds by itself,
+	 * with invented names for the parameters, is removed.
+	 *
+	 * @param methodGen the generator of the method or constructor
+	 * @param sig the method or constructor, or {@code null} if the Java bytecode has no Kitten counterpart
+	 * @param receiver true if and only if the method or constructor has a receiver
+	 */
+
+	public final void addDebugInformation(MethodGen methodGen, CodeSignature sig, boolean receiver) {
+		methodGen.removeLocalVariables();
+
+		InstructionList instructions = methodGen.getInstructionList();
+		Options options = Options.get();
+
+		if (options.generateLineNumbers()) {
+			int last = 0;
+			for (InstructionHandle handle: instructions.getInstructionHandles()) {
+				Integer line = (Integer) handle.getAttribute(LINE);
+				if (line != null && line != last)
+					methodGen.addLineNumber(handle, last = line);
+			}
+		}
+
+		if (!options.generateLocalVariables())
+			return;
+
+		LocalVariableRanges ranges = new LocalVariableRanges();
+		String[] names = sig != null ? sig.getParameterNames() : null;
+		if (names != null) {
+			int local = 0;
+
+			if (receiver)
+				ranges.parameter(local++, "this", sig.getDefiningClass());
+
+			TypeList parameters = sig.getParameters();
+			for (String name: names) {
+				ranges.parameter(local++, name, parameters.getHead());
+				parameters = parameters.getTail();
+			}
+		}
+
+		instructions.setPositions();
+		for (InstructionHandle handle: instructions.getInstructionHandles()) {
+			Instruction instruction = handle.getInstruction();
+			// the peephole optimiser turns some stores into increments
+			if (instruction instanceof StoreInstruction || instruction instanceof IINC) {
+				STORE store = (STORE) handle.getAttribute(VARIABLE);
+				ranges.store(handle.getPosition() + instruction.getLength(), ((LocalVariableInstruction) instruction).getIndex(),
+					store != null ? store.getName() : null, store != null ? store.getType() : null);
+			}
+		}
+
+		InstructionHandle last = instructions.getEnd();
+		int size = last.getPosition() + last.getInstruction().getLength();
+		for (LocalVariableRanges.Range range: ranges.getRanges(size)) {
+			InstructionHandle end = range.getEnd() == size ? last : instructions.findHandle(range.getEnd()).getPrev();
+			methodGen.addLocalVariable(range.getName(), range.getType().toBCEL(), range.getLocal(),
+				instructions.findHandle(range.getStart()), end);
+		}
+	}
+
+	/**
+	 * Yields the peephole optimiser used for the Java bytecode generated by this class generator.
+	 *
+	 * @return the peephole optimiser
+	 */
+
+	public final PeepholeOptimizer getPeepholeOptimizer() {
+		return peephole;
+	}
+
+	/**
+	 * Yields the Java bytecode that pushes on the stack the shared string with the
+	 * given lexical value. Shared strings live in static fields of the class,
+	 * initialised once by {@link #addStaticFields()}.
+	 *
+	 * @param value the lexical value of the string
+	 * @return the Java bytecode that reads the field holding the string
+	 */
+
+	public final InstructionList getStringConstant(String value) {
+		String name = stringConstants.get(value);
+		if (name == null)
+			// Kitten identifiers never contain $, hence these names cannot clash with Kitten fields
+			stringConstants.put(value, name = "$string" + stringConstants.size());
+
+		return new InstructionList(factory.createGetStatic(getClassName(), name, new ObjectType(runTime.String.class.getName())));
+	}
+
+	/**
+	 * Yields the Java bytecode that pushes on the stack the cache of the results
+	 * of the given memoized method. Caches live in static fields of the class,
+	 * initialised once by {@link #addStaticFields()}.
+	 *
+	 * @param method the memoized method
+	 * @return the Java bytecode that reads the field holding the cache
+	 */
+
+	public final InstructionList getMemoCache(MethodSignature method) {
+		String name = memoCaches.get(method);
+		if (name == null)
+			memoCaches.put(method, name = "$memo" + memoCaches.size());
+
+		return new InstructionList(factory.createGetStatic(getClassName(), name, new ObjectType(runTime.Memo.class.getName())));
+	}
+
+	/**
+	 * Yields the Java bytecode that pushes on the stack the {@code runTime.Target}
+	 * of the given method, that is, the method as called by the run-time, for
+	 * instance, for a spawned call. Targets are resolved once and live in static
+	 * fields of the class, initialised by {@link #addStaticFields()}.
+	 *
+	 * @param method the method
+	 * @return the Java bytecode that reads the field holding the target
+	 */
+
+	public final InstructionList getTarget(MethodSignature method) {
+		String name = targets.get(method);
+		if (name == null)
+			targets.put(method, name = "$target" + targets.size());
+
+		return new InstructionList(factory.createGetStatic(getClassName(), name, new ObjectType(runTime.Target.class.getName())));
+	}
+
+	/**
+	 * Adds to the class the static fields holding its shared strings, the
+	 * caches of its memoized methods and the targets of the run-time, if any,
+	 * and the static initialiser that creates them. It must be called after
+	 * the Java bytecode of all methods and constructors has been generated.
+	 */
+
+	protected final void addStaticFields() {
+		if (stringConstants.isEmpty() && memoCaches.isEmpty() && targets.isEmpty())
+			return;
+
+		String kittenStringName = runTime.String.class.getName();
+		ObjectType kittenString = new ObjectType(kittenStringName);
+		InstructionList il = new InstructionList();
+
+		for (Map.Entry<String, String> entry: stringConstants.entrySet()) {
+			addField(new FieldGen(Constants.ACC_PRIVATE | Constants.ACC_STATIC | Constants.ACC_FINAL | Constants.ACC_SYNTHETIC,
+				kittenString, entry.getValue(), getConstantPool()).getField());
+
+			// new runTime.String(value), as for a non-shared string
+			il.append(factory.createNew(kittenStringName));
+			il.append(InstructionFactory.DUP);
+			il.append(factory.createConstant(entry.getKey()));
+			il.append(factory.createInvoke(kittenStringName, Constants.CONSTRUCTOR_NAME, org.apache.bcel.generic.Type.VOID,
+				new org.apache.bcel.generic.Type[] { org.apache.bcel.generic.Type.STRING }, Constants.INVOKESPECIAL));
+			il.append(factory.createPutStatic(getClassName(), entry.getValue(), kittenString));
+		}
+
+		String memoName = runTime.Memo.class.getName();
+		ObjectType memo = new ObjectType(memoName);
+
+		for (String field: memoCaches.values()) {
+			addField(new FieldGen(Constants.ACC_PRIVATE | Constants.ACC_STATIC | Constants.ACC_FINAL | Constants.ACC_SYNTHETIC,
+				memo, field, getConstantPool()).getField());
+
+			// new runTime.Memo(), with the default capacity
+			il.append(factory.createNew(memoName));
+			il.append(InstructionFactory.DUP);
+			il.append(factory.createInvoke(memoName, Constants.CONSTRUCTOR_NAME, org.apache.bcel.generic.Type.VOID,
+				org.apache.bcel.generic.Type.NO_ARGS, Constants.INVOKESPECIAL));
+			il.append(factory.createPutStatic(getClassName(), field, memo));
+		}
+
+		String targetName = runTime.Target.class.getName();
+		ObjectType target = new ObjectType(targetName);
+
+		for (Map.Entry<MethodSignature, String> entry: targets.entrySet()) {
+			addField(new FieldGen(Constants.ACC_PRIVATE | Constants.ACC_STATIC | Constants.ACC_FINAL | Constants.ACC_SYNTHETIC,
+				target, entry.getValue(), getConstantPool()).getField());
+
+			// runTime.Target.method(class, name, descriptor)
+			MethodSignature method = entry.getKey();
+			il.append(factory.createConstant(((ObjectType) method.getDefiningClass().toBCEL()).getClassName()));
+			il.append(factory.createConstant(method.getName()));
+			il.append(factory.createConstant(org.apache.bcel.generic.Type.getMethodSignature
+				(method.getReturnType().toBCEL(), method.getParameters().toBCEL())));
+			il.append(factory.createInvoke(targetName, "method", target, new org.apache.bcel.generic.Type[] {
+				org.apache.bcel.generic.Type.STRING, org.apache.bcel.generic.Type.STRING, org.apache.bcel.generic.Type.STRING },
+				Constants.INVOKESTATIC));
+			il.append(factory.createPutStatic(getClassName(), entry.getValue(), target));
+		}
+
+		il.append(InstructionFactory.createReturn(org.apache.bcel.generic.Type.VOID));
+
+		MethodGen clinit = new MethodGen(Constants.ACC_STATIC, org.apache.bcel.generic.Type.VOID,
+			org.apache.bcel.generic.Type.NO_ARGS, null, Constants.STATIC_INITIALIZER_NAME, getClassName(), il, getConstantPool());
+		clinit.setMaxStack();
+		clinit.setMaxLocals();
+		addMethod(clinit.getMethod());
+	}
+
 	/**
 	 * Generates the Java bytecode for the given block of code and for all
 	 * blocks reachable from it. It calls {@link #generateJavaBytecodeFollows(Block, Map, InstructionList)}
-	 * and then {@link #removeRedundancies(InstructionList)}.
+	 * and then {@link #removeRedundancies(InstructionList)}. If the code spawns
+	 * calls, it is wrapped by {@link #addSpawnFrame(InstructionList)}. If optimisations
+	 * are enabled, the result is finally simplified by the peephole optimiser.
 	 *
 	 * @param block the code from which the generation starts
 	 * @return the Java bytecode for {@code block} and all blocks reachable from it
@@ -85,10 +440,32 @@ public abstract class AbstractClassGenerator extends ClassGen {
 
 	public InstructionList generateJavaBytecode(Block block) {
 		InstructionList instructions = new InstructionList();
+		Map<Block, InstructionHandle> done = new HashMap<>();
 
-		generateJavaBytecode(block, new HashMap<Block, InstructionHandle>(), instructions);
+		generateJavaBytecode(block, done, instructions);
 
-		return removeRedundancies(instructions);
+		removeRedundancies(instructions);
+
+		if (spawns(done.keySet()))
+			addSpawnFrame(instructions);
+
+		if (Options.get().getOptimisationLevel() >= 1)
+			peephole.optimise(instructions);
+
+		return instructions;
+	}
+
+	/**
+	 * Generates the Java bytecode for a single non-branching Kitten bytecode.
+	 * By default, this is what the bytecode itself generates. Subclasses
+	 * can redefine this method in order to translate some bytecodes differently.
+	 *
+	 * @param bytecode the Kitten bytecode
+	 * @return the Java bytecode corresponding to {@code bytecode}
+	 */
+
+	public InstructionList generateJavaBytecode(NonBranchingBytecode bytecode) {
+		return bytecode.generateJavaBytecode(this);
 	}
 
 	/**
@@ -131,6 +508,8 @@ public abstract class AbstractClassGenerator extends ClassGen {
 	 * Auxiliary method that generates the Java bytecode for the blocks
 	 * that follow a given block. That Java bytecode might include some
 	 * <i>glue</i>, such as the conditional Java bytecode for the branching code blocks.
+	 * Of the two followers of a branch, the one executed more often according to the
+	 * profile of the program, if any, is generated first, so that it is reached by falling through.
 	 *
 	 * @param block the block for whose followers the code is being generated
 	 * @param done the set of blocks which have been already processed
@@ -146,20 +525,39 @@ public abstract class AbstractClassGenerator extends ClassGen {
 		// this is where the Java bytecode currently ends
 		InstructionHandle ourLast = instructions.getEnd();
 
-		if (!follows.isEmpty())
+		SWITCH selector = block.getSwitch();
+
+		if (selector != null) {
+			// we are facing a switch: the last follower is used when no key matches
+			InstructionHandle[] targets = new InstructionHandle[follows.size() - 1];
+			for (int pos = 0; pos < targets.length; pos++)
+				targets[pos] = generateJavaBytecode(follows.get(pos), done, instructions);
+
+			InstructionHandle otherwise = generateJavaBytecode(follows.get(targets.length), done, instructions);
+
+			// in between, we put the code that jumps to the target of the value on top of the stack
+			instructions.append(ourLast, selector.generateJavaBytecode(this, targets, otherwise));
+		}
+		else if (!follows.isEmpty())
 			if (follows.get(0).getBytecode().getHead() instanceof BranchingBytecode) {
 				// we are facing a branch due to a comparison bytecode. That bytecode
 				// and its negation are at the beginning of our two following blocks
 
-				// we get the condition of the branching
-				BranchingBytecode condition = (BranchingBytecode) follows.get(0).getBytecode().getHead();
+				// the follower generated first is the one reached by falling through:
+				// it is the second, unless the profile says that the first is executed more often
+				int next = follows.get(0).isHotterThan(follows.get(1))
+					&& follows.get(1).getBytecode().getHead() instanceof BranchingBytecode ? 0 : 1;
+				Block jumped = follows.get(1 - next);
+
+				// we get the condition of the branching to the other follower
+				BranchingBytecode condition = (BranchingBytecode) jumped.getBytecode().getHead();
 
 				// we append the code for the two blocks that follow the block
-				InstructionHandle noH = generateJavaBytecode(follows.get(1), done, instructions);
-				InstructionHandle yesH = generateJavaBytecode(follows.get(0), done, instructions);
+				InstructionHandle noH = generateJavaBytecode(follows.get(next), done, instructions);
+				InstructionHandle yesH = generateJavaBytecode(jumped, done, instructions);
 
 				// in between, we put some code that jumps to yesH if condition holds, and to noH otherwise
-				instructions.append(ourLast, condition.generateJavaBytecode(this, yesH, noH));
+				instructions.append(ourLast, setLine(condition.generateJavaBytecode(this, yesH, noH), condition.getLine()));
 			}
 			else {
 				// we append the code for the first follower
@@ -173,6 +571,48 @@ public abstract class AbstractClassGenerator extends ClassGen {
 			}
 	}
 
+	/**
+	 * Determines if some blocks of code spawn calls or wait for them.
+	 *
+	 * @param blocks the blocks
+	 * @return true if and only if some of the {@code blocks} contains a
+	 *         {@code spawn} or a {@code sync} bytecode
+	 */
+
+	private static boolean spawns(Set<Block> blocks) {
+		for (Block block: blocks)
+			for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+				if (cursor.getHead() instanceof SPAWN || cursor.getHead() instanceof SYNC)
+					return true;
+
+		return false;
+	}
+
+	/**
+	 * Wraps the Java bytecode of a method or constructor that spawns calls, so that
+	 * each of its activations has its own frame of spawned calls. Namely, it adds a call to
+	 * {@code runTime.Spawn.enter()} at the beginning of the code and a call to
+	 * {@code runTime.Spawn.exit()} before each {@code return}, that waits for the
+	 * pending spawned calls.
+	 *
+	 * @param il the Java bytecode, that gets modified
+	 */
+
+	private void addSpawnFrame(InstructionList il) {
+		String spawn = runTime.Spawn.class.getName();
+
+		// jumps to the beginning of the code do not enter the frame again
+		il.insert(factory.createInvoke(spawn, "enter", org.apache.bcel.generic.Type.VOID,
+			org.apache.bcel.generic.Type.NO_ARGS, Constants.INVOKESTATIC));
+
+		for (InstructionHandle handle: il.getInstructionHandles())
+			if (handle.getInstruction() instanceof ReturnInstruction) {
+				InstructionHandle exit = il.insert(handle, factory.createInvoke(spawn, "exit",
+					org.apache.bcel.generic.Type.VOID, org.apache.bcel.generic.Type.NO_ARGS, Constants.INVOKESTATIC));
+				il.redirectBranches(handle, exit);
+			}
+	}
+
 	/**
 	 * Simplifies a piece of Java bytecode, by removing:
 	 * <ul>
@@ -0,0 +1,199 @@
+package javaBytecodeGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A growable array of bytes, where the parts of a class file are written
+ * in the big-endian order required by the Java virtual machine.
+ *
+ * @author Federico Bianchi
+ */
+
+class Bytes {
+
+	/**
+	 * The bytes written so far. Only the first {@link #size} are meaningful.
+	 */
+
+	private byte[] bytes;
+
+	/**
+	 * The number of bytes written so far.
+	 */
+
+	private int size;
+
+	/**
+	 * Builds an empty array of bytes.
+	 *
+	 * @param capacity the number of bytes that can be written before the array grows
+	 */
+
+	Bytes(int capacity) {
+		this.bytes = new byte[capacity];
+	}
+
+	/**
+	 * Yields the number of bytes written so far.
+	 *
+	 * @return the number of bytes
+	 */
+
+	final int size() {
+		return size;
+	}
+
+	/**
+	 * Writes a byte.
+	 *
+	 * @param value the byte, in its 8 least significant bits
+	 */
+
+	final void u1(int value) {
+		if (size == bytes.length)
+			grow(1);
+
+		bytes[size++] = (byte) value;
+	}
+
+	/**
+	 * Writes two bytes.
+	 *
+	 * @param value the bytes, in its 16 least significant bits
+	 */
+
+	final void u2(int value) {
+		if (size + 2 > bytes.length)
+			grow(2);
+
+		bytes[size++] = (byte) (value >>> 8);
+		bytes[size++] = (byte) value;
+	}
+
+	/**
+	 * Writes four bytes.
+	 *
+	 * @param value the bytes
+	 */
+
+	final void u4(int value) {
+		if (size + 4 > bytes.length)
+			grow(4);
+
+		bytes[size++] = (byte) (value >>> 24);
+		bytes[size++] = (byte) (value >>> 16);
+		bytes[size++] = (byte) (value >>> 8);
+		bytes[size++] = (byte) value;
+	}
+
+	/**
+	 * Writes the bytes of another array of bytes.
+	 *
+	 * @param other the other array of bytes
+	 */
+
+	final void append(Bytes other) {
+		if (size + other.size > bytes.length)
+			grow(other.size);
+
+		System.arraycopy(other.bytes, 0, bytes, size, other.size);
+		size += other.size;
+	}
+
+	/**
+	 * Writes a string in the modified UTF-8 format of the class files,
+	 * preceded by its length in bytes.
+	 *
+	 * @param s the string
+	 * @throws IllegalArgumentException if the encoding of {@code s} is longer than 65535 bytes
+	 */
+
+	final void utf(String s) {
+		int length = s.length(), encoded = 0;
+		for (int pos = 0; pos < length; pos++) {
+			char c = s.charAt(pos);
+			encoded += c >= 1 && c <= 0x7f ? 1 : c <= 0x7ff ? 2 : 3;
+		}
+
+		if (encoded > 0xffff)
+			throw new IllegalArgumentException("String constant too long");
+
+		u2(encoded);
+		if (size + encoded > bytes.length)
+			grow(encoded);
+
+		for (int pos = 0; pos < length; pos++) {
+			char c = s.charAt(pos);
+			if (c >= 1 && c <= 0x7f)
+				bytes[size++] = (byte) c;
+			else if (c <= 0x7ff) {
+				bytes[size++] = (byte) (0xc0 | (c >> 6));
+				bytes[size++] = (byte) (0x80 | (c & 0x3f));
+			}
+			else {
+				bytes[size++] = (byte) (0xe0 | (c >> 12));
+				bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+				bytes[size++] = (byte) (0x80 | (c & 0x3f));
+			}
+		}
+	}
+
+	/**
+	 * Overwrites two bytes already written.
+	 *
+	 * @param pos the position of the first of the two bytes
+	 * @param value the bytes, in its 16 least significant bits
+	 */
+
+	final void patch2(int pos, int value) {
+		bytes[pos] = (byte) (value >>> 8);
+		bytes[pos + 1] = (byte) value;
+	}
+
+	/**
+	 * Overwrites four bytes already written.
+	 *
+	 * @param pos the position of the first of the four bytes
+	 * @param value the bytes
+	 */
+
+	final void patch4(int pos, int value) {
+		bytes[pos] = (byte) (value >>> 24);
+		bytes[pos + 1] = (byte) (value >>> 16);
+		bytes[pos + 2] = (byte) (value >>> 8);
+		bytes[pos + 3] = (byte) value;
+	}
+
+	/**
+	 * Writes the bytes written so far into a stream.
+	 *
+	 * @param out the stream
+	 * @throws IOException if the stream cannot be written
+	 */
+
+	final void writeTo(OutputStream out) throws IOException {
+		out.write(bytes, 0, size);
+	}
+
+	/**
+	 * Yields a copy of the bytes written so far.
+	 *
+	 * @return the bytes
+	 */
+
+	final byte[] toByteArray() {
+		return Arrays.copyOf(bytes, size);
+	}
+
+	/**
+	 * Enlarges the array so that it can hold some more bytes.
+	 *
+	 * @param more the number of bytes that must fit after the current ones
+	 */
+
+	private void grow(int more) {
+		bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + more));
+	}
+}
@@ -0,0 +1,892 @@
+package javaBytecodeGenerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.bcel.Constants;
+
+import types.Type;
+
+/**
+ * The Java bytecode of a method or constructor, written directly in binary form
+ * by a {@link DirectClassGenerator}. Jumps refer to {@link Label}s, whose position
+ * is patched into the jumps when the label is placed. The buffer keeps track of
+ * the type of each local variable and stack element, from the values that each
+ * instruction pops and pushes, as declared by the generator that knows the types
+ * of the Kitten code. Since Kitten has no {@code long} nor {@code double} values,
+ * every value takes a single slot. The maximal height of the stack becomes the
+ * {@code max_stack} of the method, without any further analysis of the code.
+ * <p>
+ * If frames are requested, each label records the merge of the types at the
+ * jumps to it, and the labels that are the target of jumps or that follow
+ * an unconditional jump get a frame in the {@code StackMapTable} attribute of the code.
+ * A backward jump can enlarge the frame of a label already placed: in that case
+ * the buffer is not {@link #isStable() stable} and the code must be written again
+ * into a new buffer, with the same labels, that keep their enlarged frame.
+ *
+ * @author Federico Bianchi
+ */
+
+public final class CodeBuffer extends Bytes {
+
+	/**
+	 * True if and only if the frames of the {@code StackMapTable} attribute must be computed.
+	 */
+
+	private final boolean frames;
+
+	/**
+	 * The types of the local variables at the beginning of the code.
+	 */
+
+	private final VerificationType[] parameters;
+
+	/**
+	 * The type of the receiver of a constructor, once the constructor
+	 * of the superclass has been called. It is {@code null} for methods.
+	 */
+
+	private final VerificationType receiver;
+
+	/**
+	 * The types of the elements of the stack at the current program point.
+	 * Only the first {@link #stack} are meaningful.
+	 */
+
+	private VerificationType[] stackTypes = new VerificationType[8];
+
+	/**
+	 * The height of the stack at the current program point.
+	 */
+
+	private int stack;
+
+	/**
+	 * The maximal height of the stack so far.
+	 */
+
+	private int maxStack;
+
+	/**
+	 * The types of the local variables at the current program point.
+	 * Those not used yet are {@code null} or {@link VerificationType#TOP}.
+	 */
+
+	private VerificationType[] locals;
+
+	/**
+	 * The number of local variables used so far.
+	 */
+
+	private int maxLocals;
+
+	/**
+	 * False if and only if the current program point follows an unconditional
+	 * jump or a {@code return}, so that it can only be reached through a label.
+	 */
+
+	private boolean reachable = true;
+
+	/**
+	 * False if and only if a backward jump has enlarged the frame of a label already placed.
+	 */
+
+	private boolean stable = true;
+
+	/**
+	 * The labels placed so far, in increasing order of position.
+	 */
+
+	private final List<Label> placed = new ArrayList<>();
+
+	/**
+	 * The entries of the {@code LineNumberTable} of the code: the position
+	 * where each line begins, followed by the line. Only the first
+	 * {@link #lineNumbers} elements are meaningful.
+	 */
+
+	private int[] lines = new int[16];
+
+	/**
+	 * The number of meaningful elements of {@link #lines}.
+	 */
+
+	private int lineNumbers;
+
+	/**
+	 * The stores into the local variables written so far, that build the {@code LocalVariableTable} of the code.
+	 */
+
+	private final LocalVariableRanges variables = new LocalVariableRanges();
+
+	/**
+	 * Builds an empty buffer.
+	 *
+	 * @param parameters the types of the local variables used for the receiver and the parameters
+	 * @param receiver the type of the receiver of a constructor, once the constructor
+	 *                 of the superclass has been called. It is {@code null} for methods
+	 * @param frames true if and only if the frames of the {@code StackMapTable} attribute must be computed
+	 */
+
+	CodeBuffer(VerificationType[] parameters, VerificationType receiver, boolean frames) {
+		super(256);
+
+		this.parameters = parameters;
+		this.receiver = receiver;
+		this.frames = frames;
+		this.locals = Arrays.copyOf(parameters, Math.max(parameters.length, 4));
+		this.maxLocals = parameters.length;
+	}
+
+	/**
+	 * A program point of the code, that can be the target of jumps
+	 * before and after it has been placed.
+	 */
+
+	public static final class Label {
+
+		/**
+		 * The position of the label in the code, or -1 if it has not been placed yet.
+		 */
+
+		private int position = -1;
+
+		/**
+		 * The types of the local variables at the label, or {@code null} if not known yet.
+		 */
+
+		private VerificationType[] locals;
+
+		/**
+		 * The types of the elements of the stack at the label, or {@code null} if not known yet.
+		 */
+
+		private VerificationType[] stack;
+
+		/**
+		 * True if and only if the label needs a frame, since it is the target
+		 * of a jump or it follows an unconditional jump.
+		 */
+
+		private boolean framed;
+
+		/**
+		 * The jumps to this label issued before it was placed. Each is a pair
+		 * of the position of the jump instruction and of the position of its offset.
+		 * Offsets of 4 bytes, as those of the switches, are recorded with negative position.
+		 */
+
+		private int[] fixups;
+
+		/**
+		 * The number of integers used in {@link #fixups}.
+		 */
+
+		private int size;
+
+		/**
+		 * Prepares this label to be used in a new buffer, for the same code.
+		 * The types at the label are kept, so that they are merged with those
+		 * of the jumps of the new buffer.
+		 */
+
+		void reset() {
+			position = -1;
+			framed = false;
+			fixups = null;
+			size = 0;
+		}
+	}
+
+	/**
+	 * Yields the maximal height of the stack of the code written so far.
+	 *
+	 * @return the maximal height
+	 */
+
+	int getMaxStack() {
+		return maxStack;
+	}
+
+	/**
+	 * Yields the number of local variables used by the code written so far.
+	 *
+	 * @return the number of local variables
+	 */
+
+	int getMaxLocals() {
+		return maxLocals;
+	}
+
+	/**
+	 * Determines if the frames of the labels placed so far agree with all the jumps to them.
+	 * Otherwise, the code must be written again, into a new buffer.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	boolean isStable() {
+		return stable;
+	}
+
+	/**
+	 * Records that the instructions written from now on come from a given line
+	 * of the source code, until another line is recorded.
+	 *
+	 * @param line the line, or 0 if it is not known, in which case nothing is recorded
+	 */
+
+	void line(int line) {
+		if (line <= 0)
+			return;
+
+		// a line that begins where the previous one begins replaces it
+		if (lineNumbers > 0 && lines[lineNumbers - 2] == size())
+			lineNumbers -= 2;
+
+		if (lineNumbers > 0 && lines[lineNumbers - 1] == line)
+			return;
+
+		if (lineNumbers == lines.length)
+			lines = Arrays.copyOf(lines, lines.length * 2);
+
+		lines[lineNumbers++] = size();
+		lines[lineNumbers++] = line;
+	}
+
+	/**
+	 * Writes the {@code LineNumberTable} attribute of the code,
+	 * if some line has been recorded through {@link #line(int)}.
+	 *
+	 * @param out where the attribute must be written
+	 * @param pool the constant pool of the class file
+	 * @return true if and only if the attribute has been written
+	 */
+
+	boolean writeLineNumberTable(Bytes out, ConstantPool pool) {
+		if (lineNumbers == 0)
+			return false;
+
+		out.u2(pool.utf8("LineNumberTable"));
+		out.u4(2 + 2 * lineNumbers);
+		out.u2(lineNumbers / 2);
+		for (int pos = 0; pos < lineNumbers; pos++)
+			out.u2(lines[pos]);
+
+		return true;
+	}
+
+	/**
+	 * Records that the last instruction written is a store of a value into a local variable.
+	 *
+	 * @param local the index of the local variable
+	 * @param name the name of the variable of the source code whose value is stored,
+	 *             or {@code null} if the value does not belong to a variable of the source code
+	 * @param type the type of the variable
+	 */
+
+	public void variable(int local, String name, Type type) {
+		variables.store(size(), local, name, type);
+	}
+
+	/**
+	 * Yields the stores into the local variables recorded through {@link #variable(int, String, Type)}.
+	 *
+	 * @return the stores
+	 */
+
+	LocalVariableRanges getVariables() {
+		return variables;
+	}
+
+	/**
+	 * Writes an instruction without operands.
+	 *
+	 * @param opcode the operation code of the instruction
+	 * @param pops the number of values popped by the instruction
+	 * @param push the type of the value pushed by the instruction, or {@code null} if it pushes nothing
+	 */
+
+	public void op(int opcode, int pops, VerificationType push) {
+		u1(opcode);
+		adjust(pops, push);
+
+		if (opcode == Constants.GOTO || opcode == Constants.ATHROW || (opcode >= Constants.IRETURN && opcode <= Constants.RETURN))
+			reachable = false;
+	}
+
+	/**
+	 * Writes an instruction with a one-byte operand.
+	 *
+	 * @param opcode the operation code of the instruction
+	 * @param operand the operand
+	 * @param pops the number of values popped by the instruction
+	 * @param push the type of the value pushed by the instruction, or {@code null} if it pushes nothing
+	 */
+
+	public void op1(int opcode, int operand, int pops, VerificationType push) {
+		u1(opcode);
+		u1(operand);
+		adjust(pops, push);
+	}
+
+	/**
+	 * Writes an instruction with a two-bytes operand, such as an index into the constant pool.
+	 *
+	 * @param opcode the operation code of the instruction
+	 * @param operand the operand
+	 * @param pops the number of values popped by the instruction
+	 * @param push the type of the value pushed by the instruction, or {@code null} if it pushes nothing
+	 */
+
+	public void op2(int opcode, int operand, int pops, VerificationType push) {
+		u1(opcode);
+		u2(operand);
+		adjust(pops, push);
+	}
+
+	/**
+	 * Writes a {@code dup}.
+	 */
+
+	public void dup() {
+		u1(Constants.DUP);
+		push(stackTypes[stack - 1]);
+	}
+
+	/**
+	 * Writes a {@code dup_x1}.
+	 */
+
+	public void dupX1() {
+		u1(Constants.DUP_X1);
+		VerificationType top = stackTypes[stack - 1];
+		push(top);
+		stackTypes[stack - 2] = stackTypes[stack - 3];
+		stackTypes[stack - 3] = top;
+	}
+
+	/**
+	 * Writes a {@code swap}.
+	 */
+
+	public void swap() {
+		u1(Constants.SWAP);
+		VerificationType top = stackTypes[stack - 1];
+		stackTypes[stack - 1] = stackTypes[stack - 2];
+		stackTypes[stack - 2] = top;
+	}
+
+	/**
+	 * Writes an instruction that pushes an integer constant, in its shortest form.
+	 *
+	 * @param value the constant
+	 * @param pool the constant pool, used for the constants that do not fit into the instruction
+	 */
+
+	public void iconst(int value, ConstantPool pool) {
+		if (value >= -1 && value <= 5)
+			op(Constants.ICONST_0 + value, 0, VerificationType.INTEGER);
+		else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+			op1(Constants.BIPUSH, value, 0, VerificationType.INTEGER);
+		else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+			op2(Constants.SIPUSH, value, 0, VerificationType.INTEGER);
+		else
+			ldc(pool.integer(value), VerificationType.INTEGER);
+	}
+
+	/**
+	 * Writes an instruction that pushes a constant of the constant pool.
+	 *
+	 * @param index the index of the constant in the constant pool
+	 * @param type the type of the constant
+	 */
+
+	public void ldc(int index, VerificationType type) {
+		if (index <= 0xff)
+			op1(Constants.LDC, index, 0, type);
+		else
+			op2(Constants.LDC_W, index, 0, type);
+	}
+
+	/**
+	 * Writes an instruction that loads a local variable, in its shortest form.
+	 * The type of the loaded value is that of the local variable at the
+	 * current program point, which can be more precise than its declared type.
+	 *
+	 * @param opcode the operation code of the long form of the instruction, such as {@code iload}
+	 * @param local the index of the local variable
+	 * @param type the declared type of the local variable, used if its type is not known
+	 */
+
+	public void load(int opcode, int local, VerificationType type) {
+		VerificationType current = local < locals.length ? locals[local] : null;
+		local(opcode, local);
+		push(current != null && current != VerificationType.TOP ? current : type);
+	}
+
+	/**
+	 * Writes an instruction that stores the top of the stack into a local variable, in its shortest form.
+	 *
+	 * @param opcode the operation code of the long form of the instruction, such as {@code istore}
+	 * @param local the index of the local variable
+	 */
+
+	public void store(int opcode, int local) {
+		local(opcode, local);
+		if (local >= locals.length)
+			locals = Arrays.copyOf(locals, Math.max(locals.length * 2, local + 1));
+
+		locals[local] = stackTypes[--stack];
+	}
+
+	/**
+	 * Writes an {@code iinc} instruction, in its shortest form. It does not change
+	 * the types of the stack and of the local variables.
+	 *
+	 * @param local the index of the local variable, that holds an integer
+	 * @param increment the increment, that fits into a {@code short}
+	 */
+
+	public void iinc(int local, int increment) {
+		maxLocals = Math.max(maxLocals, local + 1);
+
+		if (local <= 0xff && increment >= Byte.MIN_VALUE && increment <= Byte.MAX_VALUE) {
+			u1(Constants.IINC);
+			u1(local);
+			u1(increment);
+		}
+		else {
+			u1(Constants.WIDE);
+			u1(Constants.IINC);
+			u2(local);
+			u2(increment);
+		}
+	}
+
+	/**
+	 * Writes a {@code new} instruction. It pushes an object whose constructor has not been called yet.
+	 *
+	 * @param index the index of the class of the object in the constant pool
+	 * @param type the type of the object, once its constructor has been called
+	 */
+
+	public void newObject(int index, VerificationType type) {
+		int pos = size();
+		op2(Constants.NEW, index, 0, VerificationType.uninitialized(pos, type));
+	}
+
+	/**
+	 * Writes a {@code multianewarray} instruction, that pops the length of each dimension of the array.
+	 *
+	 * @param index the index of the type of the array in the constant pool
+	 * @param dimensions the number of dimensions created by the instruction
+	 * @param type the type of the array
+	 */
+
+	public void multianewarray(int index, int dimensions, VerificationType type) {
+		u1(Constants.MULTIANEWARRAY);
+		u2(index);
+		u1(dimensions);
+		adjust(dimensions, type);
+	}
+
+	/**
+	 * Writes a call to a constructor. The receiver of the call becomes initialised,
+	 * wherever it is in the local variables or in the stack.
+	 *
+	 * @param index the index of the constructor in the constant pool
+	 * @param parameters the number of parameters of the constructor
+	 */
+
+	public void invokeConstructor(int index, int parameters) {
+		op2(Constants.INVOKESPECIAL, index, parameters, null);
+
+		VerificationType object = stackTypes[--stack];
+		if (object.isUninitialized()) {
+			VerificationType initialized = object.getInitialized() != null ? object.getInitialized() : receiver;
+
+			for (int pos = 0; pos < stack; pos++)
+				if (stackTypes[pos].equals(object))
+					stackTypes[pos] = initialized;
+
+			for (int pos = 0; pos < locals.length; pos++)
+				if (object.equals(locals[pos]))
+					locals[pos] = initialized;
+		}
+	}
+
+	/**
+	 * Writes a jump to a label.
+	 *
+	 * @param opcode the operation code of the jump
+	 * @param target the label
+	 * @param pops the number of values popped by the jump
+	 */
+
+	public void jump(int opcode, Label target, int pops) {
+		int pos = size();
+		u1(opcode);
+		adjust(pops, null);
+		reach(target);
+		target.framed = true;
+		offset(pos, target, false);
+
+		if (opcode == Constants.GOTO)
+			reachable = false;
+	}
+
+	/**
+	 * Writes a {@code tableswitch} for consecutive keys.
+	 *
+	 * @param low the smallest key
+	 * @param targets the target of each key, from {@code low} upwards
+	 * @param otherwise the target when no key matches
+	 */
+
+	void tableswitch(int low, Label[] targets, Label otherwise) {
+		int pos = switchHeader(Constants.TABLESWITCH, otherwise);
+		u4(low);
+		u4(low + targets.length - 1);
+		for (Label target: targets) {
+			reach(target);
+			target.framed = true;
+			offset(pos, target, true);
+		}
+
+		reachable = false;
+	}
+
+	/**
+	 * Writes a {@code lookupswitch}.
+	 *
+	 * @param keys the keys, in increasing order
+	 * @param targets the target of each key
+	 * @param otherwise the target when no key matches
+	 */
+
+	void lookupswitch(int[] keys, Label[] targets, Label otherwise) {
+		int pos = switchHeader(Constants.LOOKUPSWITCH, otherwise);
+		u4(keys.length);
+		for (int i = 0; i < keys.length; i++) {
+			u4(keys[i]);
+			reach(targets[i]);
+			targets[i].framed = true;
+			offset(pos, targets[i], true);
+		}
+
+		reachable = false;
+	}
+
+	/**
+	 * Places a label at the current program point and patches the jumps already issued to it.
+	 *
+	 * @param label the label
+	 */
+
+	public void place(Label label) {
+		label.position = size();
+		placed.add(label);
+
+		if (reachable)
+			reach(label);
+		else {
+			// the label is only reachable through jumps, that recorded their types
+			label.framed = true;
+			reachable = true;
+		}
+
+		// the types at the label hold from here on
+		if (label.stack != null) {
+			stack = 0;
+			for (VerificationType type: label.stack)
+				push(type);
+
+			Arrays.fill(locals, null);
+			if (label.locals.length > locals.length)
+				locals = new VerificationType[label.locals.length];
+
+			System.arraycopy(label.locals, 0, locals, 0, label.locals.length);
+		}
+
+		for (int i = 0; i < label.size; i += 2) {
+			int at = label.fixups[i + 1];
+			if (at < 0)
+				patch4(-at, label.position - label.fixups[i]);
+			else
+				patch2(at, checkOffset(label.position - label.fixups[i]));
+		}
+
+		label.fixups = null;
+	}
+
+	/**
+	 * Writes the {@code StackMapTable} attribute of the code, if it needs one.
+	 * The attribute has a frame for each position where a label that needs a frame
+	 * has been placed. Frames are written in the most compact form that fits them.
+	 *
+	 * @param out where the attribute must be written
+	 * @param pool the constant pool of the class file
+	 * @return true if and only if the attribute has been written
+	 */
+
+	boolean writeStackMapTable(Bytes out, ConstantPool pool) {
+		if (!frames)
+			return false;
+
+		int count = 0;
+		Bytes entries = new Bytes(64);
+		VerificationType[] previous = trim(parameters);
+		int previousPosition = -1;
+
+		for (int pos = 0; pos < placed.size(); pos++) {
+			Label label = placed.get(pos);
+			// only the last of the labels placed at the same position is used, since its types include those of the others
+			if (pos + 1 < placed.size() && placed.get(pos + 1).position == label.position) {
+				placed.get(pos + 1).framed |= label.framed;
+				continue;
+			}
+			else if (!label.framed)
+				continue;
+
+			VerificationType[] current = trim(label.locals);
+			VerificationType[] stack = label.stack;
+			int delta = previousPosition < 0 ? label.position : label.position - previousPosition - 1;
+
+			if (stack.length == 0 && Arrays.equals(current, previous))
+				if (delta <= 63)
+					entries.u1(delta); // same_frame
+				else {
+					entries.u1(251); // same_frame_extended
+					entries.u2(delta);
+				}
+			else if (stack.length == 1 && Arrays.equals(current, previous)) {
+				if (delta <= 63)
+					entries.u1(64 + delta); // same_locals_1_stack_item_frame
+				else {
+					entries.u1(247); // same_locals_1_stack_item_frame_extended
+					entries.u2(delta);
+				}
+
+				stack[0].writeTo(entries, pool);
+			}
+			else if (stack.length == 0 && current.length < previous.length && previous.length - current.length <= 3
+					&& Arrays.equals(current, Arrays.copyOf(previous, current.length))) {
+				entries.u1(251 - (previous.length - current.length)); // chop_frame
+				entries.u2(delta);
+			}
+			else if (stack.length == 0 && current.length > previous.length && current.length - previous.length <= 3
+					&& Arrays.equals(previous, Arrays.copyOf(current, previous.length))) {
+				entries.u1(251 + (current.length - previous.length)); // append_frame
+				entries.u2(delta);
+				for (int local = previous.length; local < current.length; local++)
+					current[local].writeTo(entries, pool);
+			}
+			else {
+				entries.u1(255); // full_frame
+				entries.u2(delta);
+				entries.u2(current.length);
+				for (VerificationType type: current)
+					type.writeTo(entries, pool);
+
+				entries.u2(stack.length);
+				for (VerificationType type: stack)
+					type.writeTo(entries, pool);
+			}
+
+			previous = current;
+			previousPosition = label.position;
+			count++;
+		}
+
+		if (count == 0)
+			return false;
+
+		out.u2(pool.utf8("StackMapTable"));
+		out.u4(2 + entries.size());
+		out.u2(count);
+		out.append(entries);
+
+		return true;
+	}
+
+	/**
+	 * Yields the types of some local variables, without those at the end that hold no usable value.
+	 *
+	 * @param locals the types of the local variables
+	 * @return the types, with no {@code null}s
+	 */
+
+	private static VerificationType[] trim(VerificationType[] locals) {
+		int length = locals.length;
+		while (length > 0 && (locals[length - 1] == null || locals[length - 1] == VerificationType.TOP))
+			length--;
+
+		VerificationType[] result = Arrays.copyOf(locals, length);
+		for (int pos = 0; pos < length; pos++)
+			if (result[pos] == null)
+				result[pos] = VerificationType.TOP;
+
+		return result;
+	}
+
+	/**
+	 * Writes an instruction that loads or stores a local variable, in its shortest form.
+	 * It does not change the types of the stack and of the local variables.
+	 *
+	 * @param opcode the operation code of the long form of the instruction, such
+	 *               as {@code iload} or {@code astore}
+	 * @param local the index of the local variable
+	 */
+
+	private void local(int opcode, int local) {
+		maxLocals = Math.max(maxLocals, local + 1);
+
+		if (local <= 3)
+			// iload_0 follows aload, istore_0 follows astore. Each of them has four short forms
+			u1(opcode <= Constants.ALOAD
+				? Constants.ILOAD_0 + (opcode - Constants.ILOAD) * 4 + local
+				: Constants.ISTORE_0 + (opcode - Constants.ISTORE) * 4 + local);
+		else if (local <= 0xff) {
+			u1(opcode);
+			u1(local);
+		}
+		else {
+			u1(Constants.WIDE);
+			u1(opcode);
+			u2(local);
+		}
+	}
+
+	/**
+	 * Writes the beginning of a switch: its operation code, the padding
+	 * to a multiple of four bytes and the default target.
+	 *
+	 * @param opcode the operation code of the switch
+	 * @param otherwise the default target
+	 * @return the position of the operation code
+	 */
+
+	private int switchHeader(int opcode, Label otherwise) {
+		int pos = size();
+		u1(opcode);
+		adjust(1, null);
+		while (size() % 4 != 0)
+			u1(0);
+
+		reach(otherwise);
+		otherwise.framed = true;
+		offset(pos, otherwise, true);
+
+		return pos;
+	}
+
+	/**
+	 * Writes the offset of a jump to a label, or records it for later patching
+	 * if the label has not been placed yet.
+	 *
+	 * @param pos the position of the jump instruction
+	 * @param target the label
+	 * @param wide true if and only if the offset takes four bytes rather than two
+	 */
+
+	private void offset(int pos, Label target, boolean wide) {
+		if (target.position >= 0)
+			if (wide)
+				u4(target.position - pos);
+			else
+				u2(checkOffset(target.position - pos));
+		else {
+			if (target.fixups == null)
+				target.fixups = new int[4];
+			else if (target.size == target.fixups.length)
+				target.fixups = Arrays.copyOf(target.fixups, target.size * 2);
+
+			target.fixups[target.size++] = pos;
+			target.fixups[target.size++] = wide ? -size() : size();
+
+			if (wide)
+				u4(0);
+			else
+				u2(0);
+		}
+	}
+
+	/**
+	 * Records the types at a label reached from the current program point.
+	 * If frames are computed, they are merged with those already recorded at the label.
+	 *
+	 * @param target the label
+	 */
+
+	private void reach(Label target) {
+		if (target.stack == null) {
+			target.stack = Arrays.copyOf(stackTypes, stack);
+			target.locals = trim(locals);
+		}
+		else if (frames && merge(target)) {
+			if (target.position >= 0)
+				// the label has been placed already, with smaller types
+				stable = false;
+		}
+	}
+
+	/**
+	 * Merges the types at the current program point into those at a label.
+	 *
+	 * @param target the label
+	 * @return true if and only if the types at the label have changed
+	 */
+
+	private boolean merge(Label target) {
+		if (target.stack.length != stack)
+			throw new IllegalStateException("Inconsistent stack height at a jump target");
+
+		boolean changed = false;
+		for (int pos = 0; pos < stack; pos++) {
+			VerificationType merged = target.stack[pos].merge(stackTypes[pos]);
+			if (!merged.equals(target.stack[pos])) {
+				target.stack[pos] = merged;
+				changed = true;
+			}
+		}
+
+		VerificationType[] targetLocals = target.locals;
+		for (int pos = 0; pos < targetLocals.length; pos++) {
+			VerificationType local = pos < locals.length && locals[pos] != null ? locals[pos] : VerificationType.TOP;
+			VerificationType merged = targetLocals[pos].merge(local);
+			if (!merged.equals(targetLocals[pos])) {
+				targetLocals[pos] = merged;
+				changed = true;
+			}
+		}
+
+		if (changed)
+			target.locals = trim(targetLocals);
+
+		return changed;
+	}
+
+	private static int checkOffset(int offset) {
+		if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE)
+			throw new IllegalStateException("Jump offset too large: the method is too long");
+
+		return offset;
+	}
+
+	private void adjust(int pops, VerificationType push) {
+		stack -= pops;
+		if (push != null)
+			push(push);
+	}
+
+	private void push(VerificationType type) {
+		if (stack == stackTypes.length)
+			stackTypes = Arrays.copyOf(stackTypes, stack * 2);
+
+		stackTypes[stack++] = type;
+		if (stack > maxStack)
+			maxStack = stack;
+	}
+}
@@ -0,0 +1,231 @@
+package javaBytecodeGenerator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.bcel.Constants;
+
+/**
+ * The constant pool of a class file written by a {@link DirectClassGenerator}.
+ * Its entries are written in binary form as soon as they are added, and each
+ * entry is added only once: a table from the content of the entry to its index
+ * lets the same constant be shared by all the code of the class.
+ * Class names are in the internal form of the Java virtual machine,
+ * such as {@code runTime/String}.
+ *
+ * @author Federico Bianchi
+ */
+
+public final class ConstantPool {
+
+	/**
+	 * The entries of the pool, in binary form.
+	 */
+
+	private final Bytes entries = new Bytes(1024);
+
+	/**
+	 * The number of entries of the pool, plus one. Index 0 is not used.
+	 */
+
+	private int count = 1;
+
+	/**
+	 * The index of the strings in modified UTF-8 format added so far.
+	 */
+
+	private final Map<String, Integer> utf8s = new HashMap<>();
+
+	/**
+	 * The index of the other entries added so far, made of references
+	 * to further entries, from a key describing their content.
+	 * The key starts with a letter for the kind of the entry.
+	 */
+
+	private final Map<String, Integer> index = new HashMap<>();
+
+	/**
+	 * The index of the integer constants added so far.
+	 */
+
+	private final Map<Integer, Integer> ints = new HashMap<>();
+
+	/**
+	 * The index of the float constants added so far, from their bits.
+	 */
+
+	private final Map<Integer, Integer> floats = new HashMap<>();
+
+	/**
+	 * Adds a string in modified UTF-8 format, as used for names and descriptors.
+	 *
+	 * @param s the string
+	 * @return the index of its entry
+	 */
+
+	int utf8(String s) {
+		Integer result = utf8s.get(s);
+		if (result == null) {
+			entries.u1(Constants.CONSTANT_Utf8);
+			entries.utf(s);
+			utf8s.put(s, result = count++);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Adds a reference to a class or array type.
+	 *
+	 * @param name the internal name of the class, or the descriptor of the array type
+	 * @return the index of its entry
+	 */
+
+	public int classRef(String name) {
+		Integer result = index.get("C" + name);
+		return result != null ? result : ref(Constants.CONSTANT_Class, "C" + name, utf8(name), -1);
+	}
+
+	/**
+	 * Adds a Java string constant, as pushed by {@code ldc}.
+	 *
+	 * @param s the string
+	 * @return the index of its entry
+	 */
+
+	public int string(String s) {
+		Integer result = index.get("S" + s);
+		return result != null ? result : ref(Constants.CONSTANT_String, "S" + s, utf8(s), -1);
+	}
+
+	/**
+	 * Adds an integer constant.
+	 *
+	 * @param value the constant
+	 * @return the index of its entry
+	 */
+
+	public int integer(int value) {
+		Integer result = ints.get(value);
+		if (result == null) {
+			entries.u1(Constants.CONSTANT_Integer);
+			entries.u4(value);
+			ints.put(value, result = count++);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Adds a float constant.
+	 *
+	 * @param value the constant
+	 * @return the index of its entry
+	 */
+
+	public int floating(float value) {
+		int bits = Float.floatToRawIntBits(value);
+		Integer result = floats.get(bits);
+		if (result == null) {
+			entries.u1(Constants.CONSTANT_Float);
+			entries.u4(bits);
+			floats.put(bits, result = count++);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Adds a reference to a field.
+	 *
+	 * @param owner the internal name of the class of the field
+	 * @param name the name of the field
+	 * @param descriptor the descriptor of the type of the field
+	 * @return the index of its entry
+	 */
+
+	public int fieldRef(String owner, String name, String descriptor) {
+		return memberRef(Constants.CONSTANT_Fieldref, 'F', owner, name, descriptor);
+	}
+
+	/**
+	 * Adds a reference to a method or constructor.
+	 *
+	 * @param owner the internal name of the class of the method
+	 * @param name the name of the method, or {@code <init>} for a constructor
+	 * @param descriptor the descriptor of the method
+	 * @return the index of its entry
+	 */
+
+	public int methodRef(String owner, String name, String descriptor) {
+		return memberRef(Constants.CONSTANT_Methodref, 'M', owner, name, descriptor);
+	}
+
+	/**
+	 * Yields the number of entries of the pool, plus one, as written in the class file.
+	 *
+	 * @return the number of entries, plus one
+	 */
+
+	int getCount() {
+		return count;
+	}
+
+	/**
+	 * Writes the entries of the pool, without their number.
+	 *
+	 * @param out where the entries must be written
+	 */
+
+	void writeTo(Bytes out) {
+		out.append(entries);
+	}
+
+	/**
+	 * Adds a reference to a field or method, together with the entries it refers to.
+	 *
+	 * @param tag the tag of the entry
+	 * @param kind the letter that starts the key of the entry
+	 * @param owner the internal name of the class of the member
+	 * @param name the name of the member
+	 * @param descriptor the descriptor of the member
+	 * @return the index of the entry
+	 */
+
+	private int memberRef(byte tag, char kind, String owner, String name, String descriptor) {
+		String key = kind + owner + '.' + name + descriptor;
+		Integer result = index.get(key);
+		if (result == null) {
+			int clazz = classRef(owner);
+			String nameAndTypeKey = "N" + name + ' ' + descriptor;
+			Integer nameAndType = index.get(nameAndTypeKey);
+			if (nameAndType == null)
+				nameAndType = ref(Constants.CONSTANT_NameAndType, nameAndTypeKey, utf8(name), utf8(descriptor));
+
+			result = ref(tag, key, clazz, nameAndType);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Adds an entry made of the indexes of one or two other entries.
+	 * The entry must not be in the pool yet.
+	 *
+	 * @param tag the tag of the entry
+	 * @param key the key of the entry in {@link #index}
+	 * @param first the first index
+	 * @param second the second index, or -1 if the entry has only one
+	 * @return the index of the entry
+	 */
+
+	private int ref(byte tag, String key, int first, int second) {
+		entries.u1(tag);
+		entries.u2(first);
+		if (second >= 0)
+			entries.u2(second);
+
+		index.put(key, count);
+		return count++;
+	}
+}
@@ -0,0 +1,1439 @@
+package javaBytecodeGenerator;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.bcel.Constants;
+
+import translation.Block;
+import translation.Options;
+import types.ArrayType;
+import types.BooleanType;
+import types.ClassMemberSignature;
+import types.ClassType;
+import types.CodeSignature;
+import types.ConstructorSignature;
+import types.FieldSignature;
+import types.FloatType;
+import types.IntType;
+import types.Intrinsics;
+import types.MethodSignature;
+import types.NilType;
+import types.PrimitiveType;
+import types.ReferenceType;
+import types.Type;
+import types.TypeList;
+import types.VoidType;
+import bytecode.ADD;
+import bytecode.ArithmeticBinOpBytecode;
+import bytecode.BranchingBytecode;
+import bytecode.Bytecode;
+import bytecode.BytecodeList;
+import bytecode.CALL;
+import bytecode.CAST;
+import bytecode.CONST;
+import bytecode.DUP;
+import bytecode.LOAD;
+import bytecode.NOP;
+import bytecode.NonBranchingBytecode;
+import bytecode.POP;
+import bytecode.RETURN;
+import bytecode.SPAWN;
+import bytecode.STORE;
+import bytecode.SUB;
+import bytecode.SWITCH;
+import bytecode.SYNC;
+
+/**
+ * A Java bytecode generator that writes the class files directly in binary form,
+ * without building the object representation of the BCEL library. It produces
+ * the same Java bytecode of a {@link JavaClassGenerator}, with far less allocation:
+ * the code of each method is streamed into a {@link CodeBuffer}, the constants are
+ * added to a compact {@link ConstantPool} and the maximal height of the stack is
+ * computed while the code is written, from the types of the Kitten bytecodes,
+ * rather than by a later analysis of the code.
+ * Since the code cannot be rewritten once it is streamed, the rules of the
+ * {@link PeepholeOptimizer} are applied to the Kitten bytecodes of each block,
+ * before their Java bytecode is written, and to the jumps between blocks.
+ * It is used when the compiler is run with {@code -backend=direct}. From version 50
+ * of the class files, selected with {@code -target=}, the code of each method carries
+ * the frames of a {@code StackMapTable} attribute, computed from the same types,
+ * so that the Java virtual machine can check the code in a single pass.
+ *
+ * @author Federico Bianchi
+ */
+
+public class DirectClassGenerator {
+
+	/**
+	 * The first major version of the class files that can contain {@code StackMapTable} attributes.
+	 */
+
+	private final static int FRAMES_VERSION = 50;
+
+	/**
+	 * The internal names of the classes of the run-time used by the Java bytecode of the Kitten bytecodes.
+	 */
+
+	public final static String STRING = "runTime/String", BUILDER = "runTime/StringBuilder",
+		SPAWN_CLASS = "runTime/Spawn", TARGET = "runTime/Target";
+
+	/**
+	 * The internal names of the classes of the run-time used for the memoized methods.
+	 */
+
+	private final static String MEMO = "runTime/Memo", KEY = "runTime/Memo$Key";
+
+	/**
+	 * The types of the objects of the run-time, and of the Java library, used by the Java bytecode of the Kitten bytecodes.
+	 */
+
+	public final static VerificationType STRING_TYPE = VerificationType.object(STRING),
+		BUILDER_TYPE = VerificationType.object(BUILDER), JAVA_STRING = VerificationType.object("java/lang/String"),
+		JAVA_CLASS = VerificationType.object("java/lang/Class");
+
+	/**
+	 * The types of the other objects used by the generated code.
+	 */
+
+	private final static VerificationType MEMO_TYPE = VerificationType.object(MEMO), KEY_TYPE = VerificationType.object(KEY),
+		TARGET_TYPE = VerificationType.object(TARGET), OBJECTS = VerificationType.object("[Ljava/lang/Object;");
+
+	/**
+	 * The major version of the class file.
+	 */
+
+	private final int majorVersion = Options.get().getTarget();
+
+	/**
+	 * True if and only if the code of the methods carries {@code StackMapTable} attributes.
+	 */
+
+	private final boolean frames = majorVersion >= FRAMES_VERSION;
+
+	/**
+	 * The class whose class file is generated.
+	 */
+
+	private final ClassType clazz;
+
+	/**
+	 * The internal name of {@link #clazz}.
+	 */
+
+	private final String className;
+
+	/**
+	 * The constant pool of the class file.
+	 */
+
+	private final ConstantPool pool = new ConstantPool();
+
+	/**
+	 * The fields of the class file, in binary form.
+	 */
+
+	private final Bytes fields = new Bytes(256);
+
+	/**
+	 * The number of fields in {@link #fields}.
+	 */
+
+	private int fieldsCount;
+
+	/**
+	 * The methods of the class file, in binary form.
+	 */
+
+	private final Bytes methods = new Bytes(4096);
+
+	/**
+	 * The number of methods in {@link #methods}.
+	 */
+
+	private int methodsCount;
+
+	/**
+	 * The number of devirtualized calls generated so far.
+	 */
+
+	private int devirtualizedCalls;
+
+	/**
+	 * True if and only if the rules of the {@link PeepholeOptimizer} are applied to the code.
+	 */
+
+	private final boolean peephole = Options.get().getOptimisationLevel() >= 1;
+
+	/**
+	 * The number of times each rule of the {@link PeepholeOptimizer} has been applied so far.
+	 */
+
+	private final Map<PeepholeOptimizer.Rule, Integer> applications = new EnumMap<>(PeepholeOptimizer.Rule.class);
+
+	/**
+	 * The static fields holding the shared strings used by the code of the class,
+	 * from the lexical value of each string to the name of its field.
+	 */
+
+	private final Map<String, String> stringConstants = new LinkedHashMap<>();
+
+	/**
+	 * The static fields holding the caches of the memoized methods of the class,
+	 * from each method to the name of its field.
+	 */
+
+	private final Map<MethodSignature, String> memoCaches = new LinkedHashMap<>();
+
+	/**
+	 * The static fields holding the methods called by the run-time on behalf of
+	 * the code of the class, from each method to the name of its field.
+	 */
+
+	private final Map<MethodSignature, String> targets = new LinkedHashMap<>();
+
+	/**
+	 * The descriptors of the types used so far.
+	 */
+
+	private final Map<Type, String> descriptors = new HashMap<>();
+
+	/**
+	 * The size of the code of each method and constructor of the class, in bytes.
+	 */
+
+	private final Map<CodeSignature, Integer> codeSizes = new HashMap<>();
+
+	/**
+	 * Builds a class generator for the given class type.
+	 *
+	 * @param clazz the class type
+	 * @param sigs a set of class member signatures. These are those that must be
+	 *             translated. If this is {@code null}, all class members are translated
+	 */
+
+	public DirectClassGenerator(ClassType clazz, Set<ClassMemberSignature> sigs) {
+		this.clazz = clazz;
+		this.className = internalName(clazz);
+
+		for (PeepholeOptimizer.Rule rule: PeepholeOptimizer.Rule.values())
+			applications.put(rule, 0);
+
+		// we add the fields
+		for (FieldSignature field: clazz.getFields().values())
+			if (sigs == null || sigs.contains(field))
+				addField(Constants.ACC_PUBLIC, field.getName(), descriptorOf(field.getType()));
+
+		// we add the constructors
+		for (ConstructorSignature constructor: clazz.getConstructors())
+			if (sigs == null || sigs.contains(constructor))
+				addConstructor(constructor);
+
+		// we add the methods
+		for (Set<MethodSignature> s: clazz.getMethods().values())
+			for (MethodSignature method: s)
+				if (sigs == null || sigs.contains(method))
+					if (method.isMemo())
+						addMemoizedMethod(method);
+					else
+						addMethod(method);
+
+		// we add the shared strings and the caches used by the code above
+		addStaticFields();
+	}
+
+	/**
+	 * Yields the number of devirtualized calls generated by this class generator.
+	 *
+	 * @return the number of devirtualized calls
+	 */
+
+	public int getDevirtualizedCalls() {
+		return devirtualizedCalls;
+	}
+
+	/**
+	 * Yields the number of times a rule of the {@link PeepholeOptimizer}
+	 * has been applied to the code generated by this class generator.
+	 *
+	 * @param rule the rule
+	 * @return the number of applications of {@code rule}
+	 */
+
+	public int getApplications(PeepholeOptimizer.Rule rule) {
+		return applications.get(rule);
+	}
+
+	/**
+	 * Yields the size of the code generated for each method and constructor
+	 * of the class, in bytes. For a memoized method, this is the size of the
+	 * private method that holds its code.
+	 *
+	 * @return the sizes
+	 */
+
+	public Map<CodeSignature, Integer> getCodeSizes() {
+		return codeSizes;
+	}
+
+	/**
+	 * Dumps the class file generated by this class generator.
+	 *
+	 * @param fileName the name of the class file
+	 * @throws IOException if the file cannot be written
+	 */
+
+	public void dump(String fileName) throws IOException {
+		try (OutputStream out = new FileOutputStream(fileName)) {
+			toBytes().writeTo(out);
+		}
+	}
+
+	/**
+	 * Yields the bytes of the class file generated by this class generator.
+	 *
+	 * @return the bytes of the class file
+	 */
+
+	public byte[] getBytes() {
+		return toBytes().toByteArray();
+	}
+
+	/**
+	 * Yields the class file generated by this class generator.
+	 *
+	 * @return the bytes of the class file
+	 */
+
+	private Bytes toBytes() {
+		// these entries must be in the constant pool before it is written
+		int thisClass = pool.classRef(className);
+		int superClass = pool.classRef(clazz.getSuperclass() != null ? internalName(clazz.getSuperclass()) : "java/lang/Object");
+		int sourceFileAttribute = pool.utf8("SourceFile");
+		int sourceFile = pool.utf8(clazz.getName() + ".kit");
+
+		Bytes out = new Bytes(1024 + fields.size() + methods.size());
+		out.u4(0xCAFEBABE);
+		// version 45 is that of Java 1.1, whose minor version was 3
+		out.u2(majorVersion == Options.MIN_TARGET ? 3 : 0);
+		out.u2(majorVersion);
+		out.u2(pool.getCount());
+		pool.writeTo(out);
+		// classes without subclasses are final
+		out.u2(Constants.ACC_PUBLIC | Constants.ACC_SUPER | (clazz.isFinal() ? Constants.ACC_FINAL : 0));
+		out.u2(thisClass);
+		out.u2(superClass);
+		out.u2(0); // no interfaces
+		out.u2(fieldsCount);
+		out.append(fields);
+		out.u2(methodsCount);
+		out.append(methods);
+		out.u2(1); // the SourceFile attribute
+		out.u2(sourceFileAttribute);
+		out.u4(2);
+		out.u2(sourceFile);
+
+		return out;
+	}
+
+	private void addField(int access, String name, String descriptor) {
+		fields.u2(access);
+		fields.u2(pool.utf8(name));
+		fields.u2(pool.utf8(descriptor));
+		fields.u2(0); // no attributes
+		fieldsCount++;
+	}
+
+	/**
+	 * Adds a method to the class file. Its code carries the debugging information
+	 * required by the options of the compiler: the {@code LineNumberTable} holds
+	 * the lines recorded into the code and the {@code LocalVariableTable}
+	 * names the receiver, the parameters and the local variables.
+	 *
+	 * @param access the access flags of the method
+	 * @param name the name of the method
+	 * @param descriptor the descriptor of the method
+	 * @param code the code of the method
+	 * @param sig the Kitten method or constructor, or {@code null} if the code has no Kitten counterpart
+	 * @param receiver true if and only if the method has a receiver
+	 */
+
+	private void addMethod(int access, String name, String descriptor, CodeBuffer code, CodeSignature sig, boolean receiver) {
+		methods.u2(access);
+		methods.u2(pool.utf8(name));
+		methods.u2(pool.utf8(descriptor));
+		methods.u2(1); // the Code attribute
+		methods.u2(pool.utf8("Code"));
+		int length = methods.size();
+		methods.u4(0); // patched below
+		methods.u2(code.getMaxStack());
+		methods.u2(code.getMaxLocals());
+		methods.u4(code.size());
+		methods.append(code);
+		methods.u2(0); // no exception handlers
+		int attributes = methods.size(), count = 0;
+		methods.u2(0); // patched below
+		if (code.writeStackMapTable(methods, pool))
+			count++;
+
+		Options options = Options.get();
+		if (options.generateLineNumbers() && code.writeLineNumberTable(methods, pool))
+			count++;
+
+		if (options.generateLocalVariables() && writeLocalVariableTable(sig, receiver, code))
+			count++;
+
+		methods.patch2(attributes, count);
+		methods.patch4(length, methods.size() - length - 4);
+		methodsCount++;
+	}
+
+	/**
+	 * Writes the {@code LocalVariableTable} attribute of the code of a method,
+	 * that names its receiver, its parameters and its local variables,
+	 * over the ranges computed by {@link LocalVariableRanges}.
+	 *
+	 * @param sig the Kitten method or constructor, or {@code null} if the code has no Kitten counterpart
+	 * @param receiver true if and only if the method has a receiver
+	 * @param code the code of the method
+	 * @return true if and only if the attribute has been written, that is,
+	 *         if some variable has been named
+	 */
+
+	private boolean writeLocalVariableTable(CodeSignature sig, boolean receiver, CodeBuffer code) {
+		LocalVariableRanges ranges = code.getVariables();
+		String[] names = sig != null ? sig.getParameterNames() : null;
+		if (names != null) {
+			int local = 0;
+			if (receiver)
+				ranges.parameter(local++, "this", sig.getDefiningClass());
+
+			TypeList parameters = sig.getParameters();
+			for (String name: names) {
+				ranges.parameter(local++, name, parameters.getHead());
+				parameters = parameters.getTail();
+			}
+		}
+
+		List<LocalVariableRanges.Range> variables = ranges.getRanges(code.size());
+		if (variables.isEmpty())
+			return false;
+
+		methods.u2(pool.utf8("LocalVariableTable"));
+		methods.u4(2 + 10 * variables.size());
+		methods.u2(variables.size());
+
+		for (LocalVariableRanges.Range range: variables) {
+			methods.u2(range.getStart());
+			methods.u2(range.getEnd() - range.getStart());
+			methods.u2(pool.utf8(range.getName()));
+			methods.u2(pool.utf8(descriptorOf(range.getType())));
+			methods.u2(range.getLocal());
+		}
+
+		return true;
+	}
+
+	/**
+	 * Adds a constructor to the class file.
+	 *
+	 * @param constructor the constructor
+	 */
+
+	private void addConstructor(ConstructorSignature constructor) {
+		CodeBuffer code = generateJavaBytecode(constructor.getCode(),
+			locals(VerificationType.UNINITIALIZED_THIS, types(constructor.getParameters())), VerificationType.of(clazz));
+
+		codeSizes.put(constructor, code.size());
+		addMethod(Constants.ACC_PUBLIC, Constants.CONSTRUCTOR_NAME, descriptorOf(constructor), code, constructor, true);
+	}
+
+	/**
+	 * Adds a method, that is not memoized, to the class file.
+	 *
+	 * @param method the method
+	 */
+
+	private void addMethod(MethodSignature method) {
+		Type[] parameters = types(method.getParameters());
+
+		CodeBuffer code;
+
+		if (method.getName().equals("main")) {
+			code = generateJavaBytecode(method.getCode(),
+				new VerificationType[] { VerificationType.object("[Ljava/lang/String;") }, null);
+			// the parameters of the Java main method are not those of the Kitten one
+			addMethod(Constants.ACC_PUBLIC | Constants.ACC_STATIC, "main", "([Ljava/lang/String;)V", code, null, false);
+		}
+		else if (method.isStatic()) {
+			code = generateJavaBytecode(method.getCode(), locals(null, parameters), null);
+			// outlined code is only called by the code of its class
+			addMethod(method.isOutlined() ? Constants.ACC_PRIVATE | Constants.ACC_STATIC | Constants.ACC_SYNTHETIC
+				: Constants.ACC_PUBLIC | Constants.ACC_STATIC, method.getName(), descriptorOf(method), code, method, false);
+		}
+		else {
+			code = generateJavaBytecode(method.getCode(), locals(VerificationType.of(clazz), parameters), null);
+			addMethod(method.isFinal() ? Constants.ACC_PUBLIC | Constants.ACC_FINAL : Constants.ACC_PUBLIC,
+				method.getName(), descriptorOf(method), code, method, true);
+		}
+
+		codeSizes.put(method, code.size());
+	}
+
+	/**
+	 * Yields the types of the local variables at the beginning of a method or constructor.
+	 *
+	 * @param receiver the type of the receiver, or {@code null} for static methods
+	 * @param parameters the types of the parameters
+	 * @return the types of the local variables
+	 */
+
+	private static VerificationType[] locals(VerificationType receiver, Type[] parameters) {
+		int first = receiver == null ? 0 : 1;
+		VerificationType[] result = new VerificationType[parameters.length + first];
+		if (receiver != null)
+			result[0] = receiver;
+
+		for (int pos = 0; pos < parameters.length; pos++)
+			result[pos + first] = VerificationType.of(parameters[pos]);
+
+		return result;
+	}
+
+	/**
+	 * Adds a memoized method to the class file. As for a {@link JavaClassGenerator},
+	 * its code is compiled into a private method, whose name is that of the method
+	 * followed by {@code $body}, and the method looks for the result in a cache
+	 * before calling it. See {@link MethodSignature#createMethod(JavaClassGenerator)}.
+	 *
+	 * @param method the memoized method
+	 */
+
+	private void addMemoizedMethod(MethodSignature method) {
+		String descriptor = descriptorOf(method);
+		String bodyName = method.getName() + "$body";
+		Type returnType = method.getReturnType();
+		Type[] parameters = types(method.getParameters());
+
+		VerificationType[] locals = locals(VerificationType.of(clazz), parameters);
+		CodeBuffer code = generateJavaBytecode(method.getCode(), locals, null);
+		addMethod(Constants.ACC_PRIVATE | Constants.ACC_FINAL, bodyName, descriptor, code, method, true);
+		codeSizes.put(method, code.size());
+
+		String memoName = memoCaches.get(method);
+		if (memoName == null)
+			memoCaches.put(method, memoName = "$memo" + memoCaches.size());
+
+		String suffix = returnType.toString().substring(0, 1).toUpperCase() + returnType.toString().substring(1);
+
+		// the parameters are primitive, hence each of them uses a single local variable
+		int keyVar = parameters.length + 1;
+
+		// we build the key of the call
+		VerificationType result = VerificationType.of(returnType);
+		code = new CodeBuffer(locals, null, frames);
+		code.op2(Constants.GETSTATIC, pool.fieldRef(className, memoName, "L" + MEMO + ";"), 0, MEMO_TYPE);
+		code.load(Constants.ALOAD, 0, locals[0]);
+		code.iconst(parameters.length, pool);
+		code.op2(Constants.INVOKEVIRTUAL, pool.methodRef(MEMO, "key", "(Ljava/lang/Object;I)L" + KEY + ";"), 3, KEY_TYPE);
+
+		for (int pos = 0; pos < parameters.length; pos++) {
+			code.load(loadOf(parameters[pos]), pos + 1, locals[pos + 1]);
+			code.op2(Constants.INVOKEVIRTUAL, pool.methodRef(KEY, "add", "(" + descriptorOf(parameters[pos]) + ")L" + KEY + ";"), 2, KEY_TYPE);
+		}
+
+		code.dup();
+		code.store(Constants.ASTORE, keyVar);
+
+		// if the result is known, we return it
+		code.op2(Constants.INVOKEVIRTUAL, pool.methodRef(KEY, "find", "()Z"), 1, VerificationType.INTEGER);
+		CodeBuffer.Label missing = new CodeBuffer.Label();
+		code.jump(Constants.IFEQ, missing, 1);
+		code.load(Constants.ALOAD, keyVar, KEY_TYPE);
+		code.op2(Constants.INVOKEVIRTUAL, pool.methodRef(KEY, "get" + suffix, "()" + descriptorOf(returnType)), 1, result);
+		code.op(returnOf(returnType), 1, null);
+
+		// otherwise we compute it through the code of the method and record it
+		code.place(missing);
+		code.load(Constants.ALOAD, keyVar, KEY_TYPE);
+		code.load(Constants.ALOAD, 0, locals[0]);
+		for (int pos = 0; pos < parameters.length; pos++)
+			code.load(loadOf(parameters[pos]), pos + 1, locals[pos + 1]);
+
+		code.op2(Constants.INVOKESPECIAL, pool.methodRef(className, bodyName, descriptor), parameters.length + 1, result);
+		code.op2(Constants.INVOKEVIRTUAL, pool.methodRef(KEY, "put",
+			"(" + descriptorOf(returnType) + ")" + descriptorOf(returnType)), 2, result);
+		code.op(returnOf(returnType), 1, null);
+
+		addMethod(method.isFinal() ? Constants.ACC_PUBLIC | Constants.ACC_FINAL : Constants.ACC_PUBLIC,
+			method.getName(), descriptor, code, method, true);
+	}
+
+	/**
+	 * Adds to the class file the static fields holding the shared strings, the
+	 * caches of the memoized methods and the targets of the run-time, if any,
+	 * and the static initialiser that creates them. It must be called after
+	 * the code of all methods and constructors has been generated.
+	 */
+
+	private void addStaticFields() {
+		if (stringConstants.isEmpty() && memoCaches.isEmpty() && targets.isEmpty())
+			return;
+
+		int access = Constants.ACC_PRIVATE | Constants.ACC_STATIC | Constants.ACC_FINAL | Constants.ACC_SYNTHETIC;
+		CodeBuffer code = new CodeBuffer(new VerificationType[0], null, frames);
+
+		for (Map.Entry<String, String> entry: stringConstants.entrySet()) {
+			addField(access, entry.getValue(), "L" + STRING + ";");
+
+			// new runTime.String(value), as for a non-shared string
+			newString(entry.getKey(), code);
+			code.op2(Constants.PUTSTATIC, pool.fieldRef(className, entry.getValue(), "L" + STRING + ";"), 1, null);
+		}
+
+		for (String field: memoCaches.values()) {
+			addField(access, field, "L" + MEMO + ";");
+
+			// new runTime.Memo(), with the default capacity
+			code.newObject(pool.classRef(MEMO), MEMO_TYPE);
+			code.dup();
+			code.invokeConstructor(pool.methodRef(MEMO, Constants.CONSTRUCTOR_NAME, "()V"), 0);
+			code.op2(Constants.PUTSTATIC, pool.fieldRef(className, field, "L" + MEMO + ";"), 1, null);
+		}
+
+		for (Map.Entry<MethodSignature, String> entry: targets.entrySet()) {
+			addField(access, entry.getValue(), "L" + TARGET + ";");
+
+			// runTime.Target.method(class, name, descriptor)
+			MethodSignature method = entry.getKey();
+			code.ldc(pool.string(internalName(method.getDefiningClass()).replace('/', '.')), JAVA_STRING);
+			code.ldc(pool.string(method.getName()), JAVA_STRING);
+			code.ldc(pool.string(descriptorOf(method)), JAVA_STRING);
+			code.op2(Constants.INVOKESTATIC, pool.methodRef(TARGET, "method",
+				"(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)L" + TARGET + ";"), 3, TARGET_TYPE);
+			code.op2(Constants.PUTSTATIC, pool.fieldRef(className, entry.getValue(), "L" + TARGET + ";"), 1, null);
+		}
+
+		code.op(Constants.RETURN, 0, null);
+		addMethod(Constants.ACC_STATIC, Constants.STATIC_INITIALIZER_NAME, "()V", code, null, false);
+	}
+
+	/**
+	 * Writes the Java bytecode for the given block of code and for all blocks
+	 * reachable from it. The blocks are laid out in the same order used by
+	 * {@link AbstractClassGenerator#generateJavaBytecode(Block)}, so that
+	 * no {@code goto} is needed when a block is followed by its only successor
+	 * or by the negative branch of its condition. If the code spawns calls, each
+	 * of its activations has its own frame of spawned calls, entered at the
+	 * beginning of the code and exited before each {@code return}.
+	 * If a loop of the code changes the type of a local variable, the frame at the
+	 * beginning of the loop is only known after its backward jump: the code is
+	 * then written again, until the frames of all blocks are stable.
+	 * If the peephole optimisations are enabled, the blocks without code that
+	 * are only reached through jumps are not written, since those jumps are
+	 * threaded to their destination.
+	 *
+	 * @param entry the code from which the generation starts
+	 * @param locals the types of the local variables at the beginning of the code
+	 * @param receiver the type of the receiver of a constructor, once the constructor
+	 *                 of the superclass has been called. It is {@code null} for methods
+	 * @return the buffer where the Java bytecode has been written
+	 */
+
+	private CodeBuffer generateJavaBytecode(Block entry, VerificationType[] locals, VerificationType receiver) {
+		List<Block> order = new ArrayList<>();
+		layout(entry, order, new HashSet<Block>());
+
+		Map<Block, CodeBuffer.Label> labels = new HashMap<>();
+		for (Block block: order)
+			labels.put(block, new CodeBuffer.Label());
+
+		if (peephole)
+			order = withoutEmptyBlocks(order);
+
+		boolean spawns = spawns(order);
+		int devirtualizedBefore = devirtualizedCalls;
+		Map<PeepholeOptimizer.Rule, Integer> applicationsBefore = new EnumMap<>(applications);
+		CodeBuffer code = null;
+
+		do {
+			if (code != null)
+				for (CodeBuffer.Label label: labels.values())
+					label.reset();
+
+			code = new CodeBuffer(locals, receiver, frames);
+			devirtualizedCalls = devirtualizedBefore;
+			applications.putAll(applicationsBefore);
+
+			// the empty constructor of the Kitten Object class calls that of java.lang.Object,
+			// since each constructor must call a constructor of its superclass
+			if (receiver != null && clazz.getName().equals("Object")) {
+				code.load(Constants.ALOAD, 0, locals[0]);
+				code.invokeConstructor(pool.methodRef("java/lang/Object", Constants.CONSTRUCTOR_NAME, "()V"), 0);
+			}
+
+			// jumps to the beginning of the code do not enter the frame again
+			if (spawns)
+				code.op2(Constants.INVOKESTATIC, pool.methodRef(SPAWN_CLASS, "enter", "()V"), 0, null);
+
+			for (int pos = 0; pos < order.size(); pos++) {
+				Block block = order.get(pos);
+				code.place(labels.get(block));
+
+				for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail()) {
+					Bytecode bytecode = cursor.getHead();
+					// the condition of a branch is written as part of the glue of the predecessor
+					if (!(bytecode instanceof BranchingBytecode) && !(bytecode instanceof SWITCH)) {
+						code.line(bytecode.getLine());
+
+						BytecodeList last = peephole ? rewrite(cursor, code) : null;
+						if (last != null)
+							// a peephole rule has written the Kitten bytecodes up to last
+							cursor = last;
+						else {
+							// the frame of the spawned calls is exited before returning
+							if (spawns && bytecode instanceof RETURN)
+								code.op2(Constants.INVOKESTATIC, pool.methodRef(SPAWN_CLASS, "exit", "()V"), 0, null);
+
+							((NonBranchingBytecode) bytecode).generateJavaBytecode(this, code);
+						}
+					}
+				}
+
+				generateJavaBytecodeFollows(block, pos + 1 < order.size() ? order.get(pos + 1) : null, labels, spawns, code);
+			}
+		}
+		while (!code.isStable());
+
+		return code;
+	}
+
+	/**
+	 * Lays out a block and those reachable from it, in depth-first order.
+	 * The negative branch of a condition comes right after the block,
+	 * unless the profile says that the positive branch is executed more often.
+	 *
+	 * @param block the block
+	 * @param order the blocks laid out so far
+	 * @param done the blocks laid out so far, as a set
+	 */
+
+	private static void layout(Block block, List<Block> order, Set<Block> done) {
+		if (!done.add(block))
+			return;
+
+		order.add(block);
+		List<Block> follows = block.getFollows();
+
+		if (block.getSwitch() == null && follows.size() == 2)
+			if (follows.get(0).isHotterThan(follows.get(1))) {
+				layout(follows.get(0), order, done);
+				layout(follows.get(1), order, done);
+			}
+			else {
+				layout(follows.get(1), order, done);
+				layout(follows.get(0), order, done);
+			}
+		else
+			for (Block follow: follows)
+				layout(follow, order, done);
+	}
+
+	/**
+	 * Determines if some blocks of code spawn calls or wait for them.
+	 *
+	 * @param blocks the blocks
+	 * @return true if and only if some of the {@code blocks} contains a
+	 *         {@code spawn} or a {@code sync} bytecode
+	 */
+
+	private static boolean spawns(List<Block> blocks) {
+		for (Block block: blocks)
+			for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+				if (cursor.getHead() instanceof SPAWN || cursor.getHead() instanceof SYNC)
+					return true;
+
+		return false;
+	}
+
+	/**
+	 * Writes the Java bytecode of the Kitten bytecodes at the beginning of
+	 * a list, if a rule of the {@link PeepholeOptimizer} replaces it with
+	 * cheaper Java bytecode. The list is part of a block, hence no jump
+	 * lands in its middle.
+	 *
+	 * @param cursor the list
+	 * @param code the buffer where the Java bytecode is written
+	 * @return the last element of {@code cursor} whose Java bytecode has been
+	 *         written, or {@code null} if no rule applies
+	 */
+
+	private BytecodeList rewrite(BytecodeList cursor, CodeBuffer code) {
+		Bytecode bytecode = cursor.getHead();
+		BytecodeList next = cursor.getTail();
+		Bytecode following = next != null ? next.getHead() : null;
+
+		if (isIncrement(cursor)) {
+			BytecodeList last = next.getTail().getTail();
+			STORE store = (STORE) last.getHead();
+			code.iinc(store.getVarNum(), increment(next));
+			code.variable(store.getVarNum(), store.getName(), store.getType());
+			applied(PeepholeOptimizer.Rule.INCREMENT);
+
+			return last;
+		}
+		else if (bytecode instanceof STORE && isReload(next, (STORE) bytecode)) {
+			// a dup before the store replaces each load of the stored value
+			BytecodeList last = cursor;
+			do {
+				code.dup();
+				applied(PeepholeOptimizer.Rule.STORE_LOAD);
+				last = last.getTail();
+			}
+			while (isReload(last.getTail(), (STORE) bytecode));
+
+			((STORE) bytecode).generateJavaBytecode(this, code);
+
+			return last;
+		}
+		else if ((bytecode instanceof CONST || bytecode instanceof LOAD || bytecode instanceof DUP) && following instanceof POP) {
+			applied(PeepholeOptimizer.Rule.PUSH_POP);
+
+			return next;
+		}
+		else if (bytecode instanceof CAST && ((CAST) bytecode).getIntoType() instanceof ReferenceType
+				&& ((CAST) bytecode).getFromType().canBeAssignedTo(((CAST) bytecode).getIntoType())) {
+			applied(PeepholeOptimizer.Rule.CHECKCAST);
+
+			return cursor;
+		}
+		else
+			return null;
+	}
+
+	/**
+	 * Determines if a list of Kitten bytecodes begins with the increment of an
+	 * integer variable by a constant, that is, with {@code load n; const c;
+	 * add; store n} or with the same code with {@code sub}.
+	 *
+	 * @param cursor the list, possibly {@code null}
+	 * @return true if and only if that is the case and the increment fits into an {@code iinc}
+	 */
+
+	private static boolean isIncrement(BytecodeList cursor) {
+		if (cursor == null || !(cursor.getHead() instanceof LOAD) || cursor.getTail() == null
+				|| cursor.getTail().getTail() == null || cursor.getTail().getTail().getTail() == null)
+			return false;
+
+		LOAD load = (LOAD) cursor.getHead();
+		Bytecode constant = cursor.getTail().getHead();
+		Bytecode op = cursor.getTail().getTail().getHead();
+		Bytecode store = cursor.getTail().getTail().getTail().getHead();
+
+		// the constant must be pushed by iconst, bipush or sipush
+		if (load.getType() != IntType.INSTANCE || !(constant instanceof CONST) || !(((CONST) constant).getConstant() instanceof Integer)
+				|| (Integer) ((CONST) constant).getConstant() < Short.MIN_VALUE || (Integer) ((CONST) constant).getConstant() > Short.MAX_VALUE
+				|| !(op instanceof ADD || op instanceof SUB) || ((ArithmeticBinOpBytecode) op).getType() != IntType.INSTANCE
+				|| !(store instanceof STORE) || ((STORE) store).getVarNum() != load.getVarNum() || ((STORE) store).getType() != IntType.INSTANCE)
+			return false;
+
+		int increment = increment(cursor.getTail());
+
+		// iinc holds a signed 16 bits increment, in its wide form
+		return increment >= Short.MIN_VALUE && increment <= Short.MAX_VALUE;
+	}
+
+	/**
+	 * Yields the increment of a variable by a constant.
+	 *
+	 * @param cursor the list of Kitten bytecodes that starts with the constant, followed by {@code add} or {@code sub}
+	 * @return the constant, negated for {@code sub}
+	 */
+
+	private static int increment(BytecodeList cursor) {
+		int constant = (Integer) ((CONST) cursor.getHead()).getConstant();
+		return cursor.getTail().getHead() instanceof SUB ? -constant : constant;
+	}
+
+	/**
+	 * Determines if a list of Kitten bytecodes begins with a load of the value
+	 * just stored by a given bytecode, that is not the beginning of an increment.
+	 *
+	 * @param cursor the list, possibly {@code null}
+	 * @param store the bytecode that stores the value
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isReload(BytecodeList cursor, STORE store) {
+		if (cursor == null || !(cursor.getHead() instanceof LOAD) || isIncrement(cursor))
+			return false;
+
+		LOAD load = (LOAD) cursor.getHead();
+		return load.getVarNum() == store.getVarNum() && loadOf(load.getType()) == loadOf(store.getType());
+	}
+
+	/**
+	 * Takes note that a rule of the {@link PeepholeOptimizer} has been applied.
+	 *
+	 * @param rule the rule
+	 */
+
+	private void applied(PeepholeOptimizer.Rule rule) {
+		applications.put(rule, applications.get(rule) + 1);
+	}
+
+	/**
+	 * Yields the blocks of a layout without those that contain no code and
+	 * just jump to their only follower, unless they are reached by falling
+	 * from the block laid out right before them. The other jumps to them
+	 * are threaded to their destination, hence they are not needed.
+	 *
+	 * @param order the blocks, as laid out
+	 * @return the blocks that must be written, in the same order
+	 */
+
+	private static List<Block> withoutEmptyBlocks(List<Block> order) {
+		List<Block> result = new ArrayList<>();
+
+		for (Block block: order)
+			if (result.isEmpty() || thread(block) == block || fallsInto(result.get(result.size() - 1), block))
+				result.add(block);
+
+		return result;
+	}
+
+	/**
+	 * Determines if a block contains no code and just jumps to its only follower.
+	 * Its conditions, if any, are written as part of the glue of its predecessors.
+	 *
+	 * @param block the block
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isEmpty(Block block) {
+		if (block.getSwitch() != null || block.getFollows().size() != 1)
+			return false;
+
+		for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+			if (!(cursor.getHead() instanceof NOP) && !(cursor.getHead() instanceof BranchingBytecode))
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Yields the block where a jump to the given block ends up, following
+	 * the chain of empty blocks that starts there.
+	 *
+	 * @param block the block
+	 * @return the destination of the chain of empty blocks, or {@code block}
+	 *         itself if the chain is a cycle or is too long
+	 */
+
+	private static Block thread(Block block) {
+		Block result = block;
+
+		for (int hops = 0; hops < 16; hops++)
+			if (isEmpty(result))
+				result = result.getFollows().get(0);
+			else
+				return result;
+
+		return block;
+	}
+
+	/**
+	 * Determines if the glue of a block, written by
+	 * {@link #generateJavaBytecodeFollows(Block, Block, Map, boolean, CodeBuffer)},
+	 * falls into the block laid out right after it.
+	 *
+	 * @param block the block
+	 * @param next the block laid out right after {@code block}
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean fallsInto(Block block, Block next) {
+		List<Block> follows = block.getFollows();
+
+		if (block.getSwitch() != null || follows.isEmpty())
+			return false;
+		else if (follows.get(0).getBytecode().getHead() instanceof BranchingBytecode)
+			return follows.get(0) == next && follows.get(1).getBytecode().getHead() instanceof BranchingBytecode
+				|| follows.get(1) == next;
+		else
+			return follows.get(0) == next;
+	}
+
+	/**
+	 * Yields the label where a jump to a block lands. If the peephole optimisations
+	 * are enabled, the jump is threaded through the empty blocks.
+	 *
+	 * @param block the block
+	 * @param labels the label at the beginning of each block
+	 * @return the label
+	 */
+
+	private CodeBuffer.Label label(Block block, Map<Block, CodeBuffer.Label> labels) {
+		Block destination = peephole ? thread(block) : block;
+		if (destination != block)
+			applied(PeepholeOptimizer.Rule.JUMP_THREADING);
+
+		return labels.get(destination);
+	}
+
+	/**
+	 * Writes an unconditional jump to a block. If the peephole optimisations
+	 * are enabled and the block just returns, the {@code return} is written instead.
+	 *
+	 * @param block the block
+	 * @param labels the label at the beginning of each block
+	 * @param spawns true if and only if the code spawns calls, so that the frame
+	 *               of the spawned calls must be exited before returning
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	private void jump(Block block, Map<Block, CodeBuffer.Label> labels, boolean spawns, CodeBuffer code) {
+		Block destination = peephole ? thread(block) : block;
+		Bytecode head = destination.getBytecode().getHead();
+
+		if (peephole && !spawns && head instanceof RETURN && destination.getBytecode().getTail() == null) {
+			code.line(head.getLine());
+			((RETURN) head).generateJavaBytecode(this, code);
+			applied(PeepholeOptimizer.Rule.JUMP_THREADING);
+		}
+		else
+			code.jump(Constants.GOTO, label(block, labels), 0);
+	}
+
+	/**
+	 * Writes the glue that jumps from a block to its followers.
+	 *
+	 * @param block the block
+	 * @param next the block laid out right after {@code block}, if any
+	 * @param labels the label at the beginning of each block
+	 * @param spawns true if and only if the code spawns calls
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	private void generateJavaBytecodeFollows(Block block, Block next, Map<Block, CodeBuffer.Label> labels, boolean spawns, CodeBuffer code) {
+		List<Block> follows = block.getFollows();
+		SWITCH selector = block.getSwitch();
+
+		if (selector != null) {
+			// the last follower is used when no key matches
+			int[] keys = selector.getKeys();
+			CodeBuffer.Label otherwise = label(follows.get(keys.length), labels);
+
+			// a lookupswitch requires its keys to be sorted
+			int[] sorted = keys.clone();
+			Arrays.sort(sorted);
+
+			CodeBuffer.Label[] sortedTargets = new CodeBuffer.Label[sorted.length];
+			for (int pos = 0; pos < keys.length; pos++)
+				sortedTargets[Arrays.binarySearch(sorted, keys[pos])] = label(follows.get(pos), labels);
+
+			// the same choice of SWITCH#generateJavaBytecode
+			long low = sorted[0], high = sorted[sorted.length - 1];
+			long tableCost = 4 + (high - low + 1) + 3 * 3;
+			long lookupCost = 3 + 2 * sorted.length + 3 * sorted.length;
+
+			if (tableCost <= lookupCost) {
+				// the missing keys go to the default target
+				CodeBuffer.Label[] tableTargets = new CodeBuffer.Label[(int) (high - low + 1)];
+				for (int pos = 0; pos < tableTargets.length; pos++) {
+					int index = Arrays.binarySearch(sorted, (int) (low + pos));
+					tableTargets[pos] = index >= 0 ? sortedTargets[index] : otherwise;
+				}
+
+				code.tableswitch((int) low, tableTargets, otherwise);
+			}
+			else
+				code.lookupswitch(sorted, sortedTargets, otherwise);
+		}
+		else if (!follows.isEmpty()) {
+			Bytecode head = follows.get(0).getBytecode().getHead();
+			Bytecode otherHead = follows.size() > 1 ? follows.get(1).getBytecode().getHead() : null;
+			if (head instanceof BranchingBytecode && follows.get(0) == next && otherHead instanceof BranchingBytecode) {
+				// the first follower comes next: we jump to the second if the condition at its beginning holds
+				code.line(otherHead.getLine());
+				((BranchingBytecode) otherHead).generateJavaBytecode(this, label(follows.get(1), labels), code);
+			}
+			else if (head instanceof BranchingBytecode) {
+				// we jump to the first follower if the condition at its beginning holds
+				code.line(head.getLine());
+				((BranchingBytecode) head).generateJavaBytecode(this, label(follows.get(0), labels), code);
+
+				if (follows.get(1) != next)
+					jump(follows.get(1), labels, spawns, code);
+			}
+			else if (follows.get(0) != next)
+				jump(follows.get(0), labels, spawns, code);
+		}
+	}
+
+	/**
+	 * Yields the constant pool of the class file, where the Kitten bytecodes
+	 * add the constants used by their Java bytecode.
+	 *
+	 * @return the constant pool
+	 */
+
+	public ConstantPool getConstantPool() {
+		return pool;
+	}
+
+	/**
+	 * Takes note that a devirtualized call has been generated.
+	 */
+
+	public void countDevirtualizedCall() {
+		devirtualizedCalls++;
+	}
+
+	/**
+	 * Writes a binary arithmetic operation on integers or floats.
+	 *
+	 * @param type the type of the operands
+	 * @param ints the operation code for integers
+	 * @param floats the operation code for floats
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	public static void arithmetic(Type type, int ints, int floats, CodeBuffer code) {
+		if (type == FloatType.INSTANCE)
+			code.op(floats, 2, VerificationType.FLOAT);
+		else
+			code.op(ints, 2, VerificationType.INTEGER);
+	}
+
+	/**
+	 * Writes the Java bytecode that compares the two values on top of the stack
+	 * and jumps to a label if the comparison holds. The comparison is expressed
+	 * through the operation code that compares two integers, such as {@code if_icmplt}.
+	 * Floats are compared through {@code fcmpl} and the corresponding comparison with zero,
+	 * such as {@code iflt}; references through the corresponding {@code if_acmpeq} or {@code if_acmpne}.
+	 *
+	 * @param type the type of the compared values
+	 * @param ints the operation code that compares two integers
+	 * @param yes the label
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	public static void branch(Type type, int ints, CodeBuffer.Label yes, CodeBuffer code) {
+		// the comparisons of the Java bytecode are in the order equal, not equal, less than,
+		// greater than or equal, greater than and less than or equal
+		if (type == FloatType.INSTANCE) {
+			code.op(Constants.FCMPL, 2, VerificationType.INTEGER);
+			code.jump(ints - Constants.IF_ICMPEQ + Constants.IFEQ, yes, 1);
+		}
+		else if (isPrimitive(type))
+			code.jump(ints, yes, 2);
+		else // classes or arrays
+			code.jump(ints - Constants.IF_ICMPEQ + Constants.IF_ACMPEQ, yes, 2);
+	}
+
+	/**
+	 * Writes the Java bytecode for a comparison that leaves a Boolean value on the stack.
+	 * It jumps to some code that pushes 1 if the comparison holds; otherwise, it pushes 0.
+	 *
+	 * @param type the type of the compared values
+	 * @param ints the operation code that compares two integers. See {@link #branch(Type, int, CodeBuffer.Label, CodeBuffer)}
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	public static void comparison(Type type, int ints, CodeBuffer code) {
+		CodeBuffer.Label yes = new CodeBuffer.Label(), after = new CodeBuffer.Label();
+
+		branch(type, ints, yes, code);
+		code.op(Constants.ICONST_0, 0, VerificationType.INTEGER);
+		code.jump(Constants.GOTO, after, 0);
+		code.place(yes);
+		code.op(Constants.ICONST_1, 0, VerificationType.INTEGER);
+		code.place(after);
+	}
+
+	/**
+	 * Writes the Java bytecode that pushes on the stack the shared Kitten string
+	 * with the given lexical value. See {@link AbstractClassGenerator#getStringConstant(String)}.
+	 *
+	 * @param value the lexical value
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	public void getStringConstant(String value, CodeBuffer code) {
+		String name = stringConstants.get(value);
+		if (name == null)
+			// Kitten identifiers never contain $, hence these names cannot clash with Kitten fields
+			stringConstants.put(value, name = "$string" + stringConstants.size());
+
+		code.op2(Constants.GETSTATIC, pool.fieldRef(className, name, "L" + STRING + ";"), 0, STRING_TYPE);
+	}
+
+	/**
+	 * Writes the Java bytecode that pushes on the stack the {@code runTime.Target}
+	 * of the given method. See {@link AbstractClassGenerator#getTarget(MethodSignature)}.
+	 *
+	 * @param method the method
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	public void getTarget(MethodSignature method, CodeBuffer code) {
+		String name = targets.get(method);
+		if (name == null)
+			targets.put(method, name = "$target" + targets.size());
+
+		code.op2(Constants.GETSTATIC, pool.fieldRef(className, name, "L" + TARGET + ";"), 0, TARGET_TYPE);
+	}
+
+	/**
+	 * Writes the Java bytecode that replaces the receiver and the actual parameters
+	 * of a call, on top of the stack, with an array holding them, boxed.
+	 * See {@link CALL#appendFrame(org.apache.bcel.generic.InstructionFactory, org.apache.bcel.generic.InstructionList)}.
+	 *
+	 * @param call the call
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	public void appendFrame(CALL call, CodeBuffer code) {
+		Type[] parameters = types(call.getStaticTarget().getParameters());
+		Type[] types = new Type[parameters.length + 1];
+		types[0] = call.getReceiverType();
+		System.arraycopy(parameters, 0, types, 1, parameters.length);
+
+		// ..., value -> ..., value, array
+		code.iconst(types.length, pool);
+		code.op2(Constants.ANEWARRAY, pool.classRef("java/lang/Object"), 1, OBJECTS);
+
+		for (int pos = types.length - 1; pos >= 0; pos--) {
+			// ..., value, array -> ..., array, array, value
+			code.dupX1();
+			code.swap();
+			box(types[pos], code);
+
+			// ..., array, array, value -> ..., array, array, pos, value -> ..., array
+			code.iconst(pos, pool);
+			code.swap();
+			code.op(Constants.AASTORE, 3, null);
+		}
+	}
+
+	/**
+	 * Writes the Java bytecode that wraps a primitive value into an object.
+	 * Other values are left unchanged.
+	 *
+	 * @param type the type of the value
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	public void box(Type type, CodeBuffer code) {
+		String wrapper;
+		if (type == IntType.INSTANCE)
+			wrapper = "java/lang/Integer";
+		else if (type == FloatType.INSTANCE)
+			wrapper = "java/lang/Float";
+		else if (type == BooleanType.INSTANCE)
+			wrapper = "java/lang/Boolean";
+		else
+			return;
+
+		code.op2(Constants.INVOKESTATIC, pool.methodRef(wrapper, "valueOf", "(" + descriptorOf(type) + ")L" + wrapper + ";"),
+			1, VerificationType.object(wrapper));
+	}
+
+	/**
+	 * Writes a call to a method or constructor.
+	 *
+	 * @param opcode the kind of call
+	 * @param target the method or constructor
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	public void invoke(int opcode, CodeSignature target, CodeBuffer code) {
+		code.op2(opcode, pool.methodRef(internalName(target.getDefiningClass()), target.getName(), descriptorOf(target)),
+			target.getParameters().getSize() + 1, VerificationType.of(target.getReturnType()));
+	}
+
+	/**
+	 * Writes the Java bytecode that creates a Kitten string with the given lexical value.
+	 *
+	 * @param value the lexical value
+	 * @param code the buffer where the Java bytecode is written
+	 */
+
+	public void newString(String value, CodeBuffer code) {
+		code.newObject(pool.classRef(STRING), STRING_TYPE);
+		code.dup();
+		code.ldc(pool.string(value), JAVA_STRING);
+		code.invokeConstructor(pool.methodRef(STRING, Constants.CONSTRUCTOR_NAME, "(Ljava/lang/String;)V"), 1);
+	}
+
+	/**
+	 * Adds a field to the constant pool of the class file.
+	 *
+	 * @param field the field
+	 * @return the index of the field in the constant pool
+	 */
+
+	public int fieldRef(FieldSignature field) {
+		return pool.fieldRef(internalName(field.getDefiningClass()), field.getName(), descriptorOf(field.getType()));
+	}
+
+	/**
+	 * Yields the descriptor of a method or constructor.
+	 *
+	 * @param sig the method or constructor
+	 * @return the descriptor
+	 */
+
+	public String descriptorOf(CodeSignature sig) {
+		StringBuilder descriptor = new StringBuilder("(");
+		for (TypeList cursor = sig.getParameters(); cursor != TypeList.EMPTY; cursor = cursor.getTail())
+			descriptor.append(descriptorOf(cursor.getHead()));
+
+		return descriptor.append(')').append(descriptorOf(sig instanceof ConstructorSignature ? VoidType.INSTANCE : sig.getReturnType())).toString();
+	}
+
+	/**
+	 * Yields the descriptor of a type, as used in the class files.
+	 *
+	 * @param type the type
+	 * @return the descriptor
+	 */
+
+	public String descriptorOf(Type type) {
+		String result = descriptors.get(type);
+		if (result == null)
+			descriptors.put(type, result = descriptor(type));
+
+		return result;
+	}
+
+	/**
+	 * Yields the descriptor of a type, as used in the class files, without caching it.
+	 *
+	 * @param type the type
+	 * @return the descriptor
+	 */
+
+	static String descriptor(Type type) {
+		if (type == IntType.INSTANCE)
+			return "I";
+		else if (type == FloatType.INSTANCE)
+			return "F";
+		else if (type == BooleanType.INSTANCE)
+			return "Z";
+		else if (type == VoidType.INSTANCE)
+			return "V";
+		else if (type instanceof ArrayType)
+			return "[" + descriptor(((ArrayType) type).getElementsType());
+		else if (type instanceof ClassType)
+			return "L" + internalName((ClassType) type) + ";";
+		else
+			return "Ljava/lang/Object;";
+	}
+
+	/**
+	 * Yields the name of a reference type, as used in the instructions that
+	 * refer to a class: the internal name of a class or the descriptor of an array type.
+	 *
+	 * @param type the type
+	 * @return the name
+	 */
+
+	public String referenceName(Type type) {
+		return type instanceof ClassType ? internalName((ClassType) type) : descriptorOf(type);
+	}
+
+	/**
+	 * Yields the internal name of the Java class that implements a Kitten class.
+	 * Intrinsic classes are implemented by classes of the run-time.
+	 *
+	 * @param clazz the Kitten class
+	 * @return the internal name of the Java class
+	 */
+
+	public static String internalName(ClassType clazz) {
+		String implementation = Intrinsics.getImplementation(clazz.getName());
+		return implementation != null ? implementation.replace('.', '/') : clazz.getName();
+	}
+
+	private static Type[] types(TypeList types) {
+		Type[] result = new Type[types.getSize()];
+		int pos = 0;
+		for (TypeList cursor = types; cursor != TypeList.EMPTY; cursor = cursor.getTail())
+			result[pos++] = cursor.getHead();
+
+		return result;
+	}
+
+	/**
+	 * Determines if values of a given type are primitive in the Java bytecode.
+	 *
+	 * @param type the type
+	 * @return true if and only if {@code type} is primitive. This is false
+	 *         for the type of {@code nil}, that is a reference
+	 */
+
+	public static boolean isPrimitive(Type type) {
+		return type instanceof PrimitiveType && type != NilType.INSTANCE;
+	}
+
+	/**
+	 * Yields the operation code that loads a local variable of a given type.
+	 *
+	 * @param type the type
+	 * @return the operation code
+	 */
+
+	public static int loadOf(Type type) {
+		return type == FloatType.INSTANCE ? Constants.FLOAD : isPrimitive(type) ? Constants.ILOAD : Constants.ALOAD;
+	}
+
+	/**
+	 * Yields the operation code that returns a value of a given type.
+	 *
+	 * @param type the type
+	 * @return the operation code
+	 */
+
+	public static int returnOf(Type type) {
+		if (type == VoidType.INSTANCE)
+			return Constants.RETURN;
+		else if (type == FloatType.INSTANCE)
+			return Constants.FRETURN;
+		else if (isPrimitive(type))
+			return Constants.IRETURN;
+		else
+			return Constants.ARETURN;
+	}
+
+	/**
+	 * Yields the operation code that accesses an array with elements of a given type.
+	 *
+	 * @param type the type of the elements
+	 * @param ints the operation code for arrays of integers
+	 * @return the operation code
+	 */
+
+	public static int arrayAccess(Type type, int ints) {
+		// the loads and stores of the Java bytecode are in the order int, long, float, double, reference, byte
+		if (type == IntType.INSTANCE)
+			return ints;
+		else if (type == FloatType.INSTANCE)
+			return ints + 2;
+		else if (type == BooleanType.INSTANCE)
+			return ints + 5;
+		else
+			return ints + 4;
+	}
+}
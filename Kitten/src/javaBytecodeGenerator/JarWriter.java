@@ -0,0 +1,296 @@
+package javaBytecodeGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+/**
+ * A writer of a runnable jar file, holding the class files of a compiled
+ * program together with the classes of the run-time they need. The class files
+ * are streamed into the jar as soon as they are generated, after the manifest
+ * that names the main class of the program. Each class file is scanned for
+ * the names of the classes of the run-time it refers to, and those classes are
+ * copied from the class path of the compiler when the jar is closed, together
+ * with the further classes of the run-time they refer to, so that the jar
+ * runs with no other class path. The entries can be stored uncompressed,
+ * that makes the jar larger but its classes faster to load.
+ *
+ * @author Federico Bianchi
+ */
+
+public class JarWriter implements Closeable {
+
+	/**
+	 * The prefix of the internal names of the classes of the run-time.
+	 */
+
+	private final static String RUNTIME = "runTime/";
+
+	/**
+	 * The name of the jar file.
+	 */
+
+	private final String fileName;
+
+	/**
+	 * The stream where the entries of the jar are written.
+	 */
+
+	private final JarOutputStream out;
+
+	/**
+	 * True if and only if the entries are stored uncompressed.
+	 */
+
+	private final boolean stored;
+
+	/**
+	 * The internal names of the classes of the run-time referenced
+	 * by the classes written so far, or already copied into the jar.
+	 */
+
+	private final Set<String> runTimeClasses = new HashSet<>();
+
+	/**
+	 * The classes of the run-time referenced so far, that have not been copied into the jar yet.
+	 */
+
+	private final Deque<String> pending = new ArrayDeque<>();
+
+	/**
+	 * Creates a jar file and writes its manifest.
+	 *
+	 * @param fileName the name of the jar file
+	 * @param mainClass the name of the class whose {@code main} method starts the program.
+	 *                  If this is {@code null}, the jar is not runnable
+	 * @param stored true if and only if the entries must be stored uncompressed
+	 * @throws IOException if the file cannot be written
+	 */
+
+	public JarWriter(String fileName, String mainClass, boolean stored) throws IOException {
+		this.fileName = fileName;
+		this.stored = stored;
+		this.out = new JarOutputStream(new FileOutputStream(fileName));
+
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		if (mainClass != null)
+			manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, mainClass);
+
+		manifest.getMainAttributes().put(new Attributes.Name("Created-By"), "Kitten");
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		manifest.write(bytes);
+
+		// the manifest must come first, as expected by JarInputStream
+		write(JarFile.MANIFEST_NAME, bytes.toByteArray());
+	}
+
+	/**
+	 * Yields the name of the jar file.
+	 *
+	 * @return the name of the jar file
+	 */
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	/**
+	 * Writes a class file into the jar.
+	 *
+	 * @param className the name of the class
+	 * @param bytes the bytes of the class file
+	 * @throws IOException if the jar cannot be written
+	 */
+
+	public void add(String className, byte[] bytes) throws IOException {
+		write(className.replace('.', '/') + ".class", bytes);
+		scan(bytes);
+	}
+
+	/**
+	 * Copies into the jar the classes of the run-time referenced by the classes
+	 * written so far, and closes the jar.
+	 *
+	 * @throws IOException if some class of the run-time cannot be found or the jar cannot be written
+	 */
+
+	@Override
+	public void close() throws IOException {
+		try {
+			while (!pending.isEmpty()) {
+				String name = pending.poll();
+				byte[] bytes = read(name + ".class");
+				write(name + ".class", bytes);
+				scan(bytes);
+			}
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Runs the program in the jar, so that the Java virtual machine records
+	 * the classes that it loads into an application class-data sharing archive.
+	 * Later runs with {@code -XX:SharedArchiveFile=} map the classes from
+	 * the archive rather than loading and verifying them again. The program
+	 * reads and writes through the standard streams of the compiler.
+	 *
+	 * @param jarFile the name of the jar file
+	 * @param archiveFile the name of the archive
+	 * @return true if and only if the archive has been created
+	 * @throws IOException if the Java virtual machine cannot be started
+	 * @throws InterruptedException if the compiler is interrupted while waiting for the training run
+	 */
+
+	public static boolean train(String jarFile, String archiveFile) throws IOException, InterruptedException {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		Process process = new ProcessBuilder(java, "-XX:ArchiveClassesAtExit=" + archiveFile, "-jar", jarFile)
+			.inheritIO().start();
+
+		return process.waitFor() == 0 && new File(archiveFile).exists();
+	}
+
+	/**
+	 * Writes an entry into the jar.
+	 *
+	 * @param name the name of the entry
+	 * @param bytes the content of the entry
+	 * @throws IOException if the jar cannot be written
+	 */
+
+	private void write(String name, byte[] bytes) throws IOException {
+		JarEntry entry = new JarEntry(name);
+
+		if (stored) {
+			// stored entries must declare their size and checksum before their content
+			CRC32 crc = new CRC32();
+			crc.update(bytes);
+			entry.setMethod(ZipEntry.STORED);
+			entry.setSize(bytes.length);
+			entry.setCompressedSize(bytes.length);
+			entry.setCrc(crc.getValue());
+		}
+
+		out.putNextEntry(entry);
+		out.write(bytes);
+		out.closeEntry();
+	}
+
+	/**
+	 * Reads a class file of the run-time from the class path of the compiler.
+	 *
+	 * @param name the name of the class file
+	 * @return the bytes of the class file
+	 * @throws IOException if the class file cannot be found or read
+	 */
+
+	private static byte[] read(String name) throws IOException {
+		try (InputStream in = JarWriter.class.getClassLoader().getResourceAsStream(name)) {
+			if (in == null)
+				throw new IOException("Cannot find the run-time class " + name);
+
+			ByteArrayOutputStream result = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			for (int read; (read = in.read(buffer)) > 0; )
+				result.write(buffer, 0, read);
+
+			return result.toByteArray();
+		}
+	}
+
+	/**
+	 * Scans the constant pool of a class file for the names of the classes of the run-time.
+	 * They are found in the strings of the pool, since they occur in class references
+	 * as well as in the descriptors of fields and methods.
+	 *
+	 * @param bytes the bytes of the class file
+	 */
+
+	private void scan(byte[] bytes) {
+		int count = u2(bytes, 8), pos = 10;
+
+		for (int index = 1; index < count; index++) {
+			int tag = bytes[pos++];
+
+			switch (tag) {
+			case 1: // Utf8
+				int length = u2(bytes, pos);
+				pos += 2;
+				scan(bytes, pos, pos + length);
+				pos += length;
+				break;
+			case 5: case 6: // Long and Double take two entries
+				pos += 8;
+				index++;
+				break;
+			case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+				pos += 4;
+				break;
+			case 15: // MethodHandle
+				pos += 3;
+				break;
+			default: // Class, String, MethodType, Module and Package
+				pos += 2;
+			}
+		}
+	}
+
+	/**
+	 * Finds the names of the classes of the run-time in a string of the constant pool.
+	 * Such names contain only ASCII characters, hence the string can be scanned
+	 * as bytes, with no decoding.
+	 *
+	 * @param bytes the bytes of the class file
+	 * @param start the position where the string starts
+	 * @param end the position where the string ends
+	 */
+
+	private void scan(byte[] bytes, int start, int end) {
+		for (int pos = start; pos + RUNTIME.length() <= end; pos++)
+			if (matches(bytes, pos)) {
+				int last = pos + RUNTIME.length();
+				while (last < end && isNamePart(bytes[last]))
+					last++;
+
+				String name = new String(bytes, pos, last - pos, StandardCharsets.US_ASCII);
+				if (runTimeClasses.add(name))
+					pending.add(name);
+
+				pos = last;
+			}
+	}
+
+	private static boolean matches(byte[] bytes, int pos) {
+		for (int i = 0; i < RUNTIME.length(); i++)
+			if (bytes[pos + i] != RUNTIME.charAt(i))
+				return false;
+
+		return true;
+	}
+
+	private static boolean isNamePart(byte b) {
+		return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_' || b == '$' || b == '/';
+	}
+
+	private static int u2(byte[] bytes, int pos) {
+		return ((bytes[pos] & 0xff) << 8) | (bytes[pos + 1] & 0xff);
+	}
+}
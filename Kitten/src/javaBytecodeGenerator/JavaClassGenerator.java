@@ -35,7 +35,8 @@ public class JavaClassGenerator extends AbstractClassGenerator {
 			// the superclass of the Kitten Object class is set to be the Java java.lang.Object class
 			clazz.getSuperclass() != null ? clazz.getSuperclass().getName() : "java.lang.Object",
 			clazz.getName() + ".kit", // source file
-			Constants.ACC_PUBLIC, // Java attributes: public!
+			// Java attributes: public! Classes without subclasses are also final
+			clazz.isFinal() ? Constants.ACC_PUBLIC | Constants.ACC_FINAL : Constants.ACC_PUBLIC,
 			noInterfaces, // no interfaces
 			new ConstantPoolGen()); // empty constant pool, at the beginning
 
@@ -54,6 +55,9 @@ public class JavaClassGenerator extends AbstractClassGenerator {
 			for (MethodSignature method: s)
 				if (sigs == null || sigs.contains(method))
 					method.createMethod(this);
+
+		// we add the shared strings and the caches used by the code above
+		addStaticFields();
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+package javaBytecodeGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import types.Type;
+
+/**
+ * The ranges of the Java bytecode of a method or constructor where its local
+ * variables hold a variable of the source code, from which its
+ * {@code LocalVariableTable} is built. The receiver and the parameters hold
+ * their variable from the beginning of the code. A declared variable holds its
+ * local variable from the instruction that follows a store of its value. Each
+ * range lasts until a store of another value into the same local variable,
+ * since the allocation of the local variables lets distinct variables share
+ * a local variable, or until the end of the code. The stores are considered
+ * in the order of their position in the code, hence the ranges approximate
+ * the scope of the variables, that follows the flow of control.
+ *
+ * @author Federico Bianchi
+ */
+
+final class LocalVariableRanges {
+
+	/**
+	 * The receiver and the parameters, that hold their variable from the beginning of the code.
+	 */
+
+	private final List<Range> parameters = new ArrayList<>();
+
+	/**
+	 * The stores into the local variables, in increasing order of position.
+	 * Each starts a range that has not been closed yet.
+	 */
+
+	private final List<Range> stores = new ArrayList<>();
+
+	/**
+	 * Records that a local variable holds the receiver or a parameter from the beginning of the code.
+	 *
+	 * @param local the index of the local variable
+	 * @param name the name of the receiver or parameter
+	 * @param type the type of the receiver or parameter
+	 */
+
+	void parameter(int local, String name, Type type) {
+		parameters.add(new Range(local, name, type, 0));
+	}
+
+	/**
+	 * Records a store into a local variable. Stores must be recorded in
+	 * increasing order of position.
+	 *
+	 * @param position the position of the instruction that follows the store
+	 * @param local the index of the local variable
+	 * @param name the name of the variable whose value is stored, or {@code null}
+	 *             if the value does not belong to a variable of the source code
+	 * @param type the type of the variable. It is only relevant if {@code name} is not {@code null}
+	 */
+
+	void store(int position, int local, String name, Type type) {
+		stores.add(new Range(local, name, type, position));
+	}
+
+	/**
+	 * Yields the ranges where the local variables hold a variable of the source code.
+	 *
+	 * @param size the size of the code
+	 * @return the ranges, none of which is empty
+	 */
+
+	List<Range> getRanges(int size) {
+		List<Range> result = new ArrayList<>();
+		Map<Integer, Range> open = new TreeMap<>();
+
+		for (Range range: parameters)
+			open.put(range.local, range);
+
+		for (Range store: stores) {
+			Range current = open.get(store.local);
+			// a further assignment to the same variable does not start a new range
+			if (current != null && current.holds(store))
+				continue;
+
+			if (current != null)
+				current.close(store.start, result);
+
+			if (store.name != null)
+				open.put(store.local, store);
+			else
+				open.remove(store.local);
+		}
+
+		for (Range range: open.values())
+			range.close(size, result);
+
+		return result;
+	}
+
+	/**
+	 * A range of the code where a local variable holds a variable of the source code.
+	 */
+
+	static final class Range {
+
+		/**
+		 * The index of the local variable.
+		 */
+
+		private final int local;
+
+		/**
+		 * The name of the variable, or {@code null} for a store of a value
+		 * that does not belong to a variable of the source code.
+		 */
+
+		private final String name;
+
+		/**
+		 * The type of the variable.
+		 */
+
+		private final Type type;
+
+		/**
+		 * The position where the range begins.
+		 */
+
+		private final int start;
+
+		/**
+		 * The position where the range ends, excluded.
+		 */
+
+		private int end;
+
+		private Range(int local, String name, Type type, int start) {
+			this.local = local;
+			this.name = name;
+			this.type = type;
+			this.start = start;
+		}
+
+		/**
+		 * Determines if a store puts into the local variable of this range
+		 * another value of the same variable.
+		 *
+		 * @param store the store
+		 * @return true if and only if that is the case
+		 */
+
+		private boolean holds(Range store) {
+			return store.name != null && store.name.equals(name) && store.type.equals(type);
+		}
+
+		/**
+		 * Ends this range at the given position and adds it to a list of ranges, if it is not empty.
+		 *
+		 * @param end the position where the range ends, excluded
+		 * @param ranges the list
+		 */
+
+		private void close(int end, List<Range> ranges) {
+			this.end = end;
+			if (end > start)
+				ranges.add(this);
+		}
+
+		/**
+		 * Yields the index of the local variable.
+		 *
+		 * @return the index
+		 */
+
+		int getLocal() {
+			return local;
+		}
+
+		/**
+		 * Yields the name of the variable.
+		 *
+		 * @return the name
+		 */
+
+		String getName() {
+			return name;
+		}
+
+		/**
+		 * Yields the type of the variable.
+		 *
+		 * @return the type
+		 */
+
+		Type getType() {
+			return type;
+		}
+
+		/**
+		 * Yields the position where the range begins.
+		 *
+		 * @return the position
+		 */
+
+		int getStart() {
+			return start;
+		}
+
+		/**
+		 * Yields the position where the range ends, excluded.
+		 *
+		 * @return the position
+		 */
+
+		int getEnd() {
+			return end;
+		}
+	}
+}
@@ -1,51 +1,149 @@
 package javaBytecodeGenerator;
 
+import java.io.IOException;
+
 import errorMsg.ErrorMsg;
 import types.ClassType;
+import translation.Options;
 import translation.Program;
+import translation.Purity;
 
 public class Main {
 	public static void main(String[] args) {
-		if (args.length == 0) {
+		Options options;
+		try {
+			options = Options.parse(args);
+		}
+		catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+			return;
+		}
+
+		if (options.getFileName() == null) {
 			System.out.println("You must specify a Kitten class name to compile");
 			return;
 		}
 
 		long totalTime = System.currentTimeMillis();
-
-		// we build the class type for the file name passed as a parameter.
-		// This triggers type-checking of that class and of all classes referenced from it
 		long time = System.currentTimeMillis();
-		ClassType clazz = ClassType.mkFromFileName(args[0]);
-		ErrorMsg errorMsg = clazz.getErrorMsg();
-		System.out.println("Parsing and type-checking completed     \t[" + (System.currentTimeMillis() - time) + "ms]");
+		Program program = null;
+
+		if (options.getFileName().endsWith(".kbc")) {
+			// the program has been already type-checked, translated and checked for purity
+			try {
+				program = Program.load(options.getFileName());
+				System.out.println("Loading of Kitten bytecode completed     \t[" + (System.currentTimeMillis() - time) + "ms]");
+			}
+			catch (IOException e) {
+				System.out.println("Could not load the Kitten bytecode: " + e.getMessage());
+			}
+		}
+		else {
+			// we build the class type for the file name passed as a parameter.
+			// This triggers type-checking of that class and of all classes referenced from it
+			ClassType clazz = ClassType.mkFromFileName(options.getFileName());
+			ErrorMsg errorMsg = clazz.getErrorMsg();
+			System.out.println("Parsing and type-checking completed     \t[" + (System.currentTimeMillis() - time) + "ms]");
+
+			// if this class did not parse and type-check correctly,
+			// we cannot translate the program into intermediate Kitten code
+			if (errorMsg != null && !errorMsg.anyErrors()) {
+				time = System.currentTimeMillis();
+
+				// we translate this class into Kitten bytecode
+				program = clazz.translate();
+
+				System.out.println("Translation into Kitten bytecode completed \t[" + (System.currentTimeMillis() - time) + "ms]");
 
-		// if this class did not parse and type-check correctly,
-		// we cannot translate the program into intermediate Kitten code
-		if (errorMsg != null && !errorMsg.anyErrors()) {
+				// the purity of the memoized methods can only be checked on their Kitten code
+				if (!new Purity(program).check())
+					program = null;
+				else if (options.saveKittenBytecode())
+					try {
+						program.save(clazz + ".kbc");
+					}
+					catch (IOException e) {
+						System.out.println("Could not save the Kitten bytecode for class " + clazz);
+					}
+			}
+		}
+
+		if (program != null) {
 			time = System.currentTimeMillis();
-			
-			// we translate this class into Kitten bytecode
-			Program program = clazz.translate();
+			program.optimise();
 
-			System.out.println("Translation into Kitten bytecode completed \t[" + (System.currentTimeMillis() - time) + "ms]");
+			System.out.println("Kitten bytecode optimisation completed \t[" + (System.currentTimeMillis() - time) + "ms]");
 
 			time = System.currentTimeMillis();
 			program.dumpCodeDot();
 
 			System.out.println("Kitten bytecode dumping in dot format completed\t[" + (System.currentTimeMillis() - time) + "ms]");
 
-			// we translate, into Java bytecode, the Kitten code of every class member which
-		    // is reachable from the class we translated. This also generates the class files
-		    program.generateJavaBytecode();
+			if (options.getJarFile() != null)
+				generateJar(program, options, time);
+			else {
+				// we translate, into Java bytecode, the Kitten code of every class member which
+				// is reachable from the class we translated. This also generates the class files
+				program.generateJavaBytecode();
+
+				System.out.println("Java bytecode generation completed       \t[" + (System.currentTimeMillis() - time) + "ms]");
 
-		    System.out.println("Java bytecode generation completed       \t[" + (System.currentTimeMillis() - time) + "ms]");
+				program.generateJavaBytecodeForTests();
 
-		    program.generateJavaBytecodeForTests();
-		    
-		    System.out.println("Java bytecode for tests generation completed       \t[" + (System.currentTimeMillis() - time) + "ms]");
+				System.out.println("Java bytecode for tests generation completed       \t[" + (System.currentTimeMillis() - time) + "ms]");
+			}
 		}
 
 		System.out.println("Total compilation time was " + (System.currentTimeMillis() - totalTime) + "ms");
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Generates the Java bytecode of a program into a runnable jar, together with
+	 * the classes of the run-time that it needs, and builds its class-data sharing
+	 * archive, if required.
+	 *
+	 * @param program the program
+	 * @param options the options of the compiler
+	 * @param time the time when the generation started
+	 */
+
+	private static void generateJar(Program program, Options options, long time) {
+		String jarFile = options.getJarFile();
+		// classes without a main method only have tests
+		String mainClass = program.getStart() != null ? program.getStart().getDefiningClass().getName() : null;
+
+		try (JarWriter jar = new JarWriter(jarFile, mainClass, options.storeJarUncompressed())) {
+			program.generateJavaBytecode(jar);
+
+			System.out.println("Java bytecode generation completed       \t[" + (System.currentTimeMillis() - time) + "ms]");
+
+			program.generateJavaBytecodeForTests(jar);
+
+			System.out.println("Java bytecode for tests generation completed       \t[" + (System.currentTimeMillis() - time) + "ms]");
+		}
+		catch (IOException e) {
+			System.out.println("Could not write the jar file " + jarFile + ": " + e.getMessage());
+			return;
+		}
+
+		System.out.println("Jar file " + jarFile + " written       \t[" + (System.currentTimeMillis() - time) + "ms]");
+
+		if (options.buildCDSArchive() && mainClass == null)
+			System.out.println("No class-data sharing archive for a program without main method");
+		else if (options.buildCDSArchive()) {
+			// the archive is named after the jar
+			String archiveFile = (jarFile.endsWith(".jar") ? jarFile.substring(0, jarFile.length() - 4) : jarFile) + ".jsa";
+
+			try {
+				if (JarWriter.train(jarFile, archiveFile))
+					System.out.println("Class-data sharing archive " + archiveFile + " written: run with java -XX:SharedArchiveFile="
+						+ archiveFile + " -jar " + jarFile);
+				else
+					System.out.println("Could not build the class-data sharing archive " + archiveFile);
+			}
+			catch (IOException | InterruptedException e) {
+				System.out.println("Could not run the program to build the class-data sharing archive: " + e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,543 @@
+package javaBytecodeGenerator;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.apache.bcel.generic.ACONST_NULL;
+import org.apache.bcel.generic.BranchInstruction;
+import org.apache.bcel.generic.CHECKCAST;
+import org.apache.bcel.generic.ConstantPoolGen;
+import org.apache.bcel.generic.ConstantPushInstruction;
+import org.apache.bcel.generic.DUP;
+import org.apache.bcel.generic.FieldInstruction;
+import org.apache.bcel.generic.GotoInstruction;
+import org.apache.bcel.generic.IADD;
+import org.apache.bcel.generic.IINC;
+import org.apache.bcel.generic.ILOAD;
+import org.apache.bcel.generic.ISTORE;
+import org.apache.bcel.generic.ISUB;
+import org.apache.bcel.generic.IfInstruction;
+import org.apache.bcel.generic.Instruction;
+import org.apache.bcel.generic.InstructionConstants;
+import org.apache.bcel.generic.InstructionHandle;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.InvokeInstruction;
+import org.apache.bcel.generic.LDC;
+import org.apache.bcel.generic.LoadInstruction;
+import org.apache.bcel.generic.NEW;
+import org.apache.bcel.generic.ObjectType;
+import org.apache.bcel.generic.POP;
+import org.apache.bcel.generic.ReturnInstruction;
+import org.apache.bcel.generic.Select;
+import org.apache.bcel.generic.StoreInstruction;
+import org.apache.bcel.generic.TargetLostException;
+
+import types.ClassType;
+
+/**
+ * A peephole optimiser for the Java bytecode generated for the methods
+ * and constructors of a class. It scans the instructions looking for
+ * short sequences that can be replaced with cheaper ones, until no more
+ * replacement is possible. A sequence is replaced only if no jump
+ * lands in its middle.
+ *
+ * @author Federico Bianchi
+ */
+
+public class PeepholeOptimizer {
+
+	/**
+	 * The rewriting rules of the optimiser.
+	 */
+
+	public enum Rule {
+
+		/**
+		 * {@code iload n; iconst c; iadd; istore n} becomes {@code iinc n c}.
+		 */
+
+		INCREMENT("increments"),
+
+		/**
+		 * {@code store n; load n} becomes {@code dup; store n}.
+		 */
+
+		STORE_LOAD("store/load pairs"),
+
+		/**
+		 * A jump to a {@code goto} jumps to the target of the latter;
+		 * a {@code goto} to a {@code return} becomes a {@code return}.
+		 */
+
+		JUMP_THREADING("threaded jumps"),
+
+		/**
+		 * {@code if L; goto M; L:} becomes {@code if-not M; L:}.
+		 */
+
+		BRANCH_INVERSION("inverted branches"),
+
+		/**
+		 * A {@code checkcast} of a value already known to have the given type is removed.
+		 */
+
+		CHECKCAST("redundant casts"),
+
+		/**
+		 * A {@code dup}, or the load of a constant or variable, followed by a {@code pop} is removed.
+		 */
+
+		PUSH_POP("push/pop pairs");
+
+		/**
+		 * The description of the rule, used in the statistics.
+		 */
+
+		private final String description;
+
+		private Rule(String description) {
+			this.description = description;
+		}
+
+		@Override
+		public String toString() {
+			return description;
+		}
+	}
+
+	/**
+	 * The constant pool of the class whose code gets optimised.
+	 */
+
+	private final ConstantPoolGen cpg;
+
+	/**
+	 * The number of times each rule has been applied so far.
+	 */
+
+	private final Map<Rule, Integer> applications = new EnumMap<>(Rule.class);
+
+	/**
+	 * Builds a peephole optimiser for the code of a class.
+	 *
+	 * @param cpg the constant pool of the class
+	 */
+
+	public PeepholeOptimizer(ConstantPoolGen cpg) {
+		this.cpg = cpg;
+
+		for (Rule rule: Rule.values())
+			applications.put(rule, 0);
+	}
+
+	/**
+	 * Yields the number of times a rule has been applied so far.
+	 *
+	 * @param rule the rule
+	 * @return the number of applications of {@code rule}
+	 */
+
+	public int getApplications(Rule rule) {
+		return applications.get(rule);
+	}
+
+	/**
+	 * Optimises a piece of Java bytecode, up to a fixpoint.
+	 *
+	 * @param il the Java bytecode, that gets modified
+	 * @return the same Java bytecode, optimised
+	 */
+
+	public InstructionList optimise(InstructionList il) {
+		boolean changed;
+
+		do {
+			changed = false;
+
+			// the rules are tried in order, since some of them prevent the others
+			// (for instance, store/load pairs would hide increments)
+			for (Rule rule: Rule.values()) {
+				for (InstructionHandle handle = il.getStart(); handle != null; handle = handle.getNext())
+					if (apply(rule, il, handle)) {
+						changed = true;
+						// the handle might have been deleted
+						break;
+					}
+
+				if (changed)
+					break;
+			}
+		}
+		while (changed);
+
+		il.setPositions();
+
+		return il;
+	}
+
+	/**
+	 * Applies a rule at the given instruction, if possible.
+	 *
+	 * @param rule the rule
+	 * @param il the code
+	 * @param handle the instruction
+	 * @return true if and only if the rule has been applied
+	 */
+
+	private boolean apply(Rule rule, InstructionList il, InstructionHandle handle) {
+		switch (rule) {
+		case INCREMENT: return increment(il, handle);
+		case STORE_LOAD: return storeLoad(il, handle);
+		case JUMP_THREADING: return threadJump(il, handle);
+		case BRANCH_INVERSION: return invertBranch(il, handle);
+		case CHECKCAST: return removeCheckcast(il, handle);
+		default: return removePushPop(il, handle);
+		}
+	}
+
+	/**
+	 * Applies {@link Rule#INCREMENT} at the given instruction, if possible.
+	 *
+	 * @param il the code
+	 * @param handle the instruction
+	 * @return true if and only if the rule has been applied
+	 */
+
+	private boolean increment(InstructionList il, InstructionHandle handle) {
+		if (!(handle.getInstruction() instanceof ILOAD))
+			return false;
+
+		InstructionHandle constant = handle.getNext(), op = next(constant), store = next(op);
+		if (store == null || isTargeted(constant) || isTargeted(op) || isTargeted(store)
+				|| !(constant.getInstruction() instanceof ConstantPushInstruction)
+				|| !(op.getInstruction() instanceof IADD || op.getInstruction() instanceof ISUB)
+				|| !(store.getInstruction() instanceof ISTORE))
+			return false;
+
+		int local = ((ILOAD) handle.getInstruction()).getIndex();
+		if (((ISTORE) store.getInstruction()).getIndex() != local)
+			return false;
+
+		int increment = ((ConstantPushInstruction) constant.getInstruction()).getValue().intValue();
+		if (op.getInstruction() instanceof ISUB)
+			increment = -increment;
+
+		// iinc holds a signed 16 bits increment, in its wide form
+		if (increment < Short.MIN_VALUE || increment > Short.MAX_VALUE)
+			return false;
+
+		handle.setInstruction(new IINC(local, increment));
+		moveVariable(store, handle);
+		delete(il, constant, store);
+
+		return applied(Rule.INCREMENT);
+	}
+
+	/**
+	 * Applies {@link Rule#STORE_LOAD} at the given instruction, if possible.
+	 *
+	 * @param il the code
+	 * @param handle the instruction
+	 * @return true if and only if the rule has been applied
+	 */
+
+	private boolean storeLoad(InstructionList il, InstructionHandle handle) {
+		if (!(handle.getInstruction() instanceof StoreInstruction))
+			return false;
+
+		InstructionHandle load = handle.getNext();
+		if (load == null || isTargeted(load) || !(load.getInstruction() instanceof LoadInstruction))
+			return false;
+
+		StoreInstruction store = (StoreInstruction) handle.getInstruction();
+		LoadInstruction loaded = (LoadInstruction) load.getInstruction();
+
+		// Kitten values have size 1, hence dup is enough
+		if (store.getIndex() != loaded.getIndex() || store.getType(cpg).getSize() != 1
+				|| !store.getType(cpg).equals(loaded.getType(cpg)))
+			return false;
+
+		// the dup goes before the store, so that jumps to the store reach the dup
+		load.setInstruction(store.copy());
+		handle.setInstruction(InstructionConstants.DUP);
+		moveVariable(handle, load);
+
+		return applied(Rule.STORE_LOAD);
+	}
+
+	/**
+	 * Moves the variable of the source code stored by an instruction to another
+	 * instruction, that stores the same value. See {@link AbstractClassGenerator#setVariable(InstructionList, bytecode.STORE)}.
+	 *
+	 * @param from the instruction that does not store the value anymore
+	 * @param to the instruction that stores the value now
+	 */
+
+	private static void moveVariable(InstructionHandle from, InstructionHandle to) {
+		Object variable = from.getAttribute(AbstractClassGenerator.VARIABLE);
+		if (variable != null) {
+			from.removeAttribute(AbstractClassGenerator.VARIABLE);
+			to.addAttribute(AbstractClassGenerator.VARIABLE, variable);
+		}
+	}
+
+	/**
+	 * Applies {@link Rule#JUMP_THREADING} at the given instruction, if possible.
+	 *
+	 * @param il the code
+	 * @param handle the instruction
+	 * @return true if and only if the rule has been applied
+	 */
+
+	private boolean threadJump(InstructionList il, InstructionHandle handle) {
+		Instruction instruction = handle.getInstruction();
+		if (!(instruction instanceof BranchInstruction))
+			return false;
+
+		if (instruction instanceof GotoInstruction) {
+			InstructionHandle target = ((GotoInstruction) instruction).getTarget();
+
+			if (target.getInstruction() instanceof ReturnInstruction) {
+				// the return is copied in place of the goto
+				InstructionHandle copy = il.insert(handle, target.getInstruction().copy());
+				il.redirectBranches(handle, copy);
+				delete(il, handle, handle);
+
+				return applied(Rule.JUMP_THREADING);
+			}
+		}
+
+		boolean changed = false;
+
+		if (instruction instanceof Select) {
+			Select select = (Select) instruction;
+			InstructionHandle[] targets = select.getTargets();
+			for (int pos = 0; pos < targets.length; pos++) {
+				InstructionHandle threaded = thread(targets[pos]);
+				if (threaded != targets[pos]) {
+					select.setTarget(pos, threaded);
+					changed = true;
+				}
+			}
+		}
+
+		BranchInstruction branch = (BranchInstruction) instruction;
+		InstructionHandle threaded = thread(branch.getTarget());
+		if (threaded != branch.getTarget()) {
+			branch.setTarget(threaded);
+			changed = true;
+		}
+
+		return changed && applied(Rule.JUMP_THREADING);
+	}
+
+	/**
+	 * Yields the final destination of a jump to the given instruction,
+	 * following the chain of {@code goto}'s that starts there.
+	 *
+	 * @param target the instruction
+	 * @return the destination of the chain of {@code goto}'s, or {@code target}
+	 *         itself if the chain is a cycle or is too long
+	 */
+
+	private static InstructionHandle thread(InstructionHandle target) {
+		InstructionHandle result = target;
+
+		for (int hops = 0; hops < 16; hops++)
+			if (result.getInstruction() instanceof GotoInstruction)
+				result = ((GotoInstruction) result.getInstruction()).getTarget();
+			else
+				return result;
+
+		return target;
+	}
+
+	/**
+	 * Applies {@link Rule#BRANCH_INVERSION} at the given instruction, if possible.
+	 *
+	 * @param il the code
+	 * @param handle the instruction
+	 * @return true if and only if the rule has been applied
+	 */
+
+	private boolean invertBranch(InstructionList il, InstructionHandle handle) {
+		if (!(handle.getInstruction() instanceof IfInstruction))
+			return false;
+
+		InstructionHandle jump = handle.getNext();
+		if (jump == null || isTargeted(jump) || !(jump.getInstruction() instanceof GotoInstruction))
+			return false;
+
+		IfInstruction branch = (IfInstruction) handle.getInstruction();
+		if (branch.getTarget() != jump.getNext())
+			return false;
+
+		IfInstruction inverted = branch.negate();
+		inverted.setTarget(((GotoInstruction) jump.getInstruction()).getTarget());
+		handle.setInstruction(inverted);
+		delete(il, jump, jump);
+
+		return applied(Rule.BRANCH_INVERSION);
+	}
+
+	/**
+	 * Applies {@link Rule#CHECKCAST} at the given instruction, if possible.
+	 *
+	 * @param il the code
+	 * @param handle the instruction
+	 * @return true if and only if the rule has been applied
+	 */
+
+	private boolean removeCheckcast(InstructionList il, InstructionHandle handle) {
+		InstructionHandle cast = handle.getNext();
+		if (cast == null || isTargeted(cast) || !(cast.getInstruction() instanceof CHECKCAST))
+			return false;
+
+		org.apache.bcel.generic.Type target = ((CHECKCAST) cast.getInstruction()).getType(cpg);
+		org.apache.bcel.generic.Type source = typeProducedBy(handle.getInstruction());
+
+		if (!(handle.getInstruction() instanceof ACONST_NULL || source != null && subtype(source, target)))
+			return false;
+
+		delete(il, cast, cast);
+
+		return applied(Rule.CHECKCAST);
+	}
+
+	/**
+	 * Yields the static type of the reference pushed on the stack by an instruction.
+	 *
+	 * @param instruction the instruction
+	 * @return the type, or {@code null} if it is not known
+	 */
+
+	private org.apache.bcel.generic.Type typeProducedBy(Instruction instruction) {
+		if (instruction instanceof CHECKCAST)
+			return ((CHECKCAST) instruction).getType(cpg);
+		else if (instruction instanceof NEW)
+			return ((NEW) instruction).getLoadClassType(cpg);
+		else if (instruction instanceof FieldInstruction && !(instruction instanceof org.apache.bcel.generic.PUTFIELD)
+				&& !(instruction instanceof org.apache.bcel.generic.PUTSTATIC))
+			return ((FieldInstruction) instruction).getFieldType(cpg);
+		else if (instruction instanceof InvokeInstruction)
+			return ((InvokeInstruction) instruction).getReturnType(cpg);
+		else if (instruction instanceof LDC)
+			return ((LDC) instruction).getType(cpg);
+		else
+			return null;
+	}
+
+	/**
+	 * Determines if a Java type is a subtype of another, for the types
+	 * used in the Java bytecode generated for Kitten.
+	 *
+	 * @param source the first type
+	 * @param target the second type
+	 * @return true if and only if {@code source} is a subtype of {@code target}
+	 */
+
+	private static boolean subtype(org.apache.bcel.generic.Type source, org.apache.bcel.generic.Type target) {
+		if (source.equals(target) || target.equals(org.apache.bcel.generic.Type.OBJECT) && source instanceof ObjectType)
+			return true;
+
+		ClassType sourceClass = lookup(source), targetClass = lookup(target);
+		return sourceClass != null && targetClass != null && sourceClass.subclass(targetClass);
+	}
+
+	/**
+	 * Yields the Kitten class that is translated into the given Java type.
+	 *
+	 * @param type the Java type
+	 * @return the Kitten class, or {@code null} if there is none
+	 */
+
+	private static ClassType lookup(org.apache.bcel.generic.Type type) {
+		if (type instanceof ObjectType)
+			for (ClassType clazz: ClassType.getAll())
+				if (clazz.toBCEL().equals(type))
+					return clazz;
+
+		return null;
+	}
+
+	/**
+	 * Applies {@link Rule#PUSH_POP} at the given instruction, if possible.
+	 *
+	 * @param il the code
+	 * @param handle the instruction
+	 * @return true if and only if the rule has been applied
+	 */
+
+	private boolean removePushPop(InstructionList il, InstructionHandle handle) {
+		Instruction instruction = handle.getInstruction();
+		if (!(instruction instanceof DUP || instruction instanceof ConstantPushInstruction
+				|| instruction instanceof ACONST_NULL || instruction instanceof LDC
+				|| instruction instanceof LoadInstruction))
+			return false;
+
+		InstructionHandle pop = handle.getNext();
+		if (pop == null || isTargeted(pop) || !(pop.getInstruction() instanceof POP))
+			return false;
+
+		// jumps to the pair go to what follows it
+		if (pop.getNext() == null)
+			return false;
+
+		il.redirectBranches(handle, pop.getNext());
+		delete(il, handle, pop);
+
+		return applied(Rule.PUSH_POP);
+	}
+
+	/**
+	 * Yields the instruction after the given one.
+	 *
+	 * @param handle the instruction, possibly {@code null}
+	 * @return the next instruction, or {@code null} if there is none
+	 */
+
+	private static InstructionHandle next(InstructionHandle handle) {
+		return handle == null ? null : handle.getNext();
+	}
+
+	/**
+	 * Determines if some jump lands at the given instruction.
+	 *
+	 * @param handle the instruction, possibly {@code null}
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isTargeted(InstructionHandle handle) {
+		return handle != null && handle.hasTargeters();
+	}
+
+	/**
+	 * Deletes a sequence of instructions, none of which is the target of a jump.
+	 *
+	 * @param il the code
+	 * @param from the first instruction to delete
+	 * @param to the last instruction to delete
+	 */
+
+	private static void delete(InstructionList il, InstructionHandle from, InstructionHandle to) {
+		try {
+			il.delete(from, to);
+		}
+		catch (TargetLostException e) {
+			// impossible, since we never delete a target
+		}
+	}
+
+	/**
+	 * Takes note that a rule has been applied.
+	 *
+	 * @param rule the rule
+	 * @return true
+	 */
+
+	private boolean applied(Rule rule) {
+		applications.put(rule, applications.get(rule) + 1);
+
+		return true;
+	}
+}
@@ -59,6 +59,9 @@ public class TestClassGenerator extends AbstractClassGenerator {
 		        fix.createFixture(this);
 		
 		generateMainMethod();
+
+		// we add the shared strings and the caches used by the code above
+		addStaticFields();
 	}
 	
 	/**
@@ -115,6 +118,14 @@ public class TestClassGenerator extends AbstractClassGenerator {
             i.append(InstructionFactory.createStore(
                     Type.LONG, 8));
 	        
+	        // Scarica l'output bufferizzato del test prima delle statistiche
+	        i.append(getFactory().createInvoke(
+	                runTime.Output.class.getName(),
+	                "flush",
+	                Type.VOID,
+	                Type.NO_ARGS,
+	                Constants.INVOKESTATIC));
+	        
 	        // Stampa delle statistiche del test
 	        printStats(i, test.getName());
 	        
@@ -0,0 +1,280 @@
+package javaBytecodeGenerator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import types.ArrayType;
+import types.BooleanType;
+import types.ClassType;
+import types.FloatType;
+import types.IntType;
+import types.Intrinsics;
+import types.NilType;
+import types.Type;
+
+/**
+ * The type of a local variable or stack element, as written in the
+ * {@code StackMapTable} frames of the class files. The types of the values
+ * of the Kitten code are derived from their Kitten type, so that two
+ * types can be merged through the Kitten class hierarchy.
+ *
+ * @author Federico Bianchi
+ */
+
+public final class VerificationType {
+
+	// the tags of the types in the class files
+
+	private final static int ITEM_TOP = 0;
+	private final static int ITEM_INTEGER = 1;
+	private final static int ITEM_FLOAT = 2;
+	private final static int ITEM_NULL = 5;
+	private final static int ITEM_UNINITIALIZED_THIS = 6;
+	private final static int ITEM_OBJECT = 7;
+	private final static int ITEM_UNINITIALIZED = 8;
+
+	/**
+	 * The type of the local variables that hold no usable value.
+	 */
+
+	final static VerificationType TOP = new VerificationType(ITEM_TOP, null, null, 0, null);
+
+	/**
+	 * The type of {@code int} and {@code boolean} values.
+	 */
+
+	public final static VerificationType INTEGER = new VerificationType(ITEM_INTEGER, null, null, 0, null);
+
+	/**
+	 * The type of {@code float} values.
+	 */
+
+	public final static VerificationType FLOAT = new VerificationType(ITEM_FLOAT, null, null, 0, null);
+
+	/**
+	 * The type of {@code nil}.
+	 */
+
+	public final static VerificationType NULL = new VerificationType(ITEM_NULL, null, null, 0, null);
+
+	/**
+	 * The type of the receiver of a constructor, before the constructor of the superclass is called.
+	 */
+
+	final static VerificationType UNINITIALIZED_THIS = new VerificationType(ITEM_UNINITIALIZED_THIS, null, null, 0, null);
+
+	/**
+	 * The type of the instances of {@code java.lang.Object}.
+	 */
+
+	public final static VerificationType JAVA_OBJECT = object("java/lang/Object");
+
+	/**
+	 * The types of the Kitten values of reference type, already built.
+	 */
+
+	private final static Map<Type, VerificationType> references = new HashMap<>();
+
+	/**
+	 * The tag of this type.
+	 */
+
+	private final int tag;
+
+	/**
+	 * The internal name of the class, or the descriptor of the array type,
+	 * of a reference type. It is {@code null} for the other types.
+	 */
+
+	private final String name;
+
+	/**
+	 * The Kitten type of a reference type, if any. It is {@code null} for
+	 * the other types and for the reference types used by the run-time only.
+	 */
+
+	private final Type kittenType;
+
+	/**
+	 * The position of the {@code new} instruction that created an uninitialised object.
+	 */
+
+	private final int offset;
+
+	/**
+	 * The type that an uninitialised object gets once its constructor has been called.
+	 */
+
+	private final VerificationType initialized;
+
+	private VerificationType(int tag, String name, Type kittenType, int offset, VerificationType initialized) {
+		this.tag = tag;
+		this.name = name;
+		this.kittenType = kittenType;
+		this.offset = offset;
+		this.initialized = initialized;
+	}
+
+	/**
+	 * Yields the type of the instances of a Java class that is not a Kitten class.
+	 *
+	 * @param name the internal name of the class, or the descriptor of an array type
+	 * @return the type
+	 */
+
+	public static VerificationType object(String name) {
+		return new VerificationType(ITEM_OBJECT, name, null, 0, null);
+	}
+
+	/**
+	 * Yields the type of an object created by a {@code new} instruction,
+	 * whose constructor has not been called yet.
+	 *
+	 * @param offset the position of the {@code new} instruction
+	 * @param initialized the type of the object once its constructor has been called
+	 * @return the type
+	 */
+
+	static VerificationType uninitialized(int offset, VerificationType initialized) {
+		return new VerificationType(ITEM_UNINITIALIZED, null, null, offset, initialized);
+	}
+
+	/**
+	 * Yields the type of the values of a Kitten type.
+	 *
+	 * @param type the Kitten type
+	 * @return the type. This is {@code null} for {@code void}
+	 */
+
+	public static VerificationType of(Type type) {
+		if (type == IntType.INSTANCE || type == BooleanType.INSTANCE)
+			return INTEGER;
+		else if (type == FloatType.INSTANCE)
+			return FLOAT;
+		else if (type == NilType.INSTANCE)
+			return NULL;
+		else if (type instanceof ClassType || type instanceof ArrayType) {
+			VerificationType result = references.get(type);
+			if (result == null)
+				references.put(type, result = new VerificationType(ITEM_OBJECT,
+					type instanceof ClassType ? DirectClassGenerator.internalName((ClassType) type) : DirectClassGenerator.descriptor(type),
+					type, 0, null));
+
+			return result;
+		}
+		else
+			return null;
+	}
+
+	/**
+	 * Determines if this is the type of an object created by a {@code new}
+	 * instruction or of the receiver of a constructor, not initialised yet.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	boolean isUninitialized() {
+		return tag == ITEM_UNINITIALIZED || tag == ITEM_UNINITIALIZED_THIS;
+	}
+
+	/**
+	 * Yields the type of an object created by a {@code new} instruction,
+	 * once its constructor has been called.
+	 *
+	 * @return the type, or {@code null} if this is not the type of such an object
+	 */
+
+	VerificationType getInitialized() {
+		return initialized;
+	}
+
+	/**
+	 * Yields the least type of which this and another type are subtypes.
+	 * For reference types, it follows the Kitten class hierarchy; the intrinsic
+	 * classes are only subclasses of {@code java.lang.Object}, as for the Java virtual machine.
+	 *
+	 * @param other the other type
+	 * @return the merged type. This is {@link #TOP} if the two types have nothing in common
+	 */
+
+	VerificationType merge(VerificationType other) {
+		if (equals(other))
+			return this;
+		else if (tag == ITEM_NULL && other.tag == ITEM_OBJECT)
+			return other;
+		else if (tag == ITEM_OBJECT && other.tag == ITEM_NULL)
+			return this;
+		else if (tag == ITEM_OBJECT && other.tag == ITEM_OBJECT)
+			return kittenType != null && other.kittenType != null ? merge(kittenType, other.kittenType) : JAVA_OBJECT;
+		else
+			return TOP;
+	}
+
+	/**
+	 * Merges two distinct Kitten reference types.
+	 *
+	 * @param type1 the first type
+	 * @param type2 the second type
+	 * @return the merged type
+	 */
+
+	private static VerificationType merge(Type type1, Type type2) {
+		if (type1 instanceof ClassType && type2 instanceof ClassType)
+			if (Intrinsics.isIntrinsic((ClassType) type1) || Intrinsics.isIntrinsic((ClassType) type2))
+				return JAVA_OBJECT;
+			else
+				return of(type1.leastCommonSupertype(type2));
+		else if (type1 instanceof ArrayType && type2 instanceof ArrayType) {
+			Type elements1 = ((ArrayType) type1).getElementsType(), elements2 = ((ArrayType) type2).getElementsType();
+			if (elements1 == elements2)
+				return of(type1);
+			else if (of(elements1).tag != ITEM_OBJECT || of(elements2).tag != ITEM_OBJECT)
+				// arrays of distinct primitive types
+				return JAVA_OBJECT;
+
+			VerificationType elements = merge(elements1, elements2);
+			if (elements.kittenType != null)
+				return of(ArrayType.mk(elements.kittenType));
+			else
+				return object("[" + (elements.name.startsWith("[") ? elements.name : "L" + elements.name + ";"));
+		}
+		else
+			return JAVA_OBJECT;
+	}
+
+	/**
+	 * Writes this type in the format of the {@code StackMapTable} frames.
+	 *
+	 * @param out where the type must be written
+	 * @param pool the constant pool of the class file
+	 */
+
+	void writeTo(Bytes out, ConstantPool pool) {
+		out.u1(tag);
+		if (tag == ITEM_OBJECT)
+			out.u2(pool.classRef(name));
+		else if (tag == ITEM_UNINITIALIZED)
+			out.u2(offset);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other)
+			return true;
+		else if (!(other instanceof VerificationType))
+			return false;
+
+		VerificationType otherType = (VerificationType) other;
+		return tag == otherType.tag && offset == otherType.offset && (name == null ? otherType.name == null : name.equals(otherType.name));
+	}
+
+	@Override
+	public int hashCode() {
+		return tag ^ offset ^ (name == null ? 0 : name.hashCode());
+	}
+
+	@Override
+	public String toString() {
+		return tag == ITEM_OBJECT ? name : tag == ITEM_UNINITIALIZED ? "uninitialized(" + offset + ")" : String.valueOf(tag);
+	}
+}
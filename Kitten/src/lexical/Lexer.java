@@ -155,8 +155,8 @@ String myString = "";
 	private final int COMMENT = 2;
 	private final int yy_state_dtrans[] = {
 		0,
-		77,
-		86
+		81,
+		90
 	};
 	private void yybegin (int state) {
 		yy_lexical_state = state;
@@ -371,25 +371,25 @@ String myString = "";
 		/* 69 */ YY_NO_ANCHOR,
 		/* 70 */ YY_NO_ANCHOR,
 		/* 71 */ YY_NO_ANCHOR,
-		/* 72 */ YY_NOT_ACCEPT,
+		/* 72 */ YY_NO_ANCHOR,
 		/* 73 */ YY_NO_ANCHOR,
 		/* 74 */ YY_NO_ANCHOR,
 		/* 75 */ YY_NO_ANCHOR,
-		/* 76 */ YY_NO_ANCHOR,
-		/* 77 */ YY_NOT_ACCEPT,
+		/* 76 */ YY_NOT_ACCEPT,
+		/* 77 */ YY_NO_ANCHOR,
 		/* 78 */ YY_NO_ANCHOR,
 		/* 79 */ YY_NO_ANCHOR,
-		/* 80 */ YY_NOT_ACCEPT,
-		/* 81 */ YY_NO_ANCHOR,
-		/* 82 */ YY_NOT_ACCEPT,
+		/* 80 */ YY_NO_ANCHOR,
+		/* 81 */ YY_NOT_ACCEPT,
+		/* 82 */ YY_NO_ANCHOR,
 		/* 83 */ YY_NO_ANCHOR,
 		/* 84 */ YY_NOT_ACCEPT,
 		/* 85 */ YY_NO_ANCHOR,
 		/* 86 */ YY_NOT_ACCEPT,
 		/* 87 */ YY_NO_ANCHOR,
-		/* 88 */ YY_NO_ANCHOR,
+		/* 88 */ YY_NOT_ACCEPT,
 		/* 89 */ YY_NO_ANCHOR,
-		/* 90 */ YY_NO_ANCHOR,
+		/* 90 */ YY_NOT_ACCEPT,
 		/* 91 */ YY_NO_ANCHOR,
 		/* 92 */ YY_NO_ANCHOR,
 		/* 93 */ YY_NO_ANCHOR,
@@ -455,63 +455,89 @@ String myString = "";
 		/* 153 */ YY_NO_ANCHOR,
 		/* 154 */ YY_NO_ANCHOR,
 		/* 155 */ YY_NO_ANCHOR,
-		/* 156 */ YY_NO_ANCHOR
+		/* 156 */ YY_NO_ANCHOR,
+		/* 157 */ YY_NO_ANCHOR,
+		/* 158 */ YY_NO_ANCHOR,
+		/* 159 */ YY_NO_ANCHOR,
+		/* 160 */ YY_NO_ANCHOR,
+		/* 161 */ YY_NO_ANCHOR,
+		/* 162 */ YY_NO_ANCHOR,
+		/* 163 */ YY_NO_ANCHOR,
+		/* 164 */ YY_NO_ANCHOR,
+		/* 165 */ YY_NO_ANCHOR,
+		/* 166 */ YY_NO_ANCHOR,
+		/* 167 */ YY_NO_ANCHOR,
+		/* 168 */ YY_NO_ANCHOR,
+		/* 169 */ YY_NO_ANCHOR,
+		/* 170 */ YY_NO_ANCHOR,
+		/* 171 */ YY_NO_ANCHOR,
+		/* 172 */ YY_NO_ANCHOR,
+		/* 173 */ YY_NO_ANCHOR,
+		/* 174 */ YY_NO_ANCHOR
 	};
 	private int yy_cmap[] = unpackFromString(1,130,
-"46:9,2,5,46,2,0,46:18,2,37,1,46:3,40,48,27,28,4,34,25,35,33,3,45:10,42,26,3" +
-"8,36,39,46:2,43:26,29,47,30,46,44,46,21,23,17,16,10,11,43,7,8,43:2,9,14,18," +
-"12,43:2,13,19,15,20,24,6,22,43:2,31,41,32,46:2,49:2")[0];
+"48:9,2,5,48,2,0,48:18,2,39,1,48:3,42,50,29,30,4,36,27,37,35,3,47:10,44,28,4" +
+"0,38,41,48:2,45:26,31,49,32,48,46,48,15,25,19,22,10,11,45,7,8,45:2,9,20,17," +
+"12,14,45,13,16,21,23,26,6,24,18,45,33,43,34,48:2,51:2")[0];
 
-	private int yy_rmap[] = unpackFromString(1,157,
-"0,1:2,2,3,1,4,1:4,5,1:3,6,1:3,7,8,9,1:2,10,11,1:3,12,13,1,6,1:4,12:21,1:6,1" +
+	private int yy_rmap[] = unpackFromString(1,175,
+"0,1:2,2,3,1,4,1:4,5,1:3,6,1:3,7,8,9,1:2,10,11,1:3,12,13,1,6,1:4,12:25,1:6,1" +
 "4,1:7,6,15,1,16,17,18,19,20,21,22,23,24,25,26,27,28,29,30,31,32,33,34,35,36" +
 ",37,38,39,40,41,42,43,44,45,46,47,48,49,50,51,52,53,54,55,56,57,58,59,60,61" +
 ",62,63,64,65,66,67,68,69,70,71,72,73,74,75,76,77,78,79,80,81,82,83,84,85,86" +
-",87,88,89,90,12,91,92,93,94,95,96")[0];
+",87,88,89,90,91,92,93,94,95,96,97,98,99,100,101,102,103,104,12,105,106,107," +
+"108,109,110")[0];
 
-	private int yy_nxt[][] = unpackFromString(97,50,
-"-1,1,2,3,4,5,6,150,73,150,124,105,150,152,154,125,150,155,106,150:2,78,150," +
-"156,126,7,8,9,10,11,12,13,14,15,16,17,18,19,20,21,22,23,24,150,74,25,74:3,2" +
-"6,-1:54,27,-1:48,28,-1:52,150,127,150:17,-1:18,150:3,-1:34,31,-1:64,32,-1:4" +
-"0,33,-1:49,34,-1:49,35,-1:49,36,-1:46,72,-1:11,25,-1:10,150:19,-1:18,150:3," +
-"-1:10,150:13,140,150:5,-1:18,150:3,-1:52,66,-1:7,150:5,29,150:6,81,150:6,-1" +
-":18,150:3,-1:5,61,80,-1:2,80,-1:9,62,-1:2,63,-1:26,82,-1,64,-1:6,70,-1:46,5" +
-"8,59:3,60,59:41,75,59,26,-1:6,150:13,30,150:5,-1:18,150:3,-1:7,71,-1:48,80," +
-"-1:2,80,-1:41,65,-1:8,150:9,37,150:9,-1:18,150:3,-1:49,84,-1:10,150:7,38,15" +
-"0:11,-1:18,150:3,-1:49,67,-1:10,150:3,39,150:15,-1:18,150:3,-1:5,68:2,76,79" +
-",69,68:43,26,-1:6,40,150:18,-1:18,150:3,-1:10,150:4,41,150:14,-1:18,150:3,-" +
-"1:10,150:12,42,150:6,-1:18,150:3,-1:10,150:9,43,150:9,-1:18,150:3,-1:10,150" +
-":4,44,150:14,-1:18,150:3,-1:10,150:10,45,150:8,-1:18,150:3,-1:10,150:4,46,1" +
-"50:14,-1:18,150:3,-1:10,150:10,47,150:8,-1:18,150:3,-1:10,150:9,48,150:9,-1" +
-":18,150:3,-1:10,150:4,49,150:14,-1:18,150:3,-1:10,150:13,50,150:5,-1:18,150" +
-":3,-1:10,150:12,51,150:6,-1:18,150:3,-1:10,150:10,52,150:8,-1:18,150:3,-1:1" +
-"0,150:9,53,150:9,-1:18,150:3,-1:10,150:13,54,150:5,-1:18,150:3,-1:10,150:4," +
-"55,150:14,-1:18,150:3,-1:10,150:12,56,150:6,-1:18,150:3,-1:10,150:7,57,150:" +
-"11,-1:18,150:3,-1:10,150:2,129,130,150:2,83,150:8,131,150:3,-1:18,150:3,-1:" +
-"10,150:2,85,150,87,150:14,-1:18,150:3,-1:10,150:13,88,150:5,-1:18,150:3,-1:" +
-"10,150:4,89,150:14,-1:18,150:3,-1:10,150:13,90,150:5,-1:18,150:3,-1:10,150:" +
-"14,91,150:4,-1:18,150:3,-1:10,150:2,92,150:16,-1:18,150:3,-1:10,150:3,93,15" +
-"0:15,-1:18,150:3,-1:10,150:3,94,150:15,-1:18,150:3,-1:10,150:15,95,150:3,-1" +
-":18,150:3,-1:10,150:13,96,150:5,-1:18,150:3,-1:10,150:13,97,150:5,-1:18,150" +
-":3,-1:10,150:7,98,150:11,-1:18,150:3,-1:10,150:6,99,150:12,-1:18,150:3,-1:1" +
-"0,150:7,100,150:11,-1:18,150:3,-1:10,150:10,101,150:8,-1:18,150:3,-1:10,150" +
-":7,102,150:11,-1:18,150:3,-1:10,150:15,103,150:3,-1:18,150:3,-1:10,150:6,10" +
-"4,150:12,-1:18,150:3,-1:10,150:3,107,150:12,128,150:2,-1:18,150:3,-1:10,150" +
-",108,150:2,109,150:2,110,150:11,-1:18,150:3,-1:10,150:6,111,150:12,-1:18,15" +
-"0:3,-1:10,150:2,112,150:16,-1:18,150:3,-1:10,150:9,135,150:9,-1:18,150:3,-1" +
-":10,150:4,113,150:11,136,150:2,-1:18,150:3,-1:10,150:6,114,150:12,-1:18,150" +
-":3,-1:10,150:3,115,150:15,-1:18,150:3,-1:10,150:15,116,150:3,-1:18,150:3,-1" +
-":10,150:12,139,150:6,-1:18,150:3,-1:10,150:6,141,150:12,-1:18,150:3,-1:10,1" +
-"50:4,142,150:14,-1:18,150:3,-1:10,150:9,143,150:9,-1:18,150:3,-1:10,150:14," +
-"117,150:4,-1:18,150:3,-1:10,150,118,150:17,-1:18,150:3,-1:10,150:13,144,150" +
-":5,-1:18,150:3,-1:10,150:4,119,150:14,-1:18,150:3,-1:10,150:3,145,150:15,-1" +
-":18,150:3,-1:10,150:12,120,150:6,-1:18,150:3,-1:10,150:14,121,150:4,-1:18,1" +
-"50:3,-1:10,150:9,146,150:9,-1:18,150:3,-1:10,150:4,122,150:14,-1:18,150:3,-" +
-"1:10,150:7,147,150:11,-1:18,150:3,-1:10,150:14,148,150:4,-1:18,150:3,-1:10," +
-"150:11,149,150:7,-1:18,150:3,-1:10,150:9,123,150:9,-1:18,150:3,-1:10,150:9," +
-"137,150:9,-1:18,150:3,-1:10,150:4,151,150:14,-1:18,150:3,-1:10,150:9,138,15" +
-"0:9,-1:18,150:3,-1:10,150:4,153,150:14,-1:18,150:3,-1:10,150:3,132,150:2,13" +
-"3,150:12,-1:18,150:3,-1:10,150:6,134,150:12,-1:18,150:3,-1:4");
+	private int yy_nxt[][] = unpackFromString(111,52,
+"-1,1,2,3,4,5,6,168,77,168,136,113,168,171,172,82,137,114,168,173,138,139,16" +
+"8:3,174,140,7,8,9,10,11,12,13,14,15,16,17,18,19,20,21,22,23,24,168,78,25,78" +
+":3,26,-1:56,27,-1:50,28,-1:54,168,141,168:19,-1:18,168:3,-1:36,31,-1:66,32," +
+"-1:42,33,-1:51,34,-1:51,35,-1:51,36,-1:48,76,-1:11,25,-1:10,168:21,-1:18,16" +
+"8:3,-1:10,168:10,155,168:10,-1:18,168:3,-1:54,70,-1:7,168:5,29,168:5,85,168" +
+":9,-1:18,168:3,-1:5,65,84,-1:2,84,-1:11,66,-1:3,67,-1:25,86,-1,68,-1:6,74,-" +
+"1:48,62,63:3,64,63:43,79,63,26,-1:6,168:10,30,168:10,-1:18,168:3,-1:7,75,-1" +
+":50,84,-1:2,84,-1:43,69,-1:8,168:15,37,168:5,-1:18,168:3,-1:51,88,-1:10,168" +
+":7,38,168:13,-1:18,168:3,-1:51,71,-1:10,168:3,39,168:17,-1:18,168:3,-1:5,72" +
+":2,80,83,73,72:45,26,-1:6,40,168:20,-1:18,168:3,-1:10,168:4,41,168:16,-1:18" +
+",168:3,-1:10,168:13,42,168:7,-1:18,168:3,-1:10,168:6,43,168:14,-1:18,168:3," +
+"-1:10,168:11,44,168:9,-1:18,168:3,-1:10,168:15,45,168:5,-1:18,168:3,-1:10,1" +
+"68:4,46,168:16,-1:18,168:3,-1:10,168:16,47,168:4,-1:18,168:3,-1:10,168:4,48" +
+",168:16,-1:18,168:3,-1:10,168:16,49,168:4,-1:18,168:3,-1:10,168:15,50,168:5" +
+",-1:18,168:3,-1:10,168:4,51,168:16,-1:18,168:3,-1:10,168:11,52,168:9,-1:18," +
+"168:3,-1:10,168:10,53,168:10,-1:18,168:3,-1:10,168:11,54,168:9,-1:18,168:3," +
+"-1:10,168:15,55,168:5,-1:18,168:3,-1:10,168:16,56,168:4,-1:18,168:3,-1:10,1" +
+"68:10,57,168:10,-1:18,168:3,-1:10,168:4,58,168:16,-1:18,168:3,-1:10,168:11," +
+"59,168:9,-1:18,168:3,-1:10,168:3,60,168:17,-1:18,168:3,-1:10,168:7,61,168:1" +
+"3,-1:18,168:3,-1:10,168:2,143,144,168:2,87,168:2,145,168:11,-1:18,168:3,-1:" +
+"10,168:2,89,168,91,168:16,-1:18,168:3,-1:10,168:10,92,168:10,-1:18,168:3,-1" +
+":10,168:11,93,168:9,-1:18,168:3,-1:10,168:14,94,157,168:5,-1:18,168:3,-1:10" +
+",168:4,95,168:16,-1:18,168:3,-1:10,168:10,96,168:10,-1:18,168:3,-1:10,168:1" +
+"7,97,168:3,-1:18,168:3,-1:10,168:2,98,168:18,-1:18,168:3,-1:10,168:3,99,168" +
+":17,-1:18,168:3,-1:10,168:3,100,168:17,-1:18,168:3,-1:10,168:9,101,168:11,-" +
+"1:18,168:3,-1:10,168:10,102,168:10,-1:18,168:3,-1:10,103,168:20,-1:18,168:3" +
+",-1:10,168:10,104,168:10,-1:18,168:3,-1:10,168:7,105,168:13,-1:18,168:3,-1:" +
+"10,168:7,106,168:13,-1:18,168:3,-1:10,168:6,107,168:14,-1:18,168:3,-1:10,16" +
+"8:16,108,168:4,-1:18,168:3,-1:10,168:7,109,168:13,-1:18,168:3,-1:10,168:9,1" +
+"10,168:11,-1:18,168:3,-1:10,168:4,111,168:16,-1:18,168:3,-1:10,168:6,112,16" +
+"8:14,-1:18,168:3,-1:10,168:3,115,168:14,142,168:2,-1:18,168:3,-1:10,168:8,1" +
+"47,168:3,116,168:8,-1:18,168:3,-1:10,168:4,117,168:16,-1:18,168:3,-1:10,168" +
+",118,168:2,119,168:2,120,168:13,-1:18,168:3,-1:10,168:6,121,168:14,-1:18,16" +
+"8:3,-1:10,168:2,122,168:18,-1:18,168:3,-1:10,168:15,151,168:5,-1:18,168:3,-" +
+"1:10,168:4,123,168:13,152,168:2,-1:18,168:3,-1:10,168:6,124,168:14,-1:18,16" +
+"8:3,-1:10,168:3,125,168:17,-1:18,168:3,-1:10,168:7,154,168:13,-1:18,168:3,-" +
+"1:10,168:9,126,168:11,-1:18,168:3,-1:10,168:9,127,168:11,-1:18,168:3,-1:10," +
+"168:11,156,168:9,-1:18,168:3,-1:10,168:6,158,168:14,-1:18,168:3,-1:10,168:4" +
+",159,168:16,-1:18,168:3,-1:10,168:15,160,168:5,-1:18,168:3,-1:10,168:17,128" +
+",168:3,-1:18,168:3,-1:10,168:9,170,168:11,-1:18,168:3,-1:10,168:4,129,168:1" +
+"6,-1:18,168:3,-1:10,168:10,161,168:10,-1:18,168:3,-1:10,168,130,168:19,-1:1" +
+"8,168:3,-1:10,168:3,162,168:17,-1:18,168:3,-1:10,168:11,131,168:9,-1:18,168" +
+":3,-1:10,168:17,132,168:3,-1:18,168:3,-1:10,168:15,164,168:5,-1:18,168:3,-1" +
+":10,168:4,133,168:16,-1:18,168:3,-1:10,168:3,134,168:17,-1:18,168:3,-1:10,1" +
+"68:7,165,168:13,-1:18,168:3,-1:10,168:17,166,168:3,-1:18,168:3,-1:10,168:13" +
+",167,168:7,-1:18,168:3,-1:10,168:15,135,168:5,-1:18,168:3,-1:10,168:15,153," +
+"168:5,-1:18,168:3,-1:10,168:3,163,168:17,-1:18,168:3,-1:10,168:4,169,168:16" +
+",-1:18,168:3,-1:10,168:9,146,168:11,-1:18,168:3,-1:10,168:3,148,168:2,149,1" +
+"68:14,-1:18,168:3,-1:10,168:6,150,168:14,-1:18,168:3,-1:4");
 
 	public java_cup.runtime.Symbol nextToken ()
 		throws java.io.IOException {
@@ -726,179 +752,179 @@ String myString = "";
 					case -42:
 						break;
 					case 42:
-						{return tok(sym.THEN, null);}
+						{return tok(sym.SYNC, null);}
 					case -43:
 						break;
 					case 43:
-						{return tok(sym.TEST, null);}
+						{return tok(sym.MEMO, null);}
 					case -44:
 						break;
 					case 44:
-						{return tok(sym.TRUE, null);}
+						{return tok(sym.THEN, null);}
 					case -45:
 						break;
 					case 45:
-						{return tok(sym.VOID, null);}
+						{return tok(sym.TEST, null);}
 					case -46:
 						break;
 					case 46:
-						{return tok(sym.WHILE, null);}
+						{return tok(sym.TRUE, null);}
 					case -47:
 						break;
 					case 47:
-						{return tok(sym.FIELD, null);}
+						{return tok(sym.VOID, null);}
 					case -48:
 						break;
 					case 48:
-						{return tok(sym.FLOAT, null);}
+						{return tok(sym.WHILE, null);}
 					case -49:
 						break;
 					case 49:
-						{return tok(sym.FALSE, null);}
+						{return tok(sym.FIELD, null);}
 					case -50:
 						break;
 					case 50:
-						{return tok(sym.CLASS, null);}
+						{return tok(sym.FLOAT, null);}
 					case -51:
 						break;
 					case 51:
-						{return tok(sym.RETURN, null);}
+						{return tok(sym.FALSE, null);}
 					case -52:
 						break;
 					case 52:
-						{return tok(sym.METHOD, null);}
+						{return tok(sym.SPAWN, null);}
 					case -53:
 						break;
 					case 53:
-						{return tok(sym.ASSERT, null);}
+						{return tok(sym.CLASS, null);}
 					case -54:
 						break;
 					case 54:
-						{return tok(sym.EXTENDS, null);}
+						{return tok(sym.RETURN, null);}
 					case -55:
 						break;
 					case 55:
-						{return tok(sym.FIXTURE, null);}
+						{return tok(sym.ASSERT, null);}
 					case -56:
 						break;
 					case 56:
-						{return tok(sym.BOOLEAN, null);}
+						{return tok(sym.METHOD, null);}
 					case -57:
 						break;
 					case 57:
-						{return tok(sym.CONSTRUCTOR, null);}
+						{return tok(sym.EXTENDS, null);}
 					case -58:
 						break;
 					case 58:
-						{yybegin(YYINITIAL); return tok(sym.STRING, myString);}
+						{return tok(sym.FIXTURE, null);}
 					case -59:
 						break;
 					case 59:
-						{myString += yytext();}
+						{return tok(sym.BOOLEAN, null);}
 					case -60:
 						break;
 					case 60:
-						{newline(); myString += "\n";}
+						{return tok(sym.PARALLEL, null);}
 					case -61:
 						break;
 					case 61:
-						{myString += "\"";}
+						{return tok(sym.CONSTRUCTOR, null);}
 					case -62:
 						break;
 					case 62:
-						{myString+="\t";}
+						{yybegin(YYINITIAL); return tok(sym.STRING, myString);}
 					case -63:
 						break;
 					case 63:
-						{myString+="\n";}
+						{myString += yytext();}
 					case -64:
 						break;
 					case 64:
-						{myString += "\\";}
+						{newline(); myString += "\n";}
 					case -65:
 						break;
 					case 65:
-						{}
+						{myString += "\"";}
 					case -66:
 						break;
 					case 66:
-						{myString += "'";}
+						{myString+="\n";}
 					case -67:
 						break;
 					case 67:
-						{myNum=(yytext().charAt(1)-48)*100+
-			   				(yytext().charAt(2)-48)*10+
-                            (yytext().charAt(3)-48);
-                        if (myNum>255) err("Overflow in ASCII Code");
-                        else myString += (char)myNum;}
+						{myString+="\t";}
 					case -68:
 						break;
 					case 68:
-						{}
+						{myString += "\\";}
 					case -69:
 						break;
 					case 69:
-						{newline();}
+						{}
 					case -70:
 						break;
 					case 70:
-						{commentCount++;}
+						{myString += "'";}
 					case -71:
 						break;
 					case 71:
-						{commentCount--;
-                         if (commentCount==0) yybegin(YYINITIAL);}
+						{myNum=(yytext().charAt(1)-48)*100+
+			   				(yytext().charAt(2)-48)*10+
+                            (yytext().charAt(3)-48);
+                        if (myNum>255) err("Overflow in ASCII Code");
+                        else myString += (char)myNum;}
 					case -72:
 						break;
-					case 73:
-						{return tok(sym.ID, yytext());}
+					case 72:
+						{}
 					case -73:
 						break;
-					case 74:
-						{err("Unmatched input");}
+					case 73:
+						{newline();}
 					case -74:
 						break;
-					case 75:
-						{myString += yytext();}
+					case 74:
+						{commentCount++;}
 					case -75:
 						break;
-					case 76:
-						{}
+					case 75:
+						{commentCount--;
+                         if (commentCount==0) yybegin(YYINITIAL);}
 					case -76:
 						break;
-					case 78:
+					case 77:
 						{return tok(sym.ID, yytext());}
 					case -77:
 						break;
-					case 79:
-						{}
+					case 78:
+						{err("Unmatched input");}
 					case -78:
 						break;
-					case 81:
-						{return tok(sym.ID, yytext());}
+					case 79:
+						{myString += yytext();}
 					case -79:
 						break;
-					case 83:
-						{return tok(sym.ID, yytext());}
+					case 80:
+						{}
 					case -80:
 						break;
-					case 85:
+					case 82:
 						{return tok(sym.ID, yytext());}
 					case -81:
 						break;
-					case 87:
-						{return tok(sym.ID, yytext());}
+					case 83:
+						{}
 					case -82:
 						break;
-					case 88:
+					case 85:
 						{return tok(sym.ID, yytext());}
 					case -83:
 						break;
-					case 89:
+					case 87:
 						{return tok(sym.ID, yytext());}
 					case -84:
 						break;
-					case 90:
+					case 89:
 						{return tok(sym.ID, yytext());}
 					case -85:
 						break;
@@ -1166,6 +1192,78 @@ String myString = "";
 						{return tok(sym.ID, yytext());}
 					case -151:
 						break;
+					case 157:
+						{return tok(sym.ID, yytext());}
+					case -152:
+						break;
+					case 158:
+						{return tok(sym.ID, yytext());}
+					case -153:
+						break;
+					case 159:
+						{return tok(sym.ID, yytext());}
+					case -154:
+						break;
+					case 160:
+						{return tok(sym.ID, yytext());}
+					case -155:
+						break;
+					case 161:
+						{return tok(sym.ID, yytext());}
+					case -156:
+						break;
+					case 162:
+						{return tok(sym.ID, yytext());}
+					case -157:
+						break;
+					case 163:
+						{return tok(sym.ID, yytext());}
+					case -158:
+						break;
+					case 164:
+						{return tok(sym.ID, yytext());}
+					case -159:
+						break;
+					case 165:
+						{return tok(sym.ID, yytext());}
+					case -160:
+						break;
+					case 166:
+						{return tok(sym.ID, yytext());}
+					case -161:
+						break;
+					case 167:
+						{return tok(sym.ID, yytext());}
+					case -162:
+						break;
+					case 168:
+						{return tok(sym.ID, yytext());}
+					case -163:
+						break;
+					case 169:
+						{return tok(sym.ID, yytext());}
+					case -164:
+						break;
+					case 170:
+						{return tok(sym.ID, yytext());}
+					case -165:
+						break;
+					case 171:
+						{return tok(sym.ID, yytext());}
+					case -166:
+						break;
+					case 172:
+						{return tok(sym.ID, yytext());}
+					case -167:
+						break;
+					case 173:
+						{return tok(sym.ID, yytext());}
+					case -168:
+						break;
+					case 174:
+						{return tok(sym.ID, yytext());}
+					case -169:
+						break;
 					default:
 						yy_error(YY_E_INTERNAL,false);
 					case -1:
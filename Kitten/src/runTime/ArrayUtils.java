@@ -0,0 +1,45 @@
+package runTime;
+
+import java.util.Arrays;
+
+/**
+ * The class that implements the intrinsic Kitten class {@code ArrayUtils},
+ * with bulk operations on arrays of integers and floats. Accesses out of
+ * the bounds of an array fail as for the array accesses of Kitten.
+ */
+
+public final class ArrayUtils {
+
+	/* creates an object that gives access to the operations on arrays */
+	public ArrayUtils() {}
+
+	/* copies "length" elements of "from", starting at "fromPos", into "to", starting at "toPos" */
+	public void copy(int[] from, int fromPos, int[] to, int toPos, int length) {
+		System.arraycopy(from, fromPos, to, toPos, length);
+	}
+
+	/* copies "length" elements of "from", starting at "fromPos", into "to", starting at "toPos" */
+	public void copy(float[] from, int fromPos, float[] to, int toPos, int length) {
+		System.arraycopy(from, fromPos, to, toPos, length);
+	}
+
+	/* sets the elements of "array" from "from" (included) to "to" (excluded) to "value" */
+	public void fill(int[] array, int from, int to, int value) {
+		Arrays.fill(array, from, to, value);
+	}
+
+	/* sets the elements of "array" from "from" (included) to "to" (excluded) to "value" */
+	public void fill(float[] array, int from, int to, float value) {
+		Arrays.fill(array, from, to, value);
+	}
+
+	/* sorts the elements of "array" from "from" (included) to "to" (excluded) in increasing order */
+	public void sort(int[] array, int from, int to) {
+		Arrays.sort(array, from, to);
+	}
+
+	/* sorts the elements of "array" from "from" (included) to "to" (excluded) in increasing order */
+	public void sort(float[] array, int from, int to) {
+		Arrays.sort(array, from, to);
+	}
+}
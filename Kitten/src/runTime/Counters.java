@@ -0,0 +1,114 @@
+package runTime;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The counters of a Kitten program compiled with {@code -instrument}.
+ * The compiler writes a profile file with a line for each counter, holding
+ * its count and its description. When the program terminates, the counts
+ * of this run are added to those in the file, so that the profile
+ * accumulates over several runs. Counters are incremented without
+ * synchronisation: increments from concurrent threads might get lost,
+ * which is acceptable for a profile.
+ */
+
+public final class Counters {
+
+	/* the counts of this run */
+	private static long[] counts = new long[0];
+
+	/* the profile file, or null if profiling has not been started */
+	private static java.lang.String profile;
+
+	private Counters() {}
+
+	/* starts profiling into the "profile" file, that describes "counters" counters */
+	public static synchronized void start(java.lang.String profile, int counters) {
+		if (Counters.profile != null)
+			return;
+
+		Counters.profile = profile;
+		if (counts.length < counters)
+			counts = Arrays.copyOf(counts, counters);
+
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+
+			@Override
+			public void run() {
+				dump();
+			}
+		});
+	}
+
+	/* increments the given counter */
+	public static void count(int counter) {
+		long[] counts = Counters.counts;
+		if (counter < counts.length)
+			counts[counter]++;
+		else
+			grow(counter);
+	}
+
+	/* increments a counter beyond the current counts, such as those counted before profiling starts */
+	private static synchronized void grow(int counter) {
+		if (counter >= counts.length)
+			counts = Arrays.copyOf(counts, counter + 1);
+
+		counts[counter]++;
+	}
+
+	/* adds the counts of this run to those in the profile file */
+	private static synchronized void dump() {
+		List<java.lang.String> lines = new ArrayList<java.lang.String>();
+
+		try (BufferedReader reader = new BufferedReader(new FileReader(profile))) {
+			java.lang.String line;
+			while ((line = reader.readLine()) != null)
+				lines.add(line);
+		}
+		catch (IOException e) {
+			System.err.println("Could not read the profile " + profile + ": " + e.getMessage());
+			return;
+		}
+
+		int counter = 0;
+		for (int pos = 0; pos < lines.size(); pos++) {
+			java.lang.String line = lines.get(pos);
+			int space = line.indexOf(' ');
+			// comments start with #
+			if (line.startsWith("#") || space < 0)
+				continue;
+
+			try {
+				if (counter < counts.length)
+					lines.set(pos, (Long.parseLong(line.substring(0, space)) + counts[counter]) + line.substring(space));
+
+				counter++;
+			}
+			catch (NumberFormatException e) {
+				System.err.println("Malformed line " + (pos + 1) + " of the profile " + profile);
+				return;
+			}
+		}
+
+		if (counter != counts.length) {
+			System.err.println("The profile " + profile + " does not belong to this program");
+			return;
+		}
+
+		try (PrintWriter writer = new PrintWriter(new FileWriter(profile))) {
+			for (java.lang.String line: lines)
+				writer.println(line);
+		}
+		catch (IOException e) {
+			System.err.println("Could not write the profile " + profile + ": " + e.getMessage());
+		}
+	}
+}
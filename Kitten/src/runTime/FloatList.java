@@ -0,0 +1,60 @@
+package runTime;
+
+import java.util.Arrays;
+
+/**
+ * The class that implements the intrinsic Kitten class {@code FloatList}, a growable
+ * list of floats kept in an array of floats, without wrapping its elements.
+ * Accesses out of the list fail as for the array accesses of Kitten.
+ */
+
+public final class FloatList {
+	private float[] elements;
+	private int size;
+
+	/* creates an empty list */
+	public FloatList() {
+		elements = new float[16];
+	}
+
+	/* adds "value" at the end of the list */
+	public void add(float value) {
+		if (size == elements.length)
+			elements = Arrays.copyOf(elements, size * 2);
+
+		elements[size++] = value;
+	}
+
+	/* yields the element at position "index" */
+	public float get(int index) {
+		check(index);
+		return elements[index];
+	}
+
+	/* sets the element at position "index" to "value" */
+	public void set(int index, float value) {
+		check(index);
+		elements[index] = value;
+	}
+
+	/* yields the number of elements of the list */
+	public int size() {
+		return size;
+	}
+
+	/* removes all elements from the list */
+	public void clear() {
+		size = 0;
+	}
+
+	/* yields a new array with the elements of the list */
+	public float[] toArray() {
+		return Arrays.copyOf(elements, size);
+	}
+
+	/* fails if "index" is not a position of the list */
+	private void check(int index) {
+		if (index < 0 || index >= size)
+			throw new ArrayIndexOutOfBoundsException(index);
+	}
+}
@@ -0,0 +1,179 @@
+package runTime;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * The keyboard input of Kitten programs. The standard input is read in large
+ * chunks of bytes into a single buffer, shared by all strings, keyboards and threads.
+ * Lines are read by {@link String#input()}, while numbers are read by {@link Keyboard}
+ * as tokens separated by white space and parsed directly from the bytes of the buffer,
+ * without building intermediate strings. A token that is not a plain decimal
+ * number is parsed as {@link String#toInt()} and {@link String#toFloat()} would do.
+ */
+
+public final class Input {
+	private static final int SIZE = 1 << 16;
+
+	/* the powers of ten that are exact as floats */
+	private static final float[] POWERS = { 1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+
+	private static final InputStream in = System.in;
+	private static final byte[] buffer = new byte[SIZE];
+	private static int pos, limit;
+
+	/* the last token or line that has been read, reused across reads */
+	private static byte[] token = new byte[64];
+	private static int length;
+
+	private Input() {}
+
+	/* reads a line, without its terminator, as String.input() does */
+	static synchronized java.lang.String readLine() {
+		length = 0;
+
+		int b = read();
+		if (b < 0)
+			throw new NoSuchElementException("No line found");
+
+		while (b >= 0 && b != '\n') {
+			keep(b);
+			b = read();
+		}
+
+		if (length > 0 && token[length - 1] == '\r')
+			length--;
+
+		return new java.lang.String(token, 0, length);
+	}
+
+	/* determines if there is still a token to read */
+	static synchronized boolean hasNext() {
+		return skipSpaces() >= 0;
+	}
+
+	/* reads the next token as an integer */
+	static synchronized int readInt() {
+		readToken();
+
+		int cursor = 0;
+		boolean negative = length > 0 && token[0] == '-';
+		if (length > 0 && (token[0] == '-' || token[0] == '+'))
+			cursor++;
+
+		// at most 9 digits cannot overflow
+		if (cursor < length && length - cursor <= 9) {
+			int result = 0;
+			for (; cursor < length && token[cursor] >= '0' && token[cursor] <= '9'; cursor++)
+				result = result * 10 + (token[cursor] - '0');
+
+			if (cursor == length)
+				return negative ? -result : result;
+		}
+
+		return tokenAsString().toInt();
+	}
+
+	/* reads the next token as a float */
+	static synchronized float readFloat() {
+		readToken();
+
+		int cursor = 0;
+		boolean negative = length > 0 && token[0] == '-';
+		if (length > 0 && (token[0] == '-' || token[0] == '+'))
+			cursor++;
+
+		// the digits, without the decimal point, and how many of them follow the point
+		int mantissa = 0, digits = 0, decimals = -1;
+		for (; cursor < length; cursor++) {
+			byte b = token[cursor];
+			if (b >= '0' && b <= '9') {
+				mantissa = mantissa * 10 + (b - '0');
+				digits++;
+				if (decimals >= 0)
+					decimals++;
+
+				if (mantissa >= 1 << 24)
+					break;
+			}
+			else if (b == '.' && decimals < 0)
+				decimals = 0;
+			else
+				break;
+		}
+
+		// a mantissa and a power of ten that are exact as floats give a correctly rounded quotient
+		if (cursor == length && digits > 0 && mantissa < 1 << 24 && decimals < POWERS.length) {
+			float result = decimals > 0 ? mantissa / POWERS[decimals] : mantissa;
+			return negative ? -result : result;
+		}
+
+		return tokenAsString().toFloat();
+	}
+
+	/* yields the last token as a Kitten string */
+	private static String tokenAsString() {
+		return new String(new java.lang.String(token, 0, length));
+	}
+
+	/* reads the next token, that is, the next sequence of non-space bytes */
+	private static void readToken() {
+		length = 0;
+
+		for (int b = skipSpaces(); b > ' '; b = peek()) {
+			keep(b);
+			pos++;
+		}
+	}
+
+	/* skips the spaces and yields the next byte, without consuming it, or -1 at the end of the input */
+	private static int skipSpaces() {
+		int b;
+		while ((b = peek()) >= 0 && b <= ' ')
+			pos++;
+
+		return b;
+	}
+
+	/* adds a byte to the last token */
+	private static void keep(int b) {
+		if (length == token.length)
+			token = Arrays.copyOf(token, length * 2);
+
+		token[length++] = (byte) b;
+	}
+
+	/* reads and consumes the next byte, or yields -1 at the end of the input */
+	private static int read() {
+		int b = peek();
+		if (b >= 0)
+			pos++;
+
+		return b;
+	}
+
+	/* yields the next byte, without consuming it, or -1 at the end of the input */
+	private static int peek() {
+		if (pos == limit) {
+			// what has been printed so far, such as a prompt, must be visible
+			Output.flush();
+
+			try {
+				limit = in.read(buffer, 0, buffer.length);
+			}
+			catch (IOException e) {
+				limit = -1;
+			}
+
+			pos = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return -1;
+			}
+		}
+
+		return buffer[pos] & 0xff;
+	}
+}
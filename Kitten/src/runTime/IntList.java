@@ -0,0 +1,60 @@
+package runTime;
+
+import java.util.Arrays;
+
+/**
+ * The class that implements the intrinsic Kitten class {@code IntList}, a growable
+ * list of ints kept in an array of ints, without wrapping its elements.
+ * Accesses out of the list fail as for the array accesses of Kitten.
+ */
+
+public final class IntList {
+	private int[] elements;
+	private int size;
+
+	/* creates an empty list */
+	public IntList() {
+		elements = new int[16];
+	}
+
+	/* adds "value" at the end of the list */
+	public void add(int value) {
+		if (size == elements.length)
+			elements = Arrays.copyOf(elements, size * 2);
+
+		elements[size++] = value;
+	}
+
+	/* yields the element at position "index" */
+	public int get(int index) {
+		check(index);
+		return elements[index];
+	}
+
+	/* sets the element at position "index" to "value" */
+	public void set(int index, int value) {
+		check(index);
+		elements[index] = value;
+	}
+
+	/* yields the number of elements of the list */
+	public int size() {
+		return size;
+	}
+
+	/* removes all elements from the list */
+	public void clear() {
+		size = 0;
+	}
+
+	/* yields a new array with the elements of the list */
+	public int[] toArray() {
+		return Arrays.copyOf(elements, size);
+	}
+
+	/* fails if "index" is not a position of the list */
+	private void check(int index) {
+		if (index < 0 || index >= size)
+			throw new ArrayIndexOutOfBoundsException(index);
+	}
+}
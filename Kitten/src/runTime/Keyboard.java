@@ -0,0 +1,28 @@
+package runTime;
+
+/**
+ * The class that implements the intrinsic Kitten class {@code Keyboard}.
+ * It has no state: the keyboard is read through the static methods of {@link Input},
+ * hence all objects of this class read from the same buffer.
+ */
+
+public final class Keyboard {
+
+	/* creates an object that gives access to the keyboard */
+	public Keyboard() {}
+
+	/* reads from the keyboard the next integer, separated by white space */
+	public int readInt() {
+		return Input.readInt();
+	}
+
+	/* reads from the keyboard the next float, separated by white space */
+	public float readFloat() {
+		return Input.readFloat();
+	}
+
+	/* determines if there is still something to read from the keyboard */
+	public boolean hasNext() {
+		return Input.hasNext();
+	}
+}
@@ -0,0 +1,107 @@
+package runTime;
+
+import java.util.Arrays;
+
+/**
+ * The implementation of the loops of Kitten code that the compiler recognises
+ * as copies between arrays or fillings of arrays. For instance, the loop
+ * {@code for (i := start; i < end; i := i + 1) to[i + toOffset] := from[i + fromOffset]}
+ * becomes {@code i := copy(from, fromOffset, to, toOffset, start, end)}. The iterations
+ * that cannot fail are executed in bulk. If the loop fails, its failing iteration
+ * is then executed as in the loop, so that the same exception is thrown after
+ * the same elements have been modified.
+ */
+
+public final class Loops {
+
+	private Loops() {}
+
+	/* executes the loop to[i + toOffset] := from[i + fromOffset] for i from start to end, excluded,
+	   and yields the final value of i */
+	public static int copy(int[] from, int fromOffset, int[] to, int toOffset, int start, int end) {
+		if (start >= end)
+			return start;
+
+		int safe = safe(to, start + toOffset, safe(from, start + fromOffset, (long) end - start));
+
+		if (from == to && fromOffset < toOffset && (long) toOffset - fromOffset < safe)
+			// the loop reads the elements that it has just written
+			for (int i = start; i < start + safe; i++)
+				to[i + toOffset] = from[i + fromOffset];
+		else if (safe > 0)
+			System.arraycopy(from, start + fromOffset, to, start + toOffset, safe);
+
+		if (start + safe < end) {
+			int i = start + safe;
+			to[i + toOffset] = from[i + fromOffset];
+		}
+
+		return end;
+	}
+
+	/* executes the loop to[i + toOffset] := from[i + fromOffset] for i from start to end, excluded,
+	   and yields the final value of i */
+	public static int copy(float[] from, int fromOffset, float[] to, int toOffset, int start, int end) {
+		if (start >= end)
+			return start;
+
+		int safe = safe(to, start + toOffset, safe(from, start + fromOffset, (long) end - start));
+
+		if (from == to && fromOffset < toOffset && (long) toOffset - fromOffset < safe)
+			// the loop reads the elements that it has just written
+			for (int i = start; i < start + safe; i++)
+				to[i + toOffset] = from[i + fromOffset];
+		else if (safe > 0)
+			System.arraycopy(from, start + fromOffset, to, start + toOffset, safe);
+
+		if (start + safe < end) {
+			int i = start + safe;
+			to[i + toOffset] = from[i + fromOffset];
+		}
+
+		return end;
+	}
+
+	/* executes the loop to[i + toOffset] := value for i from start to end, excluded,
+	   and yields the final value of i */
+	public static int fill(int[] to, int toOffset, int value, int start, int end) {
+		if (start >= end)
+			return start;
+
+		int safe = safe(to, start + toOffset, (long) end - start);
+		if (safe > 0)
+			Arrays.fill(to, start + toOffset, start + toOffset + safe, value);
+
+		if (start + safe < end)
+			to[start + safe + toOffset] = value;
+
+		return end;
+	}
+
+	/* executes the loop to[i + toOffset] := value for i from start to end, excluded,
+	   and yields the final value of i */
+	public static int fill(float[] to, int toOffset, float value, int start, int end) {
+		if (start >= end)
+			return start;
+
+		int safe = safe(to, start + toOffset, (long) end - start);
+		if (safe > 0)
+			Arrays.fill(to, start + toOffset, start + toOffset + safe, value);
+
+		if (start + safe < end)
+			to[start + safe + toOffset] = value;
+
+		return end;
+	}
+
+	/* yields how many of the first "iterations" iterations access "array" without failing,
+	   if the first of them accesses the element at "first" and the others follow it */
+	private static int safe(Object array, int first, long iterations) {
+		if (array == null || first < 0)
+			return 0;
+
+		int length = array instanceof int[] ? ((int[]) array).length : ((float[]) array).length;
+
+		return (int) java.lang.Math.max(0, java.lang.Math.min(iterations, (long) length - first));
+	}
+}
@@ -0,0 +1,47 @@
+package runTime;
+
+/**
+ * The class that implements the intrinsic Kitten class {@code Math}.
+ * When we refer to Java's {@code java.lang.Math}, we must use its fully qualified name.
+ */
+
+public final class Math {
+
+	/* creates an object that gives access to the mathematical functions */
+	public Math() {}
+
+	/* yields the minimum between "a" and "b" */
+	public int min(int a, int b) {
+		return java.lang.Math.min(a, b);
+	}
+
+	/* yields the minimum between "a" and "b" */
+	public float min(float a, float b) {
+		return java.lang.Math.min(a, b);
+	}
+
+	/* yields the maximum between "a" and "b" */
+	public int max(int a, int b) {
+		return java.lang.Math.max(a, b);
+	}
+
+	/* yields the maximum between "a" and "b" */
+	public float max(float a, float b) {
+		return java.lang.Math.max(a, b);
+	}
+
+	/* yields the absolute value of "a" */
+	public int abs(int a) {
+		return java.lang.Math.abs(a);
+	}
+
+	/* yields the absolute value of "a" */
+	public float abs(float a) {
+		return java.lang.Math.abs(a);
+	}
+
+	/* yields the square root of "a" */
+	public float sqrt(float a) {
+		return (float) java.lang.Math.sqrt(a);
+	}
+}
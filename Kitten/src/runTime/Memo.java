@@ -0,0 +1,147 @@
+package runTime;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The cache of the results of a memoized Kitten method. Each memoized method
+ * has its own cache, created when its class is initialised. The results are
+ * kept by the receiver of the call, compared by identity, and by the values
+ * of its parameters, that are primitive and are kept as ints, without
+ * wrapping them. The cache holds a bounded number of results and forgets
+ * the least recently used one when it is full.
+ */
+
+public final class Memo {
+	private static final int CAPACITY = 1 << 16;
+
+	/* the cached results, in least recently used order */
+	private final Map<Key, Key> results;
+
+	/* creates an empty cache */
+	public Memo() {
+		this(CAPACITY);
+	}
+
+	/* creates an empty cache for at most "capacity" results */
+	public Memo(final int capacity) {
+		this.results = new LinkedHashMap<Key, Key>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Key> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/* yields the key of a call on "receiver" with "arity" parameters,
+	   still to be added through the add() methods of the key */
+	public Key key(Object receiver, int arity) {
+		return new Key(this, receiver, arity);
+	}
+
+	/* the receiver and the parameters of a call, and then its result */
+	public static final class Key {
+		private final Memo memo;
+		private final Object receiver;
+		private final int[] parameters;
+		private int added;
+		private int hash;
+
+		/* the result of the call, as an int */
+		private int result;
+
+		private Key(Memo memo, Object receiver, int arity) {
+			this.memo = memo;
+			this.receiver = receiver;
+			this.parameters = new int[arity];
+			this.hash = System.identityHashCode(receiver);
+		}
+
+		/* adds the next parameter "i" */
+		public Key add(int i) {
+			parameters[added++] = i;
+			hash = hash * 31 + i;
+			return this;
+		}
+
+		/* adds the next parameter "f": -0.0 and 0.0 are different values here */
+		public Key add(float f) {
+			return add(Float.floatToIntBits(f));
+		}
+
+		/* adds the next parameter "b" */
+		public Key add(boolean b) {
+			return add(b ? 1 : 0);
+		}
+
+		/* looks up the result of the call, yielding true if it is known */
+		public boolean find() {
+			Key found;
+			synchronized (memo) {
+				found = memo.results.get(this);
+			}
+
+			if (found == null)
+				return false;
+
+			result = found.result;
+			return true;
+		}
+
+		/* yields the result found by find() */
+		public int getInt() {
+			return result;
+		}
+
+		public float getFloat() {
+			return Float.intBitsToFloat(result);
+		}
+
+		public boolean getBoolean() {
+			return result != 0;
+		}
+
+		/* records "i" as the result of the call and yields it */
+		public int put(int i) {
+			result = i;
+			synchronized (memo) {
+				memo.results.put(this, this);
+			}
+
+			return i;
+		}
+
+		public float put(float f) {
+			put(Float.floatToIntBits(f));
+			return f;
+		}
+
+		public boolean put(boolean b) {
+			put(b ? 1 : 0);
+			return b;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key))
+				return false;
+
+			Key key = (Key) other;
+			if (key.receiver != receiver || key.hash != hash)
+				return false;
+
+			for (int pos = 0; pos < parameters.length; pos++)
+				if (key.parameters[pos] != parameters[pos])
+					return false;
+
+			return true;
+		}
+	}
+}
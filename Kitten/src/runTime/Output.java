@@ -0,0 +1,211 @@
+package runTime;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The console output of Kitten programs. Each thread writes into its own
+ * large buffer, without building temporary strings for integers and Booleans.
+ * A buffer is written to the standard output, through {@code System.out},
+ * when it is full, when the thread reads from the keyboard, when the thread
+ * dies because of an exception and when the program terminates. The buffer
+ * of a spawned call or of a range of a parallel loop is written and released
+ * when the call or the range terminates, so that the threads of the fork-join
+ * pool do not keep it. Each buffer is only locked by its owner, but for the
+ * final flush at exit, hence the lock is never contended during the execution.
+ */
+
+public final class Output {
+	private static final int SIZE = 1 << 16;
+
+	/* the buffers of the threads that are printing, that must be flushed at exit */
+	private static final List<Output> all = new ArrayList<Output>();
+
+	/* the buffer of each thread, if it has printed since it was last released */
+	private static final ThreadLocal<Output> current = new ThreadLocal<Output>();
+
+	/* true if the uncaught exceptions flush the buffer of their thread */
+	private static boolean catching;
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+
+			@Override
+			public void run() {
+				synchronized (all) {
+					for (Output output: all)
+						synchronized (output) {
+							output.flushBuffer();
+						}
+				}
+			}
+		});
+	}
+
+	private final char[] buffer = new char[SIZE];
+	private int size;
+
+	private Output() {}
+
+	/* yields the buffer of the current thread, creating it if needed */
+	private static Output buffer() {
+		Output output = current.get();
+
+		if (output == null) {
+			current.set(output = new Output());
+
+			synchronized (all) {
+				all.add(output);
+			}
+		}
+
+		return output;
+	}
+
+	/* makes the threads that die because of an exception flush their buffer before
+	   their stack trace is printed. It is called by the code that starts tasks */
+	static synchronized void catchUncaughtExceptions() {
+		if (catching)
+			return;
+
+		catching = true;
+		final Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+		Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+
+			@Override
+			public void uncaughtException(Thread t, Throwable e) {
+				flush();
+
+				if (previous != null)
+					previous.uncaughtException(t, e);
+				else {
+					System.err.print("Exception in thread \"" + t.getName() + "\" ");
+					e.printStackTrace(System.err);
+				}
+			}
+		});
+	}
+
+	/* writes the Kitten string "s" */
+	public static void print(String s) {
+		print(s.value());
+	}
+
+	/* writes the Java string "s" */
+	static void print(java.lang.String s) {
+		Output output = buffer();
+		int length = s.length();
+
+		synchronized (output) {
+			for (int done = 0; done < length; ) {
+				int chunk = java.lang.Math.min(length - done, output.room());
+				s.getChars(done, done + chunk, output.buffer, output.size);
+				output.size += chunk;
+				done += chunk;
+			}
+		}
+	}
+
+	/* writes the characters of "s" */
+	static void print(java.lang.StringBuilder s) {
+		Output output = buffer();
+		int length = s.length();
+
+		synchronized (output) {
+			for (int done = 0; done < length; ) {
+				int chunk = java.lang.Math.min(length - done, output.room());
+				s.getChars(done, done + chunk, output.buffer, output.size);
+				output.size += chunk;
+				done += chunk;
+			}
+		}
+	}
+
+	/* writes the integer "i" as "concat(int)" would do */
+	public static void print(int i) {
+		if (i == Integer.MIN_VALUE) {
+			print(Integer.toString(i));
+			return;
+		}
+
+		Output output = buffer();
+
+		synchronized (output) {
+			// at most 11 characters, including the sign
+			output.room(11);
+
+			if (i < 0) {
+				output.buffer[output.size++] = '-';
+				i = -i;
+			}
+
+			int digits = 1;
+			for (int rest = i / 10; rest > 0; rest /= 10)
+				digits++;
+
+			for (int pos = output.size + digits - 1; pos >= output.size; pos--, i /= 10)
+				output.buffer[pos] = (char) ('0' + i % 10);
+
+			output.size += digits;
+		}
+	}
+
+	/* writes the float "f" as "concat(float)" would do */
+	public static void print(float f) {
+		print(Float.toString(f));
+	}
+
+	/* writes the Boolean "b" as "concat(boolean)" would do */
+	public static void print(boolean b) {
+		print(b ? "true" : "false");
+	}
+
+	/* writes the buffer of the current thread to the standard output */
+	public static void flush() {
+		Output output = current.get();
+
+		if (output != null)
+			synchronized (output) {
+				output.flushBuffer();
+			}
+	}
+
+	/* writes the buffer of the current thread to the standard output and releases it.
+	   The thread gets a new buffer if it prints again */
+	static void release() {
+		Output output = current.get();
+
+		if (output != null) {
+			flush();
+			current.remove();
+
+			synchronized (all) {
+				all.remove(output);
+			}
+		}
+	}
+
+	/* yields the free space in the buffer, flushing it if it is full */
+	private int room() {
+		if (size == buffer.length)
+			flushBuffer();
+
+		return buffer.length - size;
+	}
+
+	/* guarantees that the buffer has at least "needed" free characters */
+	private void room(int needed) {
+		if (buffer.length - size < needed)
+			flushBuffer();
+	}
+
+	/* writes this buffer through System.out, so that it uses its encoding and
+	   keeps the order with whatever is printed there directly */
+	private void flushBuffer() {
+		if (size > 0) {
+			System.out.print(new java.lang.String(buffer, 0, size));
+			System.out.flush();
+			size = 0;
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package runTime;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The execution of the parallel loops of Kitten programs. The body of each
+ * parallel loop is compiled into a method that runs the iterations of a range
+ * and receives the values of the local variables that it reads. The iterations
+ * of the loop are split into ranges of at most a given grain size, that are
+ * executed by the tasks of the common fork-join pool. The loop terminates when
+ * all its iterations have been executed. If some iteration fails, the exception
+ * is thrown again by the loop, once the running tasks have terminated.
+ * Each range writes and releases its output buffer when it terminates.
+ */
+
+public final class Parallel {
+
+	/* how many ranges each processor gets when the grain size is automatic */
+	private static final int RANGES_PER_PROCESSOR = 4;
+
+	static {
+		Output.catchUncaughtExceptions();
+	}
+
+	private Parallel() {}
+
+	/* executes a parallel loop through its "body" method. "frame" holds the receiver of the body method
+	   (null if it is static), the first and the last iteration, excluded,
+	   and then the values of the local variables read by the body.
+	   If "grain" is 0, it is chosen from the number of iterations and processors */
+	public static void run(Object[] frame, Target body, int grain) {
+		int from = (Integer) frame[1], to = (Integer) frame[2];
+		if (from >= to)
+			return;
+
+		if (grain <= 0) {
+			long ranges = (long) ForkJoinPool.getCommonPoolParallelism() * RANGES_PER_PROCESSOR;
+			grain = (int) java.lang.Math.max(1, ((long) to - from + ranges - 1) / ranges);
+		}
+
+		Range range = new Range(body, frame, from, to, grain);
+		if (to - from <= grain)
+			range.compute();
+		else
+			ForkJoinPool.commonPool().invoke(range);
+	}
+
+	/* the execution of a range of iterations of a loop */
+	private static final class Range extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Target body;
+		private final Object[] frame;
+		private final int from, to, grain;
+
+		private Range(Target body, Object[] frame, int from, int to, int grain) {
+			this.body = body;
+			this.frame = frame;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= grain) {
+				// the receiver and the parameters of the body, with this range
+				Object[] range = frame.clone();
+				range[1] = from;
+				range[2] = to;
+
+				try {
+					body.invoke(range);
+				}
+				finally {
+					Output.release();
+				}
+			}
+			else {
+				int middle = (int) (((long) from + to) >>> 1);
+				invokeAll(new Range(body, frame, from, middle, grain), new Range(body, frame, middle, to, grain));
+			}
+		}
+	}
+}
@@ -0,0 +1,251 @@
+package runTime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The execution of the spawned calls of Kitten programs. Each activation of a
+ * method or constructor that spawns calls has a frame, that holds the tasks of
+ * the calls spawned since its last sync. Frames are kept per thread, by depth
+ * of activation: every activation enters its depth when it starts and exits
+ * from it before returning, after waiting for its pending calls. The frame of
+ * an activation is only created at its first spawned call and is then reused
+ * by the later activations at the same depth.
+ * A spawned call becomes a task of the common fork-join pool, unless the
+ * current thread has already more tasks waiting to be executed than a given
+ * cutoff: in that case, the call is executed at once by the caller, which is
+ * cheaper and still leaves enough parallel work for the other threads.
+ * At sync, the results of the calls are moved into the slots of the frame,
+ * from where they are read into the local variables that receive them.
+ * Each thread buffers its own output: the caller flushes its buffer before
+ * spawning a call and the task writes and releases its own when the call
+ * completes, so that the output of a spawned call comes after that printed
+ * before the spawn and before that printed after the next sync.
+ */
+
+public final class Spawn {
+
+	/* the activations that spawn calls, for each thread */
+	private static final ThreadLocal<Context> contexts = new ThreadLocal<Context>() {
+		@Override
+		protected Context initialValue() {
+			return new Context();
+		}
+	};
+
+	/* marks an empty slot */
+	private static final Object EMPTY = new Object();
+
+	static {
+		Output.catchUncaughtExceptions();
+	}
+
+	private Spawn() {}
+
+	/* enters a new activation. Its frame is only created at its first spawned call */
+	public static void enter() {
+		contexts.get().enter();
+	}
+
+	/* waits for the calls spawned by the current activation and
+	   goes back to the activation of the caller */
+	public static void exit() {
+		contexts.get().exit();
+	}
+
+	/* determines if the next call must be spawned into a new task,
+	   rather than executed at once. Outside the fork-join pool,
+	   calls are always spawned, so that they enter the pool */
+	public static boolean fork(int cutoff) {
+		return !ForkJoinTask.inForkJoinPool() || ForkJoinTask.getSurplusQueuedTaskCount() <= cutoff;
+	}
+
+	/* spawns a call to "target" into a new task. "frame" holds the receiver and the parameters
+	   of the call. If "slot" is not -1, the result will be moved into that slot at sync */
+	public static void spawn(Object[] frame, Target target, int slot) {
+		Call call = new Call(target, frame, slot);
+		contexts.get().frame().calls.add(call);
+		Output.flush();
+		call.fork();
+	}
+
+	/* takes note of the result of a call spawned into "slot" but executed at once */
+	public static void done(Object result, int slot) {
+		Call call = new Call(null, null, slot);
+		call.complete(result);
+		contexts.get().frame().calls.add(call);
+	}
+
+	/* waits for the calls spawned by the current activation since its last sync */
+	public static void sync() {
+		Frame frame = contexts.get().current();
+		if (frame != null)
+			frame.sync();
+	}
+
+	/* yields the result in "slot" and empties the slot, or yields "old" if the slot is empty */
+	public static int result(int old, int slot) {
+		Object result = take(slot);
+		return result == EMPTY ? old : (Integer) result;
+	}
+
+	/* the result might be an int, that gets widened into a float */
+	public static float result(float old, int slot) {
+		Object result = take(slot);
+		return result == EMPTY ? old : ((Number) result).floatValue();
+	}
+
+	public static boolean result(boolean old, int slot) {
+		Object result = take(slot);
+		return result == EMPTY ? old : (Boolean) result;
+	}
+
+	public static Object result(Object old, int slot) {
+		Object result = take(slot);
+		return result == EMPTY ? old : result;
+	}
+
+	private static Object take(int slot) {
+		Frame frame = contexts.get().current();
+		return frame == null ? EMPTY : frame.take(slot);
+	}
+
+	/* the stack of the activations of a thread. The frames are reused
+	   by the later activations at the same depth */
+	private static final class Context {
+		private Frame[] frames = new Frame[16];
+		private int depth;
+
+		private void enter() {
+			if (++depth == frames.length)
+				frames = Arrays.copyOf(frames, depth * 2);
+		}
+
+		private void exit() {
+			// the tasks executed by this thread while it waits use the deeper frames
+			Frame frame = frames[depth];
+			if (frame != null)
+				frame.clear();
+
+			depth--;
+		}
+
+		/* the frame of the current activation, if it has been created */
+		private Frame current() {
+			return frames[depth];
+		}
+
+		private Frame frame() {
+			Frame frame = frames[depth];
+			if (frame == null)
+				frames[depth] = frame = new Frame();
+
+			return frame;
+		}
+	}
+
+	/* the calls spawned by an activation and the results collected by its last sync */
+	private static final class Frame {
+		private final List<Call> calls = new ArrayList<Call>();
+		private Object[] slots = new Object[0];
+
+		/* waits for the spawned calls, in order of spawning, so that
+		   the last call spawned into a slot determines its result */
+		private void sync() {
+			for (Call call: calls) {
+				Object result = call.result();
+
+				if (call.slot >= 0) {
+					if (call.slot >= slots.length) {
+						int length = slots.length;
+						slots = Arrays.copyOf(slots, call.slot + 1);
+						Arrays.fill(slots, length, slots.length, EMPTY);
+					}
+
+					slots[call.slot] = result;
+				}
+			}
+
+			calls.clear();
+		}
+
+		/* waits for the spawned calls and empties the slots, for the next activation */
+		private void clear() {
+			if (!calls.isEmpty())
+				sync();
+
+			Arrays.fill(slots, EMPTY);
+		}
+
+		private Object take(int slot) {
+			if (slot >= slots.length)
+				return EMPTY;
+
+			Object result = slots[slot];
+			slots[slot] = EMPTY;
+			return result;
+		}
+	}
+
+	/* a spawned call */
+	private static final class Call extends RecursiveTask<Object> {
+		private static final long serialVersionUID = 1L;
+
+		private final Target target;
+		private final Object[] frame;
+		private final int slot;
+		private boolean finished;
+
+		private Call(Target target, Object[] frame, int slot) {
+			this.target = target;
+			this.frame = frame;
+			this.slot = slot;
+		}
+
+		@Override
+		protected Object compute() {
+			// if the method stops with an exception, its activations are left
+			Context context = contexts.get();
+			int depth = context.depth;
+
+			try {
+				return target.invoke(frame);
+			}
+			finally {
+				context.depth = depth;
+
+				// the output of the call must be visible before the caller syncs with it,
+				// and the worker that executed the call must not keep its buffer
+				Output.release();
+
+				synchronized (this) {
+					finished = true;
+					notifyAll();
+				}
+			}
+		}
+
+		/* waits for the result of the call. A thread outside the fork-join pool
+		   would execute the call by itself if it joined it before the pool
+		   took it, so that the computation would never enter the pool:
+		   hence it rather waits for a worker of the pool to execute the call */
+		private Object result() {
+			if (target != null && !ForkJoinTask.inForkJoinPool())
+				synchronized (this) {
+					while (!finished)
+						try {
+							wait();
+						}
+						catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							return join();
+						}
+				}
+
+			return join();
+		}
+	}
+}
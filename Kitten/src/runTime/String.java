@@ -1,7 +1,5 @@
 package runTime;
 
-import java.util.Scanner;
-
 /**
  * The class the implements Kitten strings. When we refer to Java's {@code java.lang.String},
  * we must use its fully qualified name.
@@ -15,11 +13,21 @@ public class String {
 		value = new java.lang.String();
 	}
 
-	/* clones a string */
+	/* wraps a Java string */
 	public String(java.lang.String other) {
 		value = other;
 	}
 
+	/* clones a string */
+	public String(String other) {
+		value = other.value;
+	}
+
+	/* yields the Java string inside this string */
+	java.lang.String value() {
+		return value;
+	}
+
 	/* yields the length of a string */
 	public int length() {
 		return value.length();
@@ -31,6 +39,7 @@ public class String {
 			return Integer.parseInt(value);
 		}
 		catch (NumberFormatException e) {
+			Output.flush();
 			System.out.println("illegal integer format");
 			return 0;
 		}
@@ -42,6 +51,7 @@ public class String {
 			return Float.parseFloat(value);
 		}
 		catch (NumberFormatException e) {
+			Output.flush();
 			System.out.println("illegal float format");
 			return 0;
 		}
@@ -52,17 +62,15 @@ public class String {
 		return value.equals(other.value);
 	}
 
-	/* prints the string to the screen */
+	/* prints the string to the screen, through the buffer of the current thread */
 	public void output() {
-		System.out.print(value);
+		Output.print(value);
 	}
 
-	private final Scanner keyboard = new Scanner(System.in);
-
 	/* reads from the keyboard a sequence of character until the first newline and
 	   stores it into the string */
 	public void input() {
-		value = keyboard.nextLine();
+		value = Input.readLine();
 	}
 
 	/* yields the concatenation of "this" and then "s" */
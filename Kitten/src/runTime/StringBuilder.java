@@ -0,0 +1,56 @@
+package runTime;
+
+/**
+ * The class that implements chains of concatenations of Kitten strings, such as
+ * {@code s.concat(a).concat(b).concat(c)}. Instead of creating a string for
+ * each link of the chain, the compiler creates a single builder that
+ * accumulates all values and yields the final string at the end.
+ * Concatenations with {@code nil} still fail as in {@link String#concat(String)}.
+ */
+
+public class StringBuilder {
+	private final java.lang.StringBuilder buffer;
+
+	/* starts a chain of concatenations with "first", followed by "parts" other values */
+	public StringBuilder(String first, int parts) {
+		java.lang.String value = first.value();
+
+		// the buffer is sized once, assuming short values after the first
+		buffer = new java.lang.StringBuilder(value.length() + 16 * parts);
+		buffer.append(value);
+	}
+
+	/* appends "s" at the end of the chain */
+	public StringBuilder append(String s) {
+		buffer.append(s.value());
+		return this;
+	}
+
+	/* appends "f" at the end of the chain */
+	public StringBuilder append(float f) {
+		buffer.append(f);
+		return this;
+	}
+
+	/* appends "i" at the end of the chain */
+	public StringBuilder append(int i) {
+		buffer.append(i);
+		return this;
+	}
+
+	/* appends "b" at the end of the chain */
+	public StringBuilder append(boolean b) {
+		buffer.append(b);
+		return this;
+	}
+
+	/* prints the concatenation of all values of the chain, without building a string */
+	public void output() {
+		Output.print(buffer);
+	}
+
+	/* yields the concatenation of all values of the chain */
+	public String build() {
+		return new String(buffer.toString());
+	}
+}
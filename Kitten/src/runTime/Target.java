@@ -0,0 +1,95 @@
+package runTime;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * A method of a Kitten program called by the run-time on behalf of the program,
+ * such as a spawned call or the body of a parallel loop. The method is resolved
+ * once, when the class that calls it is initialised, and kept in a static field
+ * of that class. It is then called with an array holding its receiver, or
+ * {@code null} if the method is static, followed by its parameters, boxed.
+ */
+
+public final class Target {
+
+	/* the method, as a handle that takes the array of the receiver and of the parameters
+	   and yields the boxed result, or null for void methods */
+	private final MethodHandle handle;
+
+	private Target(Method method) {
+		try {
+			MethodHandle handle = MethodHandles.publicLookup().unreflect(method);
+
+			// static methods ignore the receiver in the array
+			if (Modifier.isStatic(method.getModifiers()))
+				handle = MethodHandles.dropArguments(handle, 0, Object.class);
+
+			int arity = method.getParameterTypes().length + 1;
+			this.handle = handle.asType(MethodType.genericMethodType(arity)).asSpreader(Object[].class, arity);
+		}
+		catch (IllegalAccessException e) {
+			throw new IllegalAccessError(e.getMessage());
+		}
+	}
+
+	/* yields the public method of class "owner" with the given name and descriptor */
+	public static Target method(java.lang.String owner, java.lang.String name, java.lang.String descriptor) {
+		for (Method candidate: classFor(owner).getMethods())
+			if (candidate.getName().equals(name) && descriptor(candidate).equals(descriptor))
+				return new Target(candidate);
+
+		throw new NoSuchMethodError(owner + "." + name + descriptor);
+	}
+
+	private static Class<?> classFor(java.lang.String owner) {
+		try {
+			return Class.forName(owner, false, Target.class.getClassLoader());
+		}
+		catch (ClassNotFoundException e) {
+			throw new NoClassDefFoundError(owner);
+		}
+	}
+
+	/* yields the Java descriptor of a method, such as (I[LObject;)Z */
+	private static java.lang.String descriptor(Method method) {
+		java.lang.StringBuilder result = new java.lang.StringBuilder("(");
+		for (Class<?> parameter: method.getParameterTypes())
+			result.append(descriptor(parameter));
+
+		return result.append(')').append(descriptor(method.getReturnType())).toString();
+	}
+
+	private static java.lang.String descriptor(Class<?> type) {
+		if (type == void.class)
+			return "V";
+		else if (type == int.class)
+			return "I";
+		else if (type == float.class)
+			return "F";
+		else if (type == boolean.class)
+			return "Z";
+		else if (type.isArray())
+			return type.getName().replace('.', '/');
+		else
+			return "L" + type.getName().replace('.', '/') + ";";
+	}
+
+	/* calls the method with the receiver and the parameters in "frame". The exceptions
+	   thrown by the method are thrown again as they are */
+	Object invoke(Object[] frame) {
+		try {
+			return (Object) handle.invokeExact(frame);
+		}
+		catch (RuntimeException | Error e) {
+			throw e;
+		}
+		catch (Throwable t) {
+			// Kitten methods do not throw checked exceptions
+			throw new RuntimeException(t);
+		}
+	}
+}
@@ -1,5 +1,12 @@
 package semantical;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import tables.Table;
 import types.Type;
 import errorMsg.ErrorMsg;
@@ -44,6 +51,22 @@ public class TypeChecker {
 	
 	private final boolean allowsAssert;
 
+	/**
+	 * The number of local variables declared outside the body of the innermost
+	 * parallel loop where this type-checker is used, or -1 if it is not used
+	 * inside the body of a parallel loop.
+	 */
+
+	private final int parallel;
+
+	/**
+	 * The slots where the results of the spawned calls are kept until the next
+	 * {@code sync}, for each local variable that receives the result of a spawned call.
+	 * It is shared by all the type-checkers of the same method or constructor.
+	 */
+
+	private final Map<TypeAndNumber, Integer> spawnSlots;
+
 	    /**
      * Constructs a type-checker.
      *
@@ -53,14 +76,20 @@ public class TypeChecker {
      * @param errorMsg the error reporting utility of the type-checker
      * @param allowsAssert indica se il comando {@code assert} può essere
      *        utilizzato.
+     * @param parallel the number of local variables declared outside the body of the
+     *                 innermost parallel loop, or -1 if there is no such loop
+     * @param spawnSlots the slots of the variables that receive the result of a spawned call
      */
 
-	private TypeChecker(Type returnType, Table<TypeAndNumber> env, int varNum, ErrorMsg errorMsg, boolean allowsAssert) {
+	private TypeChecker(Type returnType, Table<TypeAndNumber> env, int varNum, ErrorMsg errorMsg, boolean allowsAssert, int parallel,
+			Map<TypeAndNumber, Integer> spawnSlots) {
 		this.returnType = returnType;
 		this.env = env;
 		this.varNum = varNum;
 		this.errorMsg = errorMsg;
 		this.allowsAssert = allowsAssert;
+		this.parallel = parallel;
+		this.spawnSlots = spawnSlots;
 	}
 
 	/**
@@ -94,6 +123,8 @@ public class TypeChecker {
 		this.varNum = 0;
 		this.errorMsg = errorMsg;
 		this.allowsAssert = allowsAssert;
+		this.parallel = -1;
+		this.spawnSlots = new HashMap<>();
 	}
 
 	/**
@@ -119,7 +150,7 @@ public class TypeChecker {
 		// note that in the new type-checker the number of local
 		// variables is one more than in this type-checker
 		return new TypeChecker(returnType,
-			env.put(var, new TypeAndNumber(type, varNum)), varNum + 1, errorMsg, allowsAssert);
+			env.put(var, new TypeAndNumber(type, varNum)), varNum + 1, errorMsg, allowsAssert, parallel, spawnSlots);
 	}
 
 	/**
@@ -154,6 +185,99 @@ public class TypeChecker {
 		return tan != null ? tan.getNumber() : -1;
 	}
 
+	/**
+	 * Yields the variables bound in this type-checker, in the order of their progressive numbers.
+	 *
+	 * @return the variables
+	 */
+
+	public List<String> getVars() {
+		List<String> vars = new ArrayList<>();
+		env.addKeysTo(vars);
+
+		Collections.sort(vars, new Comparator<String>() {
+
+			@Override
+			public int compare(String var1, String var2) {
+				return getVarNum(var1) - getVarNum(var2);
+			}
+		});
+
+		return vars;
+	}
+
+	/**
+	 * Yields a new type-checker identical to this but used for the body of a
+	 * parallel loop. All variables bound in this type-checker are declared
+	 * outside that body.
+	 *
+	 * @return the new type-checker
+	 */
+
+	public TypeChecker enterParallelLoop() {
+		return new TypeChecker(returnType, env, varNum, errorMsg, allowsAssert, varNum, spawnSlots);
+	}
+
+	/**
+	 * Determines if this type-checker is used inside the body of a parallel loop.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	public boolean isInParallelLoop() {
+		return parallel >= 0;
+	}
+
+	/**
+	 * Determines if a variable has been declared outside the body of the innermost
+	 * parallel loop where this type-checker is used.
+	 *
+	 * @param var the variable
+	 * @return true if and only if this type-checker is used inside the body of
+	 *         a parallel loop and {@code var} has been declared outside that body
+	 */
+
+	public boolean isDeclaredOutsideParallelLoop(String var) {
+		int num = getVarNum(var);
+
+		return num >= 0 && num < parallel;
+	}
+
+	/**
+	 * Takes note that a variable receives the result of a spawned call
+	 * and yields the slot where that result is kept until the next {@code sync}.
+	 * Distinct variables get distinct slots.
+	 *
+	 * @param var the variable, that must be bound in this type-checker
+	 * @return the slot of {@code var}
+	 */
+
+	public int addSpawnTarget(String var) {
+		TypeAndNumber tan = env.get(var);
+		Integer slot = spawnSlots.get(tan);
+		if (slot == null)
+			spawnSlots.put(tan, slot = spawnSlots.size());
+
+		return slot;
+	}
+
+	/**
+	 * Yields the slot where the result of the spawned calls assigned to a
+	 * variable is kept until the next {@code sync}. This is complete only
+	 * after the whole method or constructor has been type-checked.
+	 *
+	 * @param var the variable
+	 * @return the slot of {@code var}, or -1 if {@code var} is not bound in this
+	 *         type-checker or never receives the result of a spawned call
+	 */
+
+	public int getSpawnSlot(String var) {
+		TypeAndNumber tan = env.get(var);
+		Integer slot = tan != null ? spawnSlots.get(tan) : null;
+
+		return slot != null ? slot : -1;
+	}
+
 	/**
 	 * Reports an error through this type-checker.
 	 *
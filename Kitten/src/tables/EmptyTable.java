@@ -1,5 +1,7 @@
 package tables;
 
+import java.util.Collection;
+
 /**
  * An empty symbol table.
  *
@@ -20,4 +22,9 @@ final class EmptyTable<E> extends Table<E> {
 		// builds a non-empty symbol table with empty subtrees
 		return new NonEmptyTable<E>(key, value);
 	}
-}
\ No newline at end of file
+
+	@Override
+	public void addKeysTo(Collection<String> keys) {
+		// there is no key in this empty table
+	}
+}
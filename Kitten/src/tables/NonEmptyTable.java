@@ -1,5 +1,7 @@
 package tables;
 
+import java.util.Collection;
+
 /**
  * A non-empty symbol table. It is organized as a binary search tree.
  *
@@ -98,4 +100,11 @@ final class NonEmptyTable<E> extends Table<E> {
 				return new NonEmptyTable<E>(this.key, this.value, left, temp);
 		}
 	}
-}
\ No newline at end of file
+
+	@Override
+	public void addKeysTo(Collection<String> keys) {
+		left.addKeysTo(keys);
+		keys.add(key);
+		right.addKeysTo(keys);
+	}
+}
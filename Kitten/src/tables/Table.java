@@ -1,5 +1,7 @@
 package tables;
 
+import java.util.Collection;
+
 /**
  * A table mapping symbols to objects.
  *
@@ -48,4 +50,12 @@ public abstract class Table<E> {
      */
 
     public abstract Table<E> put(String key, E value);
-}
\ No newline at end of file
+
+    /**
+     * Adds the symbols bound in this table to the given collection.
+     *
+     * @param keys the collection where the symbols must be added
+     */
+
+    public abstract void addKeysTo(Collection<String> keys);
+}
@@ -12,6 +12,7 @@ import bytecode.BytecodeList;
 import bytecode.CALL;
 import bytecode.FinalBytecode;
 import bytecode.NOP;
+import bytecode.SWITCH;
 
 /**
  * A block of code of the Kitten intermediate language. There is no jump
@@ -46,6 +47,26 @@ public class Block {
 
 	private boolean mergeable;
 
+	/**
+	 * True if this block is a pivot, that is, an empty block used to close a loop.
+	 */
+
+	private boolean pivot;
+
+	/**
+	 * True if this block is the head of a loop, that is, the block that
+	 * a pivot links to in order to close the loop.
+	 */
+
+	private boolean loopHead;
+
+	/**
+	 * The number of times this block is executed according to the profile
+	 * of the program, or -1 if it is not known.
+	 */
+
+	private long frequency = -1;
+
 	/**
 	 * The number of blocks created so far.
 	 */
@@ -59,7 +80,7 @@ public class Block {
 	 * @param follows the list of successors of this block
 	 */
 
-	private Block(BytecodeList bytecode, List<Block> follows) {
+	Block(BytecodeList bytecode, List<Block> follows) {
 		this.bytecode = bytecode;
 		this.follows = follows;
 		this.mergeable = true;
@@ -93,13 +114,31 @@ public class Block {
 	 */
 
 	public Block(BranchingBytecode condition, Block yes, Block no) {
-		this(new BytecodeList(new NOP()), new ArrayList<Block>());
+		this(new BytecodeList(new NOP(condition.getLine())), new ArrayList<Block>());
 
 		// we prefix the condition and its negation to the code of the following blocks
 		follows.add(no.prefixedBy(condition.negate()));
 		follows.add(yes.prefixedBy(condition));
 	}
 
+	/**
+	 * Builds a block of code containing a {@code switch}, with no predecessors
+	 * and a successor for each key of the {@code switch}, followed by
+	 * the successor used when the value on top of the stack is not among the keys.
+	 *
+	 * @param selector the {@code switch} bytecode that decides the branching
+	 * @param cases the blocks of code to be executed for each key of {@code selector},
+	 *              in the same order as the keys
+	 * @param otherwise the block of code to be executed if the value on top of the stack
+	 *                  is not among the keys of {@code selector}
+	 */
+
+	public Block(SWITCH selector, List<Block> cases, Block otherwise) {
+		this(new BytecodeList(selector), new ArrayList<>(cases));
+
+		follows.add(otherwise);
+	}
+
 	/**
 	 * Builds a block of code containing {@code nop} and with no
 	 * successors nor predecessors.
@@ -109,10 +148,11 @@ public class Block {
 
 	public Block(CodeSignature where) {
 		// we use nop for the initial code of a pivot
-		this(new BytecodeList(new NOP()), new ArrayList<Block>());
+		this(new BytecodeList(new NOP(0)), new ArrayList<Block>());
 
 		// a pivot cannot be merged, otherwise cycles cannot be built
 		mergeable = false;
+		pivot = true;
 	}
 
 	/**
@@ -168,6 +208,74 @@ public class Block {
 
 	public void linkTo(Block follow) {
 		follows.add(follow);
+
+		// a pivot closes a loop, whose head is hence the block it links to
+		if (pivot)
+			follow.loopHead = true;
+	}
+
+	/**
+	 * Determines if this block is the head of a loop, that is, if a pivot
+	 * links to it in order to close a loop. Pivots disappear at clean-up time,
+	 * but the head of their loop keeps this information.
+	 *
+	 * @return true if and only if this block is the head of a loop
+	 */
+
+	public boolean isLoopHead() {
+		return loopHead;
+	}
+
+	/**
+	 * Specifies whether this block is the head of a loop.
+	 *
+	 * @param loopHead true if and only if this block must be the head of a loop
+	 */
+
+	void setLoopHead(boolean loopHead) {
+		this.loopHead = loopHead;
+	}
+
+	/**
+	 * Yields the number of times this block is executed, according to the profile of the program.
+	 *
+	 * @return the number of times, or -1 if it is not known, as when the program is compiled without a profile
+	 */
+
+	public long getFrequency() {
+		return frequency;
+	}
+
+	/**
+	 * Sets the number of times this block is executed, according to the profile of the program.
+	 *
+	 * @param frequency the number of times, or -1 if it is not known
+	 */
+
+	void setFrequency(long frequency) {
+		this.frequency = frequency;
+	}
+
+	/**
+	 * Determines if this block is executed more often than another, according to
+	 * the profile of the program. This is false when the profile is not known.
+	 *
+	 * @param other the other block
+	 * @return true if and only if the frequencies of both blocks are known and that of this block is larger
+	 */
+
+	public boolean isHotterThan(Block other) {
+		return other.frequency >= 0 && frequency > other.frequency;
+	}
+
+	/**
+	 * Replaces the successors of this block.
+	 *
+	 * @param follows the new successors of this block. This should not be {@code null}
+	 */
+
+	void setFollows(List<Block> follows) {
+		this.follows = follows;
 	}
 
 	/**
@@ -179,6 +287,17 @@ public class Block {
 		mergeable = false;
 	}
 
+	/**
+	 * Determines if this block can be merged when prefixed with a bytecode.
+	 * See {@link #prefixedBy(Bytecode)}.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	boolean isMergeable() {
+		return mergeable;
+	}
+
 	/**
 	 * Yields the bytecode inside this block.
 	 *
@@ -189,6 +308,16 @@ public class Block {
 		return bytecode;
 	}
 
+	/**
+	 * Replaces the bytecode inside this block.
+	 *
+	 * @param bytecode the new bytecode inside this block. This should not be {@code null}
+	 */
+
+	void setBytecode(BytecodeList bytecode) {
+		this.bytecode = bytecode;
+	}
+
 	/**
 	 * Adds a bytecode before this block. This results in the same
 	 * block being modified or in a new block linked to {@code this}.
@@ -204,8 +333,26 @@ public class Block {
 			this.bytecode = new BytecodeList(bytecode).append(this.bytecode);
 			return this;
 		}
-		else
-			return new Block(new BytecodeList(bytecode), this);
+		else {
+			Block result = new Block(new BytecodeList(bytecode), this);
+			result.frequency = frequency;
+
+			return result;
+		}
+	}
+
+	/**
+	 * Yields the {@code switch} at the end of this block, if any.
+	 *
+	 * @return the {@code switch}, or {@code null} if this block does not end with a {@code switch}
+	 */
+
+	public SWITCH getSwitch() {
+		BytecodeList cursor = bytecode;
+		while (cursor.getTail() != null)
+			cursor = cursor.getTail();
+
+		return cursor.getHead() instanceof SWITCH ? (SWITCH) cursor.getHead() : null;
 	}
 
 	/**
@@ -249,10 +396,11 @@ public class Block {
 			
 			List<Block> newFollows = new ArrayList<>();
 
-			// we consider each successor and remove isolated nop's
+			// we consider each successor and remove isolated nop's.
+			// The successors of a switch must remain one per key
 			for (Block follow: follows)
 				if (follow != this && follow.bytecode.getHead() instanceof NOP &&
-				follow.bytecode.getTail() == null)
+				follow.bytecode.getTail() == null && (follow.follows.size() == 1 || getSwitch() == null))
 					newFollows.addAll(follow.follows);
 				else
 					newFollows.add(follow);
@@ -0,0 +1,320 @@
+package translation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import types.BooleanType;
+import types.ClassMemberSignature;
+import types.CodeSignature;
+import types.IntType;
+import types.ReferenceType;
+import types.Type;
+import bytecode.BranchingBytecode;
+import bytecode.BranchingComparisonBytecode;
+import bytecode.Bytecode;
+import bytecode.BytecodeList;
+import bytecode.CONST;
+import bytecode.ComparisonBinOpBytecode;
+import bytecode.IF_CMPEQ;
+import bytecode.IF_CMPNE;
+import bytecode.IF_CMPZERO;
+import bytecode.IF_FALSE;
+import bytecode.IF_TRUE;
+import bytecode.NEG;
+import bytecode.NOP;
+
+/**
+ * The selection of the branching bytecodes of the Kitten code of a program.
+ * The translation of a condition used as a test already branches on comparisons,
+ * but comparisons used as values (for instance, after a negation or an inlined
+ * call) compute a Boolean value that is then tested by {@code if_true}, which
+ * results in two tests in Java bytecode. This optimisation:
+ * <ul>
+ * <li> merges a block with its only successor, if that has no other predecessor,
+ *      so that a comparison gets close to the branch that tests its value;
+ * <li> replaces a comparison followed by {@code if_true} and {@code if_false}
+ *      with the corresponding branching comparison;
+ * <li> removes a Boolean negation followed by {@code if_true} and {@code if_false},
+ *      by swapping them;
+ * <li> replaces a comparison with {@code 0}, {@code false} or {@code nil}
+ *      with {@code if_cmpzero}, that compiles into the specialised Java
+ *      bytecodes {@code ifeq}, {@code iflt}, {@code ifnull} and so on.
+ * </ul>
+ *
+ * @author Federico Bianchi
+ */
+
+public class BranchSelection {
+
+	/**
+	 * The program whose code gets optimised.
+	 */
+
+	private final Program program;
+
+	/**
+	 * The number of blocks merged into their predecessor so far.
+	 */
+
+	private int merged;
+
+	/**
+	 * The number of comparisons and negations fused with the following branch so far.
+	 */
+
+	private int fused;
+
+	/**
+	 * The number of comparisons with zero specialised so far.
+	 */
+
+	private int specialised;
+
+	/**
+	 * Builds the optimiser for the given program.
+	 *
+	 * @param program the program
+	 */
+
+	public BranchSelection(Program program) {
+		this.program = program;
+	}
+
+	/**
+	 * Yields the number of blocks merged into their predecessor so far.
+	 *
+	 * @return the number of blocks
+	 */
+
+	public int getMerged() {
+		return merged;
+	}
+
+	/**
+	 * Yields the number of comparisons and negations fused with the following branch so far.
+	 *
+	 * @return the number of comparisons and negations
+	 */
+
+	public int getFused() {
+		return fused;
+	}
+
+	/**
+	 * Yields the number of comparisons with zero specialised so far.
+	 *
+	 * @return the number of comparisons
+	 */
+
+	public int getSpecialised() {
+		return specialised;
+	}
+
+	/**
+	 * Optimises the code of all methods and constructors of the program.
+	 */
+
+	public void optimise() {
+		for (ClassMemberSignature sig: program.getSigs())
+			if (sig instanceof CodeSignature)
+				optimise((CodeSignature) sig);
+	}
+
+	/**
+	 * Optimises the code of a method or constructor, up to a fixpoint.
+	 *
+	 * @param sig the method or constructor
+	 */
+
+	private void optimise(CodeSignature sig) {
+		boolean changed;
+
+		do {
+			changed = false;
+
+			// the graph is rebuilt after each change, since the blocks get modified
+			CodeGraph graph = new CodeGraph(sig);
+			for (Block block: graph.getBlocks())
+				if (merge(block, graph) || fuse(block, graph) || specialise(block, graph)) {
+					changed = true;
+					break;
+				}
+		}
+		while (changed);
+	}
+
+	/**
+	 * Merges a block with its only successor, if the latter has no other predecessors.
+	 *
+	 * @param block the block
+	 * @param graph the graph of the code containing {@code block}
+	 * @return true if and only if the blocks have been merged
+	 */
+
+	private boolean merge(Block block, CodeGraph graph) {
+		if (block.getFollows().size() != 1)
+			return false;
+
+		Block follow = block.getFollows().get(0);
+		if (follow == block || follow.isLoopHead() || graph.getPredecessors(follow).size() != 1
+				|| follow.getBytecode().getHead() instanceof BranchingBytecode)
+			return false;
+
+		List<Bytecode> code = bytecodes(block);
+		code.addAll(bytecodes(follow));
+		block.setBytecode(toList(code));
+		block.setFollows(follow.getFollows());
+
+		merged++;
+
+		return true;
+	}
+
+	/**
+	 * Fuses the comparison or Boolean negation at the end of a block
+	 * with the {@code if_true} and {@code if_false} that follow it.
+	 *
+	 * @param block the block
+	 * @param graph the graph of the code containing {@code block}
+	 * @return true if and only if the fusion has been performed
+	 */
+
+	private boolean fuse(Block block, CodeGraph graph) {
+		if (!branchesOn(block, graph))
+			return false;
+
+		for (Block follow: block.getFollows()) {
+			Bytecode head = follow.getBytecode().getHead();
+			if (!(head instanceof IF_TRUE || head instanceof IF_FALSE))
+				return false;
+		}
+
+		List<Bytecode> code = bytecodes(block);
+		if (code.isEmpty())
+			return false;
+
+		Bytecode last = code.get(code.size() - 1);
+
+		if (last instanceof ComparisonBinOpBytecode) {
+			BranchingComparisonBytecode comparison = ((ComparisonBinOpBytecode) last).toBranching();
+
+			for (Block follow: block.getFollows())
+				replaceHead(follow, follow.getBytecode().getHead() instanceof IF_TRUE ? comparison : comparison.negate());
+		}
+		else if (last instanceof NEG && ((NEG) last).getType() == BooleanType.INSTANCE)
+			for (Block follow: block.getFollows())
+				replaceHead(follow, ((BranchingBytecode) follow.getBytecode().getHead()).negate());
+		else
+			return false;
+
+		code.remove(code.size() - 1);
+		block.setBytecode(toList(code));
+
+		fused++;
+
+		return true;
+	}
+
+	/**
+	 * Specialises the comparison with {@code 0}, {@code false} or {@code nil}
+	 * that follows a block ending with the load of that constant.
+	 *
+	 * @param block the block
+	 * @param graph the graph of the code containing {@code block}
+	 * @return true if and only if the specialisation has been performed
+	 */
+
+	private boolean specialise(Block block, CodeGraph graph) {
+		if (!branchesOn(block, graph))
+			return false;
+
+		for (Block follow: block.getFollows()) {
+			Bytecode head = follow.getBytecode().getHead();
+			if (!(head instanceof BranchingComparisonBytecode))
+				return false;
+
+			Type type = ((BranchingComparisonBytecode) head).getType();
+			if (!(type == IntType.INSTANCE || type == BooleanType.INSTANCE
+				|| type instanceof ReferenceType && (head instanceof IF_CMPEQ || head instanceof IF_CMPNE)))
+				return false;
+		}
+
+		List<Bytecode> code = bytecodes(block);
+		if (code.isEmpty() || !(code.get(code.size() - 1) instanceof CONST) || !((CONST) code.get(code.size() - 1)).isZero())
+			return false;
+
+		for (Block follow: block.getFollows()) {
+			Bytecode comparison = follow.getBytecode().getHead();
+			replaceHead(follow, new IF_CMPZERO(comparison.getLine(), (BranchingComparisonBytecode) comparison));
+		}
+
+		code.remove(code.size() - 1);
+		block.setBytecode(toList(code));
+
+		specialised++;
+
+		return true;
+	}
+
+	/**
+	 * Determines if a block ends with a branch whose two successors can be
+	 * modified, since they have no other predecessor.
+	 *
+	 * @param block the block
+	 * @param graph the graph of the code containing {@code block}
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean branchesOn(Block block, CodeGraph graph) {
+		if (block.getFollows().size() != 2)
+			return false;
+
+		for (Block follow: block.getFollows())
+			if (follow == block || graph.getPredecessors(follow).size() != 1)
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Replaces the branching bytecode at the beginning of a block.
+	 *
+	 * @param block the block
+	 * @param head the new branching bytecode
+	 */
+
+	private static void replaceHead(Block block, BranchingBytecode head) {
+		block.setBytecode(new BytecodeList(head, block.getBytecode().getTail()));
+	}
+
+	/**
+	 * Yields the bytecodes of a block, {@code nop}'s excluded.
+	 *
+	 * @param block the block
+	 * @return the bytecodes
+	 */
+
+	private static List<Bytecode> bytecodes(Block block) {
+		List<Bytecode> code = new ArrayList<>();
+		for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+			if (!(cursor.getHead() instanceof NOP))
+				code.add(cursor.getHead());
+
+		return code;
+	}
+
+	/**
+	 * Builds a list of bytecodes from a sequence of bytecodes.
+	 *
+	 * @param code the sequence, possibly empty
+	 * @return the list. This is a {@code nop} if {@code code} is empty
+	 */
+
+	private static BytecodeList toList(List<Bytecode> code) {
+		BytecodeList result = null;
+		for (int pos = code.size() - 1; pos >= 0; pos--)
+			result = new BytecodeList(code.get(pos), result);
+
+		return result != null ? result : new BytecodeList(new NOP(0));
+	}
+}
@@ -0,0 +1,230 @@
+package translation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import types.CodeSignature;
+import types.MethodSignature;
+import bytecode.Bytecode;
+import bytecode.BytecodeList;
+import bytecode.LOAD;
+import bytecode.SPAWN;
+import bytecode.STORE;
+import bytecode.SYNC;
+
+/**
+ * The graph of the blocks of code of a method or constructor, with the
+ * information that is needed by the optimisations of the Kitten code:
+ * the predecessors of each block, the loops and the local variables in use.
+ * The graph is a snapshot: it must be rebuilt after the blocks are modified.
+ *
+ * @author Federico Bianchi
+ */
+
+public class CodeGraph {
+
+	/**
+	 * The method or constructor whose code is represented by this graph.
+	 */
+
+	private final CodeSignature sig;
+
+	/**
+	 * The blocks of the code, in depth-first order from the first block.
+	 */
+
+	private final List<Block> blocks = new ArrayList<>();
+
+	/**
+	 * A map from each block to its predecessors.
+	 */
+
+	private final Map<Block, List<Block>> predecessors = new HashMap<>();
+
+	/**
+	 * The number of local variables used by the code.
+	 */
+
+	private int maxLocals;
+
+	/**
+	 * True if and only if the code spawns calls or waits for them.
+	 */
+
+	private boolean spawns;
+
+	/**
+	 * Builds the graph of the blocks of code of the given method or constructor.
+	 *
+	 * @param sig the method or constructor, that must have been already translated
+	 */
+
+	public CodeGraph(CodeSignature sig) {
+		this.sig = sig;
+
+		// the receiver, if any, and the parameters are local variables
+		this.maxLocals = sig.getParameters().getSize() + (hasReceiver() ? 1 : 0);
+
+		visit(sig.getCode(), new HashSet<Block>());
+
+		for (Block block: blocks)
+			for (Block follow: block.getFollows())
+				predecessors.get(follow).add(block);
+	}
+
+	/**
+	 * Auxiliary method that adds to {@link #blocks} the given block and all
+	 * those reachable from it.
+	 *
+	 * @param block the block
+	 * @param done the blocks already added
+	 */
+
+	private void visit(Block block, Set<Block> done) {
+		if (done.add(block)) {
+			blocks.add(block);
+			predecessors.put(block, new ArrayList<Block>());
+
+			for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail()) {
+				Bytecode bytecode = cursor.getHead();
+				if (bytecode instanceof LOAD)
+					maxLocals = Math.max(maxLocals, ((LOAD) bytecode).getVarNum() + 1);
+				else if (bytecode instanceof STORE)
+					maxLocals = Math.max(maxLocals, ((STORE) bytecode).getVarNum() + 1);
+				else if (bytecode instanceof SPAWN || bytecode instanceof SYNC)
+					spawns = true;
+			}
+
+			for (Block follow: block.getFollows())
+				visit(follow, done);
+		}
+	}
+
+	/**
+	 * Yields the method or constructor whose code is represented by this graph.
+	 *
+	 * @return the method or constructor
+	 */
+
+	public CodeSignature getSignature() {
+		return sig;
+	}
+
+	/**
+	 * Yields the blocks of the code, in depth-first order from the first block.
+	 *
+	 * @return the blocks
+	 */
+
+	public List<Block> getBlocks() {
+		return blocks;
+	}
+
+	/**
+	 * Yields the predecessors of a block of this graph.
+	 *
+	 * @param block the block
+	 * @return the predecessors of {@code block}
+	 */
+
+	public List<Block> getPredecessors(Block block) {
+		return predecessors.get(block);
+	}
+
+	/**
+	 * Determines if the code spawns calls or waits for them. The activations
+	 * of such a code have their own frame of spawned calls.
+	 *
+	 * @return true if and only if the code contains a {@code spawn} or a {@code sync}
+	 */
+
+	public boolean spawns() {
+		return spawns;
+	}
+
+	/**
+	 * Yields the number of local variables used by the code. Local variables
+	 * are numbered from 0, hence this is also the first free local variable.
+	 *
+	 * @return the number of local variables
+	 */
+
+	public int getMaxLocals() {
+		return maxLocals;
+	}
+
+	/**
+	 * Determines if local variable 0 holds the receiver {@code this} of the code.
+	 * This is the case for constructors and for all methods but the static ones,
+	 * that is, {@code main} and the bodies of the parallel loops inside it.
+	 * Tests and fixtures have a receiver too: the object they work on.
+	 * The receiver is never {@code nil}.
+	 *
+	 * @return true if and only if local variable 0 holds the receiver of the code
+	 */
+
+	public boolean hasReceiver() {
+		return !(sig instanceof MethodSignature && ((MethodSignature) sig).isStatic());
+	}
+
+	/**
+	 * Yields the heads of the loops of the code.
+	 *
+	 * @return the heads of the loops
+	 */
+
+	public List<Block> getLoopHeads() {
+		List<Block> heads = new ArrayList<>();
+
+		for (Block block: blocks)
+			if (block.isLoopHead())
+				heads.add(block);
+
+		return heads;
+	}
+
+	/**
+	 * Yields the blocks of the loop with the given head. They are those
+	 * reachable from the head and from which the head is reachable.
+	 * Since Kitten loops are structured, this is the natural loop of the head.
+	 *
+	 * @param head the head of the loop
+	 * @return the blocks of the loop, starting with {@code head}
+	 */
+
+	public Set<Block> getLoop(Block head) {
+		Set<Block> forward = new HashSet<>();
+		reachableFrom(head, forward);
+
+		// we go backwards from the head, staying inside the blocks reachable from it
+		Set<Block> loop = new LinkedHashSet<>();
+		List<Block> workList = new ArrayList<>();
+		loop.add(head);
+		workList.add(head);
+
+		while (!workList.isEmpty())
+			for (Block pred: predecessors.get(workList.remove(workList.size() - 1)))
+				if (forward.contains(pred) && loop.add(pred))
+					workList.add(pred);
+
+		return loop;
+	}
+
+	/**
+	 * Auxiliary method that collects the blocks reachable from a given block.
+	 *
+	 * @param block the block
+	 * @param reached the set where the reachable blocks are collected
+	 */
+
+	private static void reachableFrom(Block block, Set<Block> reached) {
+		if (reached.add(block))
+			for (Block follow: block.getFollows())
+				reachableFrom(follow, reached);
+	}
+}
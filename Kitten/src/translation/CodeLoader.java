@@ -0,0 +1,24 @@
+package translation;
+
+import types.CodeSignature;
+
+/**
+ * A provider of the Kitten code of constructors and methods that
+ * have not been translated from their source, but that are decoded
+ * on demand from some other representation.
+ *
+ * @author Federico Bianchi
+ */
+
+public interface CodeLoader {
+
+	/**
+	 * Yields the Kitten code of a constructor or method.
+	 *
+	 * @param sig the constructor or method
+	 * @return the block where the code of {@code sig} starts, already
+	 *         containing the prefix expected for {@code sig}
+	 */
+
+	Block load(CodeSignature sig);
+}
@@ -0,0 +1,584 @@
+package translation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import types.ClassMemberSignature;
+import types.ClassType;
+import types.CodeSignature;
+import types.Intrinsics;
+import types.MethodSignature;
+import types.Type;
+import types.TypeList;
+import bytecode.Bytecode;
+import bytecode.BytecodeList;
+import bytecode.CALL;
+import bytecode.CAST;
+import bytecode.COUNT;
+import bytecode.IF_TRUE;
+import bytecode.INSTANCEOF;
+import bytecode.LOAD;
+import bytecode.NOP;
+import bytecode.NULLCHECK;
+import bytecode.RETURN;
+import bytecode.STORE;
+import bytecode.VIRTUALCALL;
+
+/**
+ * An inliner of small methods for the Kitten code of a program. A call
+ * whose dynamic targets are all small methods is replaced by a copy of
+ * their code, whose local variables are moved after those of the caller.
+ * The receiver and the parameters of the call are stored into the local
+ * variables that the copy uses for {@code this} and for its parameters,
+ * after checking that the receiver is not {@code nil}. Each {@code return}
+ * of the copy becomes a jump to the code that followed the call.
+ * <br><br>
+ * If there is a single dynamic target, its code replaces the call. If there
+ * are more (up to {@link #MAX_TARGETS}), the run-time class of the receiver
+ * selects the copy to execute, starting from the targets defined deeper
+ * in the class hierarchy. This guarded form is only used at the highest
+ * optimisation level. Calls are never inlined inside the copies themselves.
+ * <br><br>
+ * If the code has been annotated with a {@link Profile}, the hottest calls are
+ * inlined first, calls that have never been executed are not inlined and
+ * calls executed at least {@link #HOT_CALLS} times can inline larger methods,
+ * up to {@link #MAX_HOT_SIZE} bytecodes. The guards of a call with more dynamic
+ * targets check the most executed targets first, as long as a target is never
+ * checked before the targets that redefine it in a subclass.
+ *
+ * @author Federico Bianchi
+ */
+
+public class Inliner {
+
+	/**
+	 * The maximal number of bytecodes of a method that can be inlined.
+	 */
+
+	public final static int MAX_SIZE = 16;
+
+	/**
+	 * The maximal number of bytecodes of a method that can be inlined at a hot call.
+	 */
+
+	public final static int MAX_HOT_SIZE = 4 * MAX_SIZE;
+
+	/**
+	 * The number of executions, according to the profile, that make a call hot.
+	 */
+
+	public final static long HOT_CALLS = 1000;
+
+	/**
+	 * The maximal number of dynamic targets of a call that can be inlined.
+	 */
+
+	public final static int MAX_TARGETS = 3;
+
+	/**
+	 * The maximal number of bytecodes that can be added to a single method or constructor.
+	 */
+
+	public final static int MAX_GROWTH = 400;
+
+	/**
+	 * The program whose code gets optimised.
+	 */
+
+	private final Program program;
+
+	/**
+	 * True if and only if calls with more than a dynamic target can be inlined.
+	 */
+
+	private final boolean guarded;
+
+	/**
+	 * The number of calls with a single dynamic target that have been inlined so far.
+	 */
+
+	private int monomorphicCalls;
+
+	/**
+	 * The number of calls with more dynamic targets that have been inlined so far.
+	 */
+
+	private int polymorphicCalls;
+
+	/**
+	 * Builds the inliner for the given program.
+	 *
+	 * @param program the program
+	 * @param guarded true if and only if calls with more than a dynamic target can be inlined
+	 */
+
+	public Inliner(Program program, boolean guarded) {
+		this.program = program;
+		this.guarded = guarded;
+	}
+
+	/**
+	 * Yields the number of calls with a single dynamic target that have been inlined so far.
+	 *
+	 * @return the number of calls
+	 */
+
+	public int getMonomorphicCalls() {
+		return monomorphicCalls;
+	}
+
+	/**
+	 * Yields the number of calls with more dynamic targets that have been inlined so far.
+	 *
+	 * @return the number of calls
+	 */
+
+	public int getPolymorphicCalls() {
+		return polymorphicCalls;
+	}
+
+	/**
+	 * Inlines the calls inside all methods and constructors of the program.
+	 */
+
+	public void inline() {
+		for (ClassMemberSignature sig: program.getSigs())
+			if (sig instanceof CodeSignature)
+				inline((CodeSignature) sig);
+	}
+
+	/**
+	 * Inlines the calls inside a method or constructor.
+	 *
+	 * @param caller the method or constructor
+	 */
+
+	private void inline(CodeSignature caller) {
+		CodeGraph graph = new CodeGraph(caller);
+		int nextLocal = graph.getMaxLocals();
+		int growth = 0;
+
+		// the blocks still to scan, the hottest at the end. Copies of inlined code are never added
+		List<Block> workList = new ArrayList<>(graph.getBlocks());
+		Collections.sort(workList, new Comparator<Block>() {
+
+			@Override
+			public int compare(Block block1, Block block2) {
+				return Long.compare(block1.getFrequency(), block2.getFrequency());
+			}
+		});
+
+		while (!workList.isEmpty()) {
+			Block block = workList.remove(workList.size() - 1);
+			List<Bytecode> code = new ArrayList<>();
+			for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+				code.add(cursor.getHead());
+
+			// calls that have never been executed are not worth the growth
+			if (block.getFrequency() == 0)
+				continue;
+
+			int maxSize = block.getFrequency() >= HOT_CALLS ? MAX_HOT_SIZE : MAX_SIZE;
+
+			for (int pos = 0; pos < code.size(); pos++) {
+				List<MethodSignature> targets = inlinableTargets(code.get(pos), caller, maxSize);
+				if (targets == null)
+					continue;
+
+				int size = 0, locals = 0;
+				for (MethodSignature target: targets) {
+					CodeGraph targetGraph = new CodeGraph(target);
+					size += size(targetGraph);
+					locals = Math.max(locals, targetGraph.getMaxLocals());
+				}
+
+				if (growth + size > MAX_GROWTH)
+					continue;
+
+				// the code after the call is scanned later, since it is moved into a new block
+				workList.add(inline(block, code, pos, targets, nextLocal));
+				nextLocal += locals;
+				growth += size;
+
+				if (targets.size() == 1)
+					monomorphicCalls++;
+				else
+					polymorphicCalls++;
+
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Yields the dynamic targets of a bytecode, if it is a call that can be inlined.
+	 *
+	 * @param bytecode the bytecode
+	 * @param caller the method or constructor that contains {@code bytecode}
+	 * @param maxSize the maximal number of bytecodes of a target
+	 * @return the dynamic targets of {@code bytecode}, in the order they must be checked,
+	 *         or {@code null} if {@code bytecode} cannot be inlined
+	 */
+
+	private List<MethodSignature> inlinableTargets(Bytecode bytecode, CodeSignature caller, int maxSize) {
+		// constructors cannot be inlined, since Java requires them to initialise the object
+		if (!(bytecode instanceof VIRTUALCALL))
+			return null;
+
+		List<MethodSignature> targets = new ArrayList<>();
+		for (CodeSignature target: ((CALL) bytecode).getDynamicTargets())
+			if (isInlinable(target, caller, maxSize))
+				targets.add((MethodSignature) target);
+			else
+				return null;
+
+		if (targets.isEmpty() || targets.size() > (guarded ? MAX_TARGETS : 1))
+			return null;
+
+		Collections.sort(targets, new Comparator<MethodSignature>() {
+
+			@Override
+			public int compare(MethodSignature m1, MethodSignature m2) {
+				return depth(m2.getDefiningClass()) - depth(m1.getDefiningClass());
+			}
+		});
+
+		return hottestFirst(targets);
+	}
+
+	/**
+	 * Reorders the dynamic targets of a call so that the most executed are checked first,
+	 * according to the frequency of their code. A target is never moved before a target
+	 * defined in a subclass of its defining class, or the latter would never be selected.
+	 *
+	 * @param targets the dynamic targets, from those defined deeper in the class hierarchy
+	 * @return the reordered targets. They are in the same order if the frequencies are not known
+	 */
+
+	private static List<MethodSignature> hottestFirst(List<MethodSignature> targets) {
+		List<MethodSignature> remaining = new ArrayList<>(targets);
+		List<MethodSignature> result = new ArrayList<>();
+
+		while (!remaining.isEmpty()) {
+			MethodSignature best = null;
+			for (MethodSignature target: remaining)
+				if (!isRedefined(target, remaining) && (best == null || target.getCode().isHotterThan(best.getCode())))
+					best = target;
+
+			remaining.remove(best);
+			result.add(best);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Determines if a dynamic target is redefined by some other target, in a subclass of its defining class.
+	 *
+	 * @param target the dynamic target
+	 * @param others the other targets
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isRedefined(MethodSignature target, List<MethodSignature> others) {
+		for (MethodSignature other: others)
+			if (other != target && other.getDefiningClass() != target.getDefiningClass()
+					&& other.getDefiningClass().subclass(target.getDefiningClass()))
+				return true;
+
+		return false;
+	}
+
+	/**
+	 * Determines if a dynamic target of a call can be inlined.
+	 *
+	 * @param target the dynamic target
+	 * @param caller the method or constructor that contains the call
+	 * @param maxSize the maximal number of bytecodes of {@code target}
+	 * @return true if and only if {@code target} can be inlined inside {@code caller}
+	 */
+
+	private static boolean isInlinable(CodeSignature target, CodeSignature caller, int maxSize) {
+		return target instanceof MethodSignature && target != caller
+			// static methods, such as main, have no receiver
+			&& !((MethodSignature) target).isStatic()
+			// the bodies of the parallel loops are only called by the tasks that execute the loops
+			&& !((MethodSignature) target).isParallelBody()
+			// the methods of the intrinsic classes, such as String, are implemented in Java
+			&& !Intrinsics.isIntrinsic(target.getDefiningClass())
+			// the calls to a memoized method must go through its cache
+			&& !((MethodSignature) target).isMemo()
+			&& target.getCode() != null && isSmallAndSequential(new CodeGraph(target), maxSize);
+	}
+
+	/**
+	 * Determines if the code of a method is small enough to be inlined and
+	 * does not spawn calls, since the calls spawned by a method must be waited for
+	 * before the method returns.
+	 *
+	 * @param graph the graph of the code of the method
+	 * @param maxSize the maximal number of bytecodes of the method
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isSmallAndSequential(CodeGraph graph, int maxSize) {
+		return !graph.spawns() && size(graph) <= maxSize;
+	}
+
+	/**
+	 * Yields the number of bytecodes of some code, {@code nop}'s excluded.
+	 * Counters are excluded as well, so that an instrumented program
+	 * gets inlined as the program that it profiles.
+	 *
+	 * @param graph the graph of the code
+	 * @return the number of bytecodes
+	 */
+
+	private static int size(CodeGraph graph) {
+		int size = 0;
+		for (Block block: graph.getBlocks())
+			for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+				if (!(cursor.getHead() instanceof NOP) && !(cursor.getHead() instanceof COUNT))
+					size++;
+
+		return size;
+	}
+
+	/**
+	 * Yields the depth of a class in the class hierarchy.
+	 *
+	 * @param clazz the class
+	 * @return the number of strict superclasses of {@code clazz}
+	 */
+
+	private static int depth(ClassType clazz) {
+		int depth = 0;
+		for (ClassType cursor = clazz.getSuperclass(); cursor != null; cursor = cursor.getSuperclass())
+			depth++;
+
+		return depth;
+	}
+
+	/**
+	 * Replaces a call with the code of its dynamic targets. The block containing
+	 * the call is split: the code after the call is moved into a new block.
+	 *
+	 * @param block the block containing the call
+	 * @param code the bytecodes of {@code block}
+	 * @param pos the position of the call in {@code code}
+	 * @param targets the dynamic targets of the call, from those defined deeper in the class hierarchy
+	 * @param base the first local variable that can be used by the copies of the targets
+	 * @return the new block, holding the code after the call
+	 */
+
+	private Block inline(Block block, List<Bytecode> code, int pos, List<MethodSignature> targets, int base) {
+		CALL call = (CALL) code.get(pos);
+
+		Block continuation = new Block(toList(code.subList(pos + 1, code.size())), block.getFollows());
+		continuation.setFrequency(block.getFrequency());
+
+		// the executions of the targets are shared among the copies, in proportion
+		long entries = 0;
+		for (MethodSignature target: targets)
+			entries += Math.max(target.getCode().getFrequency(), 0);
+
+		Frequencies frequencies = new Frequencies(block.getFrequency(), entries);
+
+		// the actual parameters are on the stack, above the receiver, the last parameter being on top
+		List<Type> parameters = new ArrayList<>();
+		for (TypeList cursor = call.getStaticTarget().getParameters(); cursor != TypeList.EMPTY; cursor = cursor.getTail())
+			parameters.add(cursor.getHead());
+
+		// the copies of the targets are ascribed to the line of the call, since they might come from another source file
+		int line = call.getLine();
+
+		List<Bytecode> prefix = new ArrayList<>(code.subList(0, pos));
+		for (int par = parameters.size(); par > 0; par--)
+			prefix.add(new STORE(line, base + par, parameters.get(par - 1)));
+
+		prefix.add(new NULLCHECK(line));
+		prefix.add(new STORE(line, base, call.getReceiverType()));
+
+		List<Block> follows = new ArrayList<>();
+		follows.add(dispatch(targets, 0, (ClassType) call.getReceiverType(), base, line, continuation, frequencies));
+		block.setBytecode(toList(prefix));
+		block.setFollows(follows);
+
+		return continuation;
+	}
+
+	/**
+	 * Builds the code that selects the copy of a dynamic target to execute,
+	 * on the basis of the run-time class of the receiver. The last target
+	 * is selected without any check, since there is no other possibility.
+	 *
+	 * @param targets the dynamic targets, from those defined deeper in the class hierarchy
+	 * @param index the index of the first target in {@code targets} that is still to consider
+	 * @param receiverType the static type of the receiver
+	 * @param base the local variable holding the receiver
+	 * @param line the line of the source code of the call
+	 * @param continuation the block where the copies continue after returning
+	 * @param frequencies the scaling of the frequencies of the targets to those of their copies
+	 * @return the first block of the selection code
+	 */
+
+	private static Block dispatch(List<MethodSignature> targets, int index, ClassType receiverType, int base, int line, Block continuation, Frequencies frequencies) {
+		MethodSignature target = targets.get(index);
+		ClassType definingClass = target.getDefiningClass();
+		Block copy = copy(target.getCode(), base, line, continuation, new HashMap<Block, Block>(), frequencies);
+
+		// the receiver must look an instance of the defining class to the Java bytecode verifier
+		if (definingClass != receiverType && definingClass.subclass(receiverType)) {
+			List<Bytecode> cast = new ArrayList<>();
+			cast.add(new LOAD(line, base, receiverType));
+			cast.add(new CAST(line, receiverType, definingClass));
+			cast.add(new STORE(line, base, definingClass));
+			copy = new Block(toList(cast), singleton(copy));
+		}
+
+		if (index == targets.size() - 1)
+			return copy;
+
+		List<Bytecode> check = new ArrayList<>();
+		check.add(new LOAD(line, base, receiverType));
+		check.add(new INSTANCEOF(line, definingClass));
+
+		// the check leaves a Boolean value on the stack, that decides the branch
+		Block branch = new Block(new IF_TRUE(line), copy, dispatch(targets, index + 1, receiverType, base, line, continuation, frequencies));
+		return new Block(toList(check), branch.getFollows());
+	}
+
+	/**
+	 * Copies some code, moving its local variables by a given offset.
+	 * The {@code return}'s of the code become jumps to a continuation.
+	 *
+	 * @param block the first block of the code
+	 * @param base the offset of the local variables
+	 * @param line the line of the source code the copy is ascribed to
+	 * @param continuation the continuation
+	 * @param copies the blocks copied so far, with their copy
+	 * @param frequencies the scaling of the frequencies of the code to those of the copy
+	 * @return the copy of {@code block}
+	 */
+
+	private static Block copy(Block block, int base, int line, Block continuation, Map<Block, Block> copies, Frequencies frequencies) {
+		Block copy = copies.get(block);
+		if (copy != null)
+			return copy;
+
+		copy = new Block(new BytecodeList(new NOP(line)), new ArrayList<Block>());
+		copy.setFrequency(frequencies.scale(block.getFrequency()));
+		copies.put(block, copy);
+
+		List<Bytecode> code = new ArrayList<>();
+		boolean returns = false;
+
+		for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail()) {
+			Bytecode bytecode = cursor.getHead();
+
+			if (bytecode instanceof LOAD)
+				code.add(new LOAD(line, base + ((LOAD) bytecode).getVarNum(), ((LOAD) bytecode).getType()));
+			else if (bytecode instanceof STORE)
+				code.add(new STORE(line, base + ((STORE) bytecode).getVarNum(), ((STORE) bytecode).getType()));
+			else if (bytecode instanceof RETURN)
+				// the returned value, if any, is left on the stack for the continuation
+				returns = true;
+			else
+				code.add(bytecode.getLine() == line ? bytecode : bytecode.copyAt(line));
+		}
+
+		copy.setBytecode(toList(code));
+
+		if (returns)
+			copy.getFollows().add(continuation);
+		else
+			for (Block follow: block.getFollows())
+				copy.getFollows().add(copy(follow, base, line, continuation, copies, frequencies));
+
+		if (block.isLoopHead()) {
+			copy.setLoopHead(true);
+			copy.doNotMerge();
+		}
+
+		return copy;
+	}
+
+	/**
+	 * The scaling of the frequencies of the blocks of the targets of a call
+	 * to those of their copies, that are only executed by that call.
+	 */
+
+	private static class Frequencies {
+
+		/**
+		 * The number of executions of the call, or -1 if it is not known.
+		 */
+
+		private final long calls;
+
+		/**
+		 * The number of executions of the targets of the call, from everywhere.
+		 */
+
+		private final long entries;
+
+		/**
+		 * Builds the scaling for a call.
+		 *
+		 * @param calls the number of executions of the call, or -1 if it is not known
+		 * @param entries the number of executions of the targets of the call, from everywhere
+		 */
+
+		private Frequencies(long calls, long entries) {
+			this.calls = calls;
+			this.entries = entries;
+		}
+
+		/**
+		 * Scales the frequency of a block of a target to that of its copy.
+		 *
+		 * @param frequency the frequency of the block, or -1 if it is not known
+		 * @return the frequency of the copy, or -1 if it is not known
+		 */
+
+		private long scale(long frequency) {
+			if (frequency < 0 || calls < 0 || entries <= 0)
+				return -1;
+			else
+				return Math.round((double) frequency * calls / entries);
+		}
+	}
+
+	/**
+	 * Builds a list of bytecodes from a sequence of bytecodes.
+	 *
+	 * @param code the sequence, possibly empty
+	 * @return the list. This is a {@code nop} if {@code code} is empty
+	 */
+
+	private static BytecodeList toList(List<Bytecode> code) {
+		BytecodeList result = null;
+		for (int pos = code.size() - 1; pos >= 0; pos--)
+			result = new BytecodeList(code.get(pos), result);
+
+		return result != null ? result : new BytecodeList(new NOP(0));
+	}
+
+	/**
+	 * Builds a list of successors made of a single block.
+	 *
+	 * @param block the block
+	 * @return the list
+	 */
+
+	private static List<Block> singleton(Block block) {
+		List<Block> result = new ArrayList<>();
+		result.add(block);
+
+		return result;
+	}
+}
@@ -0,0 +1,226 @@
+package translation;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import types.ClassMemberSignature;
+import types.CodeSignature;
+import types.FixtureSignature;
+import types.Intrinsics;
+import types.TestSignature;
+import bytecode.BranchingBytecode;
+import bytecode.Bytecode;
+import bytecode.BytecodeList;
+import bytecode.CALL;
+import bytecode.COUNT;
+
+/**
+ * The instrumentation of a program with counters, that build its {@link Profile}.
+ * A counter is placed at the beginning of the code of each method and constructor,
+ * at the beginning of each successor of a block with more successors, that is,
+ * at the end of each edge of a branch or {@code switch}, and before each call. These
+ * are enough to infer the number of times each block is executed. The first counter
+ * of the program also starts profiling. The counters are placed on the code
+ * before the optimisations, so that they can be matched with the same code
+ * when the program is compiled again with the resulting profile.
+ *
+ * @author Federico Bianchi
+ */
+
+public class Instrumentation {
+
+	/**
+	 * The program whose code gets instrumented.
+	 */
+
+	private final Program program;
+
+	/**
+	 * The profile file updated by the instrumented program.
+	 */
+
+	private final String profile;
+
+	/**
+	 * The description of each counter placed so far, in order.
+	 */
+
+	private final List<String> counters = new ArrayList<>();
+
+	/**
+	 * Builds the instrumentation of the given program.
+	 *
+	 * @param program the program, that must not have been optimised yet
+	 * @param profile the profile file updated by the instrumented program
+	 */
+
+	public Instrumentation(Program program, String profile) {
+		this.program = program;
+		this.profile = profile;
+	}
+
+	/**
+	 * Yields the number of counters placed so far.
+	 *
+	 * @return the number of counters
+	 */
+
+	public int getCounters() {
+		return counters.size();
+	}
+
+	/**
+	 * Instruments all methods and constructors of the program. They are
+	 * considered in a fixed order, so that the counters are always the same.
+	 */
+
+	public void instrument() {
+		List<CodeSignature> sigs = new ArrayList<>();
+		for (ClassMemberSignature sig: program.getSigs())
+			// tests and fixtures are not run by the program, intrinsic classes are not compiled
+			if (sig instanceof CodeSignature && !(sig instanceof TestSignature) && !(sig instanceof FixtureSignature)
+					&& ((CodeSignature) sig).getCode() != null && !Intrinsics.isIntrinsic(sig.getDefiningClass()))
+				sigs.add((CodeSignature) sig);
+
+		Collections.sort(sigs, new Comparator<CodeSignature>() {
+
+			@Override
+			public int compare(CodeSignature sig1, CodeSignature sig2) {
+				return sig1.toString().compareTo(sig2.toString());
+			}
+		});
+
+		int start = -1;
+		for (CodeSignature sig: sigs) {
+			if (sig == program.getStart())
+				start = counters.size();
+
+			instrument(new CodeGraph(sig));
+		}
+
+		// the first counter of the program starts profiling
+		if (start >= 0)
+			startProfiling(program.getStart().getCode(), start);
+	}
+
+	/**
+	 * Instruments the code of a method or constructor.
+	 *
+	 * @param graph the graph of the code
+	 */
+
+	private void instrument(CodeGraph graph) {
+		CodeSignature sig = graph.getSignature();
+		List<Block> blocks = graph.getBlocks();
+
+		// the blocks are chosen before being modified
+		Set<Block> counted = new HashSet<>();
+		counted.add(blocks.get(0));
+		for (Block block: blocks)
+			if (block.getFollows().size() > 1)
+				counted.addAll(block.getFollows());
+
+		int calls = 0;
+		for (int pos = 0; pos < blocks.size(); pos++) {
+			Block block = blocks.get(pos);
+			List<Bytecode> code = new ArrayList<>();
+			for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail()) {
+				Bytecode bytecode = cursor.getHead();
+
+				if (bytecode instanceof CALL)
+					code.add(count(Profile.callCounter(sig, calls++), bytecode));
+
+				code.add(bytecode);
+			}
+
+			if (counted.contains(block))
+				// the condition of a branch must remain at the beginning of the block
+				if (code.get(0) instanceof BranchingBytecode)
+					code.add(1, count(Profile.blockCounter(sig, pos), code.get(0)));
+				else
+					code.add(0, count(Profile.blockCounter(sig, pos), code.get(0)));
+
+			if (code.size() > countBytecodes(block)) {
+				BytecodeList result = null;
+				for (int i = code.size() - 1; i >= 0; i--)
+					result = new BytecodeList(code.get(i), result);
+
+				block.setBytecode(result);
+			}
+		}
+	}
+
+	/**
+	 * Yields a new counter.
+	 *
+	 * @param description the description of the counter
+	 * @param near the bytecode whose source line is ascribed to the counter
+	 * @return the bytecode that increments the counter
+	 */
+
+	private Bytecode count(String description, Bytecode near) {
+		counters.add(description);
+		return new COUNT(near.getLine(), counters.size() - 1);
+	}
+
+	/**
+	 * Yields the number of bytecodes inside a block.
+	 *
+	 * @param block the block
+	 * @return the number of bytecodes
+	 */
+
+	private static int countBytecodes(Block block) {
+		int size = 0;
+		for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+			size++;
+
+		return size;
+	}
+
+	/**
+	 * Replaces the counter of the first block of the program with one that also starts profiling.
+	 *
+	 * @param first the first block of the code of the program
+	 * @param counter the counter of that block
+	 */
+
+	private void startProfiling(Block first, int counter) {
+		List<Bytecode> code = new ArrayList<>();
+		for (BytecodeList cursor = first.getBytecode(); cursor != null; cursor = cursor.getTail()) {
+			Bytecode bytecode = cursor.getHead();
+			if (bytecode instanceof COUNT && ((COUNT) bytecode).getCounter() == counter)
+				bytecode = new COUNT(bytecode.getLine(), counter, profile, counters.size());
+
+			code.add(bytecode);
+		}
+
+		BytecodeList result = null;
+		for (int pos = code.size() - 1; pos >= 0; pos--)
+			result = new BytecodeList(code.get(pos), result);
+
+		first.setBytecode(result);
+	}
+
+	/**
+	 * Writes the profile file of the instrumented program, with all counters set to zero.
+	 * The program adds its counts to this file whenever it terminates.
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+
+	public void save() throws IOException {
+		try (PrintWriter writer = new PrintWriter(new FileWriter(profile))) {
+			writer.println("# Kitten profile: count and counter");
+			for (String counter: counters)
+				writer.println("0 " + counter);
+		}
+	}
+}
@@ -0,0 +1,366 @@
+package translation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.bcel.generic.ReferenceType;
+
+import types.ClassMemberSignature;
+import types.CodeSignature;
+import types.Type;
+import bytecode.Bytecode;
+import bytecode.BytecodeList;
+import bytecode.LOAD;
+import bytecode.STORE;
+
+/**
+ * The allocation of the local variables of the Kitten code of a program.
+ * The type-checker already gives the same number to variables declared in
+ * disjoint scopes, but the optimisations of the Kitten code introduce new
+ * local variables, such as those holding the parameters of the inlined calls
+ * or the loop-invariant expressions, that are never reused. This allocation
+ * computes which local variables are live at the same time and renumbers
+ * them so that variables whose live ranges do not overlap share the same
+ * number. A number is only shared among variables of the same kind
+ * ({@code int} or Boolean, {@code float}, reference), so that each number
+ * keeps a single Java type. The receiver and the parameters are never renumbered.
+ *
+ * @author Federico Bianchi
+ */
+
+public class LocalVariableAllocation {
+
+	/**
+	 * The program whose code gets optimised.
+	 */
+
+	private final Program program;
+
+	/**
+	 * The number of local variables saved so far.
+	 */
+
+	private int saved;
+
+	/**
+	 * Builds the allocator for the given program.
+	 *
+	 * @param program the program
+	 */
+
+	public LocalVariableAllocation(Program program) {
+		this.program = program;
+	}
+
+	/**
+	 * Yields the number of local variables saved so far.
+	 *
+	 * @return the number of local variables
+	 */
+
+	public int getSaved() {
+		return saved;
+	}
+
+	/**
+	 * Renumbers the local variables of all methods and constructors of the program.
+	 */
+
+	public void optimise() {
+		for (ClassMemberSignature sig: program.getSigs())
+			if (sig instanceof CodeSignature)
+				optimise((CodeSignature) sig);
+	}
+
+	/**
+	 * Renumbers the local variables of a method or constructor.
+	 *
+	 * @param sig the method or constructor
+	 */
+
+	private void optimise(CodeSignature sig) {
+		CodeGraph graph = new CodeGraph(sig);
+		List<Block> blocks = graph.getBlocks();
+
+		// the receiver, if any, and the parameters keep their number
+		int fixed = sig.getParameters().getSize() + (graph.hasReceiver() ? 1 : 0);
+
+		// the variables, that is, the pairs of a number and a kind, in order of appearance
+		Map<Integer, Integer> variables = new LinkedHashMap<>();
+		for (Block block: blocks)
+			for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail()) {
+				int variable = variableOf(cursor.getHead(), fixed);
+				if (variable >= 0 && !variables.containsKey(variable))
+					variables.put(variable, variables.size());
+			}
+
+		if (variables.isEmpty())
+			return;
+
+		Map<Block, BitSet> liveIn = liveness(blocks, graph, variables, fixed);
+
+		// the variables live at the beginning of the code are read before being written: they are not renumbered
+		BitSet pinned = liveIn.get(blocks.get(0));
+
+		List<BitSet> interference = new ArrayList<>();
+		for (int count = 0; count < variables.size(); count++)
+			interference.add(new BitSet());
+
+		for (Block block: blocks) {
+			BitSet live = liveOut(block, liveIn);
+			List<Bytecode> code = bytecodes(block);
+
+			for (int pos = code.size() - 1; pos >= 0; pos--) {
+				int variable = variableOf(code.get(pos), fixed);
+				if (variable < 0)
+					continue;
+
+				int index = variables.get(variable);
+				if (code.get(pos) instanceof STORE) {
+					// a variable written here interferes with all those that are alive after this point
+					for (int other = live.nextSetBit(0); other >= 0; other = live.nextSetBit(other + 1))
+						if (other != index) {
+							interference.get(index).set(other);
+							interference.get(other).set(index);
+						}
+
+					live.clear(index);
+				}
+				else
+					live.set(index);
+			}
+		}
+
+		// the new number of each variable, chosen greedily
+		int[] numbers = new int[variables.size()];
+		Arrays.fill(numbers, -1);
+		List<List<Integer>> pools = new ArrayList<>();
+		for (int kind = 0; kind < 3; kind++)
+			pools.add(new ArrayList<Integer>());
+
+		// the pinned variables keep their number
+		int next = fixed;
+		for (Map.Entry<Integer, Integer> entry: variables.entrySet())
+			if (pinned.get(entry.getValue())) {
+				numbers[entry.getValue()] = entry.getKey() / 3;
+				next = Math.max(next, entry.getKey() / 3 + 1);
+			}
+
+		for (Map.Entry<Integer, Integer> entry: variables.entrySet()) {
+			int index = entry.getValue();
+			if (pinned.get(index))
+				continue;
+
+			List<Integer> pool = pools.get(entry.getKey() % 3);
+
+			for (int number: pool)
+				if (!conflicts(number, interference.get(index), numbers)) {
+					numbers[index] = number;
+					break;
+				}
+
+			if (numbers[index] < 0) {
+				// a new number is needed for this kind of variables
+				while (isPinned(next, pinned, variables))
+					next++;
+
+				numbers[index] = next++;
+				pool.add(numbers[index]);
+			}
+		}
+
+		int before = graph.getMaxLocals();
+		for (Block block: blocks)
+			renumber(block, numbers, variables, fixed);
+
+		saved += before - new CodeGraph(sig).getMaxLocals();
+	}
+
+	/**
+	 * Computes the variables that are alive at the beginning of each block.
+	 *
+	 * @param blocks the blocks of the code
+	 * @param graph the graph of the code
+	 * @param variables the variables of the code, with their index
+	 * @param fixed the first local variable that can be renumbered
+	 * @return a map from each block to the indexes of the variables alive at its beginning
+	 */
+
+	private static Map<Block, BitSet> liveness(List<Block> blocks, CodeGraph graph, Map<Integer, Integer> variables, int fixed) {
+		Map<Block, BitSet> liveIn = new HashMap<>();
+		for (Block block: blocks)
+			liveIn.put(block, new BitSet());
+
+		List<Block> workList = new ArrayList<>(blocks);
+		while (!workList.isEmpty()) {
+			Block block = workList.remove(workList.size() - 1);
+
+			BitSet live = liveOut(block, liveIn);
+			List<Bytecode> code = bytecodes(block);
+			for (int pos = code.size() - 1; pos >= 0; pos--) {
+				int variable = variableOf(code.get(pos), fixed);
+				if (variable >= 0)
+					if (code.get(pos) instanceof STORE)
+						live.clear(variables.get(variable));
+					else
+						live.set(variables.get(variable));
+			}
+
+			if (!live.equals(liveIn.get(block))) {
+				liveIn.put(block, live);
+				for (Block pred: graph.getPredecessors(block))
+					if (!workList.contains(pred))
+						workList.add(pred);
+			}
+		}
+
+		return liveIn;
+	}
+
+	/**
+	 * Yields the variables that are alive at the end of a block.
+	 *
+	 * @param block the block
+	 * @param liveIn the variables alive at the beginning of each block
+	 * @return a fresh set with the indexes of the variables alive at the end of {@code block}
+	 */
+
+	private static BitSet liveOut(Block block, Map<Block, BitSet> liveIn) {
+		BitSet live = new BitSet();
+		for (Block follow: block.getFollows())
+			live.or(liveIn.get(follow));
+
+		return live;
+	}
+
+	/**
+	 * Determines if a number is already used by a variable that interferes with the given one.
+	 *
+	 * @param number the number
+	 * @param interferences the indexes of the variables that interfere with the given one
+	 * @param numbers the numbers chosen so far
+	 * @return true if and only if {@code number} cannot be given to the variable
+	 */
+
+	private static boolean conflicts(int number, BitSet interferences, int[] numbers) {
+		for (int other = interferences.nextSetBit(0); other >= 0; other = interferences.nextSetBit(other + 1))
+			if (numbers[other] == number)
+				return true;
+
+		return false;
+	}
+
+	/**
+	 * Determines if a number is kept by a pinned variable.
+	 *
+	 * @param number the number
+	 * @param pinned the indexes of the pinned variables
+	 * @param variables the variables of the code, with their index
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isPinned(int number, BitSet pinned, Map<Integer, Integer> variables) {
+		for (Map.Entry<Integer, Integer> entry: variables.entrySet())
+			if (pinned.get(entry.getValue()) && entry.getKey() / 3 == number)
+				return true;
+
+		return false;
+	}
+
+	/**
+	 * Replaces the numbers of the variables of a block with their new numbers.
+	 *
+	 * @param block the block
+	 * @param numbers the new number of each variable
+	 * @param variables the variables of the code, with their index
+	 * @param fixed the first local variable that can be renumbered
+	 */
+
+	private static void renumber(Block block, int[] numbers, Map<Integer, Integer> variables, int fixed) {
+		List<Bytecode> code = new ArrayList<>();
+		for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail()) {
+			Bytecode bytecode = cursor.getHead();
+			int variable = variableOf(bytecode, fixed);
+
+			if (variable < 0)
+				code.add(bytecode);
+			else if (bytecode instanceof LOAD)
+				code.add(new LOAD(bytecode.getLine(), numbers[variables.get(variable)], ((LOAD) bytecode).getType()));
+			else
+				code.add(new STORE(bytecode.getLine(), numbers[variables.get(variable)], ((STORE) bytecode).getType(), ((STORE) bytecode).getName()));
+		}
+
+		BytecodeList result = null;
+		for (int pos = code.size() - 1; pos >= 0; pos--)
+			result = new BytecodeList(code.get(pos), result);
+
+		block.setBytecode(result);
+	}
+
+	/**
+	 * Yields the variable accessed by a bytecode. A variable is identified
+	 * by its number and by the kind of its values.
+	 *
+	 * @param bytecode the bytecode
+	 * @param fixed the first local variable that can be renumbered
+	 * @return the variable, as {@code 3 * number + kind}, or -1 if {@code bytecode}
+	 *         does not access a local variable that can be renumbered
+	 */
+
+	private static int variableOf(Bytecode bytecode, int fixed) {
+		int varNum;
+		Type type;
+
+		if (bytecode instanceof LOAD) {
+			varNum = ((LOAD) bytecode).getVarNum();
+			type = ((LOAD) bytecode).getType();
+		}
+		else if (bytecode instanceof STORE) {
+			varNum = ((STORE) bytecode).getVarNum();
+			type = ((STORE) bytecode).getType();
+		}
+		else
+			return -1;
+
+		return varNum < fixed ? -1 : 3 * varNum + kindOf(type);
+	}
+
+	/**
+	 * Yields the kind of the values of a type: 0 for {@code int} and Boolean,
+	 * 1 for {@code float} and 2 for references.
+	 *
+	 * @param type the type
+	 * @return the kind of {@code type}
+	 */
+
+	private static int kindOf(Type type) {
+		org.apache.bcel.generic.Type bcel = type.toBCEL();
+
+		if (bcel instanceof ReferenceType)
+			return 2;
+		else if (bcel == org.apache.bcel.generic.Type.FLOAT)
+			return 1;
+		else
+			return 0;
+	}
+
+	/**
+	 * Yields the bytecodes of a block.
+	 *
+	 * @param block the block
+	 * @return the bytecodes
+	 */
+
+	private static List<Bytecode> bytecodes(Block block) {
+		List<Bytecode> code = new ArrayList<>();
+		for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+			code.add(cursor.getHead());
+
+		return code;
+	}
+}
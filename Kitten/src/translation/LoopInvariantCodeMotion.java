@@ -0,0 +1,765 @@
+package translation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import types.BooleanType;
+import types.ClassMemberSignature;
+import types.CodeSignature;
+import types.FieldSignature;
+import types.IntType;
+import types.Intrinsics;
+import types.NilType;
+import types.ReferenceType;
+import types.Type;
+import bytecode.ARRAYCOPY;
+import bytecode.ARRAYFILL;
+import bytecode.ARRAYLOAD;
+import bytecode.ARRAYSTORE;
+import bytecode.ArithmeticBinOpBytecode;
+import bytecode.BinOpBytecode;
+import bytecode.BranchingBytecode;
+import bytecode.Bytecode;
+import bytecode.BytecodeList;
+import bytecode.CALL;
+import bytecode.CAST;
+import bytecode.CONST;
+import bytecode.DIV;
+import bytecode.DUP;
+import bytecode.GETFIELD;
+import bytecode.LOAD;
+import bytecode.NEG;
+import bytecode.NOP;
+import bytecode.POP;
+import bytecode.PUTFIELD;
+import bytecode.STORE;
+
+/**
+ * Loop-invariant code motion for the Kitten code of a program. The loops
+ * are those built for {@code while} and {@code for} commands. An expression
+ * inside a loop is invariant if it only reads local variables that are never
+ * assigned inside the loop, fields that are never written inside the loop
+ * (also by the methods and constructors it calls) and arrays, if no array
+ * is modified inside the loop. An invariant expression is computed once,
+ * in a new block executed before the loop, and stored into a new local variable,
+ * that replaces the expression inside the loop.
+ * <br><br>
+ * Allocations and calls are never moved. Expressions that might throw an
+ * exception (integer division, reference casts, array accesses and field
+ * accesses on a receiver that might be {@code nil}) are moved only from the
+ * head of the loop, that is executed whenever the loop is, and only if they
+ * are not preceded by code that might throw or have side-effects.
+ *
+ * @author Federico Bianchi
+ */
+
+public class LoopInvariantCodeMotion {
+
+	/**
+	 * The program whose code gets optimised.
+	 */
+
+	private final Program program;
+
+	/**
+	 * A map from each method or constructor of the program to the fields
+	 * that it might write, also through the methods and constructors it calls.
+	 */
+
+	private final Map<CodeSignature, Set<FieldSignature>> fieldsWritten = new HashMap<>();
+
+	/**
+	 * The methods and constructors of the program that might modify an array,
+	 * also through the methods and constructors they call.
+	 */
+
+	private final Set<CodeSignature> arrayWriters = new HashSet<>();
+
+	/**
+	 * The methods and constructors of the program that might write any field
+	 * or array, also through the methods and constructors they call. These are
+	 * the impure methods of the intrinsic classes, whose Kitten code is a dummy,
+	 * and their callers.
+	 */
+
+	private final Set<CodeSignature> anythingWriters = new HashSet<>();
+
+	/**
+	 * The number of loops that have been optimised so far.
+	 */
+
+	private int loops;
+
+	/**
+	 * The number of expressions that have been moved out of their loop so far.
+	 */
+
+	private int hoisted;
+
+	/**
+	 * Builds the optimiser for the given program.
+	 *
+	 * @param program the program
+	 */
+
+	public LoopInvariantCodeMotion(Program program) {
+		this.program = program;
+
+		computeWrites();
+	}
+
+	/**
+	 * Yields the number of loops that have been optimised so far.
+	 *
+	 * @return the number of loops
+	 */
+
+	public int getLoops() {
+		return loops;
+	}
+
+	/**
+	 * Yields the number of expressions that have been moved out of their loop so far.
+	 *
+	 * @return the number of expressions
+	 */
+
+	public int getHoisted() {
+		return hoisted;
+	}
+
+	/**
+	 * Optimises the code of all methods and constructors of the program.
+	 */
+
+	public void optimise() {
+		for (ClassMemberSignature sig: program.getSigs())
+			if (sig instanceof CodeSignature)
+				optimise((CodeSignature) sig);
+	}
+
+	/**
+	 * Computes {@link #fieldsWritten}, {@link #arrayWriters} and {@link #anythingWriters},
+	 * first by looking at the code of each method or constructor and then by
+	 * propagating the information from callees to callers, up to a fixpoint.
+	 */
+
+	private void computeWrites() {
+		Map<CodeSignature, Set<CodeSignature>> callees = new HashMap<>();
+
+		for (ClassMemberSignature member: program.getSigs())
+			if (member instanceof CodeSignature) {
+				CodeSignature sig = (CodeSignature) member;
+				Set<FieldSignature> fields = new HashSet<>();
+				Set<CodeSignature> called = new HashSet<>();
+
+				// the code of an intrinsic class is a dummy: its side-effects are known in advance
+				if (Intrinsics.isIntrinsic(sig.getDefiningClass()) && !Intrinsics.isSideEffectFree(sig)) {
+					anythingWriters.add(sig);
+					arrayWriters.add(sig);
+				}
+
+				for (Block block: new CodeGraph(sig).getBlocks())
+					for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail()) {
+						Bytecode bytecode = cursor.getHead();
+
+						if (bytecode instanceof PUTFIELD)
+							fields.add(((PUTFIELD) bytecode).getField());
+						else if (bytecode instanceof ARRAYSTORE || bytecode instanceof ARRAYCOPY || bytecode instanceof ARRAYFILL)
+							arrayWriters.add(sig);
+						else if (bytecode instanceof CALL)
+							called.addAll(((CALL) bytecode).getDynamicTargets());
+					}
+
+				fieldsWritten.put(sig, fields);
+				callees.put(sig, called);
+			}
+
+		boolean changed;
+		do {
+			changed = false;
+
+			for (Map.Entry<CodeSignature, Set<CodeSignature>> entry: callees.entrySet()) {
+				CodeSignature caller = entry.getKey();
+				Set<FieldSignature> fields = fieldsWritten.get(caller);
+
+				for (CodeSignature callee: entry.getValue()) {
+					Set<FieldSignature> calleeFields = fieldsWritten.get(callee);
+					if (calleeFields != null)
+						changed |= fields.addAll(calleeFields);
+
+					if (arrayWriters.contains(callee))
+						changed |= arrayWriters.add(caller);
+
+					if (anythingWriters.contains(callee))
+						changed |= anythingWriters.add(caller);
+				}
+			}
+		}
+		while (changed);
+	}
+
+	/**
+	 * Optimises the loops of a method or constructor. Inner loops are
+	 * optimised first, so that their invariant expressions, once moved
+	 * into the enclosing loop, can be moved out of that loop as well.
+	 *
+	 * @param sig the method or constructor
+	 */
+
+	private void optimise(CodeSignature sig) {
+		// the heads of the loops already optimised
+		Set<Block> done = new HashSet<>();
+		Block head;
+
+		// the graph is rebuilt after each loop, since the blocks get modified
+		for (CodeGraph graph = new CodeGraph(sig); (head = innermostLoop(graph, done)) != null; graph = new CodeGraph(sig))
+			done.add(optimise(graph, head));
+	}
+
+	/**
+	 * Yields the head of the smallest loop of a graph that has not been optimised yet.
+	 * A loop contains all the loops nested inside it, hence it is larger than them.
+	 *
+	 * @param graph the graph
+	 * @param done the heads of the loops already optimised
+	 * @return the head of the loop, or {@code null} if all loops have been optimised
+	 */
+
+	private static Block innermostLoop(CodeGraph graph, Set<Block> done) {
+		Block result = null;
+		int size = Integer.MAX_VALUE;
+
+		for (Block head: graph.getLoopHeads())
+			if (!done.contains(head)) {
+				int loopSize = graph.getLoop(head).size();
+				if (loopSize < size) {
+					result = head;
+					size = loopSize;
+				}
+			}
+
+		return result;
+	}
+
+	/**
+	 * Optimises a loop, by moving its invariant expressions into a new block
+	 * executed before the loop. That new block is the old head of the loop,
+	 * so that the blocks that enter the loop need not be modified, while
+	 * the blocks inside the loop are redirected to a new head.
+	 *
+	 * @param graph the graph of the code containing the loop
+	 * @param head the head of the loop
+	 * @return the head of the loop after the optimisation
+	 */
+
+	private Block optimise(CodeGraph graph, Block head) {
+		// the head of a loop is never the target of a branch, but we prefer to be sure
+		if (head.getBytecode().getHead() instanceof BranchingBytecode)
+			return head;
+
+		Set<Block> loop = graph.getLoop(head);
+		Loop info = new Loop(graph, loop);
+
+		for (Block block: loop)
+			hoist(block, block == head, info);
+
+		if (info.temps.isEmpty())
+			return head;
+
+		// the code of the new block before the loop: each invariant expression is stored into its temporary
+		BytecodeList preheader = null;
+		for (Map.Entry<List<Bytecode>, STORE> entry: info.temps.entrySet()) {
+			List<Bytecode> code = new ArrayList<>(entry.getKey());
+			code.add(entry.getValue());
+			preheader = append(preheader, code);
+		}
+
+		Block newHead = new Block(head.getBytecode(), head.getFollows());
+		newHead.setLoopHead(true);
+		newHead.doNotMerge();
+
+		// the blocks inside the loop that jump to its head are redirected to the new head
+		for (Block pred: graph.getPredecessors(head))
+			if (loop.contains(pred)) {
+				List<Block> follows = pred.getFollows();
+				for (int pos = 0; pos < follows.size(); pos++)
+					if (follows.get(pos) == head)
+						follows.set(pos, newHead);
+			}
+
+		List<Block> follows = new ArrayList<>();
+		follows.add(newHead);
+		head.setBytecode(preheader);
+		head.setFollows(follows);
+		head.setLoopHead(false);
+
+		loops++;
+		hoisted += info.temps.size();
+
+		return newHead;
+	}
+
+	/**
+	 * Replaces the invariant expressions of a block of a loop with
+	 * the temporary local variables that will hold their value.
+	 * The block is scanned with an abstract stack that keeps track of the
+	 * expressions computed inside the block, as long as they are made
+	 * of bytecodes without side-effects.
+	 *
+	 * @param block the block
+	 * @param isHead true if and only if {@code block} is the head of the loop
+	 * @param loop the information about the loop
+	 */
+
+	private void hoist(Block block, boolean isHead, Loop loop) {
+		List<Bytecode> code = new ArrayList<>();
+		for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+			if (!(cursor.getHead() instanceof NOP))
+				code.add(cursor.getHead());
+
+		List<Expression> stack = new ArrayList<>();
+		List<Expression> candidates = new ArrayList<>();
+
+		for (int pos = 0; pos < code.size(); pos++) {
+			Bytecode bytecode = code.get(pos);
+			int arity = arity(bytecode);
+
+			if (arity < 0 || arity > stack.size()) {
+				// an unknown bytecode consumes the expressions computed so far
+				flush(stack, candidates);
+				continue;
+			}
+
+			List<Expression> operands = new ArrayList<>(stack.subList(stack.size() - arity, stack.size()));
+			stack.subList(stack.size() - arity, stack.size()).clear();
+
+			Expression result = new Expression(bytecode, pos, operands, loop);
+
+			// the invariant operands of a variant expression are candidates on their own
+			if (!result.invariant)
+				for (Expression operand: operands)
+					if (operand.invariant)
+						candidates.add(operand);
+
+			stack.add(result);
+		}
+
+		flush(stack, candidates);
+
+		// the candidates are disjoint: we sort them by their position in the block
+		Collections.sort(candidates, new Comparator<Expression>() {
+
+			@Override
+			public int compare(Expression e1, Expression e2) {
+				return e1.start - e2.start;
+			}
+		});
+
+		List<Bytecode> result = new ArrayList<>();
+		int pos = 0;
+		for (Expression candidate: candidates)
+			if (candidate.isWorthHoisting() && (!candidate.mayThrow || isHead && isSafe(code, candidate.start, loop))) {
+				result.addAll(code.subList(pos, candidate.start));
+				List<Bytecode> expression = new ArrayList<>(code.subList(candidate.start, candidate.end + 1));
+				result.add(loop.temp(expression, candidate.type));
+				pos = candidate.end + 1;
+			}
+
+		if (pos > 0) {
+			result.addAll(code.subList(pos, code.size()));
+			block.setBytecode(append(null, result));
+		}
+	}
+
+	/**
+	 * Moves the invariant expressions on the abstract stack among the candidates
+	 * for being moved out of the loop, and empties the stack.
+	 *
+	 * @param stack the abstract stack
+	 * @param candidates the candidates
+	 */
+
+	private static void flush(List<Expression> stack, List<Expression> candidates) {
+		for (Expression expression: stack)
+			if (expression.invariant)
+				candidates.add(expression);
+
+		stack.clear();
+	}
+
+	/**
+	 * Yields the number of stack elements consumed by a bytecode
+	 * that can be part of an invariant expression.
+	 *
+	 * @param bytecode the bytecode
+	 * @return the number of stack elements consumed by {@code bytecode},
+	 *         or -1 if it cannot be part of an invariant expression
+	 */
+
+	private static int arity(Bytecode bytecode) {
+		if (bytecode instanceof LOAD || bytecode instanceof CONST)
+			return 0;
+		else if (bytecode instanceof NEG || bytecode instanceof CAST || bytecode instanceof GETFIELD)
+			return 1;
+		else if (bytecode instanceof BinOpBytecode || bytecode instanceof ARRAYLOAD)
+			return 2;
+		else
+			return -1;
+	}
+
+	/**
+	 * Determines if the bytecodes at the beginning of the code of the head
+	 * of a loop can neither throw an exception nor have side-effects.
+	 * In that case, an expression that follows them can be computed before them.
+	 *
+	 * @param code the code of the head of the loop
+	 * @param end the position where the checked bytecodes end (excluded)
+	 * @param loop the information about the loop
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isSafe(List<Bytecode> code, int end, Loop loop) {
+		for (int pos = 0; pos < end; pos++) {
+			Bytecode bytecode = code.get(pos);
+
+			if (bytecode instanceof GETFIELD) {
+				if (!loop.receiver || pos == 0 || !isThis(code.get(pos - 1)))
+					return false;
+			}
+			else if (!(bytecode instanceof LOAD || bytecode instanceof STORE
+					|| bytecode instanceof CONST || bytecode instanceof DUP
+					|| bytecode instanceof POP || bytecode instanceof NEG
+					|| bytecode instanceof BinOpBytecode || bytecode instanceof CAST)
+					|| mayThrow(bytecode))
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Determines if a bytecode loads local variable 0.
+	 *
+	 * @param bytecode the bytecode
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isThis(Bytecode bytecode) {
+		return bytecode instanceof LOAD && ((LOAD) bytecode).getVarNum() == 0;
+	}
+
+	/**
+	 * Determines if a bytecode, other than a field access, might throw an exception.
+	 *
+	 * @param bytecode the bytecode
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean mayThrow(Bytecode bytecode) {
+		return bytecode instanceof DIV && ((DIV) bytecode).getType() == IntType.INSTANCE
+			|| bytecode instanceof CAST && ((CAST) bytecode).getIntoType() instanceof ReferenceType
+			|| bytecode instanceof ARRAYLOAD;
+	}
+
+	/**
+	 * Determines if a method or constructor assigns a given local variable.
+	 *
+	 * @param graph the graph of the code of the method or constructor
+	 * @param varNum the number of the local variable
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean storesInto(CodeGraph graph, int varNum) {
+		for (Block block: graph.getBlocks())
+			for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+				if (cursor.getHead() instanceof STORE && ((STORE) cursor.getHead()).getVarNum() == varNum)
+					return true;
+
+		return false;
+	}
+
+	/**
+	 * Appends a sequence of bytecodes at the end of a list of bytecodes.
+	 *
+	 * @param list the list, possibly {@code null}
+	 * @param code the sequence of bytecodes
+	 * @return the resulting list
+	 */
+
+	private static BytecodeList append(BytecodeList list, List<Bytecode> code) {
+		BytecodeList result = null;
+		for (int pos = code.size() - 1; pos >= 0; pos--)
+			result = new BytecodeList(code.get(pos), result);
+
+		return list == null ? result : list.append(result);
+	}
+
+	/**
+	 * An expression computed inside a block, made of the contiguous
+	 * bytecodes from {@link #start} to {@link #end}.
+	 */
+
+	private static class Expression {
+
+		/**
+		 * The position of the first bytecode of the expression inside its block.
+		 */
+
+		private final int start;
+
+		/**
+		 * The position of the last bytecode of the expression inside its block.
+		 */
+
+		private final int end;
+
+		/**
+		 * The type of the value of the expression.
+		 */
+
+		private final Type type;
+
+		/**
+		 * True if and only if the expression is invariant inside the loop.
+		 */
+
+		private final boolean invariant;
+
+		/**
+		 * True if and only if the expression might throw an exception.
+		 */
+
+		private final boolean mayThrow;
+
+		/**
+		 * True if and only if the expression reads some local variable, field or array.
+		 */
+
+		private final boolean readsMemory;
+
+		/**
+		 * True if and only if the expression is just the load of local variable 0.
+		 */
+
+		private final boolean isThis;
+
+		/**
+		 * Builds the expression computed by a bytecode from its operands.
+		 *
+		 * @param bytecode the bytecode
+		 * @param pos the position of {@code bytecode} inside its block
+		 * @param operands the expressions that compute the operands of {@code bytecode}
+		 * @param loop the information about the loop containing the block
+		 */
+
+		private Expression(Bytecode bytecode, int pos, List<Expression> operands, Loop loop) {
+			this.start = operands.isEmpty() ? pos : operands.get(0).start;
+			this.end = pos;
+
+			boolean invariant = true, mayThrow = false, readsMemory = false;
+			for (Expression operand: operands) {
+				invariant &= operand.invariant;
+				mayThrow |= operand.mayThrow;
+				readsMemory |= operand.readsMemory;
+			}
+
+			if (bytecode instanceof LOAD) {
+				invariant = !loop.stored.contains(((LOAD) bytecode).getVarNum());
+				readsMemory = true;
+				type = ((LOAD) bytecode).getType();
+			}
+			else if (bytecode instanceof CONST)
+				type = ((CONST) bytecode).getType();
+			else if (bytecode instanceof GETFIELD) {
+				FieldSignature field = ((GETFIELD) bytecode).getField();
+				invariant &= loop.isInvariant(field);
+				// the receiver might be nil, unless it is the receiver of the code
+				mayThrow |= !loop.receiver || !operands.get(0).isThis;
+				readsMemory = true;
+				type = field.getType();
+			}
+			else if (bytecode instanceof ARRAYLOAD) {
+				invariant &= loop.arraysAreInvariant();
+				readsMemory = true;
+				type = ((ARRAYLOAD) bytecode).getType();
+			}
+			else if (bytecode instanceof ArithmeticBinOpBytecode)
+				type = ((ArithmeticBinOpBytecode) bytecode).getType();
+			else if (bytecode instanceof BinOpBytecode)
+				// comparisons, conjunctions and disjunctions
+				type = BooleanType.INSTANCE;
+			else if (bytecode instanceof NEG)
+				type = ((NEG) bytecode).getType();
+			else
+				type = ((CAST) bytecode).getIntoType();
+
+			this.invariant = invariant;
+			this.mayThrow = mayThrow || mayThrow(bytecode);
+			this.readsMemory = readsMemory;
+			this.isThis = isThis(bytecode);
+		}
+
+		/**
+		 * Determines if it is worth moving this expression out of its loop.
+		 * This is not the case for single bytecodes, that would just be
+		 * replaced by a load, and for expressions on constants.
+		 *
+		 * @return true if and only if that is the case
+		 */
+
+		private boolean isWorthHoisting() {
+			return end > start && readsMemory && type != NilType.INSTANCE;
+		}
+	}
+
+	/**
+	 * The information about a loop that is needed to determine its invariant expressions.
+	 */
+
+	private class Loop {
+
+		/**
+		 * The graph of the code containing the loop.
+		 */
+
+		private final CodeGraph graph;
+
+		/**
+		 * The local variables assigned inside the loop.
+		 */
+
+		private final Set<Integer> stored = new HashSet<>();
+
+		/**
+		 * The fields that might be written inside the loop.
+		 */
+
+		private final Set<FieldSignature> fields = new HashSet<>();
+
+		/**
+		 * True if and only if some array might be modified inside the loop.
+		 */
+
+		private boolean arrays;
+
+		/**
+		 * True if and only if the loop might write any field or array.
+		 */
+
+		private boolean anything;
+
+		/**
+		 * True if and only if local variable 0 holds the receiver of the code
+		 * for the whole code, so that it is never {@code nil}.
+		 */
+
+		private final boolean receiver;
+
+		/**
+		 * A map from the invariant expressions moved out of the loop to the
+		 * bytecode that stores them into their temporary local variable.
+		 * Equal expressions share the same temporary.
+		 */
+
+		private final Map<List<Bytecode>, STORE> temps = new LinkedHashMap<>();
+
+		/**
+		 * The same expressions as in {@link #temps}, but identified by their textual
+		 * representation, since bytecodes do not redefine equality.
+		 */
+
+		private final Map<String, List<Bytecode>> expressions = new HashMap<>();
+
+		/**
+		 * Collects the information about a loop.
+		 *
+		 * @param graph the graph of the code containing the loop
+		 * @param loop the blocks of the loop
+		 */
+
+		private Loop(CodeGraph graph, Set<Block> loop) {
+			this.graph = graph;
+
+			for (Block block: loop)
+				for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail()) {
+					Bytecode bytecode = cursor.getHead();
+
+					if (bytecode instanceof STORE)
+						stored.add(((STORE) bytecode).getVarNum());
+					else if (bytecode instanceof PUTFIELD)
+						fields.add(((PUTFIELD) bytecode).getField());
+					else if (bytecode instanceof ARRAYSTORE || bytecode instanceof ARRAYCOPY || bytecode instanceof ARRAYFILL)
+						arrays = true;
+					else if (bytecode instanceof CALL)
+						for (CodeSignature target: ((CALL) bytecode).getDynamicTargets()) {
+							Set<FieldSignature> written = fieldsWritten.get(target);
+
+							if (written == null || anythingWriters.contains(target))
+								// a callee that we know nothing about might write everything
+								anything = true;
+							else {
+								fields.addAll(written);
+								arrays |= arrayWriters.contains(target);
+							}
+						}
+				}
+
+			this.receiver = graph.hasReceiver() && !storesInto(graph, 0);
+		}
+
+		/**
+		 * Determines if a field is invariant inside the loop.
+		 *
+		 * @param field the field
+		 * @return true if and only if {@code field} is never written inside the loop
+		 */
+
+		private boolean isInvariant(FieldSignature field) {
+			return !anything && !fields.contains(field);
+		}
+
+		/**
+		 * Determines if the elements of the arrays are invariant inside the loop.
+		 *
+		 * @return true if and only if no array is modified inside the loop
+		 */
+
+		private boolean arraysAreInvariant() {
+			return !anything && !arrays;
+		}
+
+		/**
+		 * Yields the temporary local variable that holds an invariant expression,
+		 * allocating a new one if the expression was not found before in the loop.
+		 *
+		 * @param code the bytecode of the expression
+		 * @param type the type of the value of the expression
+		 * @return the bytecode that loads the temporary
+		 */
+
+		private LOAD temp(List<Bytecode> code, Type type) {
+			String key = code.toString();
+			List<Bytecode> expression = expressions.get(key);
+			int line = code.get(0).getLine();
+			STORE store;
+
+			if (expression == null) {
+				expressions.put(key, code);
+				store = new STORE(line, graph.getMaxLocals() + temps.size(), type);
+				temps.put(code, store);
+			}
+			else
+				store = temps.get(expression);
+
+			return new LOAD(line, store.getVarNum(), store.getType());
+		}
+	}
+}
@@ -1,33 +1,75 @@
 package translation;
 
+import java.io.IOException;
+
 import errorMsg.ErrorMsg;
 import types.ClassType;
 import translation.Program;
 
 public class Main {
 	public static void main(String[] args) {
-		if (args.length == 0) {
+		Options options;
+		try {
+			options = Options.parse(args);
+		}
+		catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+			return;
+		}
+
+		if (options.getFileName() == null) {
 			System.out.println("You must specify a Kitten class name to compile");
 			return;
 		}
 
 		long totalTime = System.currentTimeMillis();
-
-		// we build the class type for the file name passed as a parameter.
-		// This triggers type-checking of that class and of all classes referenced from it
 		long time = System.currentTimeMillis();
-		ClassType clazz = ClassType.mkFromFileName(args[0]);
-		ErrorMsg errorMsg = clazz.getErrorMsg();
-		System.out.println("Parsing and type-checking completed     \t[" + (System.currentTimeMillis() - time) + "ms]");
+		Program program = null;
+
+		if (options.getFileName().endsWith(".kbc")) {
+			// the program has been already type-checked, translated and checked for purity
+			try {
+				program = Program.load(options.getFileName());
+				System.out.println("Loading of Kitten bytecode completed     \t[" + (System.currentTimeMillis() - time) + "ms]");
+			}
+			catch (IOException e) {
+				System.out.println("Could not load the Kitten bytecode: " + e.getMessage());
+			}
+		}
+		else {
+			// we build the class type for the file name passed as a parameter.
+			// This triggers type-checking of that class and of all classes referenced from it
+			ClassType clazz = ClassType.mkFromFileName(options.getFileName());
+			ErrorMsg errorMsg = clazz.getErrorMsg();
+			System.out.println("Parsing and type-checking completed     \t[" + (System.currentTimeMillis() - time) + "ms]");
+
+			// if this class did not parse and type-check correctly,
+			// we cannot translate the program into intermediate Kitten code
+			if (errorMsg != null && !errorMsg.anyErrors()) {
+				time = System.currentTimeMillis();
+				// we translate this class into Kitten bytecode
+				program = clazz.translate();
+
+				System.out.println("Translation into Kitten bytecode completed \t[" + (System.currentTimeMillis() - time) + "ms]");
+
+				// the purity of the memoized methods can only be checked on their Kitten code
+				if (!new Purity(program).check())
+					program = null;
+				else if (options.saveKittenBytecode())
+					try {
+						program.save(clazz + ".kbc");
+					}
+					catch (IOException e) {
+						System.out.println("Could not save the Kitten bytecode for class " + clazz);
+					}
+			}
+		}
 
-		// if this class did not parse and type-check correctly,
-		// we cannot translate the program into intermediate Kitten code
-		if (errorMsg != null && !errorMsg.anyErrors()) {
+		if (program != null) {
 			time = System.currentTimeMillis();
-			// we translate this class into Kitten bytecode
-			Program program = clazz.translate();
+			program.optimise();
 
-			System.out.println("Translation into Kitten bytecode completed \t[" + (System.currentTimeMillis() - time) + "ms]");
+			System.out.println("Kitten bytecode optimisation completed \t[" + (System.currentTimeMillis() - time) + "ms]");
 
 			time = System.currentTimeMillis();
 			program.dumpCodeDot();
@@ -37,4 +79,4 @@ public class Main {
 
 		System.out.println("Total compilation time was " + (System.currentTimeMillis() - totalTime) + "ms");
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,1257 @@
+package translation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import absyn.MethodDeclaration;
+import types.ArrayType;
+import types.ClassType;
+import types.CodeSignature;
+import types.ConstructorSignature;
+import types.MethodSignature;
+import types.Type;
+import types.TypeList;
+import types.VoidType;
+import bytecode.ARRAYCOPY;
+import bytecode.ARRAYFILL;
+import bytecode.ARRAYLOAD;
+import bytecode.ARRAYSTORE;
+import bytecode.BinOpBytecode;
+import bytecode.BranchingBytecode;
+import bytecode.BranchingComparisonBytecode;
+import bytecode.Bytecode;
+import bytecode.BytecodeList;
+import bytecode.CALL;
+import bytecode.CONST;
+import bytecode.COUNT;
+import bytecode.ComparisonBinOpBytecode;
+import bytecode.DUP;
+import bytecode.LOAD;
+import bytecode.NEW;
+import bytecode.NEWARRAY;
+import bytecode.NEWBUILDER;
+import bytecode.NEWSTRING;
+import bytecode.NOP;
+import bytecode.NULLCHECK;
+import bytecode.NonBranchingBytecode;
+import bytecode.PARALLELFOR;
+import bytecode.POP;
+import bytecode.RESULT;
+import bytecode.RETURN;
+import bytecode.SPAWN;
+import bytecode.STATICCALL;
+import bytecode.STORE;
+import bytecode.SWITCH;
+import bytecode.SYNC;
+
+/**
+ * The splitting of the methods and constructors whose Java bytecode is too large.
+ * The just-in-time compiler of the Java virtual machine does not compile methods
+ * larger than {@code -XX:HugeMethodLimit}, 8000 bytes by default, that hence run
+ * interpreted forever, and no method can be larger than 65535 bytes. This is
+ * typical of generated programs with a long {@code main}. After the Java bytecode
+ * of a class has been generated, the methods and constructors larger than a limit
+ * get some single-entry, single-exit regions of their blocks outlined into
+ * private static methods of their class, named after them and followed by
+ * {@code $split} and a number, until they are estimated to fit. The local
+ * variables that are live at the beginning of a region and used inside it,
+ * including the receiver, are passed as parameters, and the local variables
+ * that are modified by the region and live after it are returned: a single one
+ * as it is, more of them inside an array, if they have the same type. Long
+ * blocks are first cut where the stack is empty, so that straight-line code can
+ * be outlined as well. The size of the Kitten code is estimated in bytes of
+ * Java bytecode and calibrated against the size that was actually generated.
+ * If the code has been annotated with a {@link Profile}, the regions executed
+ * less often for each byte saved are outlined first, so that the hot code
+ * stays inside the method and pays no call.
+ *
+ * @author Federico Bianchi
+ */
+
+public class MethodSplitter {
+
+	/**
+	 * The number of times the same method or constructor is split, at most,
+	 * if its Java bytecode is still too large after the previous splits.
+	 */
+
+	private final static int MAX_ROUNDS = 3;
+
+	/**
+	 * The smallest region worth outlining, in estimated bytes.
+	 */
+
+	private final static int MIN_REGION = 16;
+
+	/**
+	 * The program whose code gets split.
+	 */
+
+	private final Program program;
+
+	/**
+	 * The largest size of the Java bytecode of a method or constructor, in bytes.
+	 */
+
+	private final int limit;
+
+	/**
+	 * The methods and constructors that have been split, with the size of their Java bytecode before splitting.
+	 */
+
+	private final Map<CodeSignature, Integer> sizesBefore = new LinkedHashMap<>();
+
+	/**
+	 * The methods and constructors that have been split, with the size of their Java bytecode after splitting.
+	 */
+
+	private final Map<CodeSignature, Integer> sizesAfter = new HashMap<>();
+
+	/**
+	 * The number of methods outlined from each method or constructor that has been split.
+	 */
+
+	private final Map<CodeSignature, Integer> outlined = new HashMap<>();
+
+	/**
+	 * The method or constructor that each outlined method comes from, directly or through other outlined methods.
+	 */
+
+	private final Map<CodeSignature, CodeSignature> origins = new HashMap<>();
+
+	/**
+	 * The number of times each method or constructor has been split so far.
+	 */
+
+	private final Map<CodeSignature, Integer> rounds = new HashMap<>();
+
+	/**
+	 * The number of methods outlined so far in each class.
+	 */
+
+	private final Map<ClassType, Integer> counters = new HashMap<>();
+
+	/**
+	 * Builds the splitter for the given program.
+	 *
+	 * @param program the program
+	 * @param limit the largest size of the Java bytecode of a method or
+	 *              constructor, in bytes. At 0, nothing gets split
+	 */
+
+	public MethodSplitter(Program program, int limit) {
+		this.program = program;
+		this.limit = limit;
+	}
+
+	/**
+	 * Yields the number of methods and constructors split so far.
+	 *
+	 * @return the number of methods and constructors
+	 */
+
+	public int getSplit() {
+		return sizesBefore.size();
+	}
+
+	/**
+	 * Yields the number of methods outlined so far.
+	 *
+	 * @return the number of methods
+	 */
+
+	public int getOutlined() {
+		return origins.size();
+	}
+
+	/**
+	 * Yields a description of each method or constructor split so far: its size before
+	 * and after splitting and the number of methods outlined from it.
+	 *
+	 * @return the descriptions, one per method or constructor
+	 */
+
+	public List<String> getReport() {
+		List<String> report = new ArrayList<>();
+		for (Map.Entry<CodeSignature, Integer> entry: sizesBefore.entrySet()) {
+			CodeSignature sig = entry.getKey();
+			Integer after = sizesAfter.get(sig);
+			report.add(sig + ": from " + entry.getValue() + " to " + (after != null ? after : "?")
+				+ " bytes, through " + outlined.get(sig) + " outlined methods");
+		}
+
+		return report;
+	}
+
+	/**
+	 * Splits the methods and constructors of a class whose Java bytecode is larger
+	 * than the limit. The Java bytecode of the class must then be generated again.
+	 *
+	 * @param sizes the size of the Java bytecode just generated for each method and constructor of the class
+	 * @return true if and only if some method or constructor has been split
+	 */
+
+	public boolean split(Map<CodeSignature, Integer> sizes) {
+		boolean changed = false;
+
+		for (Map.Entry<CodeSignature, Integer> entry: sizes.entrySet()) {
+			CodeSignature sig = entry.getKey();
+			int size = entry.getValue();
+
+			if (sizesBefore.containsKey(sig))
+				sizesAfter.put(sig, size);
+
+			Integer round = rounds.get(sig);
+			if (limit > 0 && size > limit && (round == null || round < MAX_ROUNDS)) {
+				rounds.put(sig, round == null ? 1 : round + 1);
+				changed |= split(sig, size);
+			}
+		}
+
+		return changed;
+	}
+
+	/**
+	 * Splits a method or constructor whose Java bytecode is too large.
+	 *
+	 * @param sig the method or constructor
+	 * @param size the size of its Java bytecode, in bytes
+	 * @return true if and only if some region has been outlined
+	 */
+
+	private boolean split(CodeSignature sig, int size) {
+		int estimated = estimate(new CodeGraph(sig).getBlocks());
+		if (estimated == 0)
+			return false;
+
+		// the estimates are calibrated on the actual size, and a tenth of the limit is left for their errors
+		int budget = (int) (limit * 0.9 * estimated / size);
+
+		cut(sig, Math.max(budget / 8, MIN_REGION));
+
+		int outlinedHere = 0;
+		while (estimated > budget) {
+			Region region = bestRegion(sig, budget);
+			if (region == null)
+				break;
+
+			outline(sig, region);
+			estimated -= region.size - region.callSize;
+			outlinedHere++;
+		}
+
+		if (outlinedHere > 0) {
+			CodeSignature origin = origins.containsKey(sig) ? origins.get(sig) : sig;
+			if (!sizesBefore.containsKey(origin)) {
+				sizesBefore.put(origin, size);
+				outlined.put(origin, 0);
+			}
+
+			outlined.put(origin, outlined.get(origin) + outlinedHere);
+		}
+
+		return outlinedHere > 0;
+	}
+
+	/**
+	 * A single-entry, single-exit region of the blocks of a method or constructor,
+	 * that can be outlined into a method.
+	 */
+
+	private static class Region {
+
+		/**
+		 * The first block of the region.
+		 */
+
+		private final Block entry;
+
+		/**
+		 * The block that follows the region.
+		 */
+
+		private final Block exit;
+
+		/**
+		 * The blocks of the region, starting with {@link #entry}.
+		 */
+
+		private final List<Block> blocks;
+
+		/**
+		 * The local variables passed to the outlined method, in increasing order.
+		 */
+
+		private final int[] parameters;
+
+		/**
+		 * The types of {@link #parameters}.
+		 */
+
+		private final Type[] parameterTypes;
+
+		/**
+		 * The local variables returned by the outlined method, in increasing order.
+		 */
+
+		private final int[] results;
+
+		/**
+		 * The type of each of {@link #results}, or {@code void} if there is none.
+		 */
+
+		private final Type resultType;
+
+		/**
+		 * The return type of the outlined method. This is an array of {@link #resultType}
+		 * if more local variables are returned.
+		 */
+
+		private final Type returnType;
+
+		/**
+		 * The estimated size of the Java bytecode of the region, in bytes.
+		 */
+
+		private final int size;
+
+		/**
+		 * The estimated size of the Java bytecode of the call to the outlined method, in bytes.
+		 */
+
+		private final int callSize;
+
+		private Region(Block entry, Block exit, List<Block> blocks, int[] parameters, Type[] parameterTypes, int[] results, Type resultType, int size) {
+			this.entry = entry;
+			this.exit = exit;
+			this.blocks = blocks;
+			this.parameters = parameters;
+			this.parameterTypes = parameterTypes;
+			this.results = results;
+			this.resultType = resultType;
+			this.returnType = results.length > 1 ? ArrayType.mk(resultType) : resultType;
+			this.size = size;
+
+			int callSize = 3;
+			for (int parameter: parameters)
+				callSize += sizeOfLocal(parameter);
+
+			// each local variable returned inside an array is read back from it
+			for (int result: results)
+				callSize += sizeOfLocal(result) + (results.length > 1 ? 4 : 0);
+
+			if (results.length > 1)
+				callSize++;
+
+			this.callSize = callSize;
+		}
+	}
+
+	/**
+	 * Cuts the blocks of a method or constructor that are larger than the given
+	 * size, where the stack is empty, so that their pieces can be outlined separately.
+	 *
+	 * @param sig the method or constructor
+	 * @param size the size of the pieces, in estimated bytes
+	 */
+
+	private static void cut(CodeSignature sig, int size) {
+		CodeGraph graph = new CodeGraph(sig);
+		int[] heights = heights(graph);
+		List<Block> blocks = graph.getBlocks();
+
+		for (int pos = 0; pos < blocks.size(); pos++) {
+			Block block = blocks.get(pos);
+			int height = heights[pos];
+			if (height < 0 || estimate(block) <= size)
+				continue;
+
+			List<Bytecode> code = bytecodes(block);
+			int accumulated = 0;
+
+			for (int index = 0; index < code.size() && height >= 0; index++) {
+				Bytecode bytecode = code.get(index);
+				height = after(bytecode, height);
+				accumulated += estimate(bytecode);
+
+				// the last bytecode stays with its block, since it might be a switch
+				if (height == 0 && accumulated >= size && index < code.size() - 1
+						&& !(code.get(index + 1) instanceof SWITCH)) {
+					Block piece = new Block(list(code.subList(index + 1, code.size())), block.getFollows());
+					piece.setFrequency(block.getFrequency());
+					block.setBytecode(list(code.subList(0, index + 1)));
+					block.setFollows(new ArrayList<>(Collections.singletonList(piece)));
+
+					block = piece;
+					code = code.subList(index + 1, code.size());
+					index = -1;
+					accumulated = 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the region of a method or constructor that can be outlined, whose
+	 * estimated size is within the given budget and whose outlining saves the most,
+	 * or is executed the least for each byte saved, if the frequencies of the blocks are known.
+	 *
+	 * @param sig the method or constructor
+	 * @param budget the largest size of the region, in estimated bytes
+	 * @return the region, or {@code null} if there is none
+	 */
+
+	private static Region bestRegion(CodeSignature sig, int budget) {
+		CodeGraph graph = new CodeGraph(sig);
+		List<Block> blocks = graph.getBlocks();
+		Map<Block, Integer> indexes = new HashMap<>();
+		for (int pos = 0; pos < blocks.size(); pos++)
+			indexes.put(blocks.get(pos), pos);
+
+		int[] heights = heights(graph);
+		int[] postDominators = postDominators(graph, indexes);
+		BitSet[] liveIn = liveness(graph, indexes);
+		int[] sizes = new int[blocks.size()];
+		boolean[] opaque = new boolean[blocks.size()];
+
+		for (int pos = 0; pos < blocks.size(); pos++) {
+			sizes[pos] = estimate(blocks.get(pos));
+			opaque[pos] = heights[pos] < 0 || isOpaque(blocks.get(pos));
+		}
+
+		Region best = null;
+
+		// the first block is never outlined: it calls the constructor of the superclass, in constructors
+		for (int pos = 1; pos < blocks.size(); pos++) {
+			Block entry = blocks.get(pos);
+			if (opaque[pos] || heights[pos] - headPops(entry) != 0)
+				continue;
+
+			// the region up to each post-dominator extends that up to the previous one
+			Set<Block> reached = new HashSet<>();
+			List<Block> region = new ArrayList<>();
+			List<Integer> exits = new ArrayList<>(), lengths = new ArrayList<>(), regionSizes = new ArrayList<>();
+			Block start = entry;
+			int size = 0;
+
+			for (int exit = postDominators[pos]; exit >= 0 && exit < blocks.size(); exit = postDominators[exit]) {
+				boolean usable = true;
+				for (Block block: reachableBefore(start, blocks.get(exit), reached)) {
+					int index = indexes.get(block);
+					size += sizes[index];
+					usable &= !opaque[index] && index != 0;
+					region.add(block);
+				}
+
+				// larger regions contain this one
+				if (!usable || size > budget)
+					break;
+
+				exits.add(exit);
+				lengths.add(region.size());
+				regionSizes.add(size);
+				start = blocks.get(exit);
+			}
+
+			// the largest regions are tried first, since they save the most
+			for (int i = exits.size() - 1; i >= 0; i--) {
+				size = regionSizes.get(i);
+
+				// the region must be larger than the call that replaces it. Smaller regions
+				// save less, but might be preferred if they are executed less often
+				if (size < MIN_REGION || (best != null && size <= best.size - best.callSize && !isProfiled(best, entry)))
+					break;
+
+				int exit = exits.get(i);
+				Region candidate = region(graph, entry, blocks.get(exit), new LinkedHashSet<>(region.subList(0, lengths.get(i))),
+					heights[exit], liveIn, indexes, size);
+
+				if (candidate != null && candidate.size - candidate.callSize >= MIN_REGION && (best == null || isBetter(candidate, best)))
+					best = candidate;
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * Determines if the frequencies of the current best region and of a new entry are known.
+	 *
+	 * @param best the best region
+	 * @param entry the entry of the other regions
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isProfiled(Region best, Block entry) {
+		return best.entry.getFrequency() >= 0 && entry.getFrequency() >= 0;
+	}
+
+	/**
+	 * Determines if it is better to outline a region rather than another.
+	 *
+	 * @param candidate the region
+	 * @param best the other region
+	 * @return true if and only if {@code candidate} is executed less often for each byte
+	 *         it saves, if the frequencies are known, or if it saves more otherwise
+	 */
+
+	private static boolean isBetter(Region candidate, Region best) {
+		long candidateSaving = candidate.size - candidate.callSize, bestSaving = best.size - best.callSize;
+
+		if (isProfiled(best, candidate.entry)) {
+			// the frequencies are compared per byte saved, without divisions
+			double candidateCost = (double) candidate.entry.getFrequency() * bestSaving;
+			double bestCost = (double) best.entry.getFrequency() * candidateSaving;
+			if (candidateCost != bestCost)
+				return candidateCost < bestCost;
+		}
+
+		return candidateSaving > bestSaving;
+	}
+
+	/**
+	 * Checks if a set of blocks is a region that can be outlined, and computes
+	 * the local variables that must be passed to and returned from the outlined method.
+	 *
+	 * @param graph the graph of the code
+	 * @param entry the first block of the region
+	 * @param exit the block that follows the region
+	 * @param blocks the blocks of the region
+	 * @param exitHeight the height of the stack at the beginning of {@code exit}
+	 * @param liveIn the local variables live at the beginning of each block
+	 * @param indexes the index of each block in the graph
+	 * @param size the estimated size of the region
+	 * @return the region, or {@code null} if it cannot be outlined
+	 */
+
+	private static Region region(CodeGraph graph, Block entry, Block exit, Set<Block> blocks, int exitHeight,
+			BitSet[] liveIn, Map<Block, Integer> indexes, int size) {
+
+		if (exitHeight != 0 || exit.getBytecode().getHead() instanceof BranchingBytecode)
+			return null;
+
+		boolean branchingEntry = entry.getBytecode().getHead() instanceof BranchingBytecode;
+		for (Block block: blocks) {
+			for (Block predecessor: graph.getPredecessors(block))
+				// only the entry can be reached from outside; the condition at its beginning
+				// stays in the caller, hence it cannot be reached from inside
+				if (blocks.contains(predecessor) ? block == entry && branchingEntry : block != entry)
+					return null;
+
+			// the region is left by jumping to its exit, that becomes a return
+			if (block.getFollows().contains(exit) && (block.getFollows().size() != 1 || block.getSwitch() != null))
+				return null;
+		}
+
+		// the local variables used inside the region
+		BitSet used = new BitSet(), stored = new BitSet();
+		for (Block block: blocks)
+			for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+				if (cursor.getHead() instanceof LOAD)
+					used.set(((LOAD) cursor.getHead()).getVarNum());
+				else if (cursor.getHead() instanceof STORE) {
+					used.set(((STORE) cursor.getHead()).getVarNum());
+					stored.set(((STORE) cursor.getHead()).getVarNum());
+				}
+
+		BitSet parameters = (BitSet) liveIn[indexes.get(entry)].clone();
+		parameters.and(used);
+		BitSet results = (BitSet) liveIn[indexes.get(exit)].clone();
+		results.and(stored);
+
+		Map<Integer, Set<Type>> parameterTypes = parameterTypes(entry, blocks, parameters);
+		int[] returned = new int[results.cardinality()];
+		Type resultType = VoidType.INSTANCE;
+		int pos = 0;
+
+		for (int result = results.nextSetBit(0); result >= 0; result = results.nextSetBit(result + 1), pos++) {
+			Set<Type> types = resultTypes(entry, exit, blocks, result);
+			// the value of the variable before the region might reach its exit
+			if (types.remove(null))
+				if (parameters.get(result))
+					types.addAll(parameterTypes.get(result));
+				else
+					return null;
+
+			// the local variables returned inside an array must have the same type
+			Type type = merge(types);
+			if (type == null || (pos > 0 && !type.equals(resultType)))
+				return null;
+
+			if (parameters.get(result) && parameterTypes.get(result).isEmpty())
+				parameterTypes.get(result).add(type);
+
+			returned[pos] = result;
+			resultType = type;
+		}
+
+		int[] numbers = new int[parameters.cardinality()];
+		Type[] types = new Type[numbers.length];
+		pos = 0;
+		for (int variable = parameters.nextSetBit(0); variable >= 0; variable = parameters.nextSetBit(variable + 1), pos++) {
+			numbers[pos] = variable;
+			if ((types[pos] = merge(parameterTypes.get(variable))) == null)
+				return null;
+		}
+
+		return new Region(entry, exit, new ArrayList<>(blocks), numbers, types, returned, resultType, size);
+	}
+
+	/**
+	 * Computes the types of the local variables passed to an outlined method.
+	 * They are the types of the loads that read the values that the variables hold
+	 * at the beginning of the region.
+	 *
+	 * @param entry the first block of the region
+	 * @param blocks the blocks of the region
+	 * @param parameters the local variables passed to the outlined method
+	 * @return the types of the loads, for each local variable
+	 */
+
+	private static Map<Integer, Set<Type>> parameterTypes(Block entry, Set<Block> blocks, BitSet parameters) {
+		Map<Integer, Set<Type>> types = new HashMap<>();
+		for (int variable = parameters.nextSetBit(0); variable >= 0; variable = parameters.nextSetBit(variable + 1))
+			types.put(variable, new HashSet<Type>());
+
+		// the local variables that might still hold their value at the beginning of the region
+		Map<Block, BitSet> fresh = new HashMap<>();
+		fresh.put(entry, (BitSet) parameters.clone());
+		Deque<Block> workList = new ArrayDeque<>();
+		workList.add(entry);
+
+		while (!workList.isEmpty()) {
+			Block block = workList.poll();
+			BitSet current = (BitSet) fresh.get(block).clone();
+
+			for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+				if (cursor.getHead() instanceof LOAD && current.get(((LOAD) cursor.getHead()).getVarNum()))
+					types.get(((LOAD) cursor.getHead()).getVarNum()).add(((LOAD) cursor.getHead()).getType());
+				else if (cursor.getHead() instanceof STORE)
+					current.clear(((STORE) cursor.getHead()).getVarNum());
+
+			for (Block follow: block.getFollows())
+				if (blocks.contains(follow)) {
+					BitSet old = fresh.get(follow);
+					if (old == null)
+						fresh.put(follow, current);
+					else {
+						BitSet merged = (BitSet) old.clone();
+						merged.or(current);
+						if (merged.equals(old))
+							continue;
+
+						fresh.put(follow, merged);
+					}
+
+					workList.add(follow);
+				}
+		}
+
+		return types;
+	}
+
+	/**
+	 * Computes the types of the values that a local variable might hold when a region is left.
+	 *
+	 * @param entry the first block of the region
+	 * @param exit the block that follows the region
+	 * @param blocks the blocks of the region
+	 * @param variable the local variable
+	 * @return the types of the stores that might reach the exit. It contains {@code null}
+	 *         if the value of the variable at the beginning of the region might reach the exit
+	 */
+
+	private static Set<Type> resultTypes(Block entry, Block exit, Set<Block> blocks, int variable) {
+		Set<Type> result = new HashSet<>();
+		Map<Block, Set<Type>> reaching = new HashMap<>();
+		reaching.put(entry, new HashSet<Type>(Collections.singleton((Type) null)));
+		Deque<Block> workList = new ArrayDeque<>();
+		workList.add(entry);
+
+		while (!workList.isEmpty()) {
+			Block block = workList.poll();
+			Set<Type> current = new HashSet<>(reaching.get(block));
+
+			for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+				if (cursor.getHead() instanceof STORE && ((STORE) cursor.getHead()).getVarNum() == variable) {
+					current.clear();
+					current.add(((STORE) cursor.getHead()).getType());
+				}
+
+			for (Block follow: block.getFollows())
+				if (follow == exit)
+					result.addAll(current);
+				else if (blocks.contains(follow)) {
+					Set<Type> old = reaching.get(follow);
+					if (old == null)
+						reaching.put(follow, new HashSet<>(current));
+					else if (!old.addAll(current))
+						continue;
+
+					workList.add(follow);
+				}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Yields the least common supertype of some types.
+	 *
+	 * @param types the types
+	 * @return the least common supertype, or {@code null} if there is none or {@code types} is empty
+	 */
+
+	private static Type merge(Set<Type> types) {
+		Type result = null;
+		for (Type type: types)
+			if ((result = result == null ? type : result.leastCommonSupertype(type)) == null)
+				return null;
+
+		return result;
+	}
+
+	/**
+	 * Outlines a region of a method or constructor into a new method of its class.
+	 *
+	 * @param sig the method or constructor
+	 * @param region the region
+	 */
+
+	private void outline(CodeSignature sig, Region region) {
+		ClassType clazz = sig.getDefiningClass();
+		Integer counter = counters.get(clazz);
+		counters.put(clazz, counter == null ? 1 : counter + 1);
+
+		// Kitten identifiers never contain $, hence these names cannot clash with Kitten methods
+		String name = (sig instanceof ConstructorSignature ? "init" : sig.getName()) + "$split" + (counter == null ? 0 : counter);
+
+		TypeList parameters = TypeList.EMPTY;
+		for (int pos = region.parameterTypes.length - 1; pos >= 0; pos--)
+			parameters = parameters.push(region.parameterTypes[pos]);
+
+		MethodSignature method = new MethodSignature(clazz, region.returnType, parameters, name, new MethodDeclaration(name));
+		clazz.addMethod(name, method);
+		program.getSigs().add(method);
+		origins.put(method, origins.containsKey(sig) ? origins.get(sig) : sig);
+
+		// the parameters come first, followed by the other local variables used inside the region
+		Map<Integer, Integer> numbers = new HashMap<>();
+		for (int pos = 0; pos < region.parameters.length; pos++)
+			numbers.put(region.parameters[pos], pos);
+
+		Block entry = region.entry;
+		Bytecode condition = null;
+		List<Block> blocks = new ArrayList<>(region.blocks);
+
+		// the condition at the beginning of the entry stays in the caller
+		if (entry.getBytecode().getHead() instanceof BranchingBytecode) {
+			condition = entry.getBytecode().getHead();
+			BytecodeList rest = entry.getBytecode().getTail();
+			Block newEntry = new Block(rest != null ? rest : new BytecodeList(new NOP(0)), new ArrayList<>(entry.getFollows()));
+			blocks.set(blocks.indexOf(entry), newEntry);
+			entry = newEntry;
+		}
+
+		// the code that returns the results has no line of its own
+		List<Bytecode> returnCode = new ArrayList<>();
+		if (region.results.length == 1)
+			returnCode.add(new LOAD(0, renumber(region.results[0], numbers), region.resultType));
+		else if (region.results.length > 1) {
+			returnCode.add(new CONST(0, region.results.length));
+			returnCode.add(new NEWARRAY(0, region.resultType));
+			for (int pos = 0; pos < region.results.length; pos++) {
+				returnCode.add(new DUP(0, region.returnType));
+				returnCode.add(new CONST(0, pos));
+				returnCode.add(new LOAD(0, renumber(region.results[pos], numbers), region.resultType));
+				returnCode.add(new ARRAYSTORE(0, region.resultType));
+			}
+		}
+
+		returnCode.add(new RETURN(0, region.returnType));
+		Block returnBlock = new Block(list(returnCode), new ArrayList<Block>());
+
+		for (Block block: blocks) {
+			renumber(block, numbers);
+
+			if (block.getFollows().contains(region.exit))
+				block.setFollows(new ArrayList<>(Collections.singletonList(returnBlock)));
+		}
+
+		method.setCode(entry);
+
+		// the region is replaced by a call to the outlined method, ascribed to the line where the region starts
+		int line = entry.getBytecode().getHead().getLine();
+		List<Bytecode> call = new ArrayList<>();
+		if (condition != null)
+			call.add(condition);
+
+		for (int pos = 0; pos < region.parameters.length; pos++)
+			call.add(new LOAD(line, region.parameters[pos], region.parameterTypes[pos]));
+
+		call.add(new STATICCALL(line, method));
+		if (region.results.length == 1)
+			call.add(new STORE(line, region.results[0], region.resultType));
+		else if (region.results.length > 1) {
+			for (int pos = 0; pos < region.results.length; pos++) {
+				call.add(new DUP(line, region.returnType));
+				call.add(new CONST(line, pos));
+				call.add(new ARRAYLOAD(line, region.resultType));
+				call.add(new STORE(line, region.results[pos], region.resultType));
+			}
+
+			call.add(new POP(line, region.returnType));
+		}
+
+		Block caller = new Block(list(call), new ArrayList<>(Collections.singletonList(region.exit)));
+
+		// if the loop of the entry is inside the region, it is inside the outlined method too
+		CodeGraph graph = new CodeGraph(sig);
+		boolean loopInside = false;
+		for (Block predecessor: graph.getPredecessors(region.entry))
+			loopInside |= region.blocks.contains(predecessor);
+
+		caller.setLoopHead(region.entry.isLoopHead() && !loopInside);
+		entry.setLoopHead(region.entry.isLoopHead() && loopInside);
+
+		for (Block predecessor: graph.getPredecessors(region.entry))
+			if (!region.blocks.contains(predecessor)) {
+				List<Block> follows = predecessor.getFollows();
+				for (int pos = 0; pos < follows.size(); pos++)
+					if (follows.get(pos) == region.entry)
+						follows.set(pos, caller);
+			}
+	}
+
+	/**
+	 * Renumbers the local variables of a block that gets outlined.
+	 *
+	 * @param block the block
+	 * @param numbers the new number of the local variables renumbered so far. It gets
+	 *                expanded with the local variables of the block that were not there
+	 */
+
+	private static void renumber(Block block, Map<Integer, Integer> numbers) {
+		List<Bytecode> code = new ArrayList<>();
+		for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail()) {
+			Bytecode bytecode = cursor.getHead();
+			if (bytecode instanceof LOAD)
+				code.add(new LOAD(bytecode.getLine(), renumber(((LOAD) bytecode).getVarNum(), numbers), ((LOAD) bytecode).getType()));
+			else if (bytecode instanceof STORE)
+				code.add(new STORE(bytecode.getLine(), renumber(((STORE) bytecode).getVarNum(), numbers), ((STORE) bytecode).getType(), ((STORE) bytecode).getName()));
+			else
+				code.add(bytecode);
+		}
+
+		block.setBytecode(list(code));
+	}
+
+	private static int renumber(int variable, Map<Integer, Integer> numbers) {
+		Integer number = numbers.get(variable);
+		if (number == null)
+			numbers.put(variable, number = numbers.size());
+
+		return number;
+	}
+
+	/**
+	 * Adds to a set the blocks reachable from a block without going through another block.
+	 *
+	 * @param entry the block
+	 * @param exit the other block
+	 * @param reached the set, whose blocks are not explored again
+	 * @return the blocks added to the set, starting with {@code entry} if it was not already there
+	 */
+
+	private static List<Block> reachableBefore(Block entry, Block exit, Set<Block> reached) {
+		List<Block> added = new ArrayList<>();
+		Deque<Block> workList = new ArrayDeque<>();
+		if (reached.add(entry)) {
+			added.add(entry);
+			workList.add(entry);
+		}
+
+		while (!workList.isEmpty())
+			for (Block follow: workList.poll().getFollows())
+				if (follow != exit && reached.add(follow)) {
+					added.add(follow);
+					workList.add(follow);
+				}
+
+		return added;
+	}
+
+	/**
+	 * Determines if a block cannot be part of an outlined region. This is the
+	 * case of the blocks that return from the code, since they would return
+	 * from the outlined method instead, and of those that spawn calls or wait
+	 * for them, since they work on the frame of spawned calls of the activation.
+	 *
+	 * @param block the block
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isOpaque(Block block) {
+		if (block.getFollows().isEmpty())
+			return true;
+
+		for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+			if (cursor.getHead() instanceof SPAWN || cursor.getHead() instanceof SYNC || cursor.getHead() instanceof RESULT)
+				return true;
+
+		return false;
+	}
+
+	/**
+	 * Computes the height of the stack at the beginning of each block of the code.
+	 *
+	 * @param graph the graph of the code
+	 * @return the heights, in the same order as the blocks of {@code graph}.
+	 *         A height is -1 if it cannot be determined
+	 */
+
+	private static int[] heights(CodeGraph graph) {
+		List<Block> blocks = graph.getBlocks();
+		Map<Block, Integer> indexes = new HashMap<>();
+		for (int pos = 0; pos < blocks.size(); pos++)
+			indexes.put(blocks.get(pos), pos);
+
+		int[] heights = new int[blocks.size()];
+		Arrays.fill(heights, Integer.MIN_VALUE);
+		heights[0] = 0;
+		Deque<Integer> workList = new ArrayDeque<>();
+		workList.add(0);
+
+		while (!workList.isEmpty()) {
+			int pos = workList.poll();
+			int height = heights[pos];
+			for (BytecodeList cursor = blocks.get(pos).getBytecode(); cursor != null && height >= 0; cursor = cursor.getTail())
+				height = after(cursor.getHead(), height);
+
+			for (Block follow: blocks.get(pos).getFollows()) {
+				int index = indexes.get(follow);
+				if (heights[index] == Integer.MIN_VALUE) {
+					heights[index] = height;
+					workList.add(index);
+				}
+				else if (heights[index] != height && heights[index] != -1) {
+					heights[index] = -1;
+					workList.add(index);
+				}
+			}
+		}
+
+		for (int pos = 0; pos < heights.length; pos++)
+			if (heights[pos] < 0)
+				heights[pos] = -1;
+
+		return heights;
+	}
+
+	/**
+	 * Yields the height of the stack after a bytecode.
+	 *
+	 * @param bytecode the bytecode
+	 * @param height the height of the stack before {@code bytecode}
+	 * @return the height of the stack after {@code bytecode}
+	 */
+
+	private static int after(Bytecode bytecode, int height) {
+		if (bytecode instanceof BranchingBytecode)
+			return height - headPops((BranchingBytecode) bytecode);
+		else if (bytecode instanceof SWITCH)
+			return height - 1;
+		else if (bytecode instanceof RETURN)
+			return 0;
+
+		NonBranchingBytecode nonBranching = (NonBranchingBytecode) bytecode;
+		return height - nonBranching.getPops() + nonBranching.getPushes();
+	}
+
+	/**
+	 * Yields the number of stack elements consumed by the condition at the beginning of a block, if any.
+	 *
+	 * @param block the block
+	 * @return the number of stack elements
+	 */
+
+	private static int headPops(Block block) {
+		Bytecode head = block.getBytecode().getHead();
+		return head instanceof BranchingBytecode ? headPops((BranchingBytecode) head) : 0;
+	}
+
+	private static int headPops(BranchingBytecode condition) {
+		return condition instanceof BranchingComparisonBytecode ? 2 : 1;
+	}
+
+	/**
+	 * Computes the immediate post-dominator of each block of the code, with
+	 * the algorithm by Cooper, Harvey and Kennedy on the reversed graph. The blocks
+	 * that end the code are followed by a virtual exit, whose index is the number of blocks.
+	 *
+	 * @param graph the graph of the code
+	 * @param indexes the index of each block in the graph
+	 * @return the index of the immediate post-dominator of each block, or -1 if the block never ends the code
+	 */
+
+	private static int[] postDominators(CodeGraph graph, Map<Block, Integer> indexes) {
+		List<Block> blocks = graph.getBlocks();
+		int exit = blocks.size();
+
+		// the post-order of the reversed graph, from the virtual exit
+		int[] order = new int[exit + 1];
+		Arrays.fill(order, -1);
+		List<Integer> postOrder = new ArrayList<>();
+		boolean[] seen = new boolean[exit + 1];
+		Deque<int[]> stack = new ArrayDeque<>();
+		seen[exit] = true;
+		stack.push(new int[] { exit, 0 });
+
+		while (!stack.isEmpty()) {
+			int[] top = stack.peek();
+			List<Integer> predecessors = reversedSuccessors(top[0], graph, indexes);
+			if (top[1] < predecessors.size()) {
+				int next = predecessors.get(top[1]++);
+				if (!seen[next]) {
+					seen[next] = true;
+					stack.push(new int[] { next, 0 });
+				}
+			}
+			else {
+				order[top[0]] = postOrder.size();
+				postOrder.add(stack.pop()[0]);
+			}
+		}
+
+		int[] dominators = new int[exit + 1];
+		Arrays.fill(dominators, -1);
+		dominators[exit] = exit;
+
+		for (boolean changed = true; changed; ) {
+			changed = false;
+
+			// reverse post-order, skipping the virtual exit
+			for (int pos = postOrder.size() - 2; pos >= 0; pos--) {
+				int node = postOrder.get(pos);
+				int dominator = -1;
+
+				// the predecessors in the reversed graph are the successors in the code
+				for (int follow: successors(node, blocks, indexes))
+					if (dominators[follow] >= 0)
+						dominator = dominator < 0 ? follow : intersect(dominator, follow, dominators, order);
+
+				if (dominators[node] != dominator) {
+					dominators[node] = dominator;
+					changed = true;
+				}
+			}
+		}
+
+		return dominators;
+	}
+
+	private static int intersect(int node1, int node2, int[] dominators, int[] order) {
+		while (node1 != node2) {
+			while (order[node1] < order[node2])
+				node1 = dominators[node1];
+			while (order[node2] < order[node1])
+				node2 = dominators[node2];
+		}
+
+		return node1;
+	}
+
+	private static List<Integer> successors(int node, List<Block> blocks, Map<Block, Integer> indexes) {
+		List<Integer> result = new ArrayList<>();
+		if (node < blocks.size()) {
+			for (Block follow: blocks.get(node).getFollows())
+				result.add(indexes.get(follow));
+
+			if (result.isEmpty())
+				result.add(blocks.size());
+		}
+
+		return result;
+	}
+
+	private static List<Integer> reversedSuccessors(int node, CodeGraph graph, Map<Block, Integer> indexes) {
+		List<Integer> result = new ArrayList<>();
+		List<Block> blocks = graph.getBlocks();
+
+		if (node == blocks.size()) {
+			for (int pos = 0; pos < blocks.size(); pos++)
+				if (blocks.get(pos).getFollows().isEmpty())
+					result.add(pos);
+		}
+		else
+			for (Block predecessor: graph.getPredecessors(blocks.get(node)))
+				result.add(indexes.get(predecessor));
+
+		return result;
+	}
+
+	/**
+	 * Computes the local variables that are live at the beginning of each block of the code.
+	 *
+	 * @param graph the graph of the code
+	 * @param indexes the index of each block in the graph
+	 * @return the live variables, in the same order as the blocks of {@code graph}
+	 */
+
+	private static BitSet[] liveness(CodeGraph graph, Map<Block, Integer> indexes) {
+		List<Block> blocks = graph.getBlocks();
+		BitSet[] uses = new BitSet[blocks.size()], definitions = new BitSet[blocks.size()], liveIn = new BitSet[blocks.size()];
+
+		for (int pos = 0; pos < blocks.size(); pos++) {
+			uses[pos] = new BitSet();
+			definitions[pos] = new BitSet();
+			liveIn[pos] = new BitSet();
+
+			for (BytecodeList cursor = blocks.get(pos).getBytecode(); cursor != null; cursor = cursor.getTail())
+				if (cursor.getHead() instanceof LOAD) {
+					int variable = ((LOAD) cursor.getHead()).getVarNum();
+					if (!definitions[pos].get(variable))
+						uses[pos].set(variable);
+				}
+				else if (cursor.getHead() instanceof STORE)
+					definitions[pos].set(((STORE) cursor.getHead()).getVarNum());
+		}
+
+		for (boolean changed = true; changed; ) {
+			changed = false;
+
+			for (int pos = blocks.size() - 1; pos >= 0; pos--) {
+				BitSet live = new BitSet();
+				for (Block follow: blocks.get(pos).getFollows())
+					live.or(liveIn[indexes.get(follow)]);
+
+				live.andNot(definitions[pos]);
+				live.or(uses[pos]);
+
+				if (!live.equals(liveIn[pos])) {
+					liveIn[pos] = live;
+					changed = true;
+				}
+			}
+		}
+
+		return liveIn;
+	}
+
+	/**
+	 * Estimates the size of the Java bytecode of some blocks, including the jumps between them.
+	 *
+	 * @param blocks the blocks
+	 * @return the estimated size, in bytes
+	 */
+
+	private static int estimate(List<Block> blocks) {
+		int size = 0;
+		for (Block block: blocks)
+			size += estimate(block);
+
+		return size;
+	}
+
+	private static int estimate(Block block) {
+		// a jump to the followers, unless they come next
+		int size = block.getFollows().isEmpty() ? 0 : 3;
+		for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+			size += estimate(cursor.getHead());
+
+		return size;
+	}
+
+	/**
+	 * Estimates the size of the Java bytecode of a Kitten bytecode.
+	 *
+	 * @param bytecode the Kitten bytecode
+	 * @return the estimated size, in bytes
+	 */
+
+	private static int estimate(Bytecode bytecode) {
+		if (bytecode instanceof NOP)
+			return 0;
+		else if (bytecode instanceof LOAD)
+			return sizeOfLocal(((LOAD) bytecode).getVarNum());
+		else if (bytecode instanceof STORE)
+			return sizeOfLocal(((STORE) bytecode).getVarNum());
+		else if (bytecode instanceof CONST || bytecode instanceof ARRAYLOAD || bytecode instanceof ARRAYSTORE
+				|| bytecode instanceof DUP || bytecode instanceof POP || bytecode instanceof RETURN)
+			return bytecode instanceof CONST ? 2 : 1;
+		else if (bytecode instanceof ComparisonBinOpBytecode)
+			// a comparison that pushes a Boolean needs two jumps
+			return 8;
+		else if (bytecode instanceof BinOpBytecode)
+			return 1;
+		else if (bytecode instanceof NEW)
+			return 4;
+		else if (bytecode instanceof NEWSTRING || bytecode instanceof NEWBUILDER)
+			return 7;
+		else if (bytecode instanceof NULLCHECK)
+			return 5;
+		else if (bytecode instanceof COUNT)
+			return ((COUNT) bytecode).getProfile() != null ? 12 : 6;
+		else if (bytecode instanceof SWITCH)
+			return 12 + 8 * ((SWITCH) bytecode).getKeys().length;
+		else if (bytecode instanceof PARALLELFOR)
+			return 16 + 12 * ((CALL) bytecode).getStaticTarget().getParameters().getSize();
+		else if (bytecode instanceof ARRAYCOPY || bytecode instanceof ARRAYFILL)
+			return 3;
+		else
+			// calls, field accesses, casts, outputs and the other bytecodes that refer to the constant pool
+			return 3;
+	}
+
+	/**
+	 * Yields the size of the Java bytecode that loads or stores a local variable.
+	 *
+	 * @param variable the local variable
+	 * @return the size, in bytes
+	 */
+
+	private static int sizeOfLocal(int variable) {
+		return variable < 4 ? 1 : 2;
+	}
+
+	/**
+	 * Yields the bytecodes of a block.
+	 *
+	 * @param block the block
+	 * @return the bytecodes
+	 */
+
+	private static List<Bytecode> bytecodes(Block block) {
+		List<Bytecode> code = new ArrayList<>();
+		for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+			code.add(cursor.getHead());
+
+		return code;
+	}
+
+	/**
+	 * Builds a list of bytecodes.
+	 *
+	 * @param code the bytecodes, that must not be empty
+	 * @return the list
+	 */
+
+	private static BytecodeList list(List<Bytecode> code) {
+		BytecodeList result = null;
+		for (int pos = code.size() - 1; pos >= 0; pos--)
+			result = new BytecodeList(code.get(pos), result);
+
+		return result;
+	}
+}
@@ -0,0 +1,568 @@
+package translation;
+
+import java.io.File;
+
+/**
+ * The options of a run of the compiler, as specified on the command-line.
+ * There is a single set of options for each run of the compiler, that is
+ * accessible through {@link #get()}.
+ *
+ * @author Federico Bianchi
+ */
+
+public class Options {
+
+	/**
+	 * The highest optimisation level understood by the compiler.
+	 */
+
+	public final static int MAX_OPTIMISATION_LEVEL = 2;
+
+	/**
+	 * The oldest major version of the class files that can be generated, that of Java 1.1.
+	 */
+
+	public final static int MIN_TARGET = 45;
+
+	/**
+	 * The newest major version of the class files that can be generated, that of Java 17.
+	 */
+
+	public final static int MAX_TARGET = 61;
+
+	/**
+	 * The size of the largest method that the just-in-time compiler of the
+	 * Java virtual machine compiles by default, in bytes. It is the default of
+	 * {@code -XX:HugeMethodLimit}.
+	 */
+
+	public final static int HUGE_METHOD_LIMIT = 8000;
+
+	/**
+	 * The size of the largest method allowed in a class file, in bytes.
+	 */
+
+	public final static int MAX_CODE_SIZE = 65535;
+
+	/**
+	 * The options of the current run of the compiler.
+	 */
+
+	private static Options current = new Options();
+
+	/**
+	 * The name of the file that must be compiled. This is {@code null}
+	 * if it has not been specified.
+	 */
+
+	private String fileName;
+
+	/**
+	 * The optimisation level. At level 0 no optimisation is performed.
+	 */
+
+	private int optimisationLevel = 1;
+
+	/**
+	 * True if and only if the optimisations must report statistics about their work.
+	 */
+
+	private boolean statistics;
+
+	/**
+	 * The number of iterations of a parallel loop that are executed by a single
+	 * task. At 0, it is chosen at run-time from the number of iterations and of processors.
+	 */
+
+	private int grain;
+
+	/**
+	 * The sequential cutoff of the spawned calls: a call is executed at once,
+	 * rather than by a new task, if the current thread already has more than
+	 * this number of tasks waiting to be executed.
+	 */
+
+	private int cutoff = 3;
+
+	/**
+	 * The number of calls and loop iterations after which the interpreter
+	 * translates a method into Java bytecode. At 0, methods are always interpreted.
+	 */
+
+	private int tier;
+
+	/**
+	 * True if and only if the Kitten code of the program must be saved into a {@code .kbc} file.
+	 */
+
+	private boolean saveKittenBytecode;
+
+	/**
+	 * True if and only if the class files must be written directly, without the BCEL library.
+	 */
+
+	private boolean directBackend;
+
+	/**
+	 * The major version of the class files. From version 50, they contain
+	 * the frames used by the type-checking verifier of the Java virtual machine.
+	 */
+
+	private int target = MIN_TARGET;
+
+	/**
+	 * The name of the jar file where the class files must be written, or
+	 * {@code null} if they must be written as separate files.
+	 */
+
+	private String jarFile;
+
+	/**
+	 * True if and only if the entries of the jar file must be stored uncompressed.
+	 */
+
+	private boolean storedJar;
+
+	/**
+	 * True if and only if an application class-data sharing archive must be
+	 * built for the jar file, through a training run of the program.
+	 */
+
+	private boolean cdsArchive;
+
+	/**
+	 * The size of the Java bytecode, in bytes, beyond which the methods and constructors
+	 * get split. It is -1 if it has not been specified. At 0, nothing gets split.
+	 */
+
+	private int splitLimit = -1;
+
+	/**
+	 * True if and only if the code of the class files carries a {@code LineNumberTable} attribute.
+	 */
+
+	private boolean lineNumbers = true;
+
+	/**
+	 * True if and only if the code of the class files carries a {@code LocalVariableTable} attribute.
+	 */
+
+	private boolean localVariables = true;
+
+	/**
+	 * The profile file updated by the instrumented program, or {@code null} if the program is not instrumented.
+	 * It is the empty string until it is named after the compiled class.
+	 */
+
+	private String instrumentationProfile;
+
+	/**
+	 * The profile file that drives the optimisations, or {@code null} if there is none.
+	 */
+
+	private String profile;
+
+	/**
+	 * Builds the default options.
+	 */
+
+	private Options() {}
+
+	/**
+	 * Yields the options of the current run of the compiler.
+	 *
+	 * @return the options
+	 */
+
+	public static Options get() {
+		return current;
+	}
+
+	/**
+	 * Parses the command-line arguments of the compiler. They are made of the
+	 * name of the file to compile and of options starting with {@code -}:
+	 * <ul>
+	 * <li> {@code -O}<i>n</i> sets the optimisation level to <i>n</i>
+	 * <li> {@code -stats} requires the optimisations to report what they did
+	 * <li> {@code -grain=}<i>n</i> sets the number of iterations of the parallel loops executed by a single task
+	 * <li> {@code -cutoff=}<i>n</i> sets the sequential cutoff of the spawned calls
+	 * <li> {@code -tier=}<i>n</i> lets the interpreter translate into Java bytecode the methods
+	 *      that have been called or have iterated <i>n</i> times
+	 * <li> {@code -kbc} saves the Kitten code of the program into a {@code .kbc} file,
+	 *      that can be compiled or interpreted later in place of the {@code .kit} file
+	 * <li> {@code -backend=direct} writes the class files directly, in binary form, while
+	 *      {@code -backend=bcel}, the default, builds them through the BCEL library
+	 * <li> {@code -target=}<i>n</i> generates class files of major version <i>n</i>, between
+	 *      {@link #MIN_TARGET} and {@link #MAX_TARGET}. Versions after {@link #MIN_TARGET}
+	 *      are only written by the direct backend, that is used by default for them
+	 * <li> {@code -jar=}<i>file</i> writes the class files of the program, together with the
+	 *      classes of the run-time that they need, into a runnable jar file. With {@code -jar}
+	 *      alone, the jar file is named after the compiled class
+	 * <li> {@code -stored} stores the entries of the jar file uncompressed, for faster class loading
+	 * <li> {@code -cds} runs the program in the jar file once, to build an application
+	 *      class-data sharing archive for it, named after the jar file. Since only classes
+	 *      with frames can be archived, it selects {@code -target=}{@link #MAX_TARGET} by default
+	 * <li> {@code -split=}<i>n</i> splits the methods and constructors whose Java bytecode is larger
+	 *      than <i>n</i> bytes, so that the just-in-time compiler can compile them. The default is
+	 *      {@link #HUGE_METHOD_LIMIT} from optimisation level 1 and {@link #MAX_CODE_SIZE} otherwise,
+	 *      while {@code -split=0} never splits
+	 * <li> {@code -g} generates all debugging information, that is, the line numbers and the
+	 *      names of the receiver, of the parameters and of the local variables of the methods
+	 *      and constructors, which is the default, while {@code -g:none} generates none of them
+	 * <li> {@code -instrument=}<i>file</i> instruments the program with counters, that are
+	 *      added to the profile <i>file</i> whenever the program terminates. With {@code -instrument}
+	 *      alone, the profile file is named after the compiled class, with extension {@code .kprof}
+	 * <li> {@code -profile=}<i>file</i> reads a profile written by an instrumented program
+	 *      and uses it to drive the optimisations
+	 * </ul>
+	 * The options {@code -stored} and {@code -cds} imply {@code -jar}.
+	 * The result becomes the options of the current run of the compiler.
+	 *
+	 * @param args the command-line arguments
+	 * @return the options
+	 * @throws IllegalArgumentException if some argument is not understood
+	 */
+
+	public static Options parse(String[] args) {
+		Options options = new Options();
+		boolean bcelBackend = false, targetGiven = false;
+
+		for (String arg: args)
+			if (arg.startsWith("-O")) {
+				try {
+					options.optimisationLevel = Integer.parseInt(arg.substring(2));
+				}
+				catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Illegal optimisation level " + arg);
+				}
+
+				if (options.optimisationLevel < 0 || options.optimisationLevel > MAX_OPTIMISATION_LEVEL)
+					throw new IllegalArgumentException("The optimisation level must be between 0 and " + MAX_OPTIMISATION_LEVEL);
+			}
+			else if (arg.equals("-stats"))
+				options.statistics = true;
+			else if (arg.startsWith("-grain=")) {
+				try {
+					options.grain = Integer.parseInt(arg.substring(7));
+				}
+				catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Illegal grain size " + arg);
+				}
+
+				if (options.grain < 0)
+					throw new IllegalArgumentException("The grain size cannot be negative");
+			}
+			else if (arg.startsWith("-cutoff=")) {
+				try {
+					options.cutoff = Integer.parseInt(arg.substring(8));
+				}
+				catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Illegal sequential cutoff " + arg);
+				}
+
+				if (options.cutoff < 0)
+					throw new IllegalArgumentException("The sequential cutoff cannot be negative");
+			}
+			else if (arg.startsWith("-tier=")) {
+				try {
+					options.tier = Integer.parseInt(arg.substring(6));
+				}
+				catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Illegal tiering threshold " + arg);
+				}
+
+				if (options.tier < 0)
+					throw new IllegalArgumentException("The tiering threshold cannot be negative");
+			}
+			else if (arg.equals("-kbc"))
+				options.saveKittenBytecode = true;
+			else if (arg.startsWith("-backend=")) {
+				String backend = arg.substring(9);
+				if (backend.equals("direct"))
+					bcelBackend = false;
+				else if (backend.equals("bcel"))
+					bcelBackend = true;
+				else
+					throw new IllegalArgumentException("Unknown backend " + backend);
+
+				options.directBackend = !bcelBackend;
+			}
+			else if (arg.startsWith("-target=")) {
+				try {
+					options.target = Integer.parseInt(arg.substring(8));
+					targetGiven = true;
+				}
+				catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Illegal class file version " + arg);
+				}
+
+				if (options.target < MIN_TARGET || options.target > MAX_TARGET)
+					throw new IllegalArgumentException("The class file version must be between " + MIN_TARGET + " and " + MAX_TARGET);
+			}
+			else if (arg.equals("-jar"))
+				options.jarFile = "";
+			else if (arg.startsWith("-jar=")) {
+				options.jarFile = arg.substring(5);
+				if (options.jarFile.isEmpty())
+					throw new IllegalArgumentException("Missing jar file name " + arg);
+			}
+			else if (arg.equals("-stored"))
+				options.storedJar = true;
+			else if (arg.equals("-cds"))
+				options.cdsArchive = true;
+			else if (arg.startsWith("-split=")) {
+				try {
+					options.splitLimit = Integer.parseInt(arg.substring(7));
+				}
+				catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Illegal method size " + arg);
+				}
+
+				if (options.splitLimit < 0 || options.splitLimit > MAX_CODE_SIZE)
+					throw new IllegalArgumentException("The method size must be between 0 and " + MAX_CODE_SIZE);
+			}
+			else if (arg.equals("-g"))
+				options.lineNumbers = options.localVariables = true;
+			else if (arg.equals("-g:none"))
+				options.lineNumbers = options.localVariables = false;
+			else if (arg.equals("-instrument"))
+				options.instrumentationProfile = "";
+			else if (arg.startsWith("-instrument=")) {
+				options.instrumentationProfile = arg.substring(12);
+				if (options.instrumentationProfile.isEmpty())
+					throw new IllegalArgumentException("Missing profile file name " + arg);
+			}
+			else if (arg.startsWith("-profile=")) {
+				options.profile = arg.substring(9);
+				if (options.profile.isEmpty())
+					throw new IllegalArgumentException("Missing profile file name " + arg);
+			}
+			else if (arg.startsWith("-"))
+				throw new IllegalArgumentException("Unknown option " + arg);
+			else if (options.fileName == null)
+				options.fileName = arg;
+			else
+				throw new IllegalArgumentException("Only one Kitten class can be compiled at a time");
+
+		if ((options.storedJar || options.cdsArchive) && options.jarFile == null)
+			options.jarFile = "";
+
+		if ("".equals(options.jarFile) && options.fileName != null)
+			// the jar is named after the compiled class, in the current directory as its class files
+			options.jarFile = options.baseName() + ".jar";
+
+		if ("".equals(options.instrumentationProfile) && options.fileName != null)
+			options.instrumentationProfile = options.baseName() + ".kprof";
+
+		if (options.instrumentationProfile != null && options.profile != null)
+			throw new IllegalArgumentException("An instrumented program cannot use a profile");
+
+		// class-data sharing only archives classes checked by the type-checking verifier
+		if (options.cdsArchive && !targetGiven && !bcelBackend)
+			options.target = MAX_TARGET;
+		else if (options.cdsArchive && options.target < 50)
+			throw new IllegalArgumentException("Class-data sharing requires class files of version 50 or later");
+
+		if (options.target > MIN_TARGET)
+			if (bcelBackend)
+				throw new IllegalArgumentException("The BCEL backend only generates class files of version " + MIN_TARGET);
+			else
+				options.directBackend = true;
+
+		return current = options;
+	}
+
+	/**
+	 * Yields the name of the file that must be compiled, without its directory and its extension.
+	 *
+	 * @return the name
+	 */
+
+	private String baseName() {
+		String name = new File(fileName).getName();
+		int dot = name.lastIndexOf('.');
+
+		return dot > 0 ? name.substring(0, dot) : name;
+	}
+
+	/**
+	 * Yields the name of the file that must be compiled.
+	 *
+	 * @return the name of the file, or {@code null} if it has not been specified
+	 */
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	/**
+	 * Yields the optimisation level.
+	 *
+	 * @return the optimisation level, between 0 and {@link #MAX_OPTIMISATION_LEVEL}
+	 */
+
+	public int getOptimisationLevel() {
+		return optimisationLevel;
+	}
+
+	/**
+	 * Determines if the optimisations must report statistics about their work.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	public boolean reportStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Yields the number of iterations of a parallel loop that are executed by a single task.
+	 *
+	 * @return the number of iterations, or 0 if it must be chosen at run-time
+	 */
+
+	public int getGrain() {
+		return grain;
+	}
+
+	/**
+	 * Yields the sequential cutoff of the spawned calls, that is, the number of tasks
+	 * waiting to be executed by the current thread above which a spawned call
+	 * is executed at once, without creating a new task.
+	 *
+	 * @return the sequential cutoff
+	 */
+
+	public int getCutoff() {
+		return cutoff;
+	}
+
+	/**
+	 * Yields the number of calls and loop iterations after which the interpreter
+	 * translates a method into Java bytecode.
+	 *
+	 * @return the number of calls and loop iterations, or 0 if methods must always be interpreted
+	 */
+
+	public int getTier() {
+		return tier;
+	}
+
+	/**
+	 * Determines if the Kitten code of the program must be saved into a {@code .kbc} file.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	public boolean saveKittenBytecode() {
+		return saveKittenBytecode;
+	}
+
+	/**
+	 * Determines if the class files must be written directly, in binary form,
+	 * rather than through the BCEL library.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	public boolean useDirectBackend() {
+		return directBackend;
+	}
+
+	/**
+	 * Yields the major version of the class files.
+	 *
+	 * @return the major version, between {@link #MIN_TARGET} and {@link #MAX_TARGET}
+	 */
+
+	public int getTarget() {
+		return target;
+	}
+
+	/**
+	 * Yields the name of the jar file where the class files must be written.
+	 *
+	 * @return the name of the jar file, or {@code null} if the class files
+	 *         must be written as separate files
+	 */
+
+	public String getJarFile() {
+		return jarFile;
+	}
+
+	/**
+	 * Determines if the entries of the jar file must be stored uncompressed.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	public boolean storeJarUncompressed() {
+		return storedJar;
+	}
+
+	/**
+	 * Determines if an application class-data sharing archive must be built for the jar file.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	public boolean buildCDSArchive() {
+		return cdsArchive;
+	}
+
+	/**
+	 * Yields the size of the Java bytecode, in bytes, beyond which
+	 * the methods and constructors get split.
+	 *
+	 * @return the size, or 0 if nothing must be split
+	 */
+
+	public int getSplitLimit() {
+		if (splitLimit >= 0)
+			return splitLimit;
+		else
+			return optimisationLevel >= 1 ? HUGE_METHOD_LIMIT : MAX_CODE_SIZE;
+	}
+
+	/**
+	 * Determines if the code of the class files must carry a {@code LineNumberTable} attribute,
+	 * that maps its instructions to the lines of the source code.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	public boolean generateLineNumbers() {
+		return lineNumbers;
+	}
+
+	/**
+	 * Determines if the code of the class files must carry a {@code LocalVariableTable} attribute,
+	 * that names the receiver, the parameters and the local variables of the methods and constructors.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	public boolean generateLocalVariables() {
+		return localVariables;
+	}
+
+	/**
+	 * Yields the profile file updated by the instrumented program.
+	 *
+	 * @return the name of the profile file, or {@code null} if the program must not be instrumented
+	 */
+
+	public String getInstrumentationProfile() {
+		return instrumentationProfile;
+	}
+
+	/**
+	 * Yields the profile file that drives the optimisations.
+	 *
+	 * @return the name of the profile file, or {@code null} if there is none
+	 */
+
+	public String getProfile() {
+		return profile;
+	}
+}
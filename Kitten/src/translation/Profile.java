@@ -0,0 +1,202 @@
+package translation;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import types.ClassMemberSignature;
+import types.CodeSignature;
+import bytecode.BytecodeList;
+import bytecode.CALL;
+
+/**
+ * The profile of a program, that is, the number of times that its blocks of
+ * code and its calls have been executed by some runs of the program, instrumented
+ * through {@link Instrumentation}. A profile is a text file with a line for each
+ * counter: the count, a space and the description of the counter. Lines starting
+ * with {@code #} are comments. A counter is described by the method or constructor
+ * where it lies, followed by {@code #} and the index of a block of its code,
+ * or by {@code @} and the index of a call, in the order of the blocks of its
+ * {@link CodeGraph} and of their bytecodes, before the optimisations.
+ * <br><br>
+ * A profile is applied to the code of a program before it is optimised, that has
+ * hence the same shape as the code that was instrumented. Each block becomes
+ * aware of the number of times it has been executed, through
+ * {@link Block#getFrequency()}: that of the blocks without a counter is the sum
+ * of that of their predecessors, if they all have a single successor, or the count
+ * of the first call in the block. The optimisations then keep the frequency of
+ * the blocks they move and scale that of the blocks they copy.
+ *
+ * @author Federico Bianchi
+ */
+
+public class Profile {
+
+	/**
+	 * The count of each counter of the profile, by description.
+	 */
+
+	private final Map<String, Long> counts = new HashMap<>();
+
+	/**
+	 * The number of methods and constructors whose code has been annotated with its frequencies so far.
+	 */
+
+	private int annotated;
+
+	/**
+	 * Reads a profile from a file.
+	 *
+	 * @param fileName the name of the file
+	 * @throws IOException if the file cannot be read or is not in the expected format
+	 */
+
+	public Profile(String fileName) throws IOException {
+		try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+			String line;
+			for (int number = 1; (line = reader.readLine()) != null; number++) {
+				int space = line.indexOf(' ');
+				if (line.startsWith("#") || line.trim().isEmpty())
+					continue;
+				else if (space < 0)
+					throw new IOException("Malformed line " + number + " of " + fileName);
+
+				try {
+					counts.put(line.substring(space + 1), Long.parseLong(line.substring(0, space)));
+				}
+				catch (NumberFormatException e) {
+					throw new IOException("Malformed line " + number + " of " + fileName);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Yields the number of methods and constructors whose code has been annotated with its frequencies so far.
+	 *
+	 * @return the number of methods and constructors
+	 */
+
+	public int getAnnotated() {
+		return annotated;
+	}
+
+	/**
+	 * Yields the description of the counter of a block.
+	 *
+	 * @param sig the method or constructor where the block lies
+	 * @param block the index of the block in the {@link CodeGraph} of the code
+	 * @return the description
+	 */
+
+	static String blockCounter(CodeSignature sig, int block) {
+		return sig + "#" + block;
+	}
+
+	/**
+	 * Yields the description of the counter of a call.
+	 *
+	 * @param sig the method or constructor where the call lies
+	 * @param call the index of the call among those of the code
+	 * @return the description
+	 */
+
+	static String callCounter(CodeSignature sig, int call) {
+		return sig + "@" + call;
+	}
+
+	/**
+	 * Annotates the code of all methods and constructors of a program with the
+	 * frequency of its blocks, according to this profile.
+	 *
+	 * @param program the program, that must not have been optimised yet
+	 */
+
+	public void annotate(Program program) {
+		for (ClassMemberSignature sig: program.getSigs())
+			if (sig instanceof CodeSignature && ((CodeSignature) sig).getCode() != null)
+				annotate(new CodeGraph((CodeSignature) sig));
+	}
+
+	/**
+	 * Annotates the code of a method or constructor with the frequency of its blocks.
+	 *
+	 * @param graph the graph of the code
+	 */
+
+	private void annotate(CodeGraph graph) {
+		CodeSignature sig = graph.getSignature();
+		List<Block> blocks = graph.getBlocks();
+		Map<Block, Long> frequencies = new HashMap<>();
+		int call = 0;
+
+		for (int pos = 0; pos < blocks.size(); pos++) {
+			Block block = blocks.get(pos);
+			Long count = counts.get(blockCounter(sig, pos));
+
+			for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+				if (cursor.getHead() instanceof CALL) {
+					Long calls = counts.get(callCounter(sig, call++));
+					// the first call of the block is executed whenever the block is
+					if (count == null)
+						count = calls;
+				}
+
+			if (count != null)
+				frequencies.put(block, count);
+		}
+
+		// the code was not profiled
+		if (frequencies.isEmpty())
+			return;
+
+		// each round fixes the blocks whose predecessors have been fixed in the previous rounds
+		for (boolean changed = true; changed; ) {
+			changed = false;
+
+			for (Block block: blocks)
+				if (!frequencies.containsKey(block)) {
+					Long frequency = inflow(graph, block, frequencies);
+					if (frequency != null) {
+						frequencies.put(block, frequency);
+						changed = true;
+					}
+				}
+		}
+
+		for (Map.Entry<Block, Long> entry: frequencies.entrySet())
+			entry.getKey().setFrequency(entry.getValue());
+
+		annotated++;
+	}
+
+	/**
+	 * Yields the number of times the control flows into a block from its predecessors.
+	 *
+	 * @param graph the graph of the code
+	 * @param block the block
+	 * @param frequencies the frequencies of the blocks known so far
+	 * @return the number of times, or {@code null} if it cannot be determined yet. This is
+	 *         the case if some predecessor has an unknown frequency or more successors
+	 */
+
+	private static Long inflow(CodeGraph graph, Block block, Map<Block, Long> frequencies) {
+		List<Block> predecessors = graph.getPredecessors(block);
+		if (predecessors.isEmpty())
+			return null;
+
+		long inflow = 0;
+		for (Block predecessor: predecessors) {
+			Long frequency = frequencies.get(predecessor);
+			if (frequency == null || predecessor.getFollows().size() != 1)
+				return null;
+
+			inflow += frequency;
+		}
+
+		return inflow;
+	}
+}
@@ -1,19 +1,28 @@
 package translation;
 
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import javaBytecodeGenerator.DirectClassGenerator;
+import javaBytecodeGenerator.JarWriter;
 import javaBytecodeGenerator.JavaClassGenerator;
+import javaBytecodeGenerator.PeepholeOptimizer;
 import javaBytecodeGenerator.TestClassGenerator;
 import types.ClassMemberSignature;
 import types.ClassType;
 import types.CodeSignature;
 import types.ConstructorSignature;
 import types.FixtureSignature;
+import types.Intrinsics;
 import types.TestSignature;
 import types.TypeList;
 import bytecode.Bytecode;
@@ -55,6 +64,65 @@ public class Program {
 		cleanUp();
 	}
 
+	/**
+	 * Builds a program whose code has been already cleaned-up, such as a
+	 * program loaded from a file. Its code is not accessed, so that it
+	 * can be decoded lazily.
+	 *
+	 * @param start the code where the program starts
+	 * @param sigs the set of signatures
+	 */
+
+	Program(CodeSignature start, Set<ClassMemberSignature> sigs) {
+		this.sigs = sigs;
+		this.start = start;
+	}
+
+	/**
+	 * Loads a program from a file in the binary format written by
+	 * {@link #save(String)}. The classes of the program are rebuilt without
+	 * parsing nor type-checking their sources. The code of its constructors
+	 * and methods is decoded the first time it is needed.
+	 *
+	 * @param fileName the name of the file
+	 * @return the program
+	 * @throws IOException if the file cannot be read or is not in the expected format
+	 */
+
+	public static Program load(String fileName) throws IOException {
+		return new ProgramReader(fileName).read();
+	}
+
+	/**
+	 * Saves this program into a file, in a compact binary format. The file
+	 * contains the Kitten code of the program and the signatures of all
+	 * classes that have been created so far, so that {@link #load(String)} can
+	 * rebuild the program without the sources of its classes. The program is
+	 * written into a temporary file, that replaces the file only at the end,
+	 * so that a failure never leaves a truncated file behind.
+	 *
+	 * @param fileName the name of the file
+	 * @throws IOException if the file cannot be written
+	 */
+
+	public void save(String fileName) throws IOException {
+		File temp = new File(fileName + ".tmp");
+		boolean written = false;
+
+		try {
+			try (ProgramWriter writer = new ProgramWriter(temp.getPath())) {
+				writer.write(this);
+			}
+
+			Files.move(temp.toPath(), new File(fileName).toPath(), StandardCopyOption.REPLACE_EXISTING);
+			written = true;
+		}
+		finally {
+			if (!written)
+				temp.delete();
+		}
+	}
+
 	/**
 	 * Yields the class signatures that make up this program.
 	 *
@@ -131,6 +199,91 @@ public class Program {
 		
 	}
 
+	/**
+	 * Optimises the Kitten code of this program, according to the
+	 * optimisation level of the current run of the compiler. The code is first
+	 * instrumented with counters or annotated with a profile, if required.
+	 */
+
+	public void optimise() {
+		Options options = Options.get();
+
+		// the counters and the profile refer to the code before the optimisations
+		if (options.getInstrumentationProfile() != null) {
+			Instrumentation instrumentation = new Instrumentation(this, options.getInstrumentationProfile());
+			instrumentation.instrument();
+
+			try {
+				instrumentation.save();
+			}
+			catch (IOException e) {
+				System.out.println("Could not write the profile " + options.getInstrumentationProfile() + ": " + e.getMessage());
+			}
+
+			if (options.reportStatistics())
+				System.out.println("Instrumentation: " + instrumentation.getCounters() + " counters");
+		}
+		else if (options.getProfile() != null)
+			try {
+				Profile profile = new Profile(options.getProfile());
+				profile.annotate(this);
+
+				if (options.reportStatistics())
+					System.out.println("Profile: " + profile.getAnnotated() + " methods and constructors annotated");
+			}
+			catch (IOException e) {
+				System.out.println("Could not read the profile " + options.getProfile() + ": " + e.getMessage());
+			}
+
+		if (options.getOptimisationLevel() >= 2) {
+			TailCallElimination tce = new TailCallElimination(this);
+			tce.optimise();
+
+			if (options.reportStatistics())
+				System.out.println("Tail-call elimination: " + tce.getEliminated() + " self-recursive calls eliminated");
+		}
+
+		if (options.getOptimisationLevel() >= 1) {
+			// inlining follows tail-call elimination, that has already turned self-recursive tail calls into loops,
+			// and precedes the other optimisations, since it exposes the code of the callees to them
+			Inliner inliner = new Inliner(this, options.getOptimisationLevel() >= 2);
+			inliner.inline();
+
+			if (options.reportStatistics())
+				System.out.println("Inlining: " + inliner.getMonomorphicCalls() + " monomorphic and "
+					+ inliner.getPolymorphicCalls() + " polymorphic calls inlined");
+
+			LoopInvariantCodeMotion licm = new LoopInvariantCodeMotion(this);
+			licm.optimise();
+
+			if (options.reportStatistics())
+				System.out.println("Loop-invariant code motion: " + licm.getHoisted()
+					+ " expressions moved out of " + licm.getLoops() + " loops");
+
+			// branches are selected last, since the other optimisations move comparisons around
+			BranchSelection selection = new BranchSelection(this);
+			selection.optimise();
+
+			if (options.reportStatistics())
+				System.out.println("Branch selection: " + selection.getFused() + " comparisons fused with their branch, "
+					+ selection.getSpecialised() + " comparisons with zero specialised, "
+					+ selection.getMerged() + " blocks merged");
+
+			StringSharing sharing = new StringSharing(this);
+			sharing.optimise();
+
+			if (options.reportStatistics())
+				System.out.println("String sharing: " + sharing.getShared() + " string literals shared");
+
+			// local variables are allocated at the very end, when their live ranges are known
+			LocalVariableAllocation allocation = new LocalVariableAllocation(this);
+			allocation.optimise();
+
+			if (options.reportStatistics())
+				System.out.println("Local variable allocation: " + allocation.getSaved() + " local variables saved");
+		}
+	}
+
 	/**
 	 * Dumps the Kitten code of the signatures in this set into dot files. It is
 	 * assumed that all these signatures have already been translated into Kitten code.
@@ -214,14 +367,78 @@ public class Program {
 	 */
 
 	public void generateJavaBytecode() {
+		generateJavaBytecode(null);
+	}
+
+	/**
+	 * Generates the Java bytecode for all the class types and writes
+	 * the relative class files into a jar, or on the file system.
+	 *
+	 * @param jar the jar where the class files are written. If this is {@code null},
+	 *            they are dumped as {@code .class} files on the file system
+	 */
+
+	public void generateJavaBytecode(JarWriter jar) {
+		int devirtualizedCalls = 0;
+		MethodSplitter splitter = new MethodSplitter(this, Options.get().getSplitLimit());
+		Map<PeepholeOptimizer.Rule, Integer> peepholes = new EnumMap<>(PeepholeOptimizer.Rule.class);
+		for (PeepholeOptimizer.Rule rule: PeepholeOptimizer.Rule.values())
+			peepholes.put(rule, 0);
+
 		// we consider one class at the time and we generate its Java bytecode
 		for (ClassType clazz: ClassType.getAll())
-			try {
-				new JavaClassGenerator(clazz, sigs).getJavaClass().dump(clazz + ".class");
-			}
-			catch (IOException e) {
-				System.out.println("Could not dump the Java bytecode for class " + clazz);
-			}
+			// the intrinsic classes are implemented by Java classes of the runTime package
+			if (!Intrinsics.isIntrinsic(clazz))
+				try {
+					if (Options.get().useDirectBackend()) {
+						// the class file is written directly, applying the peephole rules while the code is written
+						DirectClassGenerator generator = new DirectClassGenerator(clazz, sigs);
+						// the methods that are too large are split and the class is generated again
+						while (splitter.split(generator.getCodeSizes()))
+							generator = new DirectClassGenerator(clazz, sigs);
+
+						if (jar != null)
+							jar.add(clazz.getName(), generator.getBytes());
+						else
+							generator.dump(clazz + ".class");
+
+						devirtualizedCalls += generator.getDevirtualizedCalls();
+						for (PeepholeOptimizer.Rule rule: PeepholeOptimizer.Rule.values())
+							peepholes.put(rule, peepholes.get(rule) + generator.getApplications(rule));
+					}
+					else {
+						JavaClassGenerator generator = new JavaClassGenerator(clazz, sigs);
+						while (splitter.split(generator.getCodeSizes()))
+							generator = new JavaClassGenerator(clazz, sigs);
+
+						if (jar != null)
+							jar.add(clazz.getName(), generator.getJavaClass().getBytes());
+						else
+							generator.getJavaClass().dump(clazz + ".class");
+
+						devirtualizedCalls += generator.getDevirtualizedCalls();
+						for (PeepholeOptimizer.Rule rule: PeepholeOptimizer.Rule.values())
+							peepholes.put(rule, peepholes.get(rule) + generator.getPeepholeOptimizer().getApplications(rule));
+					}
+				}
+				catch (IOException e) {
+					System.out.println("Could not dump the Java bytecode for class " + clazz);
+				}
+
+		if (Options.get().reportStatistics()) {
+			System.out.println("Devirtualization: " + devirtualizedCalls + " call sites with a single final target");
+
+			StringBuilder peephole = new StringBuilder("Peephole optimisation:");
+			for (PeepholeOptimizer.Rule rule: PeepholeOptimizer.Rule.values())
+				peephole.append(" " + peepholes.get(rule) + " " + rule + ",");
+
+			System.out.println(peephole.substring(0, peephole.length() - 1));
+
+			System.out.println("Method splitting: " + splitter.getSplit() + " methods split into "
+				+ splitter.getOutlined() + " outlined methods");
+			for (String split: splitter.getReport())
+				System.out.println("  " + split);
+		}
 	}
 	
 	/**
@@ -229,11 +446,25 @@ public class Program {
 	 */
 	
     public void generateJavaBytecodeForTests() {
+        generateJavaBytecodeForTests(null);
+    }
+
+	/**
+	 * Genera il java bytecode per i test, scrivendolo in un jar o sul file system.
+	 *
+	 * @param jar il jar dove scrivere i class file. Se e' {@code null},
+	 *            vengono scritti come file {@code .class} sul file system
+	 */
+
+    public void generateJavaBytecodeForTests(JarWriter jar) {
         for (ClassType clazz: ClassType.getAll()) {
             if (clazz.getTests().isEmpty())
                 continue;
             try {
-                new TestClassGenerator(clazz, sigs).getJavaClass().dump(clazz + "Test.class");
+                if (jar != null)
+                    jar.add(clazz + "Test", new TestClassGenerator(clazz, sigs).getJavaClass().getBytes());
+                else
+                    new TestClassGenerator(clazz, sigs).getJavaClass().dump(clazz + "Test.class");
             }
             catch (IOException e) {
                 System.out.println("Could not dump the Java bytecode for tests for class " + clazz);
@@ -0,0 +1,127 @@
+package translation;
+
+/**
+ * The constants of the binary format of the {@code .kbc} files, that hold
+ * the Kitten code of a program. A file is made of
+ * <ul>
+ * <li> a header, that is, the 4 bytes {@code KBC2};
+ * <li> the code of the constructors and methods of the program, one after the other;
+ * <li> the tables of the file: strings, types, classes, signatures of the class members,
+ *      signatures of the program and a directory with the position of the code
+ *      of each constructor and method;
+ * <li> a trailer, that is, the position of the tables, in 4 bytes.
+ * </ul>
+ * The tables follow the code, so that the file can be written in a single pass,
+ * while the code is translated into binary form. The code of a constructor or
+ * method is a list of blocks, each with its flags, its successors and its bytecodes.
+ * Each bytecode is an opcode followed by its operands, possibly preceded by a
+ * {@link #LINE} pseudo-opcode, when it comes from another line of the source code
+ * than the previous bytecode of the code. Strings, types and
+ * signatures are referred to through their position in the tables.
+ * Numbers are written as variable-length integers, 7 bits per byte,
+ * with zig-zag encoding when they might be negative. The only exceptions
+ * are {@code float} constants, written in 4 bytes, and the header and trailer.
+ *
+ * @author Federico Bianchi
+ */
+
+final class ProgramFormat {
+
+	private ProgramFormat() {}
+
+	/**
+	 * The first 4 bytes of a {@code .kbc} file.
+	 */
+
+	final static int MAGIC = 0x4B424332;
+
+	// the tags of the types
+
+	final static int VOID = 0;
+	final static int INT = 1;
+	final static int FLOAT = 2;
+	final static int BOOLEAN = 3;
+	final static int NIL = 4;
+	final static int UNUSED = 5;
+	final static int CLASS = 6;
+	final static int ARRAY = 7;
+
+	// the kinds of the class members
+
+	final static int FIELD = 0;
+	final static int CONSTRUCTOR = 1;
+	final static int METHOD = 2;
+	final static int TEST = 3;
+	final static int FIXTURE = 4;
+
+	// the flags of the methods
+
+	final static int MEMO = 1;
+	final static int PARALLEL_BODY = 2;
+	final static int STATIC = 4;
+
+	// the flags of the blocks
+
+	final static int MERGEABLE = 1;
+	final static int LOOP_HEAD = 2;
+
+	// the opcodes of the bytecodes. The comments report their operands
+
+	final static int NOP = 0;
+	final static int CONST_NIL = 1;
+	final static int CONST_BOOLEAN = 2; // 0 or 1
+	final static int CONST_INT = 3; // signed value
+	final static int CONST_FLOAT = 4; // 4 bytes
+	final static int NEWSTRING = 5; // string
+	final static int LOAD = 6; // local, type
+	final static int STORE = 7; // local, type
+	final static int DUP = 8; // type
+	final static int POP = 9; // type
+	final static int ADD = 10; // type
+	final static int SUB = 11; // type
+	final static int MUL = 12; // type
+	final static int DIV = 13; // type
+	final static int NEG = 14; // type
+	final static int AND = 15;
+	final static int OR = 16;
+	final static int CAST = 17; // type, type
+	final static int INSTANCEOF = 18; // type
+	final static int EQ = 19; // type
+	final static int NE = 20; // type
+	final static int LT = 21; // type
+	final static int LE = 22; // type
+	final static int GT = 23; // type
+	final static int GE = 24; // type
+	final static int IF_TRUE = 25;
+	final static int IF_FALSE = 26;
+	final static int IF_CMPEQ = 27; // type
+	final static int IF_CMPNE = 28; // type
+	final static int IF_CMPLT = 29; // type
+	final static int IF_CMPLE = 30; // type
+	final static int IF_CMPGT = 31; // type
+	final static int IF_CMPGE = 32; // type
+	final static int IF_CMPZERO = 33; // comparison bytecode
+	final static int RETURN = 34; // type
+	final static int GETFIELD = 35; // field
+	final static int PUTFIELD = 36; // field
+	final static int NEW = 37; // type
+	final static int NEWARRAY = 38; // type, dimensions
+	final static int ARRAYLOAD = 39; // type
+	final static int ARRAYSTORE = 40; // type
+	final static int ARRAYCOPY = 41; // type
+	final static int ARRAYFILL = 42; // type
+	final static int NULLCHECK = 43;
+	final static int OUTPUT = 44; // type
+	final static int NEWBUILDER = 45; // parts
+	final static int APPEND = 46; // type
+	final static int BUILDSTRING = 47;
+	final static int OUTPUTBUILDER = 48;
+	final static int VIRTUALCALL = 49; // type, method
+	final static int CONSTRUCTORCALL = 50; // constructor
+	final static int PARALLELFOR = 51; // method
+	final static int SPAWN = 52; // type, method, signed slot
+	final static int SYNC = 53;
+	final static int RESULT = 54; // slot, type
+	final static int SWITCH = 55; // number of keys, signed keys
+	final static int LINE = 56; // line of the following bytecodes
+}
@@ -0,0 +1,513 @@
+package translation;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import absyn.MethodDeclaration;
+import types.ArrayType;
+import types.BooleanType;
+import types.ClassMemberSignature;
+import types.ClassType;
+import types.CodeSignature;
+import types.ComparableType;
+import types.ConstructorSignature;
+import types.FieldSignature;
+import types.FixtureSignature;
+import types.FloatType;
+import types.IntType;
+import types.MethodSignature;
+import types.NilType;
+import types.NumericalType;
+import types.ReferenceType;
+import types.TestSignature;
+import types.Type;
+import types.TypeList;
+import types.UnusedType;
+import types.VoidType;
+import bytecode.ADD;
+import bytecode.AND;
+import bytecode.APPEND;
+import bytecode.ARRAYCOPY;
+import bytecode.ARRAYFILL;
+import bytecode.ARRAYLOAD;
+import bytecode.ARRAYSTORE;
+import bytecode.BUILDSTRING;
+import bytecode.BranchingComparisonBytecode;
+import bytecode.Bytecode;
+import bytecode.BytecodeList;
+import bytecode.CAST;
+import bytecode.CONST;
+import bytecode.CONSTRUCTORCALL;
+import bytecode.DIV;
+import bytecode.DUP;
+import bytecode.EQ;
+import bytecode.GE;
+import bytecode.GETFIELD;
+import bytecode.GT;
+import bytecode.IF_CMPEQ;
+import bytecode.IF_CMPGE;
+import bytecode.IF_CMPGT;
+import bytecode.IF_CMPLE;
+import bytecode.IF_CMPLT;
+import bytecode.IF_CMPNE;
+import bytecode.IF_CMPZERO;
+import bytecode.IF_FALSE;
+import bytecode.IF_TRUE;
+import bytecode.INSTANCEOF;
+import bytecode.LE;
+import bytecode.LOAD;
+import bytecode.LT;
+import bytecode.MUL;
+import bytecode.NE;
+import bytecode.NEG;
+import bytecode.NEW;
+import bytecode.NEWARRAY;
+import bytecode.NEWBUILDER;
+import bytecode.NEWSTRING;
+import bytecode.NOP;
+import bytecode.NULLCHECK;
+import bytecode.OR;
+import bytecode.OUTPUT;
+import bytecode.OUTPUTBUILDER;
+import bytecode.PARALLELFOR;
+import bytecode.POP;
+import bytecode.PUTFIELD;
+import bytecode.RESULT;
+import bytecode.RETURN;
+import bytecode.SPAWN;
+import bytecode.STORE;
+import bytecode.SUB;
+import bytecode.SWITCH;
+import bytecode.SYNC;
+import bytecode.VIRTUALCALL;
+
+/**
+ * A reader of programs from {@code .kbc} files, in the format described in
+ * {@link ProgramFormat}. The file is mapped into memory. Its tables are read
+ * at once, in order to rebuild the classes and the signatures of their members,
+ * but the code of each constructor or method is only decoded the first time it is needed.
+ *
+ * @author Federico Bianchi
+ */
+
+class ProgramReader implements CodeLoader {
+
+	/**
+	 * The name of the file.
+	 */
+
+	private final String fileName;
+
+	/**
+	 * The content of the file, mapped into memory.
+	 */
+
+	private final ByteBuffer buffer;
+
+	/**
+	 * The table of strings of the file.
+	 */
+
+	private String[] strings;
+
+	/**
+	 * The table of types of the file.
+	 */
+
+	private Type[] types;
+
+	/**
+	 * The table of signatures of the file.
+	 */
+
+	private ClassMemberSignature[] members;
+
+	/**
+	 * The position in the file of the code of each constructor or method.
+	 */
+
+	private final Map<CodeSignature, Integer> directory = new HashMap<>();
+
+	/**
+	 * Builds a reader from the given file.
+	 *
+	 * @param fileName the name of the file
+	 * @throws IOException if the file cannot be opened
+	 */
+
+	ProgramReader(String fileName) throws IOException {
+		this.fileName = fileName;
+
+		// the mapping remains valid after the channel is closed
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/**
+	 * Reads the program in the file. This rebuilds its classes, which must not exist yet.
+	 *
+	 * @return the program, whose code will be decoded lazily
+	 * @throws IOException if the file is not in the expected format
+	 */
+
+	Program read() throws IOException {
+		try {
+			if (buffer.limit() < 8 || buffer.getInt(0) != ProgramFormat.MAGIC)
+				throw new IOException(fileName + " is not a Kitten bytecode file");
+
+			ByteBuffer in = buffer.duplicate();
+			in.position(buffer.getInt(buffer.limit() - 4));
+
+			strings = new String[readInt(in)];
+			for (int pos = 0; pos < strings.length; pos++) {
+				byte[] bytes = new byte[readInt(in)];
+				in.get(bytes);
+				// the names of the members are compared by identity
+				strings[pos] = new String(bytes, StandardCharsets.UTF_8).intern();
+			}
+
+			// the types are resolved after the classes have been built
+			int[] tags = new int[readInt(in)];
+			int[] operands = new int[tags.length];
+			for (int pos = 0; pos < tags.length; pos++)
+				if ((tags[pos] = in.get()) == ProgramFormat.CLASS || tags[pos] == ProgramFormat.ARRAY)
+					operands[pos] = readInt(in);
+
+			types = new Type[tags.length];
+			int[] superclasses = new int[tags.length];
+			int classes = readInt(in);
+			for (int counter = 0; counter < classes; counter++) {
+				int clazz = readInt(in);
+				superclasses[clazz] = readInt(in);
+			}
+
+			for (int pos = 0; pos < tags.length; pos++)
+				types[pos] = resolve(pos, tags, operands, superclasses);
+
+			members = new ClassMemberSignature[readInt(in)];
+			for (int pos = 0; pos < members.length; pos++)
+				members[pos] = readMember(in);
+
+			// all classes of the program have been rebuilt by now
+			ClassType.computeOverriddenMethods();
+
+			int start = readInt(in);
+			Set<ClassMemberSignature> sigs = new HashSet<>();
+			for (int counter = readInt(in); counter > 0; counter--)
+				sigs.add(members[readInt(in)]);
+
+			for (int counter = readInt(in); counter > 0; counter--) {
+				CodeSignature sig = (CodeSignature) members[readInt(in)];
+				directory.put(sig, readInt(in));
+				sig.setCodeLoader(this);
+			}
+
+			return new Program(start == 0 ? null : (CodeSignature) members[start - 1], sigs);
+		}
+		catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | ClassCastException e) {
+			throw new IOException(fileName + " is corrupted");
+		}
+	}
+
+	/**
+	 * Yields the type at the given position of the table of types, building
+	 * it if needed. Class types are built after their superclass.
+	 *
+	 * @param pos the position
+	 * @param tags the tags of the types in the table
+	 * @param operands the operands of the types in the table
+	 * @param superclasses the position of the superclass of each class type in the table,
+	 *                     plus one, or {@code 0} for {@code Object}
+	 * @return the type
+	 */
+
+	private Type resolve(int pos, int[] tags, int[] operands, int[] superclasses) {
+		if (types[pos] != null)
+			return types[pos];
+
+		switch (tags[pos]) {
+		case ProgramFormat.VOID: return types[pos] = VoidType.INSTANCE;
+		case ProgramFormat.INT: return types[pos] = IntType.INSTANCE;
+		case ProgramFormat.FLOAT: return types[pos] = FloatType.INSTANCE;
+		case ProgramFormat.BOOLEAN: return types[pos] = BooleanType.INSTANCE;
+		case ProgramFormat.NIL: return types[pos] = NilType.INSTANCE;
+		case ProgramFormat.UNUSED: return types[pos] = UnusedType.INSTANCE;
+		case ProgramFormat.ARRAY: return types[pos] = ArrayType.mk(resolve(operands[pos], tags, operands, superclasses));
+		case ProgramFormat.CLASS: {
+			ClassType superclass = superclasses[pos] == 0 ? null
+				: (ClassType) resolve(superclasses[pos] - 1, tags, operands, superclasses);
+
+			return types[pos] = ClassType.mkWithoutSource(strings[operands[pos]], superclass);
+		}
+		default: throw new IllegalArgumentException("Unknown type tag " + tags[pos]);
+		}
+	}
+
+	/**
+	 * Reads the entry of a class member in the table of signatures and
+	 * adds the member to its class.
+	 *
+	 * @param in the buffer where the entry is read
+	 * @return the signature of the member
+	 */
+
+	private ClassMemberSignature readMember(ByteBuffer in) {
+		int kind = in.get();
+		ClassType clazz = (ClassType) readType(in);
+
+		switch (kind) {
+		case ProgramFormat.FIELD: {
+			String name = strings[readInt(in)];
+			FieldSignature field = new FieldSignature(clazz, readType(in), name, null);
+			clazz.addField(name, field);
+			return field;
+		}
+		case ProgramFormat.CONSTRUCTOR: {
+			ConstructorSignature constructor = new ConstructorSignature(clazz, readTypes(in), null);
+			clazz.addConstructor(constructor);
+			return constructor;
+		}
+		case ProgramFormat.METHOD: {
+			String name = strings[readInt(in)];
+			Type returnType = readType(in);
+			TypeList parameters = readTypes(in);
+			int flags = in.get();
+			MethodSignature method = new MethodSignature(clazz, returnType, parameters, name,
+				new MethodDeclaration(name, (flags & ProgramFormat.MEMO) != 0,
+					(flags & ProgramFormat.PARALLEL_BODY) != 0, (flags & ProgramFormat.STATIC) != 0));
+			clazz.addMethod(name, method);
+			return method;
+		}
+		case ProgramFormat.TEST: {
+			String name = strings[readInt(in)];
+			TestSignature test = new TestSignature(clazz, name, null);
+			clazz.addTest(name, test);
+			return test;
+		}
+		case ProgramFormat.FIXTURE: {
+			FixtureSignature fixture = new FixtureSignature(clazz, null);
+			clazz.addFixture(fixture);
+			return fixture;
+		}
+		default: throw new IllegalArgumentException("Unknown member kind " + kind);
+		}
+	}
+
+	/**
+	 * Decodes the code of a constructor or method from the file.
+	 *
+	 * @param sig the constructor or method
+	 * @return the first block of its code
+	 */
+
+	@Override
+	public Block load(CodeSignature sig) {
+		ByteBuffer in = buffer.duplicate();
+		in.position(directory.get(sig));
+
+		// the lines of the bytecodes are only written when they change
+		int line = 0;
+		Block[] blocks = new Block[readInt(in)];
+		int[][] follows = new int[blocks.length][];
+
+		for (int pos = 0; pos < blocks.length; pos++) {
+			int flags = in.get();
+
+			follows[pos] = new int[readInt(in)];
+			for (int follow = 0; follow < follows[pos].length; follow++)
+				follows[pos][follow] = readInt(in);
+
+			Bytecode[] bytecodes = new Bytecode[readInt(in)];
+			for (int counter = 0; counter < bytecodes.length; counter++) {
+				if (in.get(in.position()) == ProgramFormat.LINE) {
+					in.get();
+					line = readInt(in);
+				}
+
+				bytecodes[counter] = readBytecode(in, line);
+			}
+
+			BytecodeList bytecode = null;
+			for (int counter = bytecodes.length - 1; counter >= 0; counter--)
+				bytecode = new BytecodeList(bytecodes[counter], bytecode);
+
+			blocks[pos] = new Block(bytecode, new ArrayList<Block>());
+			if ((flags & ProgramFormat.MERGEABLE) == 0)
+				blocks[pos].doNotMerge();
+
+			blocks[pos].setLoopHead((flags & ProgramFormat.LOOP_HEAD) != 0);
+		}
+
+		// the successors are linked at the end, since the code might contain loops
+		for (int pos = 0; pos < blocks.length; pos++)
+			for (int follow: follows[pos])
+				blocks[pos].getFollows().add(blocks[follow]);
+
+		return blocks[0];
+	}
+
+	/**
+	 * Reads a bytecode, that is, its opcode followed by its operands.
+	 *
+	 * @param in the buffer where the bytecode is read
+	 * @param line the line of the source code where the bytecode comes from, or 0 if it is not known
+	 * @return the bytecode
+	 */
+
+	private Bytecode readBytecode(ByteBuffer in, int line) {
+		int opcode = in.get();
+
+		switch (opcode) {
+		case ProgramFormat.NOP: return new NOP(line);
+		case ProgramFormat.CONST_NIL: return new CONST(line);
+		case ProgramFormat.CONST_BOOLEAN: return new CONST(line, in.get() != 0);
+		case ProgramFormat.CONST_INT: return new CONST(line, readSignedInt(in));
+		case ProgramFormat.CONST_FLOAT: return new CONST(line, in.getFloat());
+		case ProgramFormat.NEWSTRING: return new NEWSTRING(line, strings[readInt(in)]);
+		case ProgramFormat.LOAD: return new LOAD(line, readInt(in), readType(in));
+		case ProgramFormat.STORE: return new STORE(line, readInt(in), readType(in));
+		case ProgramFormat.DUP: return new DUP(line, readType(in));
+		case ProgramFormat.POP: return new POP(line, readType(in));
+		case ProgramFormat.ADD: return new ADD(line, (NumericalType) readType(in));
+		case ProgramFormat.SUB: return new SUB(line, (NumericalType) readType(in));
+		case ProgramFormat.MUL: return new MUL(line, (NumericalType) readType(in));
+		case ProgramFormat.DIV: return new DIV(line, (NumericalType) readType(in));
+		case ProgramFormat.NEG: {
+			Type type = readType(in);
+			return type == BooleanType.INSTANCE ? new NEG(line, BooleanType.INSTANCE) : new NEG(line, (NumericalType) type);
+		}
+		case ProgramFormat.AND: return new AND(line);
+		case ProgramFormat.OR: return new OR(line);
+		case ProgramFormat.CAST: {
+			Type fromType = readType(in), intoType = readType(in);
+			if (intoType instanceof ReferenceType)
+				return new CAST(line, fromType, (ReferenceType) intoType);
+			else
+				return new CAST(line, (NumericalType) fromType, (NumericalType) intoType);
+		}
+		case ProgramFormat.INSTANCEOF: return new INSTANCEOF(line, (ClassType) readType(in));
+		case ProgramFormat.EQ: return new EQ(line, (ComparableType) readType(in));
+		case ProgramFormat.NE: return new NE(line, (ComparableType) readType(in));
+		case ProgramFormat.LT: return new LT(line, (NumericalType) readType(in));
+		case ProgramFormat.LE: return new LE(line, (NumericalType) readType(in));
+		case ProgramFormat.GT: return new GT(line, (NumericalType) readType(in));
+		case ProgramFormat.GE: return new GE(line, (NumericalType) readType(in));
+		case ProgramFormat.IF_TRUE: return new IF_TRUE(line);
+		case ProgramFormat.IF_FALSE: return new IF_FALSE(line);
+		case ProgramFormat.IF_CMPEQ: return new IF_CMPEQ(line, (ComparableType) readType(in));
+		case ProgramFormat.IF_CMPNE: return new IF_CMPNE(line, (ComparableType) readType(in));
+		case ProgramFormat.IF_CMPLT: return new IF_CMPLT(line, (NumericalType) readType(in));
+		case ProgramFormat.IF_CMPLE: return new IF_CMPLE(line, (NumericalType) readType(in));
+		case ProgramFormat.IF_CMPGT: return new IF_CMPGT(line, (NumericalType) readType(in));
+		case ProgramFormat.IF_CMPGE: return new IF_CMPGE(line, (NumericalType) readType(in));
+		case ProgramFormat.IF_CMPZERO: return new IF_CMPZERO(line, (BranchingComparisonBytecode) readBytecode(in, line));
+		case ProgramFormat.RETURN: return new RETURN(line, readType(in));
+		case ProgramFormat.GETFIELD: return new GETFIELD(line, (FieldSignature) members[readInt(in)]);
+		case ProgramFormat.PUTFIELD: return new PUTFIELD(line, (FieldSignature) members[readInt(in)]);
+		case ProgramFormat.NEW: return new NEW(line, (ClassType) readType(in));
+		case ProgramFormat.NEWARRAY: return new NEWARRAY(line, readType(in), readInt(in));
+		case ProgramFormat.ARRAYLOAD: return new ARRAYLOAD(line, readType(in));
+		case ProgramFormat.ARRAYSTORE: return new ARRAYSTORE(line, readType(in));
+		case ProgramFormat.ARRAYCOPY: return new ARRAYCOPY(line, readType(in));
+		case ProgramFormat.ARRAYFILL: return new ARRAYFILL(line, readType(in));
+		case ProgramFormat.NULLCHECK: return new NULLCHECK(line);
+		case ProgramFormat.OUTPUT: return new OUTPUT(line, readType(in));
+		case ProgramFormat.NEWBUILDER: return new NEWBUILDER(line, readInt(in));
+		case ProgramFormat.APPEND: return new APPEND(line, readType(in));
+		case ProgramFormat.BUILDSTRING: return new BUILDSTRING(line);
+		case ProgramFormat.OUTPUTBUILDER: return new OUTPUTBUILDER(line);
+		case ProgramFormat.VIRTUALCALL: {
+			ClassType receiverType = (ClassType) readType(in);
+			return new VIRTUALCALL(line, receiverType, (MethodSignature) members[readInt(in)]);
+		}
+		case ProgramFormat.CONSTRUCTORCALL: return new CONSTRUCTORCALL(line, (ConstructorSignature) members[readInt(in)]);
+		case ProgramFormat.PARALLELFOR: return new PARALLELFOR(line, (MethodSignature) members[readInt(in)]);
+		case ProgramFormat.SPAWN: {
+			ClassType receiverType = (ClassType) readType(in);
+			MethodSignature staticTarget = (MethodSignature) members[readInt(in)];
+			return new SPAWN(line, receiverType, staticTarget, readSignedInt(in));
+		}
+		case ProgramFormat.SYNC: return new SYNC(line);
+		case ProgramFormat.RESULT: return new RESULT(line, readInt(in), readType(in));
+		case ProgramFormat.SWITCH: {
+			int[] keys = new int[readInt(in)];
+			for (int pos = 0; pos < keys.length; pos++)
+				keys[pos] = readSignedInt(in);
+
+			return new SWITCH(line, keys);
+		}
+		default: throw new IllegalArgumentException("Unknown opcode " + opcode);
+		}
+	}
+
+	/**
+	 * Reads a reference to a type, that is, its position in the table of types.
+	 *
+	 * @param in the buffer where the reference is read
+	 * @return the type
+	 */
+
+	private Type readType(ByteBuffer in) {
+		return types[readInt(in)];
+	}
+
+	/**
+	 * Reads a list of types, that is, its length followed by its elements.
+	 *
+	 * @param in the buffer where the list is read
+	 * @return the list of types
+	 */
+
+	private TypeList readTypes(ByteBuffer in) {
+		Type[] elements = new Type[readInt(in)];
+		for (int pos = 0; pos < elements.length; pos++)
+			elements[pos] = readType(in);
+
+		// lists of types are built from their last element
+		TypeList result = TypeList.EMPTY;
+		for (int pos = elements.length - 1; pos >= 0; pos--)
+			result = result.push(elements[pos]);
+
+		return result;
+	}
+
+	/**
+	 * Reads a non-negative integer written in 7 bits per byte.
+	 *
+	 * @param in the buffer where the integer is read
+	 * @return the integer
+	 */
+
+	private static int readInt(ByteBuffer in) {
+		int result = 0;
+		for (int shift = 0; ; shift += 7) {
+			int b = in.get();
+			result |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0)
+				return result;
+		}
+	}
+
+	/**
+	 * Reads an integer written through zig-zag encoding.
+	 *
+	 * @param in the buffer where the integer is read
+	 * @return the integer
+	 */
+
+	private static int readSignedInt(ByteBuffer in) {
+		int value = readInt(in);
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
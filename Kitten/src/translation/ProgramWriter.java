@@ -0,0 +1,705 @@
+package translation;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import types.ArrayType;
+import types.BooleanType;
+import types.ClassMemberSignature;
+import types.ClassType;
+import types.CodeSignature;
+import types.ConstructorSignature;
+import types.FieldSignature;
+import types.FixtureSignature;
+import types.FloatType;
+import types.IntType;
+import types.MethodSignature;
+import types.NilType;
+import types.TestSignature;
+import types.Type;
+import types.TypeList;
+import types.VoidType;
+import bytecode.ADD;
+import bytecode.AND;
+import bytecode.APPEND;
+import bytecode.ARRAYCOPY;
+import bytecode.ARRAYFILL;
+import bytecode.ARRAYLOAD;
+import bytecode.ARRAYSTORE;
+import bytecode.BUILDSTRING;
+import bytecode.BranchingComparisonBytecode;
+import bytecode.Bytecode;
+import bytecode.BytecodeList;
+import bytecode.CALL;
+import bytecode.CAST;
+import bytecode.CONST;
+import bytecode.CONSTRUCTORCALL;
+import bytecode.DIV;
+import bytecode.DUP;
+import bytecode.EQ;
+import bytecode.GE;
+import bytecode.GETFIELD;
+import bytecode.GT;
+import bytecode.IF_CMPEQ;
+import bytecode.IF_CMPGE;
+import bytecode.IF_CMPGT;
+import bytecode.IF_CMPLE;
+import bytecode.IF_CMPLT;
+import bytecode.IF_CMPNE;
+import bytecode.IF_CMPZERO;
+import bytecode.IF_FALSE;
+import bytecode.IF_TRUE;
+import bytecode.INSTANCEOF;
+import bytecode.LE;
+import bytecode.LOAD;
+import bytecode.LT;
+import bytecode.MUL;
+import bytecode.NE;
+import bytecode.NEG;
+import bytecode.NEW;
+import bytecode.NEWARRAY;
+import bytecode.NEWBUILDER;
+import bytecode.NEWSTRING;
+import bytecode.NOP;
+import bytecode.NULLCHECK;
+import bytecode.OR;
+import bytecode.OUTPUT;
+import bytecode.OUTPUTBUILDER;
+import bytecode.PARALLELFOR;
+import bytecode.POP;
+import bytecode.PUTFIELD;
+import bytecode.RESULT;
+import bytecode.RETURN;
+import bytecode.SPAWN;
+import bytecode.STORE;
+import bytecode.SUB;
+import bytecode.SWITCH;
+import bytecode.SYNC;
+import bytecode.VIRTUALCALL;
+
+/**
+ * A writer of programs into {@code .kbc} files, in the format described in
+ * {@link ProgramFormat}. The code of the program is written as soon as it is
+ * translated into binary form, while the tables of strings, types and
+ * signatures grow. The tables are written at the end, after the code.
+ *
+ * @author Federico Bianchi
+ */
+
+class ProgramWriter implements Closeable {
+
+	/**
+	 * The stream where the file is written.
+	 */
+
+	private final DataOutputStream out;
+
+	/**
+	 * The strings written so far, in order of position in the table of strings.
+	 */
+
+	private final List<String> strings = new ArrayList<>();
+
+	/**
+	 * The position of each string in the table of strings.
+	 */
+
+	private final Map<String, Integer> stringPositions = new HashMap<>();
+
+	/**
+	 * The types written so far, in order of position in the table of types.
+	 */
+
+	private final List<Type> types = new ArrayList<>();
+
+	/**
+	 * The position of each type in the table of types.
+	 */
+
+	private final Map<Type, Integer> typePositions = new HashMap<>();
+
+	/**
+	 * The signatures of the class members written so far, in order of
+	 * position in the table of signatures.
+	 */
+
+	private final List<ClassMemberSignature> members = new ArrayList<>();
+
+	/**
+	 * The position of each signature in the table of signatures.
+	 */
+
+	private final Map<ClassMemberSignature, Integer> memberPositions = new HashMap<>();
+
+	/**
+	 * The position in the file of the code of each constructor or method.
+	 */
+
+	private final Map<CodeSignature, Integer> directory = new HashMap<>();
+
+	/**
+	 * Builds a writer into the given file.
+	 *
+	 * @param fileName the name of the file
+	 * @throws IOException if the file cannot be created
+	 */
+
+	ProgramWriter(String fileName) throws IOException {
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)));
+	}
+
+	/**
+	 * Writes a program into the file.
+	 *
+	 * @param program the program
+	 * @throws IOException if the file cannot be written
+	 */
+
+	void write(Program program) throws IOException {
+		out.writeInt(ProgramFormat.MAGIC);
+
+		// the signatures of a program without main contain null
+		List<ClassMemberSignature> sigs = new ArrayList<>();
+		for (ClassMemberSignature sig: program.getSigs())
+			if (sig != null)
+				sigs.add(sig);
+
+		for (ClassMemberSignature sig: sigs)
+			if (sig instanceof CodeSignature && ((CodeSignature) sig).getCode() != null) {
+				directory.put((CodeSignature) sig, out.size());
+				writeCode(((CodeSignature) sig).getCode());
+			}
+
+		// all classes are written, with all their members, since their lookup must
+		// give the same results after loading
+		List<ClassType> classes = new ArrayList<>(ClassType.getAll());
+		for (ClassType clazz: classes) {
+			positionOf(clazz);
+
+			for (FieldSignature field: clazz.getFields().values())
+				positionOf(field);
+			for (ConstructorSignature constructor: clazz.getConstructors())
+				positionOf(constructor);
+			for (Set<MethodSignature> methods: clazz.getMethods().values())
+				for (MethodSignature method: methods)
+					positionOf(method);
+			for (TestSignature test: clazz.getTests().values())
+				positionOf(test);
+			for (FixtureSignature fixture: clazz.getFixtures())
+				positionOf(fixture);
+		}
+
+		for (ClassMemberSignature sig: sigs)
+			positionOf(sig);
+
+		// the tables of strings and types must be complete before they are written
+		for (ClassMemberSignature member: members)
+			register(member);
+
+		int tables = out.size();
+
+		writeInt(strings.size());
+		for (String s: strings) {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			writeInt(bytes.length);
+			out.write(bytes);
+		}
+
+		writeInt(types.size());
+		for (Type type: types)
+			writeTypeEntry(type);
+
+		writeInt(classes.size());
+		for (ClassType clazz: classes) {
+			writeInt(positionOf(clazz));
+			writeInt(clazz.getSuperclass() == null ? 0 : positionOf(clazz.getSuperclass()) + 1);
+		}
+
+		writeInt(members.size());
+		for (ClassMemberSignature member: members)
+			writeMemberEntry(member);
+
+		writeInt(program.getStart() == null ? 0 : positionOf(program.getStart()) + 1);
+		writeInt(sigs.size());
+		for (ClassMemberSignature sig: sigs)
+			writeInt(positionOf(sig));
+
+		writeInt(directory.size());
+		for (Map.Entry<CodeSignature, Integer> entry: directory.entrySet()) {
+			writeInt(positionOf(entry.getKey()));
+			writeInt(entry.getValue());
+		}
+
+		out.writeInt(tables);
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	/**
+	 * Writes the code of a constructor or method, that is, the blocks
+	 * reachable from its first block, numbered in breadth-first order.
+	 * The line of the source code of the bytecodes is written whenever it changes.
+	 *
+	 * @param start the first block of the code
+	 * @throws IOException if the file cannot be written
+	 */
+
+	private void writeCode(Block start) throws IOException {
+		List<Block> blocks = new ArrayList<>();
+		Map<Block, Integer> numbers = new HashMap<>();
+		Deque<Block> worklist = new ArrayDeque<>();
+
+		numbers.put(start, 0);
+		blocks.add(start);
+		worklist.add(start);
+		while (!worklist.isEmpty())
+			for (Block follow: worklist.remove().getFollows())
+				if (!numbers.containsKey(follow)) {
+					numbers.put(follow, blocks.size());
+					blocks.add(follow);
+					worklist.add(follow);
+				}
+
+		int line = 0;
+		writeInt(blocks.size());
+		for (Block block: blocks) {
+			out.writeByte((block.isMergeable() ? ProgramFormat.MERGEABLE : 0)
+				| (block.isLoopHead() ? ProgramFormat.LOOP_HEAD : 0));
+
+			writeInt(block.getFollows().size());
+			for (Block follow: block.getFollows())
+				writeInt(numbers.get(follow));
+
+			int length = 0;
+			for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+				length++;
+
+			writeInt(length);
+			for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail()) {
+				Bytecode bytecode = cursor.getHead();
+				if (bytecode.getLine() != line) {
+					out.writeByte(ProgramFormat.LINE);
+					writeInt(line = bytecode.getLine());
+				}
+
+				writeBytecode(bytecode);
+			}
+		}
+	}
+
+	/**
+	 * Writes a bytecode, that is, its opcode followed by its operands.
+	 *
+	 * @param bytecode the bytecode
+	 * @throws IOException if the file cannot be written
+	 */
+
+	private void writeBytecode(Bytecode bytecode) throws IOException {
+		if (bytecode instanceof NOP)
+			out.writeByte(ProgramFormat.NOP);
+		else if (bytecode instanceof CONST) {
+			Object constant = ((CONST) bytecode).getConstant();
+			if (constant == null)
+				out.writeByte(ProgramFormat.CONST_NIL);
+			else if (constant instanceof Boolean) {
+				out.writeByte(ProgramFormat.CONST_BOOLEAN);
+				out.writeByte((Boolean) constant ? 1 : 0);
+			}
+			else if (constant instanceof Integer) {
+				out.writeByte(ProgramFormat.CONST_INT);
+				writeSignedInt((Integer) constant);
+			}
+			else {
+				out.writeByte(ProgramFormat.CONST_FLOAT);
+				out.writeFloat((Float) constant);
+			}
+		}
+		else if (bytecode instanceof NEWSTRING) {
+			out.writeByte(ProgramFormat.NEWSTRING);
+			writeInt(positionOf(((NEWSTRING) bytecode).getValue()));
+		}
+		else if (bytecode instanceof LOAD) {
+			out.writeByte(ProgramFormat.LOAD);
+			writeInt(((LOAD) bytecode).getVarNum());
+			writeType(((LOAD) bytecode).getType());
+		}
+		else if (bytecode instanceof STORE) {
+			out.writeByte(ProgramFormat.STORE);
+			writeInt(((STORE) bytecode).getVarNum());
+			writeType(((STORE) bytecode).getType());
+		}
+		else if (bytecode instanceof DUP)
+			writeTyped(ProgramFormat.DUP, ((DUP) bytecode).getType());
+		else if (bytecode instanceof POP)
+			writeTyped(ProgramFormat.POP, ((POP) bytecode).getType());
+		else if (bytecode instanceof ADD)
+			writeTyped(ProgramFormat.ADD, ((ADD) bytecode).getType());
+		else if (bytecode instanceof SUB)
+			writeTyped(ProgramFormat.SUB, ((SUB) bytecode).getType());
+		else if (bytecode instanceof MUL)
+			writeTyped(ProgramFormat.MUL, ((MUL) bytecode).getType());
+		else if (bytecode instanceof DIV)
+			writeTyped(ProgramFormat.DIV, ((DIV) bytecode).getType());
+		else if (bytecode instanceof NEG)
+			writeTyped(ProgramFormat.NEG, ((NEG) bytecode).getType());
+		else if (bytecode instanceof AND)
+			out.writeByte(ProgramFormat.AND);
+		else if (bytecode instanceof OR)
+			out.writeByte(ProgramFormat.OR);
+		else if (bytecode instanceof CAST) {
+			writeTyped(ProgramFormat.CAST, ((CAST) bytecode).getFromType());
+			writeType(((CAST) bytecode).getIntoType());
+		}
+		else if (bytecode instanceof INSTANCEOF)
+			writeTyped(ProgramFormat.INSTANCEOF, ((INSTANCEOF) bytecode).getType());
+		else if (bytecode instanceof EQ)
+			writeTyped(ProgramFormat.EQ, ((EQ) bytecode).getType());
+		else if (bytecode instanceof NE)
+			writeTyped(ProgramFormat.NE, ((NE) bytecode).getType());
+		else if (bytecode instanceof LT)
+			writeTyped(ProgramFormat.LT, ((LT) bytecode).getType());
+		else if (bytecode instanceof LE)
+			writeTyped(ProgramFormat.LE, ((LE) bytecode).getType());
+		else if (bytecode instanceof GT)
+			writeTyped(ProgramFormat.GT, ((GT) bytecode).getType());
+		else if (bytecode instanceof GE)
+			writeTyped(ProgramFormat.GE, ((GE) bytecode).getType());
+		else if (bytecode instanceof IF_TRUE)
+			out.writeByte(ProgramFormat.IF_TRUE);
+		else if (bytecode instanceof IF_FALSE)
+			out.writeByte(ProgramFormat.IF_FALSE);
+		else if (bytecode instanceof IF_CMPZERO) {
+			out.writeByte(ProgramFormat.IF_CMPZERO);
+			writeBytecode(((IF_CMPZERO) bytecode).getComparison());
+		}
+		else if (bytecode instanceof BranchingComparisonBytecode) {
+			int opcode;
+			if (bytecode instanceof IF_CMPEQ)
+				opcode = ProgramFormat.IF_CMPEQ;
+			else if (bytecode instanceof IF_CMPNE)
+				opcode = ProgramFormat.IF_CMPNE;
+			else if (bytecode instanceof IF_CMPLT)
+				opcode = ProgramFormat.IF_CMPLT;
+			else if (bytecode instanceof IF_CMPLE)
+				opcode = ProgramFormat.IF_CMPLE;
+			else if (bytecode instanceof IF_CMPGT)
+				opcode = ProgramFormat.IF_CMPGT;
+			else if (bytecode instanceof IF_CMPGE)
+				opcode = ProgramFormat.IF_CMPGE;
+			else
+				throw new IllegalArgumentException("Unexpected bytecode " + bytecode);
+
+			writeTyped(opcode, ((BranchingComparisonBytecode) bytecode).getType());
+		}
+		else if (bytecode instanceof RETURN)
+			writeTyped(ProgramFormat.RETURN, ((RETURN) bytecode).getType());
+		else if (bytecode instanceof GETFIELD) {
+			out.writeByte(ProgramFormat.GETFIELD);
+			writeInt(positionOf(((GETFIELD) bytecode).getField()));
+		}
+		else if (bytecode instanceof PUTFIELD) {
+			out.writeByte(ProgramFormat.PUTFIELD);
+			writeInt(positionOf(((PUTFIELD) bytecode).getField()));
+		}
+		else if (bytecode instanceof NEW)
+			writeTyped(ProgramFormat.NEW, ((NEW) bytecode).getType());
+		else if (bytecode instanceof NEWARRAY) {
+			writeTyped(ProgramFormat.NEWARRAY, ((NEWARRAY) bytecode).getElementsType());
+			writeInt(((NEWARRAY) bytecode).getDimensions());
+		}
+		else if (bytecode instanceof ARRAYLOAD)
+			writeTyped(ProgramFormat.ARRAYLOAD, ((ARRAYLOAD) bytecode).getType());
+		else if (bytecode instanceof ARRAYSTORE)
+			writeTyped(ProgramFormat.ARRAYSTORE, ((ARRAYSTORE) bytecode).getType());
+		else if (bytecode instanceof ARRAYCOPY)
+			writeTyped(ProgramFormat.ARRAYCOPY, ((ARRAYCOPY) bytecode).getType());
+		else if (bytecode instanceof ARRAYFILL)
+			writeTyped(ProgramFormat.ARRAYFILL, ((ARRAYFILL) bytecode).getType());
+		else if (bytecode instanceof NULLCHECK)
+			out.writeByte(ProgramFormat.NULLCHECK);
+		else if (bytecode instanceof OUTPUT)
+			writeTyped(ProgramFormat.OUTPUT, ((OUTPUT) bytecode).getType());
+		else if (bytecode instanceof NEWBUILDER) {
+			out.writeByte(ProgramFormat.NEWBUILDER);
+			writeInt(((NEWBUILDER) bytecode).getParts());
+		}
+		else if (bytecode instanceof APPEND)
+			writeTyped(ProgramFormat.APPEND, ((APPEND) bytecode).getType());
+		else if (bytecode instanceof BUILDSTRING)
+			out.writeByte(ProgramFormat.BUILDSTRING);
+		else if (bytecode instanceof OUTPUTBUILDER)
+			out.writeByte(ProgramFormat.OUTPUTBUILDER);
+		else if (bytecode instanceof VIRTUALCALL) {
+			writeTyped(ProgramFormat.VIRTUALCALL, ((CALL) bytecode).getReceiverType());
+			writeInt(positionOf(((CALL) bytecode).getStaticTarget()));
+		}
+		else if (bytecode instanceof CONSTRUCTORCALL) {
+			out.writeByte(ProgramFormat.CONSTRUCTORCALL);
+			writeInt(positionOf(((CALL) bytecode).getStaticTarget()));
+		}
+		else if (bytecode instanceof PARALLELFOR) {
+			out.writeByte(ProgramFormat.PARALLELFOR);
+			writeInt(positionOf(((CALL) bytecode).getStaticTarget()));
+		}
+		else if (bytecode instanceof SPAWN) {
+			writeTyped(ProgramFormat.SPAWN, ((CALL) bytecode).getReceiverType());
+			writeInt(positionOf(((CALL) bytecode).getStaticTarget()));
+			writeSignedInt(((SPAWN) bytecode).getSlot());
+		}
+		else if (bytecode instanceof SYNC)
+			out.writeByte(ProgramFormat.SYNC);
+		else if (bytecode instanceof RESULT) {
+			out.writeByte(ProgramFormat.RESULT);
+			writeInt(((RESULT) bytecode).getSlot());
+			writeType(((RESULT) bytecode).getType());
+		}
+		else if (bytecode instanceof SWITCH) {
+			int[] keys = ((SWITCH) bytecode).getKeys();
+			out.writeByte(ProgramFormat.SWITCH);
+			writeInt(keys.length);
+			for (int key: keys)
+				writeSignedInt(key);
+		}
+		else
+			throw new IllegalArgumentException("Unexpected bytecode " + bytecode);
+	}
+
+	/**
+	 * Writes an opcode followed by a type.
+	 *
+	 * @param opcode the opcode
+	 * @param type the type
+	 * @throws IOException if the file cannot be written
+	 */
+
+	private void writeTyped(int opcode, Type type) throws IOException {
+		out.writeByte(opcode);
+		writeType(type);
+	}
+
+	/**
+	 * Writes a reference to a type, that is, its position in the table of types.
+	 *
+	 * @param type the type
+	 * @throws IOException if the file cannot be written
+	 */
+
+	private void writeType(Type type) throws IOException {
+		writeInt(positionOf(type));
+	}
+
+	/**
+	 * Writes the entry of a type in the table of types.
+	 *
+	 * @param type the type
+	 * @throws IOException if the file cannot be written
+	 */
+
+	private void writeTypeEntry(Type type) throws IOException {
+		if (type == VoidType.INSTANCE)
+			out.writeByte(ProgramFormat.VOID);
+		else if (type == IntType.INSTANCE)
+			out.writeByte(ProgramFormat.INT);
+		else if (type == FloatType.INSTANCE)
+			out.writeByte(ProgramFormat.FLOAT);
+		else if (type == BooleanType.INSTANCE)
+			out.writeByte(ProgramFormat.BOOLEAN);
+		else if (type == NilType.INSTANCE)
+			out.writeByte(ProgramFormat.NIL);
+		else if (type instanceof ClassType) {
+			out.writeByte(ProgramFormat.CLASS);
+			writeInt(positionOf(((ClassType) type).getName()));
+		}
+		else if (type instanceof ArrayType) {
+			out.writeByte(ProgramFormat.ARRAY);
+			writeInt(positionOf(((ArrayType) type).getElementsType()));
+		}
+		else
+			out.writeByte(ProgramFormat.UNUSED);
+	}
+
+	/**
+	 * Writes the entry of the signature of a class member in the table of signatures.
+	 *
+	 * @param member the signature of the class member
+	 * @throws IOException if the file cannot be written
+	 */
+
+	private void writeMemberEntry(ClassMemberSignature member) throws IOException {
+		if (member instanceof FieldSignature) {
+			FieldSignature field = (FieldSignature) member;
+			out.writeByte(ProgramFormat.FIELD);
+			writeInt(positionOf(field.getDefiningClass()));
+			writeInt(positionOf(field.getName()));
+			writeType(field.getType());
+		}
+		else if (member instanceof ConstructorSignature) {
+			out.writeByte(ProgramFormat.CONSTRUCTOR);
+			writeInt(positionOf(member.getDefiningClass()));
+			writeTypes(((ConstructorSignature) member).getParameters());
+		}
+		else if (member instanceof MethodSignature) {
+			MethodSignature method = (MethodSignature) member;
+			out.writeByte(ProgramFormat.METHOD);
+			writeInt(positionOf(method.getDefiningClass()));
+			writeInt(positionOf(method.getName()));
+			writeType(method.getReturnType());
+			writeTypes(method.getParameters());
+			out.writeByte((method.isMemo() ? ProgramFormat.MEMO : 0)
+				| (method.isParallelBody() ? ProgramFormat.PARALLEL_BODY : 0)
+				| (method.isStatic() ? ProgramFormat.STATIC : 0));
+		}
+		else if (member instanceof TestSignature) {
+			out.writeByte(ProgramFormat.TEST);
+			writeInt(positionOf(member.getDefiningClass()));
+			writeInt(positionOf(((TestSignature) member).getName()));
+		}
+		else {
+			out.writeByte(ProgramFormat.FIXTURE);
+			writeInt(positionOf(member.getDefiningClass()));
+		}
+	}
+
+	/**
+	 * Adds to the tables of strings and types those used by the signature of a class member.
+	 *
+	 * @param member the signature of the class member
+	 */
+
+	private void register(ClassMemberSignature member) {
+		if (member == null)
+			return;
+
+		positionOf(member.getDefiningClass());
+
+		if (member instanceof FieldSignature) {
+			positionOf(((FieldSignature) member).getName());
+			positionOf(((FieldSignature) member).getType());
+		}
+		else {
+			CodeSignature code = (CodeSignature) member;
+			positionOf(code.getName());
+			positionOf(code.getReturnType());
+			for (TypeList cursor = code.getParameters(); cursor != TypeList.EMPTY; cursor = cursor.getTail())
+				positionOf(cursor.getHead());
+		}
+	}
+
+	/**
+	 * Writes a list of types, that is, its length followed by its elements.
+	 *
+	 * @param list the list of types
+	 * @throws IOException if the file cannot be written
+	 */
+
+	private void writeTypes(TypeList list) throws IOException {
+		writeInt(list.getSize());
+		for (TypeList cursor = list; cursor != TypeList.EMPTY; cursor = cursor.getTail())
+			writeType(cursor.getHead());
+	}
+
+	/**
+	 * Yields the position of a string in the table of strings,
+	 * adding it to the table if needed.
+	 *
+	 * @param s the string
+	 * @return the position
+	 */
+
+	private int positionOf(String s) {
+		Integer position = stringPositions.get(s);
+		if (position == null) {
+			stringPositions.put(s, position = strings.size());
+			strings.add(s);
+		}
+
+		return position;
+	}
+
+	/**
+	 * Yields the position of a type in the table of types,
+	 * adding it to the table if needed. The elements of an array type
+	 * are added before the array type itself. The name of a class type
+	 * is added to the table of strings.
+	 *
+	 * @param type the type
+	 * @return the position
+	 */
+
+	private int positionOf(Type type) {
+		Integer position = typePositions.get(type);
+		if (position == null) {
+			if (type instanceof ArrayType)
+				positionOf(((ArrayType) type).getElementsType());
+			else if (type instanceof ClassType)
+				positionOf(((ClassType) type).getName());
+
+			typePositions.put(type, position = types.size());
+			types.add(type);
+		}
+
+		return position;
+	}
+
+	/**
+	 * Yields the position of the signature of a class member in the table
+	 * of signatures, adding it to the table if needed.
+	 *
+	 * @param member the signature
+	 * @return the position
+	 */
+
+	private int positionOf(ClassMemberSignature member) {
+		Integer position = memberPositions.get(member);
+		if (position == null) {
+			memberPositions.put(member, position = members.size());
+			members.add(member);
+		}
+
+		return position;
+	}
+
+	/**
+	 * Writes a non-negative integer in 7 bits per byte, starting from
+	 * the least significant bits. The highest bit of each byte is set
+	 * if further bytes follow.
+	 *
+	 * @param value the integer
+	 * @throws IOException if the file cannot be written
+	 */
+
+	private void writeInt(int value) throws IOException {
+		while ((value & ~0x7f) != 0) {
+			out.writeByte((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+
+		out.writeByte(value);
+	}
+
+	/**
+	 * Writes an integer that might be negative, through zig-zag encoding,
+	 * so that small negative integers take few bytes.
+	 *
+	 * @param value the integer
+	 * @throws IOException if the file cannot be written
+	 */
+
+	private void writeSignedInt(int value) throws IOException {
+		writeInt((value << 1) ^ (value >> 31));
+	}
+}
@@ -0,0 +1,168 @@
+package translation;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import absyn.MethodDeclaration;
+import types.ClassMemberSignature;
+import types.CodeSignature;
+import types.Intrinsics;
+import types.MethodSignature;
+import bytecode.ARRAYCOPY;
+import bytecode.ARRAYFILL;
+import bytecode.ARRAYLOAD;
+import bytecode.ARRAYSTORE;
+import bytecode.Bytecode;
+import bytecode.BytecodeList;
+import bytecode.CALL;
+import bytecode.GETFIELD;
+import bytecode.OUTPUT;
+import bytecode.OUTPUTBUILDER;
+import bytecode.PARALLELFOR;
+import bytecode.PUTFIELD;
+
+/**
+ * The check that the memoized methods of a program are pure and that the
+ * parallel loops of a program have no side-effects other than the
+ * modification of the elements of arrays. The result of
+ * a memoized method is cached by the values of its receiver and parameters,
+ * hence the method must not modify fields nor arrays, must not perform
+ * input nor output and must not read fields nor arrays, since these might be
+ * modified between two calls with the same receiver and parameters. Moreover,
+ * it can only call pure methods and constructors. The iterations of a parallel
+ * loop run concurrently, hence they can modify distinct elements of arrays,
+ * but must not modify fields nor perform output, and can only call methods and
+ * constructors that do not modify fields nor arrays and perform no input nor output.
+ * Since the targets of a call depend on the run-time class of the receiver,
+ * the check is performed on the Kitten code of the program, where the possible
+ * targets of each call are known.
+ *
+ * @author Federico Bianchi
+ */
+
+public class Purity {
+
+	/**
+	 * The program whose memoized methods get checked.
+	 */
+
+	private final Program program;
+
+	/**
+	 * Builds the checker for the given program.
+	 *
+	 * @param program the program
+	 */
+
+	public Purity(Program program) {
+		this.program = program;
+	}
+
+	/**
+	 * Checks that all memoized methods of the program are pure and that all
+	 * parallel loops of the program have no side-effects but the modification of arrays.
+	 * An error is reported in the source file of each memoized method
+	 * and parallel loop that does not satisfy this condition.
+	 *
+	 * @return true if and only if all memoized methods and parallel loops of the program are correct
+	 */
+
+	public boolean check() {
+		boolean pure = true;
+
+		for (ClassMemberSignature sig: program.getSigs())
+			if (sig instanceof MethodSignature) {
+				MethodDeclaration declaration = (MethodDeclaration) ((MethodSignature) sig).getAbstractSyntax();
+				String reason;
+
+				if (declaration.isMemo() && (reason = impurity((MethodSignature) sig, false)) != null) {
+					sig.getDefiningClass().getErrorMsg().error(declaration.getPos(),
+						"memoized method \"" + declaration.getName() + "\" is not pure: " + reason);
+					pure = false;
+				}
+				else if (declaration.isParallelBody() && (reason = impurity((MethodSignature) sig, true)) != null) {
+					sig.getDefiningClass().getErrorMsg().error(declaration.getPos(),
+						"the iterations of this parallel loop cannot run concurrently: " + reason);
+					pure = false;
+				}
+			}
+
+		return pure;
+	}
+
+	/**
+	 * Determines why a memoized method is not pure or why the body of a parallel
+	 * loop has side-effects. This is the case if the method, or any method or constructor
+	 * that it calls, directly or indirectly, performs an impure operation. Recursive
+	 * calls are hence pure, as long as the rest of the code is pure. The body of a parallel loop
+	 * can read fields and arrays and modify the elements of arrays, while its callees can only
+	 * read fields and arrays. The nested parallel loops are checked on their own.
+	 *
+	 * @param start the memoized method or the body of the parallel loop
+	 * @param parallel true if and only if {@code start} is the body of a parallel loop
+	 * @return a description of an impure operation performed by {@code start},
+	 *         or {@code null} if {@code start} is pure
+	 */
+
+	private static String impurity(MethodSignature start, boolean parallel) {
+		Set<CodeSignature> seen = new HashSet<>();
+		Deque<CodeSignature> workList = new ArrayDeque<>();
+		seen.add(start);
+		workList.add(start);
+
+		while (!workList.isEmpty()) {
+			CodeSignature sig = workList.remove();
+
+			// the code of an intrinsic class is a dummy: its purity is known in advance.
+			// The callees of a parallel loop can read mutable state
+			if (Intrinsics.isIntrinsic(sig.getDefiningClass())) {
+				if (!(parallel ? Intrinsics.isSideEffectFree(sig) : Intrinsics.isPure(sig)))
+					return "it calls " + sig;
+
+				continue;
+			}
+
+			for (Block block: new CodeGraph(sig).getBlocks())
+				for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail()) {
+					Bytecode bytecode = cursor.getHead();
+					String reason = impurity(bytecode, parallel, parallel && sig == start);
+					if (reason != null)
+						return sig == start ? "it " + reason : "it calls " + sig + ", that " + reason;
+
+					if (bytecode instanceof CALL && !(parallel && sig == start && bytecode instanceof PARALLELFOR))
+						for (CodeSignature target: ((CALL) bytecode).getDynamicTargets())
+							if (seen.add(target))
+								workList.add(target);
+				}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Determines why a bytecode is impure.
+	 *
+	 * @param bytecode the bytecode
+	 * @param readsAllowed true if and only if fields and arrays can be read
+	 * @param arrayWritesAllowed true if and only if the elements of arrays can be modified
+	 * @return a description of the impure operation performed by {@code bytecode},
+	 *         or {@code null} if {@code bytecode} is pure
+	 */
+
+	private static String impurity(Bytecode bytecode, boolean readsAllowed, boolean arrayWritesAllowed) {
+		if (bytecode instanceof PUTFIELD)
+			return "modifies field " + ((PUTFIELD) bytecode).getField().getName();
+		else if (!arrayWritesAllowed && (bytecode instanceof ARRAYSTORE || bytecode instanceof ARRAYCOPY || bytecode instanceof ARRAYFILL))
+			return "modifies an array";
+		else if (!readsAllowed && bytecode instanceof GETFIELD)
+			return "reads field " + ((GETFIELD) bytecode).getField().getName();
+		else if (!readsAllowed && bytecode instanceof ARRAYLOAD)
+			return "reads an array";
+		else if (bytecode instanceof OUTPUT || bytecode instanceof OUTPUTBUILDER)
+			return "performs output";
+		else
+			return null;
+	}
+}
@@ -0,0 +1,150 @@
+package translation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import types.ClassMemberSignature;
+import types.CodeSignature;
+import types.MethodSignature;
+import bytecode.APPEND;
+import bytecode.Bytecode;
+import bytecode.BytecodeList;
+import bytecode.CALL;
+import bytecode.NEWBUILDER;
+import bytecode.NEWSTRING;
+import bytecode.NonBranchingBytecode;
+import bytecode.OUTPUT;
+
+/**
+ * The sharing of the string literals of a program. The evaluation of a
+ * string literal creates a new string every time, since Kitten strings
+ * are mutable through {@code input()} and can be compared by reference.
+ * However, a string that is only passed to a method of class {@code String}
+ * other than {@code input()}, as the receiver or as a parameter, to a
+ * chain of concatenations or to the buffered output, is never modified and never compared: its value
+ * is just read and the string does not escape anywhere else. In that case, the same string can be used
+ * for every evaluation of the literal, which is created once, when
+ * its class is initialised. This is typical of the printing of text inside loops.
+ *
+ * @author Federico Bianchi
+ */
+
+public class StringSharing {
+
+	/**
+	 * The program whose code gets optimised.
+	 */
+
+	private final Program program;
+
+	/**
+	 * The number of string literals shared so far.
+	 */
+
+	private int shared;
+
+	/**
+	 * Builds the optimiser for the given program.
+	 *
+	 * @param program the program
+	 */
+
+	public StringSharing(Program program) {
+		this.program = program;
+	}
+
+	/**
+	 * Yields the number of string literals shared so far.
+	 *
+	 * @return the number of string literals
+	 */
+
+	public int getShared() {
+		return shared;
+	}
+
+	/**
+	 * Shares the string literals of all methods and constructors of the program.
+	 */
+
+	public void optimise() {
+		for (ClassMemberSignature sig: program.getSigs())
+			if (sig instanceof CodeSignature)
+				for (Block block: new CodeGraph((CodeSignature) sig).getBlocks())
+					optimise(block);
+	}
+
+	/**
+	 * Shares the string literals of a block of code.
+	 *
+	 * @param block the block
+	 */
+
+	private void optimise(Block block) {
+		List<Bytecode> code = new ArrayList<>();
+		for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+			code.add(cursor.getHead());
+
+		boolean changed = false;
+		for (int pos = 0; pos < code.size(); pos++)
+			if (code.get(pos) instanceof NEWSTRING && !((NEWSTRING) code.get(pos)).isShared() && isOnlyRead(code, pos)) {
+				code.set(pos, ((NEWSTRING) code.get(pos)).share());
+				changed = true;
+				shared++;
+			}
+
+		if (changed) {
+			BytecodeList result = null;
+			for (int pos = code.size() - 1; pos >= 0; pos--)
+				result = new BytecodeList(code.get(pos), result);
+
+			block.setBytecode(result);
+		}
+	}
+
+	/**
+	 * Determines if the string created at the given position of a block
+	 * is only passed to a method of class {@code String} that does not modify it,
+	 * to a chain of concatenations or to the buffered output.
+	 * The stack is followed until the string gets consumed, inside the same block.
+	 *
+	 * @param code the bytecodes of the block
+	 * @param pos the position of the creation of the string
+	 * @return true if and only if the string is only read
+	 */
+
+	private static boolean isOnlyRead(List<Bytecode> code, int pos) {
+		// the number of stack elements above the string
+		int above = 0;
+
+		for (pos++; pos < code.size(); pos++) {
+			Bytecode bytecode = code.get(pos);
+			if (!(bytecode instanceof NonBranchingBytecode))
+				return false;
+
+			int pops = ((NonBranchingBytecode) bytecode).getPops();
+			if (pops > above)
+				// the string is consumed here
+				return bytecode instanceof CALL && readsOnly(((CALL) bytecode).getStaticTarget())
+					|| bytecode instanceof NEWBUILDER || bytecode instanceof APPEND || bytecode instanceof OUTPUT;
+
+			above += ((NonBranchingBytecode) bytecode).getPushes() - pops;
+		}
+
+		// the string survives the block
+		return false;
+	}
+
+	/**
+	 * Determines if a method or constructor is a method of class {@code String}
+	 * that does not modify its receiver and parameters.
+	 *
+	 * @param target the method or constructor
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean readsOnly(CodeSignature target) {
+		return target instanceof MethodSignature && target.getDefiningClass().getName().equals("String")
+			&& !target.getName().equals("input");
+	}
+}
@@ -0,0 +1,246 @@
+package translation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import types.ClassMemberSignature;
+import types.MethodSignature;
+import types.Type;
+import types.TypeList;
+import bytecode.BranchingComparisonBytecode;
+import bytecode.BranchingConstantComparisonBytecode;
+import bytecode.Bytecode;
+import bytecode.BytecodeList;
+import bytecode.CALL;
+import bytecode.LOAD;
+import bytecode.NOP;
+import bytecode.NULLCHECK;
+import bytecode.NonBranchingBytecode;
+import bytecode.RETURN;
+import bytecode.STORE;
+import bytecode.VIRTUALCALL;
+
+/**
+ * Tail-call elimination for the self-recursive methods of a program.
+ * A call is a self-recursive tail call if it calls the method where it
+ * occurs and its result is immediately returned. If the method is not
+ * redefined for the possible run-time classes of the receiver, the call always
+ * reaches the method itself: it is replaced by the assignment of the actual
+ * parameters to the formal parameters, followed by a jump back to the
+ * beginning of the method. If the receiver is not {@code this}, as in a
+ * walk over a linked list, it is checked against {@code nil} and assigned
+ * to local variable 0 as well. The resulting loop runs in constant stack space.
+ *
+ * @author Federico Bianchi
+ */
+
+public class TailCallElimination {
+
+	/**
+	 * The program whose code gets optimised.
+	 */
+
+	private final Program program;
+
+	/**
+	 * The number of tail calls eliminated so far.
+	 */
+
+	private int eliminated;
+
+	/**
+	 * Builds the optimiser for the given program.
+	 *
+	 * @param program the program
+	 */
+
+	public TailCallElimination(Program program) {
+		this.program = program;
+	}
+
+	/**
+	 * Yields the number of tail calls eliminated so far.
+	 *
+	 * @return the number of tail calls
+	 */
+
+	public int getEliminated() {
+		return eliminated;
+	}
+
+	/**
+	 * Eliminates the self-recursive tail calls of all methods of the program.
+	 */
+
+	public void optimise() {
+		for (ClassMemberSignature sig: program.getSigs())
+			// static methods, such as main, have no receiver
+			if (sig instanceof MethodSignature && !((MethodSignature) sig).isStatic())
+				optimise((MethodSignature) sig);
+	}
+
+	/**
+	 * Eliminates the self-recursive tail calls of a method.
+	 *
+	 * @param method the method
+	 */
+
+	private void optimise(MethodSignature method) {
+		Block entry = method.getCode();
+		String[] names = method.getParameterNames();
+
+		for (Block block: new CodeGraph(method).getBlocks()) {
+			List<Bytecode> code = new ArrayList<>();
+			for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+				if (!(cursor.getHead() instanceof NOP))
+					code.add(cursor.getHead());
+
+			int call = tailCall(block, code, method);
+			if (call >= 0) {
+				int receiver = receiverPosition(code, call);
+
+				if (receiver >= 0) {
+					List<Type> parameters = new ArrayList<>();
+					for (TypeList cursor = method.getParameters(); cursor != TypeList.EMPTY; cursor = cursor.getTail())
+						parameters.add(cursor.getHead());
+
+					// if the receiver is this, it is not needed anymore
+					boolean self = isThis(code.get(receiver));
+
+					List<Bytecode> result = new ArrayList<>(code.subList(0, self ? receiver : call));
+					if (self)
+						result.addAll(code.subList(receiver + 1, call));
+
+					// the actual parameters are stored into the formal parameters, the last one being on top of the stack
+					int line = code.get(call).getLine();
+					for (int par = parameters.size(); par > 0; par--)
+						result.add(new STORE(line, par, parameters.get(par - 1), names != null ? names[par - 1] : null));
+
+					// otherwise, the receiver becomes the new this
+					if (!self) {
+						result.add(new NULLCHECK(line));
+						result.add(new STORE(line, 0, method.getDefiningClass(), "this"));
+					}
+
+					BytecodeList bytecode = null;
+					for (int pos = result.size() - 1; pos >= 0; pos--)
+						bytecode = new BytecodeList(result.get(pos), bytecode);
+
+					List<Block> follows = new ArrayList<>();
+					follows.add(entry);
+					block.setBytecode(bytecode != null ? bytecode : new BytecodeList(new NOP(line)));
+					block.setFollows(follows);
+
+					// the beginning of the method is now the head of a loop
+					entry.setLoopHead(true);
+					entry.doNotMerge();
+
+					eliminated++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Yields the position of the self-recursive tail call of a block, if any.
+	 * The call can be followed by the {@code return} in the same block
+	 * or in the only following block, if that contains just the {@code return}.
+	 *
+	 * @param block the block
+	 * @param code the bytecodes of {@code block}, without {@code nop}'s
+	 * @param method the method containing {@code block}
+	 * @return the position of the call inside {@code code}, or -1 if there is none
+	 */
+
+	private static int tailCall(Block block, List<Bytecode> code, MethodSignature method) {
+		int call;
+
+		if (code.size() >= 2 && code.get(code.size() - 1) instanceof RETURN && block.getFollows().isEmpty())
+			call = code.size() - 2;
+		else if (!code.isEmpty() && block.getFollows().size() == 1 && isReturn(block.getFollows().get(0)))
+			call = code.size() - 1;
+		else
+			return -1;
+
+		// the call must always reach the method itself
+		Bytecode bytecode = code.get(call);
+		if (bytecode instanceof VIRTUALCALL && ((CALL) bytecode).getStaticTarget() == method
+				&& ((CALL) bytecode).getDynamicTargets().size() == 1)
+			return call;
+		else
+			return -1;
+	}
+
+	/**
+	 * Determines if a block contains just a {@code return}, possibly with some {@code nop}'s.
+	 *
+	 * @param block the block
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isReturn(Block block) {
+		for (BytecodeList cursor = block.getBytecode(); cursor != null; cursor = cursor.getTail())
+			if (cursor.getHead() instanceof RETURN)
+				return cursor.getTail() == null;
+			else if (!(cursor.getHead() instanceof NOP))
+				return false;
+
+		return false;
+	}
+
+	/**
+	 * Yields the position of the bytecode that pushes the receiver of a call
+	 * on the stack, if the stack is empty below the receiver, so that the call
+	 * can jump back to the beginning of the method.
+	 *
+	 * @param code the code containing the call
+	 * @param call the position of the call inside {@code code}
+	 * @return the position of the bytecode that pushes the receiver, or -1
+	 *         if it is not in {@code code} or the stack might not be empty below the receiver
+	 */
+
+	private static int receiverPosition(List<Bytecode> code, int call) {
+		// the position of the bytecodes that pushed each element of the stack.
+		// The elements pushed by other blocks are not considered
+		List<Integer> stack = new ArrayList<>();
+		int start = 0;
+
+		// a branching bytecode at the beginning of a block consumes the values pushed by its predecessor
+		if (!code.isEmpty() && (code.get(0) instanceof BranchingComparisonBytecode
+				|| code.get(0) instanceof BranchingConstantComparisonBytecode))
+			start = 1;
+
+		for (int pos = start; pos < call; pos++) {
+			Bytecode bytecode = code.get(pos);
+			if (!(bytecode instanceof NonBranchingBytecode))
+				return -1;
+
+			int pops = ((NonBranchingBytecode) bytecode).getPops(), pushes = ((NonBranchingBytecode) bytecode).getPushes();
+			if (pops > stack.size())
+				return -1;
+
+			for (int count = 0; count < pops; count++)
+				stack.remove(stack.size() - 1);
+
+			for (int count = 0; count < pushes; count++)
+				stack.add(pos);
+		}
+
+		int receiver = stack.size() - ((CALL) code.get(call)).getStaticTarget().getParameters().getSize() - 1;
+		if (receiver != 0)
+			return -1;
+
+		return stack.get(0);
+	}
+
+	/**
+	 * Determines if a bytecode loads local variable 0, that is, {@code this}.
+	 *
+	 * @param bytecode the bytecode
+	 * @return true if and only if that is the case
+	 */
+
+	private static boolean isThis(Bytecode bytecode) {
+		return bytecode instanceof LOAD && ((LOAD) bytecode).getVarNum() == 0;
+	}
+}
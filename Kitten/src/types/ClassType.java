@@ -12,6 +12,7 @@ import java.util.Set;
 
 import lexical.Lexer;
 import syntactical.Parser;
+import translation.Options;
 import translation.Program;
 import absyn.ClassDefinition;
 import errorMsg.ErrorMsg;
@@ -154,6 +155,34 @@ public final class ClassType extends ReferenceType {
 		this.superclass = superclass;
 	}
 
+	/**
+	 * Constructs a class type with the given name and superclass, without
+	 * looking for its source file. It has no fields, no constructors and no
+	 * methods: they are added later by whoever builds the class type.
+	 *
+	 * @param name the name of the class
+	 * @param superclass the superclass of the class, or {@code null} if the class is {@code Object}
+	 */
+
+	private ClassType(String name, ClassType superclass) {
+		this.name = name;
+		this.subclasses = new ArrayList<>();
+		this.superclass = superclass;
+		memory.put(name, this);
+
+		// there is nothing to type-check in this class
+		this.typeChecked = true;
+
+		if (superclass != null) {
+			superclass.subclasses.add(this);
+			this.abstractSyntax = new ClassDefinition(0, name, superclass.getName(), null);
+		}
+		else {
+			setObjectType(this);
+			this.abstractSyntax = new ClassDefinition(0, name, null, null);
+		}
+	}
+
 	/**
 	 * Yields the superclass of this class type, if any.
 	 *
@@ -174,6 +203,18 @@ public final class ClassType extends ReferenceType {
 		return subclasses;
 	}
 
+	/**
+	 * Determines if this class can be compiled as a final Java class.
+	 * This is the case when optimisations are enabled and this class has
+	 * no subclasses, since the compiler sees the whole program.
+	 *
+	 * @return true if and only if this class can be compiled as final
+	 */
+
+	public boolean isFinal() {
+		return Options.get().getOptimisationLevel() >= 1 && subclasses.isEmpty();
+	}
+
 	/**
 	 * Yields the name of this class.
 	 * 
@@ -587,16 +628,18 @@ public final class ClassType extends ReferenceType {
 	/**
 	 * Translates a Kitten type into its BCEL equivalent. It generates an
 	 * {@code org.apache.bcel.generic.ObjectType} for the name of this class.
-	 * For {@code String}, it generates one for {@code runTime.String}.
+	 * For an intrinsic class, such as {@code String}, it generates one for
+	 * the Java class that implements it, such as {@code runTime.String}.
 	 *
 	 * @return the BCEL type corresponding to this Kitten type
 	 */
 
 	@Override
 	public final org.apache.bcel.generic.Type toBCEL() {
-		// we transform "String" into "runTime.String"
-		if (name.equals("String"))
-			return new org.apache.bcel.generic.ObjectType(runTime.String.class.getName());
+		// we transform, for instance, "String" into "runTime.String"
+		String implementation = Intrinsics.getImplementation(name);
+		if (implementation != null)
+			return new org.apache.bcel.generic.ObjectType(implementation);
 		else
 			return new org.apache.bcel.generic.ObjectType(name.toString());
 	}
@@ -629,6 +672,25 @@ public final class ClassType extends ReferenceType {
 			return new ClassType(name);
 	}
 
+	/**
+	 * Yields a class type with the given name and superclass, whose members
+	 * are not read from its source file. This is used for the classes of
+	 * a program whose Kitten code is loaded from a file, without parsing
+	 * nor type-checking its sources. The members must be added by the caller.
+	 *
+	 * @param name the name of the class
+	 * @param superclass the superclass of the class, or {@code null} if the class is {@code Object}
+	 * @return the class type
+	 * @throws IllegalStateException if a class type with the given name already exists
+	 */
+
+	public static ClassType mkWithoutSource(String name, ClassType superclass) {
+		if (memory.containsKey(name))
+			throw new IllegalStateException("Class " + name + " already exists");
+
+		return new ClassType(name, superclass);
+	}
+
 	/**
 	 * Yields a class type with the given file name. If a class type object
 	 * with this name already exists, that object is returned. Otherwise, if a
@@ -651,6 +713,9 @@ public final class ClassType extends ReferenceType {
 
 		result.typeCheck();
 
+		// all classes of the program have been created by now
+		computeOverriddenMethods();
+
 		return result;
 	}
 
@@ -664,6 +729,25 @@ public final class ClassType extends ReferenceType {
 		return memory.values();
 	}
 
+	/**
+	 * Takes note of the methods that are overridden in some subclass of their
+	 * defining class. It must be called once all classes of the program have been
+	 * created, with their methods, since it looks at every class created so far.
+	 * Each method marks the method that it redefines in the closest superclass,
+	 * so that the whole program is scanned only once.
+	 */
+
+	public static void computeOverriddenMethods() {
+		for (ClassType clazz: memory.values())
+			if (clazz.superclass != null)
+				for (Set<MethodSignature> methods: clazz.methods.values())
+					for (MethodSignature method: methods) {
+						MethodSignature redefined = clazz.superclass.methodLookup(method.getName(), method.getParameters());
+						if (redefined != null)
+							redefined.setOverridden();
+					}
+	}
+
 	/**
 	 * Yields the error reporting utility for this class.
 	 *
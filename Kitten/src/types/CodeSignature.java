@@ -1,11 +1,16 @@
 package types;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javaBytecodeGenerator.AbstractClassGenerator;
 
 import org.apache.bcel.generic.InvokeInstruction;
 
 import translation.Block;
+import translation.CodeLoader;
 import absyn.CodeDeclaration;
+import absyn.FormalParameters;
 
 /**
  * The signature of a piece of code of a Kitten class.
@@ -41,6 +46,14 @@ public abstract class CodeSignature extends ClassMemberSignature {
 
     private Block code;
 
+    /**
+     * The loader of the intermediate Kitten code for this constructor or method,
+     * if it has not been decoded yet. This is {@code null} if the code
+     * has been translated from the source of the constructor or method.
+     */
+
+    private CodeLoader loader;
+
     /**
      * Builds a signature for a code object.
      *
@@ -128,6 +141,25 @@ public abstract class CodeSignature extends ClassMemberSignature {
     	return (CodeDeclaration) super.getAbstractSyntax();
     }
 
+    /**
+     * Yields the names of the parameters, as declared in the source code.
+     *
+     * @return the names of the parameters, or {@code null} if they are not known,
+     *         as for the code outlined by the compiler or loaded from a {@code .kbc} file
+     */
+
+    public String[] getParameterNames() {
+    	CodeDeclaration declaration = getAbstractSyntax();
+    	if (declaration == null)
+    		return null;
+
+    	List<String> names = new ArrayList<>();
+    	for (FormalParameters formals = declaration.getFormals(); formals != null; formals = formals.getNext())
+    		names.add(formals.getName());
+
+    	return names.size() == parameters.getSize() ? names.toArray(new String[names.size()]) : null;
+    }
+
     /**
      * Yields the types of the stack elements which must be on top of the
      * stack when one calls this method or constructor.
@@ -149,9 +181,27 @@ public abstract class CodeSignature extends ClassMemberSignature {
      */
 
     public Block getCode() {
+    	// the code is decoded the first time it is needed
+    	if (code == null && loader != null) {
+    		code = loader.load(this);
+    		loader = null;
+    	}
+
     	return code;
     }
 
+    /**
+     * Specifies that the Kitten code of this constructor or method must be
+     * provided by the given loader, the first time it is needed. That code
+     * already contains the prefix expected for this constructor or method.
+     *
+     * @param loader the loader
+     */
+
+    public void setCodeLoader(CodeLoader loader) {
+    	this.loader = loader;
+    }
+
     /**
      * Sets the Kitten code of this constructor or method, adding
      * automatically the prefix expected for it.
@@ -4,6 +4,7 @@ import javaBytecodeGenerator.AbstractClassGenerator;
 import javaBytecodeGenerator.JavaClassGenerator;
 
 import org.apache.bcel.Constants;
+import org.apache.bcel.classfile.Method;
 import org.apache.bcel.generic.INVOKESPECIAL;
 import org.apache.bcel.generic.InstructionFactory;
 import org.apache.bcel.generic.InstructionList;
@@ -96,6 +97,8 @@ public class ConstructorSignature extends CodeSignature {
 			il, // bytecode of the constructor
 			classGen.getConstantPool()); // constant pool
 
+		classGen.addDebugInformation(methodGen, this, true);
+
 		// we must always call these methods before the <tt>getMethod()</tt>
 		// method below. They set the number of local variables and stack
 		// elements used by the code of the method
@@ -103,7 +106,9 @@ public class ConstructorSignature extends CodeSignature {
 		methodGen.setMaxLocals();
 		
 		// we add a method (actually, constructor) to the class that we are generating
-		classGen.addMethod(methodGen.getMethod());
+		Method method = methodGen.getMethod();
+		classGen.addMethod(method);
+		classGen.setCodeSize(this, method.getCode().getCode().length);
 	}
 	
 	/**
@@ -121,8 +126,9 @@ public class ConstructorSignature extends CodeSignature {
 		if (!getDefiningClass().getName().equals("Object")) {
 			ClassType superclass = getDefiningClass().getSuperclass();
 
-			code = new LOAD(0, getDefiningClass()).followedBy
-				(new CONSTRUCTORCALL(superclass.constructorLookup(TypeList.EMPTY))
+			// this implicit call has no line of its own in the source code
+			code = new LOAD(0, 0, getDefiningClass()).followedBy
+				(new CONSTRUCTORCALL(0, superclass.constructorLookup(TypeList.EMPTY))
 				.followedBy(code));
 		}
 
@@ -0,0 +1,218 @@
+package types;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The registry of the intrinsic classes of Kitten. An intrinsic class is
+ * declared in Kitten by a stub {@code .kit} file, whose constructors and
+ * methods have a dummy body, but it is implemented by a Java class of
+ * the {@code runTime} package, with the same constructors and methods.
+ * The Java bytecode of a Kitten program refers directly to the latter,
+ * so that the calls to the intrinsic methods are direct calls to their
+ * Java implementation. Intrinsic classes are neither compiled nor inlined.
+ * Since their Kitten code is a dummy, the registry also records which of
+ * their constructors and methods are pure and which have no side-effects.
+ * The registry is keyed by the name of the Kitten class, hence a class with
+ * the name of an intrinsic class must be the stub of its Java implementation:
+ * see {@link #isImplemented(CodeSignature)}.
+ *
+ * @author Federico Bianchi
+ */
+
+public final class Intrinsics {
+
+	/**
+	 * A map from the name of each intrinsic Kitten class to the Java class
+	 * that implements it.
+	 */
+
+	private final static Map<String, Class<?>> implementations = new HashMap<>();
+
+	/**
+	 * A map from the name of each intrinsic Kitten class to the names of its
+	 * pure constructors and methods, that have no side-effects, do not read
+	 * mutable state and perform no input nor output.
+	 */
+
+	private final static Map<String, Set<String>> pure = new HashMap<>();
+
+	/**
+	 * A map from the name of each intrinsic Kitten class to the names of its
+	 * constructors and methods that have no side-effects and perform no input
+	 * nor output, but might read mutable state.
+	 */
+
+	private final static Map<String, Set<String>> sideEffectFree = new HashMap<>();
+
+	static {
+		// input() modifies a string in place, hence its other methods read mutable state
+		register("String", runTime.String.class, members(), members("<init>", "length", "equals", "concat"));
+		register("Math", runTime.Math.class, members("<init>", "min", "max", "abs", "sqrt"), members());
+		// the keyboard has no state of its own, but reading from it is input
+		register("Keyboard", runTime.Keyboard.class, members("<init>"), members());
+		register("ArrayUtils", runTime.ArrayUtils.class, members(), members());
+		register("IntList", runTime.IntList.class, members(), members());
+		register("FloatList", runTime.FloatList.class, members(), members());
+	}
+
+	private Intrinsics() {}
+
+	/**
+	 * Takes note that the Kitten class with the given name is implemented
+	 * by the given Java class.
+	 *
+	 * @param name the name of the Kitten class
+	 * @param implementation the Java class
+	 * @param pureMembers the names of the pure constructors and methods of the class
+	 * @param readers the names of the constructors and methods of the class that
+	 *                have no side-effects but read mutable state
+	 */
+
+	private static void register(String name, Class<?> implementation, Set<String> pureMembers, Set<String> readers) {
+		implementations.put(name, implementation);
+		pure.put(name, pureMembers);
+
+		Set<String> free = new HashSet<>(pureMembers);
+		free.addAll(readers);
+		sideEffectFree.put(name, free);
+	}
+
+	/**
+	 * Yields a set of names of constructors and methods.
+	 *
+	 * @param names the names
+	 * @return the set of {@code names}
+	 */
+
+	private static Set<String> members(String... names) {
+		return new HashSet<>(Arrays.asList(names));
+	}
+
+	/**
+	 * Determines if a Kitten class is intrinsic.
+	 *
+	 * @param clazz the Kitten class
+	 * @return true if and only if {@code clazz} is implemented in Java
+	 */
+
+	public static boolean isIntrinsic(ClassType clazz) {
+		return implementations.containsKey(clazz.getName());
+	}
+
+	/**
+	 * Yields the name of the Java class that implements a Kitten class.
+	 *
+	 * @param name the name of the Kitten class
+	 * @return the fully qualified name of the Java class, or {@code null}
+	 *         if the Kitten class is not intrinsic
+	 */
+
+	public static String getImplementation(String name) {
+		Class<?> implementation = implementations.get(name);
+		return implementation == null ? null : implementation.getName();
+	}
+
+	/**
+	 * Determines if a constructor or method of an intrinsic class is pure,
+	 * that is, has no side-effects, does not read mutable state and performs
+	 * no input nor output.
+	 *
+	 * @param sig the constructor or method
+	 * @return true if and only if {@code sig} is defined in an intrinsic class and is pure
+	 */
+
+	public static boolean isPure(CodeSignature sig) {
+		Set<String> members = pure.get(sig.getDefiningClass().getName());
+		return members != null && members.contains(sig.getName());
+	}
+
+	/**
+	 * Determines if a constructor or method of an intrinsic class has no
+	 * side-effects and performs no input nor output. Differently from
+	 * {@link #isPure(CodeSignature)}, it might read mutable state.
+	 *
+	 * @param sig the constructor or method
+	 * @return true if and only if {@code sig} is defined in an intrinsic class and has no side-effects
+	 */
+
+	public static boolean isSideEffectFree(CodeSignature sig) {
+		Set<String> members = sideEffectFree.get(sig.getDefiningClass().getName());
+		return members != null && members.contains(sig.getName());
+	}
+
+	/**
+	 * Determines if a constructor or method of an intrinsic class is implemented
+	 * by a public constructor or method of its Java class, with the same name,
+	 * parameters and return type. Otherwise, the Kitten class is not the stub of
+	 * the intrinsic class, but a class of the program with the same name.
+	 *
+	 * @param sig the constructor or method
+	 * @return true if and only if {@code sig} is defined in an intrinsic class and is implemented in Java
+	 */
+
+	public static boolean isImplemented(CodeSignature sig) {
+		Class<?> implementation = implementations.get(sig.getDefiningClass().getName());
+		if (implementation == null)
+			return false;
+
+		List<Class<?>> parameters = new ArrayList<>();
+		for (TypeList cursor = sig.getParameters(); cursor != TypeList.EMPTY; cursor = cursor.getTail()) {
+			Class<?> parameter = toJava(cursor.getHead());
+			if (parameter == null)
+				return false;
+
+			parameters.add(parameter);
+		}
+
+		Class<?>[] formals = parameters.toArray(new Class<?>[parameters.size()]);
+
+		try {
+			if (sig instanceof ConstructorSignature) {
+				implementation.getConstructor(formals);
+				return true;
+			}
+			else {
+				Method method = implementation.getMethod(sig.getName(), formals);
+				return !Modifier.isStatic(method.getModifiers()) && method.getReturnType() == toJava(sig.getReturnType());
+			}
+		}
+		catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Yields the Java class of the values of a Kitten type, in the Java implementation of an intrinsic class.
+	 *
+	 * @param type the Kitten type
+	 * @return the Java class, or {@code null} if {@code type} cannot be used by an intrinsic class
+	 */
+
+	private static Class<?> toJava(Type type) {
+		if (type == IntType.INSTANCE)
+			return int.class;
+		else if (type == FloatType.INSTANCE)
+			return float.class;
+		else if (type == BooleanType.INSTANCE)
+			return boolean.class;
+		else if (type == VoidType.INSTANCE)
+			return void.class;
+		else if (type instanceof ArrayType) {
+			Class<?> elements = toJava(((ArrayType) type).getElementsType());
+			return elements == null ? null : Array.newInstance(elements, 0).getClass();
+		}
+		else if (type instanceof ClassType)
+			return implementations.get(((ClassType) type).getName());
+		else
+			return null;
+	}
+}
\ No newline at end of file
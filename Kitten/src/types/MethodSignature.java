@@ -4,11 +4,19 @@ import javaBytecodeGenerator.AbstractClassGenerator;
 import javaBytecodeGenerator.JavaClassGenerator;
 
 import org.apache.bcel.Constants;
+import org.apache.bcel.classfile.Method;
+import org.apache.bcel.generic.IFEQ;
+import org.apache.bcel.generic.INVOKESTATIC;
 import org.apache.bcel.generic.INVOKEVIRTUAL;
+import org.apache.bcel.generic.InstructionFactory;
+import org.apache.bcel.generic.InstructionHandle;
+import org.apache.bcel.generic.InstructionList;
 import org.apache.bcel.generic.MethodGen;
+import org.apache.bcel.generic.ObjectType;
 
 import absyn.MethodDeclaration;
 import translation.Block;
+import translation.Options;
 
 /**
  * The signature of a method of a Kitten class.
@@ -35,6 +43,88 @@ public class MethodSignature extends CodeSignature {
 		super(clazz,returnType,parameters,name,abstractSyntax);
 	}
 
+	/**
+	 * True if and only if this method is overridden in some subclass of its defining class.
+	 * It is computed once for the whole program, by {@link ClassType#computeOverriddenMethods()}.
+	 */
+
+	private boolean overridden;
+
+	/**
+	 * Determines if this method is overridden in some subclass of its defining class.
+	 *
+	 * @return true if and only if some subclass of the defining class of this
+	 *         method redefines a method with the same name and parameters types
+	 */
+
+	public boolean isOverridden() {
+		return overridden;
+	}
+
+	/**
+	 * Takes note that this method is overridden in some subclass of its defining class.
+	 */
+
+	void setOverridden() {
+		overridden = true;
+	}
+
+	/**
+	 * Determines if this method can be compiled as a final Java method.
+	 * This is the case when optimisations are enabled and this method
+	 * is not overridden, since the compiler sees the whole program.
+	 * Static methods, such as {@code main}, are never final.
+	 *
+	 * @return true if and only if this method can be compiled as final
+	 */
+
+	public boolean isFinal() {
+		return Options.get().getOptimisationLevel() >= 1 && !isStatic() && !isOverridden();
+	}
+
+	/**
+	 * Determines if the results of this method must be memoized.
+	 *
+	 * @return true if and only if this method has been declared as {@code memo method}
+	 */
+
+	public boolean isMemo() {
+		return ((MethodDeclaration) getAbstractSyntax()).isMemo();
+	}
+
+	/**
+	 * Determines if this method has been generated by the compiler for the body of a parallel loop.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	public boolean isParallelBody() {
+		return ((MethodDeclaration) getAbstractSyntax()).isParallelBody();
+	}
+
+	/**
+	 * Determines if this method has no receiver. This is the case of
+	 * {@code main} and of the bodies of the parallel loops inside {@code main}.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	public boolean isStatic() {
+		return ((MethodDeclaration) getAbstractSyntax()).isStatic();
+	}
+
+	/**
+	 * Determines if this method has been generated by the back-end of the
+	 * compiler for some code outlined from a method or constructor that is too large.
+	 * Such methods are compiled as private and static Java methods.
+	 *
+	 * @return true if and only if that is the case
+	 */
+
+	public boolean isOutlined() {
+		return ((MethodDeclaration) getAbstractSyntax()).isOutlined();
+	}
+
 	/**
 	 * Generates an {@code invokevirtual} Java bytecode that calls this
 	 * method. The Java {@code invokevirtual} bytecode calls a method by using
@@ -49,13 +139,34 @@ public class MethodSignature extends CodeSignature {
 		return (INVOKEVIRTUAL) createInvokeInstruction(classGen,Constants.INVOKEVIRTUAL);
 	}
 
+	/**
+	 * Generates an {@code invokestatic} Java bytecode that calls this
+	 * method, that must have no receiver.
+	 *
+	 * @param classGen the class generator to be used to generate
+	 *                 the {@code invokestatic} Java bytecode
+	 * @return an {@code invokestatic} Java bytecode that calls this method
+	 */
+
+	public INVOKESTATIC createINVOKESTATIC(AbstractClassGenerator classGen) {
+		return (INVOKESTATIC) createInvokeInstruction(classGen, Constants.INVOKESTATIC);
+	}
+
 	/**
 	 * Adds the the given class generator a Java bytecode method for this method.
+	 * If this method is memoized, its code is put into a private method and
+	 * this method is compiled into a lookup of the result in a cache,
+	 * as described in {@link #createMemoizedMethod(JavaClassGenerator)}.
 	 *
 	 * @param classGen the generator of the class where the method lives
 	 */
 
 	public void createMethod(JavaClassGenerator classGen) {
+		if (isMemo()) {
+			createMemoizedMethod(classGen);
+			return;
+		}
+
 		MethodGen methodGen;
 		if (getName().equals("main"))
 			methodGen = new MethodGen
@@ -70,7 +181,9 @@ public class MethodSignature extends CodeSignature {
 				classGen.getConstantPool()); // constant pool
 		else
 			methodGen = new MethodGen
-				(Constants.ACC_PUBLIC, // public
+				(isOutlined() ? Constants.ACC_PRIVATE | Constants.ACC_STATIC | Constants.ACC_SYNTHETIC // only called by its class
+					: isStatic() ? Constants.ACC_PUBLIC | Constants.ACC_STATIC // public and static
+					: isFinal() ? Constants.ACC_PUBLIC | Constants.ACC_FINAL : Constants.ACC_PUBLIC, // public, possibly final
 				getReturnType().toBCEL(), // return type
 				getParameters().toBCEL(), // parameters types, if any
 				null, // parameters names: we do not care
@@ -79,6 +192,10 @@ public class MethodSignature extends CodeSignature {
 				classGen.generateJavaBytecode(getCode()), // bytecode of the method
 				classGen.getConstantPool()); // constant pool
 
+		// main has no Kitten parameters, but the array of the command-line arguments
+		boolean main = getName().equals("main");
+		classGen.addDebugInformation(methodGen, main ? null : this, !main && !isStatic());
+
 		// we must always call these methods before the getMethod()
 		// method below. They set the number of local variables and stack
 		// elements used by the code of the method
@@ -86,6 +203,108 @@ public class MethodSignature extends CodeSignature {
 		methodGen.setMaxLocals();
 
 		// we add a method to the class that we are generating
+		Method method = methodGen.getMethod();
+		classGen.addMethod(method);
+		classGen.setCodeSize(this, method.getCode().getCode().length);
+	}
+
+	/**
+	 * Adds to the given class generator the Java bytecode methods for this
+	 * memoized method. Its code is compiled into a private method, whose name
+	 * is that of this method followed by {@code $body}. This method is compiled into
+	 * <br><br>
+	 * {@code key = $memo.key(this, n).add(par_1)...add(par_n)}<br>
+	 * {@code if (key.find()) return key.get()}<br>
+	 * {@code else return key.put(name$body(par_1, ..., par_n))}
+	 * <br><br>
+	 * where {@code $memo} is a static field of the class that holds the cache
+	 * of the results of this method. Recursive calls go through the cache as well.
+	 *
+	 * @param classGen the generator of the class where the method lives
+	 */
+
+	private void createMemoizedMethod(JavaClassGenerator classGen) {
+		org.apache.bcel.generic.Type returnType = getReturnType().toBCEL();
+		org.apache.bcel.generic.Type[] parameters = getParameters().toBCEL();
+		String bodyName = getName() + "$body";
+
+		MethodGen methodGen = new MethodGen
+			(Constants.ACC_PRIVATE | Constants.ACC_FINAL, // private, since it is only called by this method
+			returnType, // return type
+			parameters, // parameters types, if any
+			null, // parameters names: we do not care
+			bodyName, // method's name
+			classGen.getClassName(), // defining class
+			classGen.generateJavaBytecode(getCode()), // bytecode of the method
+			classGen.getConstantPool()); // constant pool
+
+		classGen.addDebugInformation(methodGen, this, true);
+		methodGen.setMaxStack();
+		methodGen.setMaxLocals();
+		Method bodyMethod = methodGen.getMethod();
+		classGen.addMethod(bodyMethod);
+		classGen.setCodeSize(this, bodyMethod.getCode().getCode().length);
+
+		InstructionFactory factory = classGen.getFactory();
+		String memoName = runTime.Memo.class.getName(), keyName = runTime.Memo.Key.class.getName();
+		ObjectType key = new ObjectType(keyName);
+		String suffix = getReturnType().toString().substring(0, 1).toUpperCase() + getReturnType().toString().substring(1);
+
+		// the parameters are primitive, hence each of them uses a single local variable
+		int keyVar = parameters.length + 1;
+
+		// we build the key of the call
+		InstructionList il = classGen.getMemoCache(this);
+		il.append(InstructionFactory.createLoad(org.apache.bcel.generic.Type.OBJECT, 0));
+		il.append(factory.createConstant(parameters.length));
+		il.append(factory.createInvoke(memoName, "key", key,
+			new org.apache.bcel.generic.Type[] { org.apache.bcel.generic.Type.OBJECT, org.apache.bcel.generic.Type.INT },
+			Constants.INVOKEVIRTUAL));
+
+		for (int pos = 0; pos < parameters.length; pos++) {
+			il.append(InstructionFactory.createLoad(parameters[pos], pos + 1));
+			il.append(factory.createInvoke(keyName, "add", key,
+				new org.apache.bcel.generic.Type[] { parameters[pos] }, Constants.INVOKEVIRTUAL));
+		}
+
+		il.append(InstructionFactory.DUP);
+		il.append(InstructionFactory.createStore(key, keyVar));
+
+		// if the result is known, we return it
+		il.append(factory.createInvoke(keyName, "find", org.apache.bcel.generic.Type.BOOLEAN,
+			org.apache.bcel.generic.Type.NO_ARGS, Constants.INVOKEVIRTUAL));
+		IFEQ ifMissing = new IFEQ(null);
+		il.append(ifMissing);
+		il.append(InstructionFactory.createLoad(key, keyVar));
+		il.append(factory.createInvoke(keyName, "get" + suffix, returnType,
+			org.apache.bcel.generic.Type.NO_ARGS, Constants.INVOKEVIRTUAL));
+		il.append(InstructionFactory.createReturn(returnType));
+
+		// otherwise we compute it through the code of the method and record it
+		InstructionHandle missing = il.append(InstructionFactory.createLoad(key, keyVar));
+		ifMissing.setTarget(missing);
+		il.append(InstructionFactory.createLoad(org.apache.bcel.generic.Type.OBJECT, 0));
+		for (int pos = 0; pos < parameters.length; pos++)
+			il.append(InstructionFactory.createLoad(parameters[pos], pos + 1));
+
+		il.append(factory.createInvoke(classGen.getClassName(), bodyName, returnType, parameters, Constants.INVOKESPECIAL));
+		il.append(factory.createInvoke(keyName, "put", returnType,
+			new org.apache.bcel.generic.Type[] { returnType }, Constants.INVOKEVIRTUAL));
+		il.append(InstructionFactory.createReturn(returnType));
+
+		methodGen = new MethodGen
+			(isFinal() ? Constants.ACC_PUBLIC | Constants.ACC_FINAL : Constants.ACC_PUBLIC, // public, possibly final
+			returnType, // return type
+			parameters, // parameters types, if any
+			null, // parameters names: we do not care
+			getName(), // method's name
+			classGen.getClassName(), // defining class
+			il, // bytecode of the method
+			classGen.getConstantPool()); // constant pool
+
+		classGen.addDebugInformation(methodGen, this, true);
+		methodGen.setMaxStack();
+		methodGen.setMaxLocals();
 		classGen.addMethod(methodGen.getMethod());
 	}
 